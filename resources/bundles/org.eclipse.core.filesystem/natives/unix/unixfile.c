@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 IBM Corporation and others.
+ * Copyright (c) 2010, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -12,6 +12,11 @@
  *     IBM Corporation - initial API and implementation
  *******************************************************************************/
 
+#if defined(__linux__) && !defined(_GNU_SOURCE)
+/* Needed for statx, fstatat and readlinkat */
+#define _GNU_SOURCE
+#endif
+
 #include <stdlib.h>
 #include <string.h>
 #include <sys/types.h>
@@ -21,6 +26,11 @@
 #include <limits.h>
 #include <jni.h>
 
+#if defined(__linux__)
+#include <dirent.h>
+#include <fcntl.h>
+#endif
+
 #if defined MACOSX
 #include <CoreServices/CoreServices.h>
 #endif
@@ -329,3 +339,137 @@ JNIEXPORT jint JNICALL Java_org_eclipse_core_internal_filesystem_local_unix_Unix
 	free(flag);
 	return ret;
 }
+
+#if defined(__linux__)
+
+/* Bits of the flags field of the entries written by readdirstat. */
+#define ENTRY_EXISTS 1
+#define ENTRY_SYMLINK 2
+#define ENTRY_IO_ERROR 4
+
+/* The stat fields of a directory entry written by readdirstat. */
+struct entry_stat {
+	jint mode;
+	jlong size;
+	jlong mtime;
+	jlong mtime_msec;
+};
+
+/*
+ * Stats the given entry of an open directory, using statx where the C library provides it.
+ */
+static int statEntry(int dir_fd, const char *name, int flags, struct entry_stat *result)
+{
+#ifdef STATX_BASIC_STATS
+	struct statx info;
+	if (statx(dir_fd, name, flags, STATX_TYPE | STATX_MODE | STATX_SIZE | STATX_MTIME, &info) != 0)
+		return -1;
+	result->mode = info.stx_mode;
+	result->size = info.stx_size;
+	result->mtime = info.stx_mtime.tv_sec;
+	result->mtime_msec = info.stx_mtime.tv_nsec / (1000 * 1000);
+#else
+	struct stat info;
+	if (fstatat(dir_fd, name, &info, flags) != 0)
+		return -1;
+	result->mode = info.st_mode;
+	result->size = info.st_size;
+	result->mtime = info.st_mtime;
+	result->mtime_msec = info.st_mtim.tv_nsec / (1000 * 1000);
+#endif
+	return 0;
+}
+
+#define PUT(out, pos, value) (memcpy((out) + (pos), &(value), sizeof(value)), (pos) += sizeof(value))
+
+#endif
+
+/*
+ * Class:     org_eclipse_core_internal_filesystem_local_unix_UnixFileNatives
+ * Method:    readdirstat
+ * Signature: ([BLjava/nio/ByteBuffer;)I
+ *
+ * Reads all entries of a directory and stats them, writing one record per entry
+ * into the given direct buffer in native byte order:
+ *   jint name length, name bytes, jint flags, jint st_mode, jlong st_size,
+ *   jlong st_mtime, jlong st_mtime_msec, jint link target length, link target bytes
+ * Returns the number of records, -1 if the directory can't be read,
+ * -2 if the buffer is too small and -3 if not supported on this platform.
+ */
+JNIEXPORT jint JNICALL Java_org_eclipse_core_internal_filesystem_local_unix_UnixFileNatives_readdirstat
+  (JNIEnv *env, jclass clazz, jbyteArray path, jobject buffer)
+{
+#if defined(__linux__)
+	char *name, *out;
+	char link[PATH_MAX];
+	jlong capacity, pos = 0;
+	jint count = 0, name_length, flags, link_length;
+	DIR *dir;
+	struct dirent *entry;
+	struct entry_stat info;
+	int dir_fd, error = 0;
+
+	out = (char*) (*env)->GetDirectBufferAddress(env, buffer);
+	capacity = (*env)->GetDirectBufferCapacity(env, buffer);
+	if (out == NULL || capacity < 0)
+		return -3;
+
+	name = (char*) getByteArray(env, path);
+	dir = opendir(name);
+	free(name);
+	if (dir == NULL)
+		return -1;
+	dir_fd = dirfd(dir);
+
+	while ((entry = readdir(dir)) != NULL) {
+		if (strcmp(entry->d_name, ".") == 0 || strcmp(entry->d_name, "..") == 0)
+			continue;
+		flags = 0;
+		link_length = 0;
+		memset(&info, 0, sizeof(info));
+		if (statEntry(dir_fd, entry->d_name, AT_SYMLINK_NOFOLLOW, &info) == 0) {
+			flags |= ENTRY_EXISTS;
+			if (S_ISLNK(info.mode)) {
+				flags |= ENTRY_SYMLINK;
+				link_length = readlinkat(dir_fd, entry->d_name, link, PATH_MAX);
+				if (link_length < 0)
+					link_length = 0;
+				/* describe the link target, like stat does */
+				memset(&info, 0, sizeof(info));
+				if (statEntry(dir_fd, entry->d_name, 0, &info) != 0) {
+					flags &= ~ENTRY_EXISTS;
+					if (errno != ENOENT)
+						flags |= ENTRY_IO_ERROR;
+				}
+			}
+		} else if (errno == ENOENT) {
+			/* deleted since the directory was read */
+			continue;
+		} else {
+			flags |= ENTRY_IO_ERROR;
+		}
+
+		name_length = strlen(entry->d_name);
+		if (pos + 4 * sizeof(jint) + 3 * sizeof(jlong) + name_length + link_length > capacity) {
+			error = -2;
+			break;
+		}
+		PUT(out, pos, name_length);
+		memcpy(out + pos, entry->d_name, name_length);
+		pos += name_length;
+		PUT(out, pos, flags);
+		PUT(out, pos, info.mode);
+		PUT(out, pos, info.size);
+		PUT(out, pos, info.mtime);
+		PUT(out, pos, info.mtime_msec);
+		PUT(out, pos, link_length);
+		memcpy(out + pos, link, link_length);
+		pos += link_length;
+		count++;
+	}
+	closedir(dir);
+	return error != 0 ? error : count;
+#else
+	return -3;
+#endif
+}
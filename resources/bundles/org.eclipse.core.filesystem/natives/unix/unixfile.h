@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 IBM Corporation and others.
+ * Copyright (c) 2010, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -119,6 +119,14 @@ JNIEXPORT jbyteArray JNICALL Java_org_eclipse_core_internal_filesystem_local_uni
 JNIEXPORT jint JNICALL Java_org_eclipse_core_internal_filesystem_local_unix_UnixFileNatives_getflag
   (JNIEnv *, jclass, jbyteArray);
 
+/*
+ * Class:     org_eclipse_core_internal_filesystem_local_unix_UnixFileNatives
+ * Method:    readdirstat
+ * Signature: ([BLjava/nio/ByteBuffer;)I
+ */
+JNIEXPORT jint JNICALL Java_org_eclipse_core_internal_filesystem_local_unix_UnixFileNatives_readdirstat
+  (JNIEnv *, jclass, jbyteArray, jobject);
+
 #ifdef __cplusplus
 }
 #endif
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2008 IBM Corporation and others.
+ * Copyright (c) 2005, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,6 +14,7 @@
 package org.eclipse.core.filesystem;
 
 import java.net.URI;
+import java.util.function.Predicate;
 import org.eclipse.core.filesystem.provider.FileSystem;
 import org.eclipse.core.runtime.*;
 
@@ -81,6 +82,48 @@ public interface IFileSystem extends IAdaptable {
 	 */
 	public IFileTree fetchFileTree(IFileStore root, IProgressMonitor monitor) throws CoreException;
 
+	/**
+	 * Returns a file tree containing information about the sub-tree rooted at
+	 * the given store, down to the given depth.  Returns <code>null</code> if this
+	 * file system does not support the creation of such file trees.
+	 * <p>
+	 * Unlike {@link #fetchFileTree(IFileStore, IProgressMonitor)}, file systems may
+	 * fetch the information of several directories concurrently. This allows
+	 * clients that are about to visit a whole sub-tree to hide the latency of
+	 * file systems where each request is slow, such as network mounts.
+	 * </p>
+	 * <p>
+	 * Clients may pass a filter to exclude directories they are not going to
+	 * visit, for example because they are hidden from the client by other means.
+	 * The children of excluded directories are not fetched up front, but the
+	 * returned tree still provides them when asked for.
+	 * </p>
+	 * <p>
+	 * The default implementation ignores the depth and the filter and
+	 * returns the result of {@link #fetchFileTree(IFileStore, IProgressMonitor)}.
+	 * </p>
+	 *
+	 * @param root The store to use as the root of the file tree
+	 * @param depth The number of directory levels below the root whose children
+	 *    are fetched, or {@link Integer#MAX_VALUE} for the complete sub-tree
+	 * @param filter Tests the path of a directory relative to the root and returns
+	 *    whether its children should be fetched, or <code>null</code> to fetch
+	 *    all directories
+	 * @param monitor a progress monitor, or <code>null</code> if progress
+	 *    reporting and cancellation are not desired
+	 * @return an {@link IFileTree} containing the sub-tree of the given store,
+	 * or <code>null</code>
+	 * @exception CoreException if this method fails. Reasons include:
+	 * <ul>
+	 * <li>Problems occurred while contacting the file system.</li>
+	 * </ul>
+	 * @see IFileTree
+	 * @since org.eclipse.core.filesystem 1.11
+	 */
+	public default IFileTree fetchFileTree(IFileStore root, int depth, Predicate<IPath> filter, IProgressMonitor monitor) throws CoreException {
+		return fetchFileTree(root, monitor);
+	}
+
 	/**
 	 * Returns the file store in this file system corresponding to the
 	 * given local file.  Returns <code>null</code> if this file system
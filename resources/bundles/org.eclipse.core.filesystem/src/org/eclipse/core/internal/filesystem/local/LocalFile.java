@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -20,7 +20,11 @@ package org.eclipse.core.internal.filesystem.local;
 
 import java.io.*;
 import java.net.URI;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
 import org.eclipse.core.filesystem.*;
 import org.eclipse.core.filesystem.URIUtil;
 import org.eclipse.core.filesystem.provider.FileInfo;
@@ -49,6 +53,75 @@ public class LocalFile extends FileStore {
 	 */
 	private URI uri;
 
+	/**
+	 * The maximum number of bytes handed to the kernel in a single transfer
+	 * when copying a file, so that progress can be reported for large files.
+	 */
+	private static final long TRANSFER_CHUNK_SIZE = 8 * 1024 * 1024;
+
+	/**
+	 * Lazily created pool used to copy the children of a directory in parallel.
+	 */
+	private static class CopyPool {
+		static final ForkJoinPool INSTANCE = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+	}
+
+	/**
+	 * Monitor shared by the tasks copying the children of one directory. It is
+	 * canceled when the parent monitor is canceled or when one of the children
+	 * fails, so that the remaining siblings stop early.
+	 */
+	private static class CopyMonitor extends NullProgressMonitor {
+		private final IProgressMonitor parent;
+		private volatile boolean canceled;
+
+		CopyMonitor(IProgressMonitor parent) {
+			this.parent = parent;
+		}
+
+		@Override
+		public boolean isCanceled() {
+			return canceled || parent.isCanceled();
+		}
+
+		@Override
+		public void setCanceled(boolean value) {
+			canceled = value;
+		}
+	}
+
+	/**
+	 * Copies one child of a directory and returns its failure, if any. The
+	 * task never completes abnormally, so every task can be joined.
+	 */
+	private static class CopyTask extends RecursiveTask<Throwable> {
+		private static final long serialVersionUID = 1L;
+		private final IFileStore source;
+		private final IFileStore destination;
+		private final int options;
+		private final transient CopyMonitor monitor;
+
+		CopyTask(IFileStore source, IFileStore destination, int options, CopyMonitor monitor) {
+			this.source = source;
+			this.destination = destination;
+			this.options = options;
+			this.monitor = monitor;
+		}
+
+		@Override
+		protected Throwable compute() {
+			if (monitor.isCanceled())
+				return new OperationCanceledException();
+			try {
+				source.copy(destination, options, monitor);
+				return null;
+			} catch (CoreException | RuntimeException | Error e) {
+				monitor.setCanceled(true);
+				return e;
+			}
+		}
+	}
+
 	private static int attributes(File aFile) {
 		if (!aFile.exists() || aFile.canWrite())
 			return EFS.NONE;
@@ -98,6 +171,11 @@ public class LocalFile extends FileStore {
 		}
 	}
 
+	@Override
+	public IFileInfo[] childInfos(int options, IProgressMonitor monitor) {
+		return LocalFileNativesManager.fetchChildInfos(filePath);
+	}
+
 	@Override
 	public String[] childNames(int options, IProgressMonitor monitor) {
 		String[] names = file.list();
@@ -126,6 +204,140 @@ public class LocalFile extends FileStore {
 		super.copy(destFile, options, monitor);
 	}
 
+	/**
+	 * Copies the children of a directory in parallel when the destination is
+	 * also a local file. Sibling subtrees are independent of each other, so
+	 * they can be copied concurrently to keep the disk busy.
+	 */
+	@Override
+	protected void copyDirectory(IFileInfo sourceInfo, IFileStore destination, int options, IProgressMonitor monitor) throws CoreException {
+		if (!(destination instanceof LocalFile) || (options & EFS.SHALLOW) != 0) {
+			super.copyDirectory(sourceInfo, destination, options, monitor);
+			return;
+		}
+		IFileStore[] children = childStores(EFS.NONE, null);
+		SubMonitor subMonitor = SubMonitor.convert(monitor, 1 + children.length);
+		subMonitor.subTask(NLS.bind(Messages.copying, toString()));
+		// create directory
+		destination.mkdir(EFS.NONE, subMonitor.newChild(1));
+		// copy attributes
+		destination.putInfo(sourceInfo, EFS.SET_ATTRIBUTES | EFS.SET_LAST_MODIFIED, null);
+		if (children.length == 0)
+			return;
+		if (children.length == 1) {
+			children[0].copy(destination.getChild(children[0].getName()), options, subMonitor.newChild(1));
+			return;
+		}
+		// copy children, every task returns the failure of its subtree, if any
+		CopyMonitor childMonitor = new CopyMonitor(subMonitor);
+		List<CopyTask> tasks = new ArrayList<>(children.length);
+		for (IFileStore child : children)
+			tasks.add(new CopyTask(child, destination.getChild(child.getName()), options, childMonitor));
+		if (ForkJoinTask.getPool() == CopyPool.INSTANCE) {
+			// nested directory, let this worker help with the children
+			ForkJoinTask.invokeAll(tasks);
+		} else {
+			for (CopyTask task : tasks)
+				CopyPool.INSTANCE.execute(task);
+		}
+		// wait for all children, so no task is still writing when this returns
+		Throwable failure = null;
+		for (CopyTask task : tasks) {
+			Throwable result = task.join();
+			if (result != null && (failure == null || failure instanceof OperationCanceledException))
+				failure = result;
+			subMonitor.worked(1);
+		}
+		if (failure instanceof CoreException)
+			throw (CoreException) failure;
+		if (failure instanceof RuntimeException)
+			throw (RuntimeException) failure;
+		if (failure instanceof Error)
+			throw (Error) failure;
+	}
+
+	/**
+	 * Copies the contents of a file by letting the kernel transfer the bytes
+	 * between the two file channels when the destination is also a local file,
+	 * instead of streaming them through a buffer in the Java heap.
+	 */
+	@Override
+	protected void copyFile(IFileInfo sourceInfo, IFileStore destination, int options, IProgressMonitor monitor) throws CoreException {
+		if (!(destination instanceof LocalFile)) {
+			super.copyFile(sourceInfo, destination, options, monitor);
+			return;
+		}
+		if ((options & EFS.OVERWRITE) == 0 && destination.fetchInfo().exists())
+			Policy.error(EFS.ERROR_EXISTS, NLS.bind(Messages.fileExists, destination));
+		long length = sourceInfo.getLength();
+		String sourcePath = toString();
+		SubMonitor subMonitor = SubMonitor.convert(monitor, NLS.bind(Messages.copying, sourcePath), 100);
+		FileInputStream in = null;
+		FileOutputStream out = null;
+		try {
+			in = (FileInputStream) openInputStream(EFS.NONE, subMonitor.newChild(1));
+			out = (FileOutputStream) destination.openOutputStream(EFS.NONE, subMonitor.newChild(1));
+			transferChannels(in.getChannel(), out.getChannel(), length, sourcePath, subMonitor.newChild(98));
+			out.close();
+			destination.putInfo(sourceInfo, EFS.SET_ATTRIBUTES | EFS.SET_LAST_MODIFIED, null);
+		} catch (IOException e) {
+			Policy.safeClose(in);
+			Policy.safeClose(out);
+			deleteIfMissing(destination);
+			Policy.error(EFS.ERROR_WRITE, NLS.bind(Messages.couldNotWrite, sourcePath), e);
+		} catch (CoreException e) {
+			Policy.safeClose(in);
+			Policy.safeClose(out);
+			//if we failed to write, try to cleanup the half written file
+			deleteIfMissing(destination);
+			throw e;
+		} finally {
+			Policy.safeClose(in);
+			Policy.safeClose(out);
+		}
+	}
+
+	private static void deleteIfMissing(IFileStore destination) throws CoreException {
+		// same cleanup as in FileStore#copyFile
+		if (!destination.fetchInfo(0, null).exists())
+			destination.delete(EFS.NONE, null);
+	}
+
+	/**
+	 * Transfers the contents of the source channel to the destination channel
+	 * in chunks, so that the copy can be canceled and its progress reported.
+	 * On Linux the JDK implements this with sendfile or copy_file_range, which
+	 * allows the file system to clone the data without copying it.
+	 */
+	private static void transferChannels(FileChannel source, FileChannel destination, long length, String path, IProgressMonitor monitor) throws CoreException {
+		long size;
+		try {
+			size = source.size();
+		} catch (IOException e) {
+			String msg = NLS.bind(Messages.failedReadDuringWrite, path);
+			Policy.error(EFS.ERROR_READ, msg, e);
+			return;
+		}
+		SubMonitor subMonitor = SubMonitor.convert(monitor, 1 + (int) (Math.max(length, size) / TRANSFER_CHUNK_SIZE));
+		long position = 0;
+		while (position < size) {
+			long transferred;
+			try {
+				transferred = source.transferTo(position, Math.min(TRANSFER_CHUNK_SIZE, size - position), destination);
+			} catch (IOException e) {
+				String msg = NLS.bind(Messages.couldNotWrite, path);
+				Policy.error(EFS.ERROR_WRITE, msg, e);
+				return;
+			}
+			if (transferred <= 0) {
+				// the source was truncated while copying
+				break;
+			}
+			position += transferred;
+			subMonitor.split(1);
+		}
+	}
+
 	@Override
 	public void delete(int options, IProgressMonitor monitor) throws CoreException {
 		if (monitor == null)
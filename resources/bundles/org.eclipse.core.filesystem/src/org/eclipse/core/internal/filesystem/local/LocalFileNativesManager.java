@@ -87,6 +87,14 @@ public class LocalFileNativesManager {
 		return HANDLER.fetchFileInfo(fileName);
 	}
 
+	/**
+	 * Returns the file information of all children of the given directory,
+	 * obtained in a single pass over the directory where the platform allows it.
+	 */
+	public static FileInfo[] fetchChildInfos(String directoryName) {
+		return HANDLER.fetchChildInfos(directoryName);
+	}
+
 	public static boolean putFileInfo(String fileName, IFileInfo info, int options) {
 		return HANDLER.putFileInfo(fileName, info, options);
 	}
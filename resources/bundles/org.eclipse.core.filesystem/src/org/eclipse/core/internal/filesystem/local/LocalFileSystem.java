@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -19,9 +19,11 @@ package org.eclipse.core.internal.filesystem.local;
 
 import java.io.File;
 import java.net.URI;
+import java.util.function.Predicate;
 import org.eclipse.core.filesystem.*;
 import org.eclipse.core.filesystem.provider.FileSystem;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.osgi.service.environment.Constants;
 
 /**
@@ -113,6 +115,13 @@ public class LocalFileSystem extends FileSystem {
 		return true;
 	}
 
+	@Override
+	public IFileTree fetchFileTree(IFileStore root, int depth, Predicate<IPath> filter, IProgressMonitor monitor) {
+		if (!(root instanceof LocalFile) || depth <= 0)
+			return null;
+		return LocalFileTree.fetch((LocalFile) root, depth, filter, monitor);
+	}
+
 	@Override
 	public IFileStore fromLocalFile(File file) {
 		return new LocalFile(file);
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.filesystem.local;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Predicate;
+import org.eclipse.core.filesystem.*;
+import org.eclipse.core.filesystem.provider.FileTree;
+import org.eclipse.core.runtime.*;
+
+/**
+ * A file tree of the local file system whose directories are read concurrently
+ * by a bounded pool of threads when the tree is created.
+ * <p>
+ * Directories that were not fetched up front, because they are below the requested
+ * depth, are rejected by the filter or are reached through a symbolic link, are read
+ * on demand. This way clients always see the children of a directory, even if
+ * following symbolic links would have made the tree infinite.
+ * </p>
+ */
+public class LocalFileTree extends FileTree {
+	private static final IFileInfo[] NO_CHILDREN = new IFileInfo[0];
+
+	/**
+	 * Pool shared by all trees, so the number of directories read at the same
+	 * time stays bounded no matter how many trees are fetched concurrently.
+	 */
+	private static class PrefetchPool {
+		static final ForkJoinPool INSTANCE = new ForkJoinPool(Math.max(1, Integer.getInteger("org.eclipse.core.filesystem.fetchTreeParallelism", 4))); //$NON-NLS-1$
+	}
+
+	/**
+	 * The information about the children of all directories fetched up front
+	 */
+	private final Map<IFileStore, IFileInfo[]> childInfos = new ConcurrentHashMap<>();
+
+	private final IFileInfo rootInfo;
+
+	private LocalFileTree(LocalFile root) {
+		super(root);
+		this.rootInfo = root.fetchInfo();
+	}
+
+	/**
+	 * Fetches the information about the given directory and its descendants
+	 * down to the given depth, skipping the directories rejected by the filter.
+	 */
+	static LocalFileTree fetch(LocalFile root, int depth, Predicate<IPath> filter, IProgressMonitor monitor) {
+		LocalFileTree tree = new LocalFileTree(root);
+		if (!tree.rootInfo.isDirectory())
+			return tree;
+		IProgressMonitor progress = monitor == null ? new NullProgressMonitor() : monitor;
+		if (depth == 1) {
+			// nothing to parallelize
+			tree.fetchChildren(root);
+			return tree;
+		}
+		PrefetchPool.INSTANCE.invoke(tree.new PrefetchTask(root, Path.EMPTY, depth, filter, progress));
+		if (progress.isCanceled())
+			throw new OperationCanceledException();
+		return tree;
+	}
+
+	/**
+	 * Symbolic links are never followed up front, so that cycles can't make
+	 * the prefetching run forever.
+	 */
+	private static boolean isTraversable(IFileInfo info) {
+		return info.isDirectory() && !info.getAttribute(EFS.ATTRIBUTE_SYMLINK);
+	}
+
+	private IFileInfo[] fetchChildren(LocalFile directory) {
+		IFileInfo[] infos = LocalFileNativesManager.fetchChildInfos(directory.filePath);
+		childInfos.put(directory, infos);
+		return infos;
+	}
+
+	/**
+	 * Reads a directory and forks the reading of its sub-directories
+	 * while they are above the requested depth.
+	 */
+	private class PrefetchTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final LocalFile directory;
+		private final IPath path;
+		private final int depth;
+		private final Predicate<IPath> filter;
+		private final IProgressMonitor monitor;
+
+		PrefetchTask(LocalFile directory, IPath path, int depth, Predicate<IPath> filter, IProgressMonitor monitor) {
+			this.directory = directory;
+			this.path = path;
+			this.depth = depth;
+			this.filter = filter;
+			this.monitor = monitor;
+		}
+
+		@Override
+		protected void compute() {
+			if (monitor.isCanceled())
+				return;
+			IFileInfo[] children = fetchChildren(directory);
+			// the children of a directory are only fetched while the directory is above the requested depth
+			if (path.segmentCount() + 1 >= depth)
+				return;
+			List<PrefetchTask> subTasks = new ArrayList<>();
+			for (IFileInfo info : children) {
+				if (!isTraversable(info))
+					continue;
+				IPath childPath = path.append(info.getName());
+				if (filter == null || filter.test(childPath))
+					subTasks.add(new PrefetchTask((LocalFile) directory.getChild(info.getName()), childPath, depth, filter, monitor));
+			}
+			invokeAll(subTasks);
+		}
+	}
+
+	private boolean isInTree(IFileStore store) {
+		return treeRoot.equals(store) || treeRoot.isParentOf(store);
+	}
+
+	@Override
+	public IFileInfo[] getChildInfos(IFileStore store) {
+		IFileInfo[] infos = childInfos.get(store);
+		if (infos != null)
+			return infos;
+		if (!isInTree(store))
+			return NO_CHILDREN;
+		// not fetched up front, read the directory now
+		try {
+			return store.childInfos(EFS.NONE, null);
+		} catch (CoreException e) {
+			return NO_CHILDREN;
+		}
+	}
+
+	@Override
+	public IFileStore[] getChildStores(IFileStore store) {
+		IFileInfo[] infos = getChildInfos(store);
+		IFileStore[] stores = new IFileStore[infos.length];
+		for (int i = 0; i < infos.length; i++)
+			stores[i] = store.getChild(infos[i].getName());
+		return stores;
+	}
+
+	@Override
+	public IFileInfo getFileInfo(IFileStore store) {
+		if (treeRoot.equals(store))
+			return rootInfo;
+		IFileStore parent = store.getParent();
+		IFileInfo[] siblings = parent == null ? null : childInfos.get(parent);
+		if (siblings != null) {
+			String name = store.getName();
+			for (IFileInfo sibling : siblings) {
+				if (sibling.getName().equals(name))
+					return sibling;
+			}
+		}
+		return store.fetchInfo();
+	}
+}
@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.core.internal.filesystem.local;
 
+import java.io.File;
 import org.eclipse.core.filesystem.IFileInfo;
 import org.eclipse.core.filesystem.provider.FileInfo;
 
@@ -20,9 +21,35 @@ import org.eclipse.core.filesystem.provider.FileInfo;
  * This delegate provides the interface for native file attribute support.
  */
 public abstract class NativeHandler {
+	protected static final FileInfo[] NO_CHILDREN = new FileInfo[0];
+
 	public abstract int getSupportedAttributes();
 
 	public abstract FileInfo fetchFileInfo(String fileName);
 
 	public abstract boolean putFileInfo(String fileName, IFileInfo info, int options);
+
+	/**
+	 * Returns the file information for all children of the given directory,
+	 * or an empty array if the directory does not exist or cannot be read.
+	 * <p>
+	 * This default implementation lists the directory and then calls
+	 * {@link #fetchFileInfo(String)} for each child. Subclasses should override
+	 * this method where the information can be collected while reading the directory.
+	 * </p>
+	 */
+	public FileInfo[] fetchChildInfos(String directoryName) {
+		File directory = new File(directoryName);
+		String[] names = directory.list();
+		if (names == null)
+			return NO_CHILDREN;
+		FileInfo[] infos = new FileInfo[names.length];
+		for (int i = 0; i < names.length; i++) {
+			infos[i] = fetchFileInfo(new File(directory, names[i]).getPath());
+			//natives don't set the file name on all platforms
+			if (infos[i].getName().isEmpty())
+				infos[i].setName(names[i]);
+		}
+		return infos;
+	}
 }
@@ -21,6 +21,8 @@ import java.lang.reflect.Method;
 import java.nio.file.*;
 import java.nio.file.attribute.DosFileAttributeView;
 import java.nio.file.attribute.DosFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileInfo;
 import org.eclipse.core.filesystem.provider.FileInfo;
@@ -45,25 +47,7 @@ public class DosHandler extends NativeHandler {
 			Path fileNamePath = path.toRealPath(LinkOption.NOFOLLOW_LINKS).getFileName();
 			String canonicalName = fileNamePath == null ? "" : fileNamePath.toString(); //$NON-NLS-1$
 			info.setName(canonicalName);
-
-			// To be consistent with the native implementation we do not follow a symbolic link
-			// and return back the information about the target. Instead, we provide the information
-			// about the symbolic link itself whether it exists or not.
-			DosFileAttributes attrs = Files.readAttributes(path, DosFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
-
-			info.setExists(true);
-			info.setLastModified(attrs.lastModifiedTime().toMillis());
-			info.setLength(attrs.size());
-			info.setAttribute(EFS.ATTRIBUTE_ARCHIVE, attrs.isArchive());
-			info.setAttribute(EFS.ATTRIBUTE_READ_ONLY, attrs.isReadOnly());
-			info.setAttribute(EFS.ATTRIBUTE_HIDDEN, attrs.isHidden());
-			if (attrs.isSymbolicLink()) {
-				info.setDirectory(isDirectoryLink(attrs));
-				info.setAttribute(EFS.ATTRIBUTE_SYMLINK, true);
-				info.setStringAttribute(EFS.ATTRIBUTE_LINK_TARGET, Files.readSymbolicLink(path).toString());
-			} else {
-				info.setDirectory(attrs.isDirectory());
-			}
+			fetchAttributes(path, info);
 		} catch (NoSuchFileException e) {
 			// A non-existing file is not considered an error.
 		} catch (IOException e) {
@@ -73,6 +57,51 @@ public class DosHandler extends NativeHandler {
 		return info;
 	}
 
+	@Override
+	public FileInfo[] fetchChildInfos(String directoryName) {
+		// The names returned by the directory stream already have the correct case,
+		// so the expensive canonicalization done by fetchFileInfo is not needed here.
+		List<FileInfo> infos = new ArrayList<>();
+		try (DirectoryStream<Path> children = Files.newDirectoryStream(Paths.get(directoryName))) {
+			for (Path child : children) {
+				FileInfo info = new FileInfo(child.getFileName().toString());
+				try {
+					fetchAttributes(child, info);
+				} catch (NoSuchFileException e) {
+					// The child was deleted while reading the directory.
+				} catch (IOException e) {
+					info.setError(IFileInfo.IO_ERROR);
+				}
+				infos.add(info);
+			}
+		} catch (IOException | DirectoryIteratorException e) {
+			// Treat an unreadable directory like a directory that has no children, as childNames does.
+			return NO_CHILDREN;
+		}
+		return infos.toArray(new FileInfo[infos.size()]);
+	}
+
+	private void fetchAttributes(Path path, FileInfo info) throws IOException {
+		// To be consistent with the native implementation we do not follow a symbolic link
+		// and return back the information about the target. Instead, we provide the information
+		// about the symbolic link itself whether it exists or not.
+		DosFileAttributes attrs = Files.readAttributes(path, DosFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+
+		info.setExists(true);
+		info.setLastModified(attrs.lastModifiedTime().toMillis());
+		info.setLength(attrs.size());
+		info.setAttribute(EFS.ATTRIBUTE_ARCHIVE, attrs.isArchive());
+		info.setAttribute(EFS.ATTRIBUTE_READ_ONLY, attrs.isReadOnly());
+		info.setAttribute(EFS.ATTRIBUTE_HIDDEN, attrs.isHidden());
+		if (attrs.isSymbolicLink()) {
+			info.setDirectory(isDirectoryLink(attrs));
+			info.setAttribute(EFS.ATTRIBUTE_SYMLINK, true);
+			info.setStringAttribute(EFS.ATTRIBUTE_LINK_TARGET, Files.readSymbolicLink(path).toString());
+		} else {
+			info.setDirectory(attrs.isDirectory());
+		}
+	}
+
 	private boolean isDirectoryLink(DosFileAttributes attrs) {
 		// Use reflection to call package protected WindowsFileAttributes.isDirectoryLink() method.
 		try {
@@ -18,8 +18,7 @@ package org.eclipse.core.internal.filesystem.local.nio;
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.*;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileInfo;
 import org.eclipse.core.filesystem.provider.FileInfo;
@@ -39,15 +38,35 @@ public class PosixHandler extends NativeHandler {
 	@Override
 	public FileInfo fetchFileInfo(String fileName) {
 		Path path = Paths.get(fileName);
-		FileInfo info = new FileInfo();
-
 		// Fill in the name of the file.
 		// If the file system is case insensitive, we don't know the real name of the file.
 		// Since obtaining the real name in such situation is pretty expensive, we use the name
 		// passed as a parameter, which may differ by case from the real name of the file
 		// if the file system is case insensitive.
 		Path fileNamePath = path.getFileName();
-		info.setName(fileNamePath == null ? "" : fileNamePath.toString()); //$NON-NLS-1$
+		return fetchFileInfo(path, fileNamePath == null ? "" : fileNamePath.toString()); //$NON-NLS-1$
+	}
+
+	@Override
+	public FileInfo[] fetchChildInfos(String directoryName) {
+		// Read the directory once and resolve the children against the already parsed
+		// directory path. The names returned by the directory stream are the real names
+		// of the children, even if the file system is case insensitive.
+		List<FileInfo> infos = new ArrayList<>();
+		try (DirectoryStream<Path> children = Files.newDirectoryStream(Paths.get(directoryName))) {
+			for (Path child : children) {
+				infos.add(fetchFileInfo(child, child.getFileName().toString()));
+			}
+		} catch (IOException | DirectoryIteratorException e) {
+			// Treat an unreadable directory like a directory that has no children, as childNames does.
+			return NO_CHILDREN;
+		}
+		return infos.toArray(new FileInfo[infos.size()]);
+	}
+
+	private FileInfo fetchFileInfo(Path path, String name) {
+		FileInfo info = new FileInfo();
+		info.setName(name);
 
 		try {
 			PosixFileAttributes attrs = Files.readAttributes(path, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
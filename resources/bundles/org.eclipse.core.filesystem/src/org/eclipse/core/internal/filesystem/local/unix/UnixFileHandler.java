@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2015 IBM Corporation and others.
+ * Copyright (c) 2012, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -31,6 +31,12 @@ public class UnixFileHandler extends NativeHandler {
 		return UnixFileNatives.fetchFileInfo(fileName);
 	}
 
+	@Override
+	public FileInfo[] fetchChildInfos(String directoryName) {
+		FileInfo[] infos = UnixFileNatives.fetchChildInfos(directoryName);
+		return infos != null ? infos : super.fetchChildInfos(directoryName);
+	}
+
 	@Override
 	public boolean putFileInfo(String fileName, IFileInfo info, int options) {
 		return UnixFileNatives.putFileInfo(fileName, info, options);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2017 IBM Corporation and others.
+ * Copyright (c) 2010, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,6 +16,8 @@ package org.eclipse.core.internal.filesystem.local.unix;
 
 import java.io.File;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.util.Enumeration;
 import org.eclipse.core.filesystem.EFS;
@@ -32,6 +34,30 @@ public abstract class UnixFileNatives {
 	private static final int CHFLAGS_SUPPORTED = 1 << 1;
 	private static final int ENOENT = 2; // errno value for "No such file or directory"
 
+	// return values and entry flags of readdirstat, see unixfile.c
+	private static final int READDIRSTAT_BUFFER_TOO_SMALL = -2;
+	private static final int READDIRSTAT_UNSUPPORTED = -3;
+	private static final int ENTRY_EXISTS = 1 << 0;
+	private static final int ENTRY_SYMLINK = 1 << 1;
+	private static final int ENTRY_IO_ERROR = 1 << 2;
+
+	private static final int INITIAL_DIRECTORY_BUFFER_SIZE = 64 * 1024;
+	private static final int MAX_CACHED_DIRECTORY_BUFFER_SIZE = 1024 * 1024;
+	private static final int MAX_DIRECTORY_BUFFER_SIZE = 64 * 1024 * 1024;
+	private static final FileInfo[] NO_CHILDREN = new FileInfo[0];
+
+	/**
+	 * Buffers the entries of one directory read by readdirstat. Directory
+	 * reads run concurrently, so every thread reuses its own buffer.
+	 */
+	private static final ThreadLocal<ByteBuffer> directoryBuffer = ThreadLocal.withInitial(() -> allocateDirectoryBuffer(INITIAL_DIRECTORY_BUFFER_SIZE));
+
+	/**
+	 * Cleared when the native library has no batched directory reads,
+	 * either because it predates them or because the platform lacks them.
+	 */
+	private static volatile boolean batchedReadsSupported = true;
+
 	private static final boolean usingNatives;
 	private static final int libattr;
 
@@ -110,6 +136,80 @@ public abstract class UnixFileNatives {
 		return info;
 	}
 
+	/**
+	 * Returns the file information of all children of the given directory,
+	 * collected by a single native call that reads and stats the whole directory.
+	 * Returns <code>null</code> if the native library does not support batched
+	 * directory reads, in which case the children have to be fetched one by one.
+	 */
+	public static FileInfo[] fetchChildInfos(String directoryName) {
+		if (!usingNatives || !batchedReadsSupported)
+			return null;
+		byte[] name = fileNameToBytes(directoryName);
+		if (name == null)
+			return null;
+		ByteBuffer buffer = directoryBuffer.get();
+		int count;
+		try {
+			while ((count = readdirstat(name, buffer)) == READDIRSTAT_BUFFER_TOO_SMALL) {
+				if (buffer.capacity() >= MAX_DIRECTORY_BUFFER_SIZE)
+					return null;
+				buffer = allocateDirectoryBuffer(buffer.capacity() * 2);
+				if (buffer.capacity() <= MAX_CACHED_DIRECTORY_BUFFER_SIZE)
+					directoryBuffer.set(buffer);
+			}
+		} catch (UnsatisfiedLinkError e) {
+			// library built before readdirstat was added
+			batchedReadsSupported = false;
+			return null;
+		}
+		if (count == READDIRSTAT_UNSUPPORTED) {
+			batchedReadsSupported = false;
+			return null;
+		}
+		if (count < 0)
+			return NO_CHILDREN;
+		buffer.clear();
+		FileInfo[] infos = new FileInfo[count];
+		StructStat stat = new StructStat();
+		for (int i = 0; i < count; i++) {
+			String childName = readBytes(buffer);
+			int flags = buffer.getInt();
+			stat.st_mode = buffer.getInt();
+			stat.st_size = buffer.getLong();
+			stat.st_mtime = buffer.getLong();
+			stat.st_mtime_msec = buffer.getLong();
+			String linkTarget = readBytes(buffer);
+			FileInfo info = (flags & ENTRY_EXISTS) != 0 ? stat.toFileInfo() : new FileInfo();
+			if ((flags & ENTRY_IO_ERROR) != 0)
+				info.setError(IFileInfo.IO_ERROR);
+			if ((flags & ENTRY_SYMLINK) != 0) {
+				info.setAttribute(EFS.ATTRIBUTE_SYMLINK, true);
+				if (!linkTarget.isEmpty())
+					info.setStringAttribute(EFS.ATTRIBUTE_LINK_TARGET, linkTarget);
+			}
+			info.setName(childName);
+			infos[i] = info;
+		}
+		return infos;
+	}
+
+	private static ByteBuffer allocateDirectoryBuffer(int capacity) {
+		return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Reads a file name written by readdirstat as a length followed by the bytes.
+	 */
+	private static String readBytes(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length == 0)
+			return ""; //$NON-NLS-1$
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return bytesToFileName(bytes, length);
+	}
+
 	public static boolean putFileInfo(String fileName, IFileInfo info, int options) {
 		int code = 0;
 		byte[] name = fileNameToBytes(fileName);
@@ -211,4 +311,6 @@ public abstract class UnixFileNatives {
 
 	private static final native int getflag(byte[] buf);
 
+	private static final native int readdirstat(byte[] path, ByteBuffer buf);
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2015 IBM Corporation and others.
+ * Copyright (c) 2002, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,7 +15,6 @@ package org.eclipse.core.internal.resources;
 
 import java.util.*;
 import java.util.Map.Entry;
-import org.eclipse.core.internal.utils.Cache;
 import org.eclipse.core.internal.watson.ElementTree;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -73,7 +72,7 @@ public class SpySupport {
 	}
 	public static boolean isContentDescriptionCached(File file) {
 		ResourceInfo info = file.getResourceInfo(false, false);
-		Cache.Entry entry = ((Workspace) ResourcesPlugin.getWorkspace()).getContentDescriptionManager().getCache().getEntry(file.getFullPath(), false);
+		ContentDescriptionCache.Entry entry = ((Workspace) ResourcesPlugin.getWorkspace()).getContentDescriptionManager().getCache().getEntry(file.getFullPath());
 		return entry != null && info.getContentId() == entry.getTimestamp();
 	}
 }
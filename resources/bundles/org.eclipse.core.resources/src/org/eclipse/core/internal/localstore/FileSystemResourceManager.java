@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -23,6 +23,7 @@ package org.eclipse.core.internal.localstore;
 import java.io.*;
 import java.net.URI;
 import java.util.*;
+import java.util.function.Predicate;
 import org.eclipse.core.filesystem.*;
 import org.eclipse.core.filesystem.URIUtil;
 import org.eclipse.core.internal.refresh.RefreshManager;
@@ -963,15 +964,34 @@ public class FileSystemResourceManager implements ICoreConstants, IManager, Pref
 		return false;
 	}
 
+	/**
+	 * Fetches the file system metadata of the given resource and its members down
+	 * to the given depth in one shot, if the file system of the resource supports it.
+	 * Folders that are filtered out, hidden or overlaid by a linked resource are not
+	 * fetched up front. The tree still reads them on demand if the refresh gets there.
+	 * Returns <code>null</code> if the file system can't fetch trees.
+	 */
+	private IFileTree fetchFileTree(IContainer target, int depth, IProgressMonitor monitor) throws CoreException {
+		IFileStore fileStore = ((Resource) target).getStore();
+		int treeDepth = depth == IResource.DEPTH_ONE ? 1 : Integer.MAX_VALUE;
+		Object lock = new Object();
+		Predicate<IPath> filter = path -> {
+			// the filter is called by several threads, evaluate the resource filters one at a time
+			synchronized (lock) {
+				Resource folder = (Resource) target.getFolder(path);
+				return !folder.isLinked() && !folder.isHidden() && !folder.isFiltered();
+			}
+		};
+		return fileStore.getFileSystem().fetchFileTree(fileStore, treeDepth, filter, monitor);
+	}
+
 	protected boolean refreshResource(IResource target, int depth, boolean updateAliases, IProgressMonitor monitor) throws CoreException {
 		String title = NLS.bind(Messages.localstore_refreshing, target.getFullPath());
 		SubMonitor subMonitor = SubMonitor.convert(monitor, title, 100);
 		IFileTree fileTree = null;
 		// If there can be more than one resource to refresh, try to get the whole tree in one shot, if the file system supports it.
-		if (depth != IResource.DEPTH_ZERO) {
-			IFileStore fileStore = ((Resource) target).getStore();
-			fileTree = fileStore.getFileSystem().fetchFileTree(fileStore, subMonitor.newChild(2));
-		}
+		if (depth != IResource.DEPTH_ZERO && (target.getType() == IResource.PROJECT || target.getType() == IResource.FOLDER))
+			fileTree = fetchFileTree((IContainer) target, depth, subMonitor.newChild(2));
 		UnifiedTree tree = fileTree == null ? new UnifiedTree(target) : new UnifiedTree(target, fileTree);
 		SubMonitor refreshMonitor = subMonitor.newChild(98);
 		RefreshLocalVisitor visitor = updateAliases ? new RefreshLocalAliasVisitor(refreshMonitor) : new RefreshLocalVisitor(refreshMonitor);
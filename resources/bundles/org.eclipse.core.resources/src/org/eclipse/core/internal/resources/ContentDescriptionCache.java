@@ -0,0 +1,378 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.content.IContentDescription;
+import org.eclipse.core.runtime.content.IContentType;
+import org.eclipse.core.runtime.content.IContentTypeManager;
+
+/**
+ * A concurrent cache of content descriptions by resource path. The cache is split
+ * into shards, each holding its least recently used entries up to its share of
+ * the maximum weight, which is the estimated number of bytes retained by the
+ * cached entries.
+ * <p>
+ * The cache can be saved to disk and loaded again in a later session.
+ * Only the content type, the charset and the byte order mark of a description
+ * are saved. Loaded descriptions read the file again if asked for any
+ * other property.
+ * </p>
+ *
+ * @see ContentDescriptionManager
+ */
+public class ContentDescriptionCache {
+	/**
+	 * Version of the format used by {@link #save(java.io.File, long)}
+	 */
+	private static final int FILE_VERSION = 1;
+
+	// byte order marks as saved on disk
+	private static final byte SAVED_BOM_NONE = 0;
+	private static final byte SAVED_BOM_UTF_8 = 1;
+	private static final byte SAVED_BOM_UTF_16BE = 2;
+	private static final byte SAVED_BOM_UTF_16LE = 3;
+
+	/**
+	 * Estimated size in bytes of an entry, its key and its description, not
+	 * counting the characters of the path and of the charset.
+	 */
+	private static final int ENTRY_OVERHEAD = 200;
+
+	public static final class Entry {
+		final IContentDescription description;
+		final long timestamp;
+		final int weight;
+
+		Entry(IContentDescription description, long timestamp, int weight) {
+			this.description = description;
+			this.timestamp = timestamp;
+			this.weight = weight;
+		}
+
+		public IContentDescription getCached() {
+			return description;
+		}
+
+		public long getTimestamp() {
+			return timestamp;
+		}
+	}
+
+	/**
+	 * Part of the cache guarded by its own lock, with its own eviction order.
+	 */
+	private static final class Shard {
+		final LinkedHashMap<IPath, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+		long weight;
+	}
+
+	private final Shard[] shards;
+	private final long maximumShardWeight;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param maximumWeight the estimated number of bytes that may be retained by cached entries
+	 * @param concurrencyLevel the number of threads expected to use the cache at the same time
+	 */
+	public ContentDescriptionCache(long maximumWeight, int concurrencyLevel) {
+		Assert.isTrue(maximumWeight > 0, "maximum weight must be greater than zero"); //$NON-NLS-1$
+		// a power of two, so that the shard of a key is found by masking its hash
+		int shardCount = 1;
+		while (shardCount < concurrencyLevel)
+			shardCount <<= 1;
+		shards = new Shard[shardCount];
+		for (int i = 0; i < shards.length; i++)
+			shards[i] = new Shard();
+		maximumShardWeight = Math.max(1, maximumWeight / shardCount);
+	}
+
+	private Shard shardFor(IPath path) {
+		int hash = path.hashCode();
+		return shards[(hash ^ (hash >>> 16)) & (shards.length - 1)];
+	}
+
+	/**
+	 * Returns the description cached for the given path if it was cached for the
+	 * given timestamp, and <code>null</code> otherwise. Counts as a hit or a miss.
+	 */
+	public IContentDescription get(IPath path, long timestamp) {
+		Entry entry = getEntry(path);
+		if (entry != null && entry.timestamp == timestamp) {
+			hits.increment();
+			return entry.description;
+		}
+		misses.increment();
+		return null;
+	}
+
+	/**
+	 * Returns the entry cached for the given path, or <code>null</code>.
+	 */
+	public Entry getEntry(IPath path) {
+		Shard shard = shardFor(path);
+		synchronized (shard) {
+			return shard.entries.get(path);
+		}
+	}
+
+	public void put(IPath path, IContentDescription description, long timestamp) {
+		Entry entry = new Entry(description, timestamp, weigh(path, description));
+		Shard shard = shardFor(path);
+		synchronized (shard) {
+			Entry previous = shard.entries.put(path, entry);
+			if (previous != null)
+				shard.weight -= previous.weight;
+			shard.weight += entry.weight;
+			// evict the least recently used entries, never the one just added
+			Iterator<Entry> iterator = shard.entries.values().iterator();
+			while (shard.weight > maximumShardWeight && shard.entries.size() > 1) {
+				Entry eldest = iterator.next();
+				iterator.remove();
+				shard.weight -= eldest.weight;
+				evictions.increment();
+			}
+		}
+	}
+
+	private static int weigh(IPath path, IContentDescription description) {
+		int weight = ENTRY_OVERHEAD;
+		for (int i = 0; i < path.segmentCount(); i++)
+			weight += 2 * path.segment(i).length();
+		String charset = description == null ? null : description.getCharset();
+		if (charset != null)
+			weight += 2 * charset.length();
+		return weight;
+	}
+
+	public void discardAll() {
+		for (Shard shard : shards) {
+			synchronized (shard) {
+				shard.entries.clear();
+				shard.weight = 0;
+			}
+		}
+	}
+
+	public long size() {
+		long size = 0;
+		for (Shard shard : shards) {
+			synchronized (shard) {
+				size += shard.entries.size();
+			}
+		}
+		return size;
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	@Override
+	public String toString() {
+		long hitCount = getHitCount();
+		long requestCount = hitCount + getMissCount();
+		return "ContentDescriptionCache [size=" + size() + ", hits=" + hitCount + ", misses=" + getMissCount() //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ ", hitRate=" + (requestCount == 0 ? 0 : hitCount * 100 / requestCount) + "%, evictions=" + getEvictionCount() + ']'; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Writes the cached descriptions to the given file.
+	 *
+	 * @param stamp identifies the content type definitions the descriptions were computed with
+	 */
+	public void save(java.io.File target, long stamp) throws IOException {
+		List<Map.Entry<IPath, Entry>> toSave = new ArrayList<>();
+		for (Shard shard : shards) {
+			synchronized (shard) {
+				for (Map.Entry<IPath, Entry> entry : shard.entries.entrySet()) {
+					IContentDescription description = entry.getValue().description;
+					if (description != null && description.getContentType() != null)
+						toSave.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+				}
+			}
+		}
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(target)))) {
+			output.writeInt(FILE_VERSION);
+			output.writeLong(stamp);
+			output.writeInt(toSave.size());
+			for (Map.Entry<IPath, Entry> entry : toSave) {
+				IContentDescription description = entry.getValue().description;
+				output.writeUTF(entry.getKey().toPortableString());
+				output.writeLong(entry.getValue().timestamp);
+				output.writeUTF(description.getContentType().getId());
+				String charset = (String) description.getProperty(IContentDescription.CHARSET);
+				output.writeBoolean(charset != null);
+				if (charset != null)
+					output.writeUTF(charset);
+				output.writeByte(toByte((byte[]) description.getProperty(IContentDescription.BYTE_ORDER_MARK)));
+			}
+		}
+	}
+
+	/**
+	 * Reads the descriptions saved to the given file, unless they were computed
+	 * with other content type definitions than the ones identified by the given stamp.
+	 *
+	 * @param manager used by loaded descriptions to read files again when needed
+	 * @return the number of loaded descriptions
+	 */
+	public int load(java.io.File source, long stamp, ContentDescriptionManager manager) throws IOException {
+		IContentTypeManager contentTypeManager = Platform.getContentTypeManager();
+		int loaded = 0;
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(source)))) {
+			if (input.readInt() != FILE_VERSION || input.readLong() != stamp)
+				return 0;
+			int count = input.readInt();
+			for (int i = 0; i < count; i++) {
+				IPath path = Path.fromPortableString(input.readUTF());
+				long timestamp = input.readLong();
+				IContentType contentType = contentTypeManager.getContentType(input.readUTF());
+				String charset = input.readBoolean() ? input.readUTF() : null;
+				byte[] bom = fromByte(input.readByte());
+				if (contentType == null)
+					continue;
+				put(path, new PersistedDescription(manager, path, contentType, charset, bom), timestamp);
+				loaded++;
+			}
+		}
+		return loaded;
+	}
+
+	private static byte toByte(byte[] bom) {
+		if (bom == IContentDescription.BOM_UTF_8)
+			return SAVED_BOM_UTF_8;
+		if (bom == IContentDescription.BOM_UTF_16BE)
+			return SAVED_BOM_UTF_16BE;
+		if (bom == IContentDescription.BOM_UTF_16LE)
+			return SAVED_BOM_UTF_16LE;
+		return SAVED_BOM_NONE;
+	}
+
+	private static byte[] fromByte(byte bom) {
+		switch (bom) {
+			case SAVED_BOM_UTF_8 :
+				return IContentDescription.BOM_UTF_8;
+			case SAVED_BOM_UTF_16BE :
+				return IContentDescription.BOM_UTF_16BE;
+			case SAVED_BOM_UTF_16LE :
+				return IContentDescription.BOM_UTF_16LE;
+			default :
+				return null;
+		}
+	}
+
+	/**
+	 * A description loaded from disk. It knows the charset and the byte order mark,
+	 * which is what clients ask for almost always, and describes the file again
+	 * if any other property is requested.
+	 */
+	static final class PersistedDescription implements IContentDescription {
+		private final ContentDescriptionManager manager;
+		private final IPath path;
+		private final IContentType contentType;
+		private final String charset;
+		private final byte[] byteOrderMark;
+		private volatile IContentDescription actual;
+
+		PersistedDescription(ContentDescriptionManager manager, IPath path, IContentType contentType, String charset, byte[] byteOrderMark) {
+			this.manager = manager;
+			this.path = path;
+			this.contentType = contentType;
+			this.charset = charset;
+			this.byteOrderMark = byteOrderMark;
+		}
+
+		@Override
+		public boolean isRequested(QualifiedName key) {
+			return true;
+		}
+
+		@Override
+		public String getCharset() {
+			// same rules as for the descriptions created by the content type manager
+			if (byteOrderMark == BOM_UTF_8)
+				return "UTF-8"; //$NON-NLS-1$
+			if (byteOrderMark == BOM_UTF_16BE || byteOrderMark == BOM_UTF_16LE)
+				return "UTF-16"; //$NON-NLS-1$
+			return charset;
+		}
+
+		@Override
+		public IContentType getContentType() {
+			return contentType;
+		}
+
+		@Override
+		public Object getProperty(QualifiedName key) {
+			if (CHARSET.equals(key))
+				return charset;
+			if (BYTE_ORDER_MARK.equals(key))
+				return byteOrderMark;
+			IContentDescription description = getActual();
+			return description == null ? null : description.getProperty(key);
+		}
+
+		private IContentDescription getActual() {
+			IContentDescription result = actual;
+			if (result == null) {
+				try {
+					result = manager.readDescription(path);
+				} catch (CoreException e) {
+					// fall back to the defaults of the content type
+					result = contentType.getDefaultDescription();
+				}
+				actual = result;
+			}
+			return result;
+		}
+
+		@Override
+		public void setProperty(QualifiedName key, Object value) {
+			throw new IllegalStateException("Content description is immutable"); //$NON-NLS-1$
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof PersistedDescription))
+				return false;
+			PersistedDescription other = (PersistedDescription) obj;
+			return path.equals(other.path) && contentType.equals(other.contentType);
+		}
+
+		@Override
+		public int hashCode() {
+			return path.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return "{persisted description of " + path + ": " + contentType.getId() + '}'; //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2022 IBM Corporation and others.
+ * Copyright (c) 2004, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -201,7 +201,19 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 
 	private static final String PT_CONTENTTYPES = "contentTypes"; //$NON-NLS-1$
 
-	private Cache cache;
+	/**
+	 * The estimated number of bytes the cached content descriptions may retain.
+	 */
+	private static final long CACHE_SIZE = Long.getLong("org.eclipse.core.resources.contentCache.size", 8 * 1024 * 1024); //$NON-NLS-1$
+
+	/**
+	 * Whether the cached content descriptions are saved on shutdown and loaded on startup.
+	 */
+	private static final boolean PERSIST_CACHE = Boolean.getBoolean("org.eclipse.core.resources.contentCache.persist"); //$NON-NLS-1$
+
+	private static final String F_CONTENT_CACHE = ".contentcache"; //$NON-NLS-1$
+
+	private ContentDescriptionCache cache;
 
 	private volatile byte cacheState;
 
@@ -283,7 +295,7 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 			Policy.debug("Content type cache for " + root + " flushed in " + (System.currentTimeMillis() - flushStart) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 	}
 
-	Cache getCache() {
+	ContentDescriptionCache getCache() {
 		return cache;
 	}
 
@@ -365,13 +377,11 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 			}
 		}
 		if (inSync) {
-			// tries to get a description from the cache
-			synchronized (this) {
-				Cache.Entry entry = cache.getEntry(file.getFullPath());
-				if (entry != null && entry.getTimestamp() == getTimestamp(info))
-					// there was a description in the cache, and it was up to date
-					return (IContentDescription) entry.getCached();
-			}
+			// tries to get a description from the cache, which does not need the lock on this manager
+			IContentDescription cached = cache.get(file.getFullPath(), getTimestamp(info));
+			if (cached != null)
+				// there was a description in the cache, and it was up to date
+				return cached;
 		}
 
 		// either we didn't find a description in the cache, or it was not up-to-date - has to be read again
@@ -380,10 +390,10 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 
 		synchronized (this) {
 			// tries to get a description from the cache
-			Cache.Entry entry = cache.getEntry(file.getFullPath());
+			ContentDescriptionCache.Entry entry = cache.getEntry(file.getFullPath());
 			if (entry != null && inSync && entry.getTimestamp() == getTimestamp(info))
 				// there was a description in the cache, and it was up to date
-				return (IContentDescription) entry.getCached();
+				return entry.getCached();
 
 			if (getCacheState() != ABOUT_TO_FLUSH) {
 				// we are going to add an entry to the cache or update the resource info - remember that
@@ -404,14 +414,7 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 				}
 			}
 			// we actually got a description filled by a describer (or a default description for a non-obvious type)
-			if (entry == null)
-				// there was no entry before - create one
-				entry = cache.addEntry(file.getFullPath(), newDescription, getTimestamp(info));
-			else {
-				// just update the existing entry
-				entry.setTimestamp(getTimestamp(info));
-				entry.setCached(newDescription);
-			}
+			cache.put(file.getFullPath(), newDescription, getTimestamp(info));
 			return newDescription;
 		}
 	}
@@ -477,6 +480,49 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 		}
 	}
 
+	/**
+	 * Tries to obtain a content description for the file at the given path.
+	 * Used by descriptions loaded from disk that are asked for properties they don't know.
+	 */
+	IContentDescription readDescription(IPath path) throws CoreException {
+		return readDescription((File) workspace.getRoot().getFile(path));
+	}
+
+	/**
+	 * Returns the file the cached content descriptions are saved to.
+	 */
+	private java.io.File getCacheLocation() {
+		return workspace.getMetaArea().getLocation().append(F_CONTENT_CACHE).toFile();
+	}
+
+	private void loadCache() {
+		java.io.File location = getCacheLocation();
+		if (!location.isFile())
+			return;
+		try {
+			int loaded = cache.load(location, Platform.getStateStamp(), this);
+			if (Policy.DEBUG_CONTENT_TYPE_CACHE)
+				Policy.debug("Loaded " + loaded + " content descriptions from " + location); //$NON-NLS-1$ //$NON-NLS-2$
+		} catch (IOException e) {
+			// the saved cache is just lost, descriptions will be read again
+			cache.discardAll();
+			Policy.log(IStatus.WARNING, NLS.bind(Messages.resources_readMeta, location), e);
+		} finally {
+			// the saved cache is only good for one session, whatever happens to the content types later on
+			location.delete();
+		}
+	}
+
+	private void saveCache() {
+		java.io.File location = getCacheLocation();
+		try {
+			cache.save(location, Platform.getStateStamp());
+		} catch (IOException e) {
+			location.delete();
+			Policy.log(IStatus.WARNING, NLS.bind(Messages.resources_writeMeta, location), e);
+		}
+	}
+
 	/**
 	 * @see IRegistryChangeListener#registryChanged(IRegistryChangeEvent)
 	 */
@@ -510,6 +556,8 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 			return;
 		workspace.getRoot().setPersistentProperty(CACHE_STATE, Byte.toString(newCacheState));
 		cacheState = newCacheState;
+		if (Policy.DEBUG_CONTENT_TYPE_CACHE && cache != null)
+			Policy.debug("Content type cache state changed to " + newCacheState + ": " + cache); //$NON-NLS-1$ //$NON-NLS-2$
 	}
 
 	private void setCacheTimeStamp(long timeStamp) throws CoreException {
@@ -518,9 +566,12 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 
 	@Override
 	public void shutdown(IProgressMonitor monitor) throws CoreException {
-		if (getCacheState() != INVALID_CACHE)
+		if (getCacheState() != INVALID_CACHE) {
 			// remember the platform timestamp for which we have a valid cache
 			setCacheTimeStamp(Platform.getStateStamp());
+			if (PERSIST_CACHE && getCacheState() == USED_CACHE)
+				saveCache();
+		}
 		IContentTypeManager contentTypeManager = Platform.getContentTypeManager();
 		//tolerate missing services during shutdown because they might be already gone
 		if (contentTypeManager != null)
@@ -528,7 +579,7 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 		IExtensionRegistry registry = Platform.getExtensionRegistry();
 		if (registry != null)
 			registry.removeRegistryChangeListener(this);
-		cache.dispose();
+		cache.discardAll();
 		cache = null;
 		flushJob.cancel();
 		flushJob = null;
@@ -537,7 +588,7 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 
 	@Override
 	public void startup(IProgressMonitor monitor) throws CoreException {
-		cache = new Cache(100, 1000, 0.1);
+		cache = new ContentDescriptionCache(CACHE_SIZE, Math.max(4, Runtime.getRuntime().availableProcessors()));
 		projectContentTypes = new ProjectContentTypes(workspace);
 		getCacheState();
 		if (cacheState == FLUSHING_CACHE || cacheState == ABOUT_TO_FLUSH)
@@ -547,6 +598,8 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 		// the cache is stale (plug-ins that might be contributing content types were added/removed)
 		if (getCacheTimestamp() != Platform.getStateStamp())
 			invalidateCache(false, null);
+		if (PERSIST_CACHE && getCacheState() == USED_CACHE)
+			loadCache();
 		// register a lifecycle listener
 		workspace.addLifecycleListener(this);
 		// register a content type change listener
@@ -26,6 +26,7 @@ import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileInfo;
 import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.filesystem.IFileSystem;
+import org.eclipse.core.filesystem.IFileTree;
 import org.eclipse.core.filesystem.provider.FileSystem;
 import org.eclipse.core.internal.filesystem.Messages;
 import org.eclipse.core.internal.filesystem.NullFileSystem;
@@ -374,6 +375,73 @@ public class FileStoreTest extends LocalStoreTest {
 		destination.delete(EFS.NONE, null);
 	}
 
+	/**
+	 * Tests that the batched IFileStore#childInfos of the local file system
+	 * returns the same information as fetching the info of every child.
+	 */
+	public void testChildInfos() throws Exception {
+		IPath root = getWorkspace().getRoot().getLocation().append("" + new Date().getTime());
+		IFileStore temp = createDir(root.toString(), true);
+		createDir(temp.getChild("folder"), true);
+		createFile(temp.getChild("file.txt"), "contents");
+		createFile(temp.getChild("empty"), "");
+
+		IFileInfo[] infos = temp.childInfos(EFS.NONE, null);
+		assertEquals("1.0", 3, infos.length);
+		for (IFileInfo info : infos) {
+			IFileInfo expected = temp.getChild(info.getName()).fetchInfo();
+			assertTrue("2.0." + info.getName(), info.exists());
+			assertEquals("2.1." + info.getName(), expected.getName(), info.getName());
+			assertEquals("2.2." + info.getName(), expected.isDirectory(), info.isDirectory());
+			assertEquals("2.3." + info.getName(), expected.getLength(), info.getLength());
+			assertEquals("2.4." + info.getName(), expected.getLastModified(), info.getLastModified());
+			assertEquals("2.5." + info.getName(), expected.getAttribute(EFS.ATTRIBUTE_READ_ONLY), info.getAttribute(EFS.ATTRIBUTE_READ_ONLY));
+		}
+
+		// a file or a missing directory has no children
+		assertEquals("3.0", 0, temp.getChild("file.txt").childInfos(EFS.NONE, null).length);
+		assertEquals("3.1", 0, temp.getChild("missing").childInfos(EFS.NONE, null).length);
+	}
+
+	/**
+	 * Tests that a file tree fetched concurrently from the local file system
+	 * contains the children of all directories, including those below the
+	 * requested depth or rejected by the filter.
+	 */
+	public void testFetchFileTree() throws Exception {
+		IPath root = getWorkspace().getRoot().getLocation().append("" + new Date().getTime());
+		IFileStore temp = createDir(root.toString(), true);
+		IFileStore folder = createDir(temp.getChild("folder"), true);
+		IFileStore subFolder = createDir(folder.getChild("sub"), true);
+		createFile(temp.getChild("file.txt"), "contents");
+		createFile(folder.getChild("a.txt"), "a");
+		createFile(subFolder.getChild("b.txt"), "bb");
+
+		for (int depth : new int[] {1, 2, Integer.MAX_VALUE}) {
+			IFileTree tree = temp.getFileSystem().fetchFileTree(temp, depth, null, null);
+			assertNotNull("1.0." + depth, tree);
+			assertEquals("1.1." + depth, temp, tree.getTreeRoot());
+			assertTrue("1.2." + depth, tree.getFileInfo(temp).isDirectory());
+			assertEquals("1.3." + depth, 2, tree.getChildInfos(temp).length);
+			assertEquals("1.4." + depth, 2, tree.getChildStores(folder).length);
+			IFileInfo[] infos = tree.getChildInfos(subFolder);
+			assertEquals("1.5." + depth, 1, infos.length);
+			assertEquals("1.6." + depth, "b.txt", infos[0].getName());
+			assertEquals("1.7." + depth, 2, tree.getFileInfo(subFolder.getChild("b.txt")).getLength());
+			assertEquals("1.8." + depth, 0, tree.getChildInfos(temp.getChild("file.txt")).length);
+		}
+
+		List<IPath> filtered = Collections.synchronizedList(new ArrayList<>());
+		IFileTree tree = temp.getFileSystem().fetchFileTree(temp, Integer.MAX_VALUE, path -> {
+			filtered.add(path);
+			return false;
+		}, null);
+		// only the children of the root are tested, the rejected folder is read on demand
+		assertEquals("2.0", Collections.singletonList(new Path("folder")), filtered);
+		assertEquals("2.1", 2, tree.getChildStores(folder).length);
+		assertEquals("2.2", 1, tree.getChildInfos(subFolder).length);
+	}
+
 	public void testGetLength() throws Exception {
 		// evaluate test environment
 		IPath root = getWorkspace().getRoot().getLocation().append("" + new Date().getTime());
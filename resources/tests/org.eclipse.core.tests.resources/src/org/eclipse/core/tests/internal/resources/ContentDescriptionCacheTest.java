@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.resources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.eclipse.core.internal.resources.ContentDescriptionCache;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.content.IContentDescription;
+import org.eclipse.core.runtime.content.IContentTypeManager;
+import org.junit.Test;
+
+public class ContentDescriptionCacheTest {
+
+	private static IContentDescription getTextDescription() {
+		return Platform.getContentTypeManager().getContentType(IContentTypeManager.CT_TEXT).getDefaultDescription();
+	}
+
+	@Test
+	public void testHitsAndMisses() {
+		ContentDescriptionCache cache = new ContentDescriptionCache(1024 * 1024, 4);
+		IContentDescription description = getTextDescription();
+		IPath path = new Path("/project/folder/file.txt");
+		assertNull("1.0", cache.get(path, 1));
+		cache.put(path, description, 1);
+		assertSame("2.0", description, cache.get(path, 1));
+		// a different timestamp means the file has changed
+		assertNull("3.0", cache.get(path, 2));
+		assertEquals("4.0", 1, cache.getHitCount());
+		assertEquals("4.1", 2, cache.getMissCount());
+		cache.discardAll();
+		assertEquals("5.0", 0, cache.size());
+		assertNull("5.1", cache.getEntry(path));
+	}
+
+	@Test
+	public void testEviction() {
+		// room for a few entries only
+		ContentDescriptionCache cache = new ContentDescriptionCache(4096, 1);
+		IContentDescription description = getTextDescription();
+		for (int i = 0; i < 1000; i++)
+			cache.put(new Path("/project/file" + i + ".txt"), description, i);
+		assertTrue("1.0", cache.size() < 1000);
+		assertTrue("1.1", cache.getEvictionCount() > 0);
+		assertEquals("1.2", 1000, cache.size() + cache.getEvictionCount());
+		// the most recently added entry is still there
+		assertNotNull("2.0", cache.getEntry(new Path("/project/file999.txt")));
+		assertNull("2.1", cache.getEntry(new Path("/project/file0.txt")));
+	}
+
+	@Test
+	public void testSaveAndLoad() throws IOException {
+		ContentDescriptionCache cache = new ContentDescriptionCache(1024 * 1024, 4);
+		IContentDescription description = getTextDescription();
+		IPath path = new Path("/project/file.txt");
+		cache.put(path, description, 42);
+		File file = Files.createTempFile("contentcache", null).toFile();
+		try {
+			cache.save(file, 7);
+
+			ContentDescriptionCache loaded = new ContentDescriptionCache(1024 * 1024, 4);
+			// saved with other content type definitions
+			assertEquals("1.0", 0, loaded.load(file, 8, null));
+			assertEquals("1.1", 1, loaded.load(file, 7, null));
+			IContentDescription loadedDescription = loaded.get(path, 42);
+			assertNotNull("2.0", loadedDescription);
+			assertEquals("2.1", description.getContentType(), loadedDescription.getContentType());
+			assertEquals("2.2", description.getCharset(), loadedDescription.getCharset());
+			assertNull("2.3", loaded.get(path, 43));
+		} finally {
+			file.delete();
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2018 IBM Corporation and others.
+ * Copyright (c) 2004, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -27,8 +27,7 @@ import static org.junit.Assert.assertTrue;
 import java.io.*;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 import org.eclipse.core.internal.content.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.content.*;
@@ -613,6 +612,66 @@ public class IContentTypeManagerTest extends ContentTypeTest {
 
 	}
 
+	/**
+	 * Tests that describing many files at once gives the same descriptions as
+	 * describing them one by one.
+	 */
+	@Test
+	public void testDescriptionsFor() throws IOException {
+		IContentTypeManager contentTypeManager = Platform.getContentTypeManager();
+		String[][] files = { { "foo.xml", MINIMAL_XML }, { "foo.xml", XML_ROOT_ELEMENT_ISO_8859_1 },
+				{ "abc.tzt", "some contents" }, { "unknown.unknown-extension", "some contents" },
+				{ null, MINIMAL_XML }, { "bar.xml", XML_DTD_US_ASCII } };
+		Set<String> opened = Collections.synchronizedSet(new HashSet<>());
+		List<IContentTypeMatcher.IContentSource> sources = new ArrayList<>();
+		for (int repeat = 0; repeat < 20; repeat++) {
+			for (String[] file : files) {
+				sources.add(new IContentTypeMatcher.IContentSource() {
+					@Override
+					public String getFileName() {
+						return file[0];
+					}
+
+					@Override
+					public InputStream openStream() {
+						opened.add(file[0]);
+						return getInputStream(file[1], StandardCharsets.ISO_8859_1);
+					}
+				});
+			}
+		}
+		IContentDescription[] descriptions = contentTypeManager.getDescriptionsFor(sources, IContentDescription.ALL);
+		assertEquals("1.0", sources.size(), descriptions.length);
+		for (int i = 0; i < descriptions.length; i++) {
+			String[] file = files[i % files.length];
+			IContentDescription expected = contentTypeManager.getDescriptionFor(getInputStream(file[1], StandardCharsets.ISO_8859_1), file[0], IContentDescription.ALL);
+			if (expected == null) {
+				assertNull("2.0." + i, descriptions[i]);
+				continue;
+			}
+			assertNotNull("2.1." + i, descriptions[i]);
+			assertEquals("2.2." + i, expected.getContentType(), descriptions[i].getContentType());
+			assertEquals("2.3." + i, expected.getCharset(), descriptions[i].getCharset());
+		}
+		// files not associated with any content type by name are not read
+		assertFalse("3.0", opened.contains("unknown.unknown-extension"));
+
+		// failures to read contents flow to the caller
+		List<IContentTypeMatcher.IContentSource> failing = new ArrayList<>(sources);
+		failing.add(new IContentTypeMatcher.IContentSource() {
+			@Override
+			public String getFileName() {
+				return "foo.xml";
+			}
+
+			@Override
+			public InputStream openStream() throws IOException {
+				throw new FileNotFoundException("foo.xml");
+			}
+		});
+		assertThrows(IOException.class, () -> contentTypeManager.getDescriptionsFor(failing, IContentDescription.ALL));
+	}
+
 	@Test
 	public void testContentDetection() throws IOException {
 		IContentTypeManager contentTypeManager = Platform.getContentTypeManager();
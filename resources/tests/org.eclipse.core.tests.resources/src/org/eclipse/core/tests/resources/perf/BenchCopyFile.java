@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2015 IBM Corporation and others.
+ * Copyright (c) 2006, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,6 +13,8 @@
  *******************************************************************************/
 package org.eclipse.core.tests.resources.perf;
 
+import java.io.InputStream;
+import java.util.Random;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.runtime.CoreException;
@@ -23,6 +25,11 @@ import org.eclipse.core.tests.resources.OldCorePerformanceTest;
  */
 public class BenchCopyFile extends OldCorePerformanceTest {
 	private static final int COUNT = 5000;
+	private static final int LARGE_FILE_COUNT = 10;
+	private static final int LARGE_FILE_SIZE = 64 * 1024 * 1024;
+	private static final int TREE_DEPTH = 3;
+	private static final int TREE_FOLDERS_PER_LEVEL = 5;
+	private static final int TREE_FILES_PER_FOLDER = 40;
 
 	public void testCopyFile() {
 		IFileStore input = getTempStore();
@@ -43,6 +50,87 @@ public class BenchCopyFile extends OldCorePerformanceTest {
 
 	}
 
+	public void testCopyLargeFile() {
+		IFileStore input = getTempStore();
+		createFileInFileSystem(input, new RandomInputStream(LARGE_FILE_SIZE));
+		IFileStore[] output = new IFileStore[LARGE_FILE_COUNT];
+		for (int i = 0; i < output.length; i++) {
+			output[i] = getTempStore();
+		}
+		startBench();
+		for (IFileStore element : output) {
+			try {
+				input.copy(element, EFS.NONE, null);
+			} catch (CoreException e) {
+				fail("4.99", e);
+			}
+		}
+		stopBench("copyLargeFile", LARGE_FILE_COUNT);
+	}
+
+	public void testCopyTree() {
+		IFileStore input = getTempStore();
+		int fileCount = createTree(input, TREE_DEPTH);
+		IFileStore output = getTempStore();
+		startBench();
+		try {
+			input.copy(output, EFS.NONE, null);
+		} catch (CoreException e) {
+			fail("4.99", e);
+		}
+		stopBench("copyTree", fileCount);
+	}
+
+	/**
+	 * Creates a directory tree with the given depth below the given store
+	 * and returns the number of files created.
+	 */
+	private int createTree(IFileStore root, int depth) {
+		int count = 0;
+		for (int i = 0; i < TREE_FILES_PER_FOLDER; i++) {
+			createFileInFileSystem(root.getChild("file" + i + ".txt"), getRandomContents());
+			count++;
+		}
+		if (depth > 0) {
+			for (int i = 0; i < TREE_FOLDERS_PER_LEVEL; i++) {
+				count += createTree(root.getChild("folder" + i), depth - 1);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * A stream of pseudo random bytes of the given length.
+	 */
+	private static class RandomInputStream extends InputStream {
+		private final Random random = new Random(0);
+		private long remaining;
+
+		RandomInputStream(long length) {
+			this.remaining = length;
+		}
+
+		@Override
+		public int read() {
+			if (remaining <= 0)
+				return -1;
+			remaining--;
+			return random.nextInt(256);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (remaining <= 0)
+				return -1;
+			int count = (int) Math.min(len, remaining);
+			byte[] bytes = new byte[count];
+			random.nextBytes(bytes);
+			System.arraycopy(bytes, 0, b, off, count);
+			remaining -= count;
+			return count;
+		}
+	}
+
 	/**
 	 * Override to get a bigger string
 	 */
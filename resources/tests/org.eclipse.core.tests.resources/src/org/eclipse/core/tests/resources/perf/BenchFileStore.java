@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2005, 2015 IBM Corporation and others.
+ *  Copyright (c) 2005, 2023 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -29,6 +29,12 @@ public class BenchFileStore extends ResourceTest {
 
 	private static final int REPEATS = 300;
 
+	private static final int DIRECTORY_SIZE = 1000;
+
+	private static final int DIRECTORY_REPEATS = 20;
+
+	private static final int DIRECTORY_LOOP_SIZE = 50;
+
 	class StoreTestRunner extends PerformanceTestRunner {
 		private boolean exits;
 		protected IFileStore store;
@@ -64,6 +70,54 @@ public class BenchFileStore extends ResourceTest {
 		}
 	}
 
+	/**
+	 * Reads the information of all children of a directory, either one child
+	 * at a time or with a single call for the whole directory.
+	 */
+	class DirectoryTestRunner extends PerformanceTestRunner {
+		private final boolean batched;
+		protected IFileStore directory;
+
+		public DirectoryTestRunner(boolean batched) {
+			this.batched = batched;
+		}
+
+		@Override
+		protected void setUp() throws CoreException {
+			directory = EFS.getFileSystem(EFS.SCHEME_FILE).getStore(getRandomLocation());
+			directory.mkdir(EFS.NONE, null);
+			for (int i = 0; i < DIRECTORY_SIZE; i++) {
+				try {
+					directory.getChild("file" + i).openOutputStream(EFS.NONE, null).close();
+				} catch (IOException e) {
+					fail("BenchFileStore.createDirectory", e);
+				}
+			}
+		}
+
+		@Override
+		protected void tearDown() throws CoreException {
+			directory.delete(EFS.NONE, null);
+		}
+
+		@Override
+		protected void test() {
+			try {
+				if (batched) {
+					for (IFileInfo info : directory.childInfos(EFS.NONE, null)) {
+						info.getLastModified();
+					}
+				} else {
+					for (IFileStore child : directory.childStores(EFS.NONE, null)) {
+						child.fetchInfo().getLastModified();
+					}
+				}
+			} catch (CoreException e) {
+				fail("BenchFileStore.readDirectory", e);
+			}
+		}
+	}
+
 	public void testStoreExitsNative() {
 		withNatives(true, () -> {
 			new StoreTestRunner(true).run(this, REPEATS, LOOP_SIZE);
@@ -90,6 +144,33 @@ public class BenchFileStore extends ResourceTest {
 		});
 	}
 
+	/**
+	 * One JNI call per child of the directory.
+	 */
+	public void testDirectoryNative() {
+		withNatives(true, () -> {
+			new DirectoryTestRunner(false).run(this, DIRECTORY_REPEATS, DIRECTORY_LOOP_SIZE);
+		});
+	}
+
+	/**
+	 * One pass over the directory through NIO.
+	 */
+	public void testDirectoryNio() {
+		withNatives(false, () -> {
+			new DirectoryTestRunner(true).run(this, DIRECTORY_REPEATS, DIRECTORY_LOOP_SIZE);
+		});
+	}
+
+	/**
+	 * One JNI call for the whole directory, where the native library supports it.
+	 */
+	public void testDirectoryNativeBatched() {
+		withNatives(true, () -> {
+			new DirectoryTestRunner(true).run(this, DIRECTORY_REPEATS, DIRECTORY_LOOP_SIZE);
+		});
+	}
+
 	private static void withNatives(boolean natives, Runnable runnable) {
 		try {
 			assertEquals("can't set natives to the desired value", natives,
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.content;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.QualifiedName;
+import org.eclipse.core.runtime.content.IContentDescription;
+import org.eclipse.core.runtime.content.IContentType;
+import org.eclipse.core.runtime.content.IContentTypeMatcher.IContentSource;
+
+/**
+ * Describes the contents of many files at once.
+ * <p>
+ * The candidate content types of every file are looked up by name first, once for
+ * each distinct name. Files whose names are not associated with any content type
+ * are never opened. The other files are described by a few threads, each reusing
+ * the buffer of a single {@link LazyInputStream}, and each file is only opened
+ * when a describer reads its contents.
+ * </p>
+ *
+ * @see org.eclipse.core.runtime.content.IContentTypeMatcher#getDescriptionsFor(List, QualifiedName[])
+ */
+final class BatchDescriber {
+	/**
+	 * The maximum number of files described at the same time
+	 */
+	private static final int PARALLELISM = Math.max(1, Integer.getInteger("org.eclipse.core.contenttype.batchParallelism", Runtime.getRuntime().availableProcessors())); //$NON-NLS-1$
+
+	/**
+	 * Lazily created pool shared by all batches, so the number of threads stays
+	 * bounded no matter how many batches are described at the same time.
+	 */
+	private static class DescriberPool {
+		static final ForkJoinPool INSTANCE = new ForkJoinPool(PARALLELISM);
+	}
+
+	/**
+	 * Opens the contents of a file on first use.
+	 */
+	private static final class DeferredInputStream extends InputStream {
+		private final IContentSource source;
+		private InputStream in;
+
+		DeferredInputStream(IContentSource source) {
+			this.source = source;
+		}
+
+		private InputStream open() throws IOException {
+			if (in == null)
+				in = source.openStream();
+			return in;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return open().available();
+		}
+
+		@Override
+		public int read() throws IOException {
+			return open().read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			return open().read(b, off, len);
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			return open().skip(n);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (in != null)
+				in.close();
+		}
+	}
+
+	private final ContentTypeMatcher matcher;
+	private final ContentTypeCatalog catalog;
+	private final List<? extends IContentSource> sources;
+	private final QualifiedName[] options;
+	private final IContentType[][][] candidates;
+	private final IContentDescription[] descriptions;
+	/**
+	 * The indexes of the sources whose contents have to be described
+	 */
+	private final int[] toDescribe;
+	private final AtomicInteger next = new AtomicInteger();
+	/**
+	 * The failures to read contents, by source index
+	 */
+	private final ConcurrentSkipListMap<Integer, IOException> failures = new ConcurrentSkipListMap<>();
+
+	private BatchDescriber(ContentTypeMatcher matcher, ContentTypeCatalog catalog, List<? extends IContentSource> sources, QualifiedName[] options) {
+		this.matcher = matcher;
+		this.catalog = catalog;
+		this.sources = sources;
+		this.options = options;
+		this.candidates = new IContentType[sources.size()][][];
+		this.descriptions = new IContentDescription[sources.size()];
+		Map<String, IContentType[][]> byName = new HashMap<>();
+		int[] indexes = new int[sources.size()];
+		int count = 0;
+		for (int i = 0; i < candidates.length; i++) {
+			candidates[i] = byName.computeIfAbsent(sources.get(i).getFileName(), name -> catalog.getCandidates(matcher, name));
+			if (candidates[i][0].length + candidates[i][1].length + candidates[i][2].length > 0)
+				indexes[count++] = i;
+		}
+		this.toDescribe = Arrays.copyOf(indexes, count);
+	}
+
+	static IContentDescription[] describe(ContentTypeMatcher matcher, ContentTypeCatalog catalog, List<? extends IContentSource> sources, QualifiedName[] options) throws IOException {
+		BatchDescriber batch = new BatchDescriber(matcher, catalog, sources, options);
+		batch.run(Math.min(PARALLELISM, batch.toDescribe.length));
+		if (!batch.failures.isEmpty())
+			throw batch.failures.firstEntry().getValue();
+		return batch.descriptions;
+	}
+
+	private void run(int parallelism) throws IOException {
+		if (parallelism <= 1) {
+			// nothing to parallelize
+			describeAll();
+			return;
+		}
+		List<Callable<Void>> workers = new ArrayList<>(parallelism);
+		for (int i = 0; i < parallelism; i++) {
+			workers.add(() -> {
+				describeAll();
+				return null;
+			});
+		}
+		for (Future<Void> worker : DescriberPool.INSTANCE.invokeAll(workers)) {
+			try {
+				worker.get();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw new IOException(cause);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+		}
+	}
+
+	/**
+	 * Describes sources until there are none left, or until one could not be read.
+	 */
+	private void describeAll() {
+		LazyInputStream buffer = new LazyInputStream(null, ContentTypeManager.BLOCK_SIZE);
+		try {
+			int position;
+			while (failures.isEmpty() && (position = next.getAndIncrement()) < toDescribe.length) {
+				int index = toDescribe[position];
+				IContentSource source = sources.get(index);
+				DeferredInputStream contents = new DeferredInputStream(source);
+				buffer.reuse(contents);
+				try {
+					try {
+						descriptions[index] = catalog.getDescriptionFor(matcher, buffer, source.getFileName(), candidates[index], options);
+					} finally {
+						contents.close();
+					}
+				} catch (IOException e) {
+					failures.put(index, e);
+				}
+			}
+		} finally {
+			buffer.release();
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2009 IBM Corporation and others.
+ * Copyright (c) 2004, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -319,12 +319,22 @@ public final class ContentType implements IContentType, IContentTypeInfo {
 
 	@Override
 	public IContentDescription getDescriptionFor(InputStream contents, QualifiedName[] options) throws IOException {
-		return internalGetDescriptionFor(ContentTypeManager.readBuffer(contents), options);
+		ILazySource buffer = ContentTypeManager.readBuffer(contents);
+		try {
+			return internalGetDescriptionFor(buffer, options);
+		} finally {
+			buffer.release();
+		}
 	}
 
 	@Override
 	public IContentDescription getDescriptionFor(Reader contents, QualifiedName[] options) throws IOException {
-		return internalGetDescriptionFor(ContentTypeManager.readBuffer(contents), options);
+		ILazySource buffer = ContentTypeManager.readBuffer(contents);
+		try {
+			return internalGetDescriptionFor(buffer, options);
+		} finally {
+			buffer.release();
+		}
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2017 IBM Corporation and others.
+ * Copyright (c) 2004, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -17,6 +17,7 @@ package org.eclipse.core.internal.content;
 import java.io.*;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.content.*;
@@ -28,17 +29,78 @@ public final class ContentTypeCatalog {
 	private static final IContentType[] NO_CONTENT_TYPES = new IContentType[0];
 
 	/**
-	 * All fields are guarded by lock on "this"
+	 * Content types by id. Concurrent so that they can be looked up without locking.
+	 */
+	private final Map<String, IContentType> contentTypes = new ConcurrentHashMap<>();
+	/**
+	 * The file associations are guarded by lock on "this" and only read by
+	 * lookups through the snapshot they were copied into.
 	 */
-	private final Map<ContentType, ContentType[]> allChildren = new HashMap<>();
-	private final Map<String, IContentType> contentTypes = new HashMap<>();
 	private final Map<String, Set<ContentType>> fileExtensions = new HashMap<>();
 	private final Map<String, Set<ContentType>> fileNames = new HashMap<>();
 	private final Map<String, Pattern> compiledRegexps = new HashMap<>();
 	private final Map<Pattern, String> initialPatternForRegexp = new HashMap<>();
 	private final Map<Pattern, Set<ContentType>> fileRegexps = new HashMap<>();
+	/**
+	 * Compiled user-defined file patterns, which are read from the preferences on every lookup
+	 */
+	private final Map<String, Pattern> userDefinedRegexps = new ConcurrentHashMap<>();
 	private int generation;
 	private ContentTypeManager manager;
+	/**
+	 * Immutable copy of the file associations used by lookups, or <code>null</code>
+	 * if the catalog changed since it was taken. Written while holding the lock on "this".
+	 */
+	private volatile Snapshot snapshot;
+
+	/**
+	 * An immutable view of the catalog, so that lookups from many threads at
+	 * once don't have to lock the catalog.
+	 */
+	private static final class Snapshot {
+		final Map<String, Set<ContentType>> fileExtensions;
+		final Map<String, Set<ContentType>> fileNames;
+		final FilePatternIndex filePatterns;
+		final IContentType[] allContentTypes;
+		final Collection<IContentType> contentTypes;
+		/**
+		 * Sub-types of each content type, computed on demand
+		 */
+		final Map<ContentType, ContentType[]> allChildren = new ConcurrentHashMap<>();
+
+		Snapshot(ContentTypeCatalog catalog) {
+			fileExtensions = copy(catalog.fileExtensions);
+			fileNames = copy(catalog.fileNames);
+			filePatterns = new FilePatternIndex(copy(catalog.fileRegexps), catalog.initialPatternForRegexp);
+			contentTypes = new ArrayList<>(catalog.contentTypes.values());
+			List<ContentType> all = new ArrayList<>(contentTypes.size());
+			for (IContentType iContentType : contentTypes) {
+				ContentType type = (ContentType) iContentType;
+				if (type.isValid() && !type.isAlias())
+					all.add(type);
+			}
+			allContentTypes = all.toArray(new IContentType[all.size()]);
+		}
+
+		private static <K> Map<K, Set<ContentType>> copy(Map<K, Set<ContentType>> associations) {
+			Map<K, Set<ContentType>> result = new HashMap<>(associations.size());
+			for (Entry<K, Set<ContentType>> entry : associations.entrySet())
+				result.put(entry.getKey(), Collections.unmodifiableSet(new HashSet<>(entry.getValue())));
+			return result;
+		}
+
+		ContentType[] getChildren(ContentType parent) {
+			return allChildren.computeIfAbsent(parent, p -> {
+				List<ContentType> result = new ArrayList<>(5);
+				for (IContentType iContentType : contentTypes) {
+					ContentType next = (ContentType) iContentType;
+					if (next.getBaseType() == p)
+						result.add(next);
+				}
+				return result.toArray(new ContentType[result.size()]);
+			});
+		}
+	}
 
 	/**
 	 * Return true if type1 is an ancestor of type2 or if type2 is an ancestor of
@@ -168,6 +230,22 @@ public final class ContentTypeCatalog {
 
 	synchronized void addContentType(IContentType contentType) {
 		contentTypes.put(contentType.getId(), contentType);
+		snapshot = null;
+	}
+
+	/**
+	 * Returns the current snapshot of the catalog, taking a new one if the
+	 * catalog changed since the last lookup.
+	 */
+	private Snapshot getSnapshot() {
+		Snapshot current = snapshot;
+		if (current != null)
+			return current;
+		synchronized (this) {
+			if (snapshot == null)
+				snapshot = new Snapshot(this);
+			return snapshot;
+		}
 	}
 
 	/**
@@ -209,6 +287,13 @@ public final class ContentTypeCatalog {
 		return filePattern.replace(".", "\\.").replace('?', '.').replace("*", ".*"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 	}
 
+	/**
+	 * Returns the compiled form of a file pattern found in the preferences of a scope.
+	 */
+	Pattern compileUserDefinedPattern(String filePattern) {
+		return userDefinedRegexps.computeIfAbsent(filePattern, p -> Pattern.compile(toRegexp(p)));
+	}
+
 	synchronized void associate(ContentType contentType, String text, int type) {
 		Map<String, Set<ContentType>> fileSpecMap = null;
 		if ((type & IContentType.FILE_NAME_SPEC) != 0) {
@@ -232,6 +317,7 @@ public final class ContentTypeCatalog {
 			}
 			fileRegexps.get(compiledPattern).add(contentType);
 		}
+		snapshot = null;
 	}
 
 	private int collectMatchingByContents(int valid, IContentType[] subset, List<ContentType> destination, ILazySource contents, Map<String, Object> properties) throws IOException {
@@ -313,6 +399,7 @@ public final class ContentTypeCatalog {
 			Pattern pattern = compiledRegexps.get(text);
 			fileRegexps.get(pattern).remove(contentType);
 		}
+		snapshot = null;
 	}
 
 	/**
@@ -360,7 +447,12 @@ public final class ContentTypeCatalog {
 
 	IContentType[] findContentTypesFor(ContentTypeMatcher matcher, InputStream contents, String fileName) throws IOException {
 		final ILazySource buffer = ContentTypeManager.readBuffer(contents);
-		IContentType[] selected = internalFindContentTypesFor(matcher, buffer, fileName, true);
+		IContentType[] selected;
+		try {
+			selected = internalFindContentTypesFor(matcher, buffer, fileName, true);
+		} finally {
+			buffer.release();
+		}
 		// give the policy a chance to change the results
 		ISelectionPolicy policy = matcher.getPolicy();
 		if (policy != null)
@@ -377,29 +469,8 @@ public final class ContentTypeCatalog {
 		return selected;
 	}
 
-	synchronized public IContentType[] getAllContentTypes() {
-		List<ContentType> result = new ArrayList<>(contentTypes.size());
-		for (IContentType iContentType : contentTypes.values()) {
-			ContentType type = (ContentType) iContentType;
-			if (type.isValid() && !type.isAlias())
-				result.add(type);
-		}
-		return result.toArray(new IContentType[result.size()]);
-	}
-
-	private ContentType[] getChildren(ContentType parent) {
-		ContentType[] children = allChildren.get(parent);
-		if (children != null)
-			return children;
-		List<ContentType> result = new ArrayList<>(5);
-		for (IContentType iContentType : this.contentTypes.values()) {
-			ContentType next = (ContentType) iContentType;
-			if (next.getBaseType() == parent)
-				result.add(next);
-		}
-		children = result.toArray(new ContentType[result.size()]);
-		allChildren.put(parent, children);
-		return children;
+	public IContentType[] getAllContentTypes() {
+		return getSnapshot().allContentTypes.clone();
 	}
 
 	public ContentType getContentType(String contentTypeIdentifier) {
@@ -408,7 +479,15 @@ public final class ContentTypeCatalog {
 	}
 
 	private IContentDescription getDescriptionFor(ContentTypeMatcher matcher, ILazySource contents, String fileName, QualifiedName[] options) throws IOException {
-		IContentType[] selected = internalFindContentTypesFor(matcher, contents, fileName, false);
+		return getDescriptionFor(matcher, contents, fileName, getCandidates(matcher, fileName), options);
+	}
+
+	/**
+	 * Describes the given contents, choosing among the content types returned by
+	 * {@link #getCandidates(ContentTypeMatcher, String)} for the given file name.
+	 */
+	IContentDescription getDescriptionFor(ContentTypeMatcher matcher, ILazySource contents, String fileName, IContentType[][] candidates, QualifiedName[] options) throws IOException {
+		IContentType[] selected = internalFindContentTypesFor(contents, candidates, fileName != null, false);
 		if (selected.length == 0)
 			return null;
 		// give the policy a chance to change the results
@@ -422,11 +501,21 @@ public final class ContentTypeCatalog {
 	}
 
 	public IContentDescription getDescriptionFor(ContentTypeMatcher matcher, InputStream contents, String fileName, QualifiedName[] options) throws IOException {
-		return getDescriptionFor(matcher, ContentTypeManager.readBuffer(contents), fileName, options);
+		ILazySource buffer = ContentTypeManager.readBuffer(contents);
+		try {
+			return getDescriptionFor(matcher, buffer, fileName, options);
+		} finally {
+			buffer.release();
+		}
 	}
 
 	public IContentDescription getDescriptionFor(ContentTypeMatcher matcher, Reader contents, String fileName, QualifiedName[] options) throws IOException {
-		return getDescriptionFor(matcher, ContentTypeManager.readBuffer(contents), fileName, options);
+		ILazySource buffer = ContentTypeManager.readBuffer(contents);
+		try {
+			return getDescriptionFor(matcher, buffer, fileName, options);
+		} finally {
+			buffer.release();
+		}
 	}
 
 	public int getGeneration() {
@@ -437,7 +526,7 @@ public final class ContentTypeCatalog {
 		return manager;
 	}
 
-	private boolean internalAccept(ContentTypeVisitor visitor, ContentType root) {
+	private boolean internalAccept(Snapshot current, ContentTypeVisitor visitor, ContentType root) {
 		if (!root.isValid() || root.isAlias())
 			return true;
 		int result = visitor.visit(root);
@@ -449,12 +538,12 @@ public final class ContentTypeCatalog {
 			case ContentTypeVisitor.RETURN :
 				return true;
 		}
-		ContentType[] children = getChildren(root);
+		ContentType[] children = current.getChildren(root);
 		if (children == null)
 			// this content type has no sub-types - keep traversing the tree
 			return true;
 		for (ContentType c : children) {
-			if (!internalAccept(visitor, c)) {
+			if (!internalAccept(current, visitor, c)) {
 				// stop the traversal
 				return false;
 			}
@@ -492,18 +581,30 @@ public final class ContentTypeCatalog {
 		return result;
 	}
 
+	/**
+	 * Returns the content types the contents of a file with the given name may be
+	 * described with, by full name, extension and pattern association. All content
+	 * types are candidates if the file name is <code>null</code>.
+	 */
+	IContentType[][] getCandidates(ContentTypeMatcher matcher, String fileName) {
+		if (fileName == null)
+			// we only have a single array, by need to provide a two-dimensional, 3-element
+			// array
+			return new IContentType[][] { getAllContentTypes(), NO_CONTENT_TYPES, NO_CONTENT_TYPES };
+		return internalFindContentTypesFor(matcher, fileName, policyLexicographical);
+	}
+
 	private IContentType[] internalFindContentTypesFor(ContentTypeMatcher matcher, ILazySource buffer, String fileName, boolean forceValidation) throws IOException {
-		final IContentType[][] subset;
+		return internalFindContentTypesFor(buffer, getCandidates(matcher, fileName), fileName != null, forceValidation);
+	}
+
+	private IContentType[] internalFindContentTypesFor(ILazySource buffer, IContentType[][] subset, boolean byName, boolean forceValidation) throws IOException {
 		final Comparator<IContentType> validPolicy;
 		Comparator<IContentType> indeterminatePolicy;
-		if (fileName == null) {
-			// we only have a single array, by need to provide a two-dimensional, 3-element
-			// array
-			subset = new IContentType[][] { getAllContentTypes(), NO_CONTENT_TYPES, NO_CONTENT_TYPES };
+		if (!byName) {
 			indeterminatePolicy = policyConstantGeneralIsBetter;
 			validPolicy = policyConstantSpecificIsBetter;
 		} else {
-			subset = internalFindContentTypesFor(matcher, fileName, policyLexicographical);
 			indeterminatePolicy = policyGeneralIsBetter;
 			validPolicy = policySpecificIsBetter;
 		}
@@ -535,7 +636,8 @@ public final class ContentTypeCatalog {
 	 * @return all matching content types in the preferred order
 	 * @see IContentTypeManager#findContentTypesFor(String)
 	 */
-	synchronized private IContentType[][] internalFindContentTypesFor(ContentTypeMatcher matcher, final String fileName, Comparator<IContentType> sortingPolicy) {
+	private IContentType[][] internalFindContentTypesFor(ContentTypeMatcher matcher, final String fileName, Comparator<IContentType> sortingPolicy) {
+		Snapshot current = getSnapshot();
 		IScopeContext context = matcher.getContext();
 		IContentType[][] result = { NO_CONTENT_TYPES, NO_CONTENT_TYPES, NO_CONTENT_TYPES };
 
@@ -543,12 +645,12 @@ public final class ContentTypeCatalog {
 
 		final Set<ContentType> allByFileName;
 		if (context.equals(manager.getContext()))
-			allByFileName = getDirectlyAssociated(fileName, IContentTypeSettings.FILE_NAME_SPEC);
+			allByFileName = getDirectlyAssociated(current, fileName, IContentTypeSettings.FILE_NAME_SPEC);
 		else {
-			allByFileName = new HashSet<>(getDirectlyAssociated(fileName, IContentTypeSettings.FILE_NAME_SPEC | IContentType.IGNORE_USER_DEFINED));
+			allByFileName = new HashSet<>(getDirectlyAssociated(current, fileName, IContentTypeSettings.FILE_NAME_SPEC | IContentType.IGNORE_USER_DEFINED));
 			allByFileName.addAll(matcher.getDirectlyAssociated(this, fileName, IContentTypeSettings.FILE_NAME_SPEC));
 		}
-		Set<ContentType> selectedByName = selectMatchingByName(context, allByFileName, Collections.emptySet(), fileName,
+		Set<ContentType> selectedByName = selectMatchingByName(current, context, allByFileName, Collections.emptySet(), fileName,
 				IContentType.FILE_NAME_SPEC);
 		existing.addAll(selectedByName);
 		result[0] = selectedByName.toArray(new IContentType[selectedByName.size()]);
@@ -559,12 +661,12 @@ public final class ContentTypeCatalog {
 		if (fileExtension != null) {
 			final Set<ContentType> allByFileExtension;
 			if (context.equals(manager.getContext()))
-				allByFileExtension = getDirectlyAssociated(fileExtension, IContentTypeSettings.FILE_EXTENSION_SPEC);
+				allByFileExtension = getDirectlyAssociated(current, fileExtension, IContentTypeSettings.FILE_EXTENSION_SPEC);
 			else {
-				allByFileExtension = new HashSet<>(getDirectlyAssociated(fileExtension, IContentTypeSettings.FILE_EXTENSION_SPEC | IContentType.IGNORE_USER_DEFINED));
+				allByFileExtension = new HashSet<>(getDirectlyAssociated(current, fileExtension, IContentTypeSettings.FILE_EXTENSION_SPEC | IContentType.IGNORE_USER_DEFINED));
 				allByFileExtension.addAll(matcher.getDirectlyAssociated(this, fileExtension, IContentTypeSettings.FILE_EXTENSION_SPEC));
 			}
-			Set<ContentType> selectedByExtension = selectMatchingByName(context, allByFileExtension, selectedByName, fileExtension, IContentType.FILE_EXTENSION_SPEC);
+			Set<ContentType> selectedByExtension = selectMatchingByName(current, context, allByFileExtension, selectedByName, fileExtension, IContentType.FILE_EXTENSION_SPEC);
 			existing.addAll(selectedByExtension);
 			if (!selectedByExtension.isEmpty())
 				result[1] = selectedByExtension.toArray(new IContentType[selectedByExtension.size()]);
@@ -574,9 +676,9 @@ public final class ContentTypeCatalog {
 
 		final Set<ContentType> allByFilePattern;
 		if (context.equals(manager.getContext()))
-			allByFilePattern = getMatchingRegexpAssociated(fileName, IContentTypeSettings.FILE_PATTERN_SPEC);
+			allByFilePattern = getMatchingRegexpAssociated(current, fileName, IContentTypeSettings.FILE_PATTERN_SPEC);
 		else {
-			allByFilePattern = new HashSet<>(getMatchingRegexpAssociated(fileName,
+			allByFilePattern = new HashSet<>(getMatchingRegexpAssociated(current, fileName,
 					IContentTypeSettings.FILE_PATTERN_SPEC | IContentType.IGNORE_USER_DEFINED));
 			allByFilePattern
 					.addAll(matcher.getMatchingRegexpAssociated(this, fileName,
@@ -589,16 +691,13 @@ public final class ContentTypeCatalog {
 		return result;
 	}
 
-	private Set<ContentType> getMatchingRegexpAssociated(String fileName, int typeMask) {
+	private Set<ContentType> getMatchingRegexpAssociated(Snapshot current, String fileName, int typeMask) {
 		if ((typeMask & IContentType.FILE_PATTERN_SPEC) == 0) {
 			throw new IllegalArgumentException("This method requires FILE_PATTERN_SPEC."); //$NON-NLS-1$
 		}
 		Set<ContentType> res = new HashSet<>();
-		for (Entry<Pattern, Set<ContentType>> spec : this.fileRegexps.entrySet()) {
-			if (spec.getKey().matcher(fileName).matches()) {
-				res.addAll(filterOnDefinitionSource(initialPatternForRegexp.get(spec.getKey()), typeMask,
-						spec.getValue()));
-			}
+		for (FilePatternIndex.PatternEntry spec : current.filePatterns.getMatching(fileName)) {
+			res.addAll(filterOnDefinitionSource(spec.filePattern, typeMask, spec.contentTypes));
 		}
 		return res;
 	}
@@ -616,11 +715,11 @@ public final class ContentTypeCatalog {
 	 *	</ul>
 	 * @return a set of content types
 	 */
-	private Set<ContentType> getDirectlyAssociated(String text, int typeMask) {
+	private Set<ContentType> getDirectlyAssociated(Snapshot current, String text, int typeMask) {
 		if ((typeMask & IContentType.FILE_PATTERN_SPEC) != 0) {
 			throw new IllegalArgumentException("This method don't allow FILE_REGEXP_SPEC."); //$NON-NLS-1$
 		}
-		Map<String, Set<ContentType>> associations = (typeMask & IContentTypeSettings.FILE_NAME_SPEC) != 0 ? fileNames : fileExtensions;
+		Map<String, Set<ContentType>> associations = (typeMask & IContentTypeSettings.FILE_NAME_SPEC) != 0 ? current.fileNames : current.fileExtensions;
 		Set<ContentType> result = associations.get(FileSpec.getMappingKeyFor(text));
 		if ((typeMask & (IContentType.IGNORE_PRE_DEFINED | IContentType.IGNORE_USER_DEFINED)) != 0) {
 			result = filterOnDefinitionSource(text, typeMask, result);
@@ -661,7 +760,7 @@ public final class ContentTypeCatalog {
 		return contentTypes;
 	}
 
-	synchronized ContentType internalGetContentType(String contentTypeIdentifier) {
+	ContentType internalGetContentType(String contentTypeIdentifier) {
 		return (ContentType) contentTypes.get(contentTypeIdentifier);
 	}
 
@@ -696,13 +795,14 @@ public final class ContentTypeCatalog {
 				if (!type.isValid())
 					ContentMessages.message("Invalid: " + type); //$NON-NLS-1$
 			}
+		snapshot = null;
 	}
 
 	/**
 	 * Processes all content types in source, adding those matching the given file spec to the
 	 * destination collection.
 	 */
-	private Set<ContentType> selectMatchingByName(final IScopeContext context, Collection<ContentType> source, final Collection<ContentType> existing, final String fileSpecText, final int fileSpecType) {
+	private Set<ContentType> selectMatchingByName(Snapshot current, final IScopeContext context, Collection<ContentType> source, final Collection<ContentType> existing, final String fileSpecText, final int fileSpecType) {
 		if (source == null || source.isEmpty())
 			return Collections.EMPTY_SET;
 		final Set<ContentType> destination = new HashSet<>(5);
@@ -710,7 +810,7 @@ public final class ContentTypeCatalog {
 		for (ContentType root : source) {
 			// From a given content type, check if it matches, and
 			// include any children that match as well.
-			internalAccept(new ContentTypeVisitor() {
+			internalAccept(current, new ContentTypeVisitor() {
 				@Override
 				public int visit(ContentType type) {
 					if (type != root && type.hasBuiltInAssociations())
@@ -730,7 +830,7 @@ public final class ContentTypeCatalog {
 		return destination;
 	}
 
-	void removeContentType(String contentTypeIdentifier) throws CoreException {
+	synchronized void removeContentType(String contentTypeIdentifier) throws CoreException {
 		ContentType contentType = getContentType(contentTypeIdentifier);
 		if (contentType == null) {
 			return;
@@ -739,6 +839,7 @@ public final class ContentTypeCatalog {
 			throw new IllegalArgumentException("Content type must be user-defined."); //$NON-NLS-1$
 		}
 		contentTypes.remove(contentType.getId());
+		snapshot = null;
 	}
 
 }
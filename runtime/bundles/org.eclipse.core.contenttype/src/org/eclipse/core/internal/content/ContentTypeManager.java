@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2004, 2016 IBM Corporation and others.
+ *  Copyright (c) 2004, 2023 IBM Corporation and others.
  *
  *  This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License 2.0
@@ -46,7 +46,10 @@ public class ContentTypeManager extends ContentTypeMatcher implements IContentTy
 	public static final int BLOCK_SIZE = 0x400;
 	public static final String CONTENT_TYPE_PREF_NODE = IContentConstants.RUNTIME_NAME + IPath.SEPARATOR + "content-types"; //$NON-NLS-1$
 	private static final String OPTION_DEBUG_CONTENT_TYPES = "org.eclipse.core.contenttype/debug"; //$NON-NLS-1$
-	private ContentTypeCatalog catalog;
+	/**
+	 * Only published once organized, so it can be read without locking the manager.
+	 */
+	private volatile ContentTypeCatalog catalog;
 	private int catalogGeneration;
 
 	/**
@@ -155,22 +158,33 @@ public class ContentTypeManager extends ContentTypeMatcher implements IContentTy
 		return result;
 	}
 
-	protected synchronized ContentTypeCatalog getCatalog() {
-		if (catalog != null)
+	protected ContentTypeCatalog getCatalog() {
+		ContentTypeCatalog current = catalog;
+		if (current != null)
 			// already has one
+			return current;
+		return createCatalog();
+	}
+
+	private synchronized ContentTypeCatalog createCatalog() {
+		if (catalog != null)
+			// created by another thread in the meantime
 			return catalog;
 		// create new catalog
 		ContentTypeCatalog newCatalog = new ContentTypeCatalog(this, catalogGeneration++);
 		// build catalog by parsing the extension registry
 		ContentTypeBuilder builder = createBuilder(newCatalog);
+		boolean built = false;
 		try {
 			builder.buildCatalog(getContext());
-			// only remember catalog if building it was successful
-			catalog = newCatalog;
+			built = true;
 		} catch (InvalidRegistryObjectException e) {
 			// the registry has stale objects... just don't remember the returned (incomplete) catalog
 		}
 		newCatalog.organize();
+		if (built)
+			// only remember catalog if building it was successful
+			catalog = newCatalog;
 		return newCatalog;
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2017 IBM Corporation and others.
+ * Copyright (c) 2005, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,7 +16,6 @@ package org.eclipse.core.internal.content;
 
 import java.io.*;
 import java.util.*;
-import java.util.regex.Pattern;
 import org.eclipse.core.runtime.QualifiedName;
 import org.eclipse.core.runtime.content.*;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
@@ -87,6 +86,11 @@ public class ContentTypeMatcher implements IContentTypeMatcher {
 		return getCatalog().getDescriptionFor(this, contents, fileName, options);
 	}
 
+	@Override
+	public IContentDescription[] getDescriptionsFor(List<? extends IContentSource> sources, QualifiedName[] options) throws IOException {
+		return BatchDescriber.describe(this, getCatalog(), sources, options);
+	}
+
 	public IScopeContext getContext() {
 		return context;
 	}
@@ -138,7 +142,7 @@ public class ContentTypeMatcher implements IContentTypeMatcher {
 					return true;
 				String[] fileSpecs = ContentTypeSettings.getFileSpecs(node, typeMask);
 				for (String fileSpecification : fileSpecs)
-					if (Pattern.matches(catalog.toRegexp(fileSpecification), fileName)) {
+					if (catalog.compileUserDefinedPattern(fileSpecification).matcher(fileName).matches()) {
 						ContentType associated = catalog.getContentType(node.name());
 						if (associated != null)
 							result.add(associated);
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.content;
+
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.regex.Pattern;
+
+/**
+ * Indexes the file patterns of a catalog by the literal text they end with.
+ * Most patterns look like <code>*.ext</code> or <code>name*.ext</code>, so a
+ * file name only has to be matched against the few patterns whose literal
+ * suffix it ends with, instead of against every pattern of the catalog.
+ * <p>
+ * Instances are immutable and safe for use by multiple threads.
+ * </p>
+ */
+final class FilePatternIndex {
+	/**
+	 * Characters that keep their regular expression meaning in a file pattern,
+	 * see {@link ContentTypeCatalog#toRegexp(String)}.
+	 */
+	private static final String SPECIAL_CHARACTERS = "*?\\[](){}|^$+"; //$NON-NLS-1$
+
+	static final class PatternEntry {
+		final String filePattern;
+		final Pattern pattern;
+		final String suffix;
+		final Set<ContentType> contentTypes;
+
+		PatternEntry(String filePattern, Pattern pattern, Set<ContentType> contentTypes) {
+			this.filePattern = filePattern;
+			this.pattern = pattern;
+			this.suffix = literalSuffix(filePattern);
+			this.contentTypes = contentTypes;
+		}
+
+		boolean matches(String fileName) {
+			// the suffix check rules out most patterns without running the matcher
+			return fileName.endsWith(suffix) && pattern.matcher(fileName).matches();
+		}
+	}
+
+	/**
+	 * Patterns ending with literal text, by the last character of that text
+	 */
+	private final Map<Character, List<PatternEntry>> bySuffix = new HashMap<>();
+	/**
+	 * Patterns ending with a wildcard, or using other regular expression constructs
+	 */
+	private final List<PatternEntry> unindexed = new ArrayList<>();
+
+	FilePatternIndex(Map<Pattern, Set<ContentType>> fileRegexps, Map<Pattern, String> initialPatternForRegexp) {
+		for (Entry<Pattern, Set<ContentType>> spec : fileRegexps.entrySet()) {
+			if (spec.getValue().isEmpty())
+				continue;
+			PatternEntry entry = new PatternEntry(initialPatternForRegexp.get(spec.getKey()), spec.getKey(), spec.getValue());
+			if (entry.suffix.isEmpty())
+				unindexed.add(entry);
+			else
+				bySuffix.computeIfAbsent(entry.suffix.charAt(entry.suffix.length() - 1), c -> new ArrayList<>(2)).add(entry);
+		}
+	}
+
+	/**
+	 * Returns the literal text every file name matching the given pattern ends with,
+	 * or an empty string if the pattern uses regular expression constructs that make
+	 * the suffix unreliable (for instance flags or groups).
+	 */
+	static String literalSuffix(String filePattern) {
+		int start = filePattern.length();
+		while (start > 0 && SPECIAL_CHARACTERS.indexOf(filePattern.charAt(start - 1)) < 0)
+			start--;
+		for (int i = 0; i < start; i++) {
+			char c = filePattern.charAt(i);
+			if (c != '*' && c != '?' && SPECIAL_CHARACTERS.indexOf(c) >= 0)
+				return ""; //$NON-NLS-1$
+		}
+		return filePattern.substring(start);
+	}
+
+	/**
+	 * Returns the patterns matching the given file name.
+	 */
+	List<PatternEntry> getMatching(String fileName) {
+		List<PatternEntry> result = null;
+		if (!fileName.isEmpty()) {
+			List<PatternEntry> candidates = bySuffix.get(fileName.charAt(fileName.length() - 1));
+			if (candidates != null)
+				result = collectMatching(candidates, fileName, result);
+		}
+		result = collectMatching(unindexed, fileName, result);
+		return result == null ? Collections.emptyList() : result;
+	}
+
+	private static List<PatternEntry> collectMatching(List<PatternEntry> candidates, String fileName, List<PatternEntry> result) {
+		for (PatternEntry candidate : candidates) {
+			if (candidate.matches(fileName)) {
+				if (result == null)
+					result = new ArrayList<>(2);
+				result.add(candidate);
+			}
+		}
+		return result;
+	}
+}
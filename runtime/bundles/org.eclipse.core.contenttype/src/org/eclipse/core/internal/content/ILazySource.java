@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005 IBM Corporation and others.
+ * Copyright (c) 2005, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -28,4 +28,11 @@ public interface ILazySource {
 	 * Rewinds the stream.
 	 */
 	void rewind();
+
+	/**
+	 * Gives the blocks buffering the contents back to the pool they were taken
+	 * from. The contents read so far are forgotten, so the source should not be
+	 * used anymore.
+	 */
+	void release();
 }
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.content;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A pool of the blocks {@link LazyInputStream} and {@link LazyReader} buffer
+ * contents in, so that describing a file does not allocate new blocks.
+ * <p>
+ * Only blocks of {@link ContentTypeManager#BLOCK_SIZE} are pooled, and at most
+ * <code>org.eclipse.core.contenttype.bufferPoolSize</code> of each kind. Setting
+ * that system property to 0 disables pooling.
+ * </p>
+ *
+ * @see ILazySource#release()
+ */
+final class LazyBufferPool {
+	private static final int POOL_SIZE = Integer.getInteger("org.eclipse.core.contenttype.bufferPoolSize", 64); //$NON-NLS-1$
+
+	private static final BlockingQueue<byte[]> byteBlocks = POOL_SIZE > 0 ? new ArrayBlockingQueue<>(POOL_SIZE) : null;
+	private static final BlockingQueue<char[]> charBlocks = POOL_SIZE > 0 ? new ArrayBlockingQueue<>(POOL_SIZE) : null;
+
+	private LazyBufferPool() {
+		// not to be instantiated
+	}
+
+	private static boolean isPooled(int capacity) {
+		return POOL_SIZE > 0 && capacity == ContentTypeManager.BLOCK_SIZE;
+	}
+
+	static byte[] takeBytes(int capacity) {
+		if (isPooled(capacity)) {
+			byte[] block = byteBlocks.poll();
+			if (block != null)
+				return block;
+		}
+		return new byte[capacity];
+	}
+
+	static void giveBack(byte[] block) {
+		if (isPooled(block.length))
+			byteBlocks.offer(block);
+	}
+
+	static char[] takeChars(int capacity) {
+		if (isPooled(capacity)) {
+			char[] block = charBlocks.poll();
+			if (block != null)
+				return block;
+		}
+		return new char[capacity];
+	}
+
+	static void giveBack(char[] block) {
+		if (isPooled(block.length))
+			charBlocks.offer(block);
+	}
+}
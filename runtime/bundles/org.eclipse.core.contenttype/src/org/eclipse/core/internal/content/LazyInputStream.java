@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2008 IBM Corporation and others.
+ * Copyright (c) 2004, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -19,6 +19,8 @@ import java.io.InputStream;
 public class LazyInputStream extends InputStream implements ILazySource {
 	private int blockCapacity;
 	byte[][] blocks = {};
+	// the number of blocks holding contents, blocks past this one are kept for reuse
+	private int blockCount;
 	private int bufferSize;
 	private InputStream in;
 	private int mark;
@@ -39,7 +41,7 @@ public class LazyInputStream extends InputStream implements ILazySource {
 	}
 
 	private int computeBlockSize(int blockIndex) {
-		if (blockIndex < blocks.length - 1)
+		if (blockIndex < blockCount - 1)
 			return blockCapacity;
 		int blockSize = bufferSize % blockCapacity;
 		return blockSize == 0 ? blockCapacity : blockSize;
@@ -48,7 +50,7 @@ public class LazyInputStream extends InputStream implements ILazySource {
 	private int copyFromBuffer(byte[] userBuffer, int userOffset, int needed) {
 		int copied = 0;
 		int current = offset / blockCapacity;
-		while ((needed - copied) > 0 && current < blocks.length) {
+		while ((needed - copied) > 0 && current < blockCount) {
 			int blockSize = computeBlockSize(current);
 			int offsetInBlock = offset % blockCapacity;
 			int availableInBlock = blockSize - offsetInBlock;
@@ -75,7 +77,7 @@ public class LazyInputStream extends InputStream implements ILazySource {
 
 	// for testing purposes
 	protected int getBlockCount() {
-		return blocks.length;
+		return blockCount;
 	}
 
 	// for testing purposes
@@ -99,16 +101,22 @@ public class LazyInputStream extends InputStream implements ILazySource {
 	}
 
 	private int loadBlock() throws IOException {
-		// read a block from the underlying stream
-		byte[] newBlock = new byte[blockCapacity];
+		// read a block from the underlying stream, into a block left by previous contents if any
+		byte[] newBlock = blockCount < blocks.length ? blocks[blockCount] : LazyBufferPool.takeBytes(blockCapacity);
 		int readCount = in.read(newBlock);
-		if (readCount == -1)
+		if (readCount == -1) {
+			if (blockCount == blocks.length)
+				LazyBufferPool.giveBack(newBlock);
 			return 0;
-		// expand blocks array
-		byte[][] tmpBlocks = new byte[blocks.length + 1][];
-		System.arraycopy(blocks, 0, tmpBlocks, 0, blocks.length);
-		blocks = tmpBlocks;
-		blocks[blocks.length - 1] = newBlock;
+		}
+		if (blockCount == blocks.length) {
+			// expand blocks array
+			byte[][] tmpBlocks = new byte[blocks.length + 1][];
+			System.arraycopy(blocks, 0, tmpBlocks, 0, blocks.length);
+			blocks = tmpBlocks;
+			blocks[blockCount] = newBlock;
+		}
+		blockCount++;
 		return readCount;
 	}
 
@@ -144,11 +152,31 @@ public class LazyInputStream extends InputStream implements ILazySource {
 		return copied == 0 ? -1 : copied;
 	}
 
+	@Override
+	public void release() {
+		for (byte[] block : blocks)
+			LazyBufferPool.giveBack(block);
+		blocks = new byte[0][];
+		reuse(in);
+	}
+
 	@Override
 	public synchronized void reset() {
 		offset = mark;
 	}
 
+	/**
+	 * Makes this stream read the given contents from the start, reusing the blocks
+	 * allocated for the previous contents.
+	 */
+	void reuse(InputStream newContents) {
+		in = newContents;
+		blockCount = 0;
+		bufferSize = 0;
+		mark = 0;
+		offset = 0;
+	}
+
 	@Override
 	public void rewind() {
 		mark = 0;
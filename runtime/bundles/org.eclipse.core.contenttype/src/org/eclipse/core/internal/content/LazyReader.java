@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2005 IBM Corporation and others.
+ * Copyright (c) 2004, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -19,6 +19,8 @@ import java.io.Reader;
 public class LazyReader extends Reader implements ILazySource {
 	private int blockCapacity;
 	char[][] blocks = {};
+	// the number of blocks holding contents
+	private int blockCount;
 	private int bufferSize;
 	private Reader in;
 	private int mark;
@@ -35,7 +37,7 @@ public class LazyReader extends Reader implements ILazySource {
 	}
 
 	private int computeBlockSize(int blockIndex) {
-		if (blockIndex < blocks.length - 1)
+		if (blockIndex < blockCount - 1)
 			return blockCapacity;
 		int blockSize = bufferSize % blockCapacity;
 		return blockSize == 0 ? blockCapacity : blockSize;
@@ -44,7 +46,7 @@ public class LazyReader extends Reader implements ILazySource {
 	private int copyFromBuffer(char[] userBuffer, int userOffset, int needed) {
 		int copied = 0;
 		int current = offset / blockCapacity;
-		while ((needed - copied) > 0 && current < blocks.length) {
+		while ((needed - copied) > 0 && current < blockCount) {
 			int blockSize = computeBlockSize(current);
 			int offsetInBlock = offset % blockCapacity;
 			int availableInBlock = blockSize - offsetInBlock;
@@ -71,7 +73,7 @@ public class LazyReader extends Reader implements ILazySource {
 
 	// for testing purposes
 	protected int getBlockCount() {
-		return blocks.length;
+		return blockCount;
 	}
 
 	// for testing purposes
@@ -96,15 +98,17 @@ public class LazyReader extends Reader implements ILazySource {
 
 	private int loadBlock() throws IOException {
 		// read a block from the underlying stream
-		char[] newBlock = new char[blockCapacity];
+		char[] newBlock = LazyBufferPool.takeChars(blockCapacity);
 		int readCount = in.read(newBlock);
-		if (readCount == -1)
+		if (readCount == -1) {
+			LazyBufferPool.giveBack(newBlock);
 			return 0;
+		}
 		// expand blocks array
-		char[][] tmpBlocks = new char[blocks.length + 1][];
-		System.arraycopy(blocks, 0, tmpBlocks, 0, blocks.length);
+		char[][] tmpBlocks = new char[blockCount + 1][];
+		System.arraycopy(blocks, 0, tmpBlocks, 0, blockCount);
 		blocks = tmpBlocks;
-		blocks[blocks.length - 1] = newBlock;
+		blocks[blockCount++] = newBlock;
 		return readCount;
 	}
 
@@ -149,6 +153,17 @@ public class LazyReader extends Reader implements ILazySource {
 		}
 	}
 
+	@Override
+	public void release() {
+		for (int i = 0; i < blockCount; i++)
+			LazyBufferPool.giveBack(blocks[i]);
+		blocks = new char[0][];
+		blockCount = 0;
+		bufferSize = 0;
+		mark = 0;
+		offset = 0;
+	}
+
 	@Override
 	public void reset() {
 		offset = mark;
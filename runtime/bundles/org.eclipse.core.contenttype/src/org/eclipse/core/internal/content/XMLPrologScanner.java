@@ -0,0 +1,425 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.content;
+
+import java.io.*;
+import java.util.*;
+import org.xml.sax.InputSource;
+
+/**
+ * Finds the DTD system identifier and the name and namespace of the root element
+ * of an XML document by scanning its prolog and the start tag of its root element,
+ * without setting up a SAX parser.
+ * <p>
+ * The scanner only understands what the prolog of most documents is made of: an
+ * XML declaration, comments, processing instructions, a document type declaration
+ * without internal subset, and a root start tag whose attribute values have no
+ * references. It gives up on anything else, and on any text that is not ASCII, in
+ * which case the document has to be parsed. This way it never answers differently
+ * from the parser.
+ * </p>
+ *
+ * @see XMLRootHandler
+ */
+final class XMLPrologScanner {
+	/**
+	 * The maximum number of bytes or characters scanned. Prologs rarely are longer.
+	 */
+	static final int LIMIT = 4096;
+
+	private static final String XML_NAMESPACE = "http://www.w3.org/XML/1998/namespace"; //$NON-NLS-1$
+	private static final String XMLNS_NAMESPACE = "http://www.w3.org/2000/xmlns/"; //$NON-NLS-1$
+
+	/**
+	 * Encodings in which ASCII text is read the same as when no encoding is declared
+	 */
+	private static final Set<String> ASCII_COMPATIBLE_ENCODINGS = new HashSet<>(Arrays.asList("UTF-8", "UTF8", "US-ASCII", "ASCII", "ISO-8859-1", "ISO-8859-15", "LATIN1", "CP1252", "WINDOWS-1252")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$
+
+	/**
+	 * Thrown when the scanner can't tell what the parser would find.
+	 */
+	private static class GiveUpException extends Exception {
+		private static final long serialVersionUID = 1L;
+
+		GiveUpException() {
+			super(null, null, false, false);
+		}
+	}
+
+	private static final GiveUpException GIVE_UP = new GiveUpException();
+
+	private final char[] text;
+	private final int length;
+	private final boolean checkRoot;
+	private int position;
+
+	String dtd;
+	String rootName;
+	String rootNamespace;
+
+	private XMLPrologScanner(char[] text, int length, boolean checkRoot) {
+		this.text = text;
+		this.length = length;
+		this.checkRoot = checkRoot;
+	}
+
+	/**
+	 * Scans the beginning of the given contents, which are left where they were.
+	 *
+	 * @param checkRoot whether the root element has to be found even if the document
+	 * has a document type declaration
+	 * @return the scanner holding what was found, or <code>null</code> if the contents
+	 * have to be parsed
+	 */
+	static XMLPrologScanner scan(InputSource contents, boolean checkRoot) throws IOException {
+		char[] text = new char[LIMIT];
+		int length;
+		if (contents.getCharacterStream() != null) {
+			Reader reader = contents.getCharacterStream();
+			if (!reader.markSupported())
+				return null;
+			reader.mark(LIMIT);
+			try {
+				length = readAscii(reader, text);
+			} finally {
+				reader.reset();
+			}
+		} else if (contents.getByteStream() != null && contents.getEncoding() == null) {
+			InputStream input = contents.getByteStream();
+			if (!input.markSupported())
+				return null;
+			input.mark(LIMIT);
+			try {
+				length = readAscii(input, text);
+			} finally {
+				input.reset();
+			}
+		} else {
+			return null;
+		}
+		XMLPrologScanner scanner = new XMLPrologScanner(text, length, checkRoot);
+		try {
+			scanner.scanDocument();
+		} catch (GiveUpException e) {
+			return null;
+		}
+		return scanner;
+	}
+
+	/**
+	 * Reads characters until the first one that is not printable ASCII or white space,
+	 * which the scanner treats as the end of the text.
+	 */
+	private static int readAscii(InputStream input, char[] text) throws IOException {
+		byte[] buffer = new byte[text.length];
+		int read = 0;
+		int count;
+		while (read < buffer.length && (count = input.read(buffer, read, buffer.length - read)) != -1)
+			read += count;
+		int start = 0;
+		// skip a UTF-8 byte order mark
+		if (read >= 3 && buffer[0] == (byte) 0xEF && buffer[1] == (byte) 0xBB && buffer[2] == (byte) 0xBF)
+			start = 3;
+		int length = 0;
+		for (int i = start; i < read && isAscii((char) (buffer[i] & 0xFF)); i++)
+			text[length++] = (char) buffer[i];
+		return length;
+	}
+
+	private static int readAscii(Reader reader, char[] text) throws IOException {
+		int read = 0;
+		int count;
+		while (read < text.length && (count = reader.read(text, read, text.length - read)) != -1)
+			read += count;
+		// a leading byte order mark is not skipped, the parser rejects it in a character stream
+		int length = 0;
+		while (length < read && isAscii(text[length]))
+			length++;
+		return length;
+	}
+
+	private static boolean isAscii(char c) {
+		return (c >= 0x20 && c < 0x7F) || c == '\t' || c == '\n' || c == '\r';
+	}
+
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+	}
+
+	private static boolean isNameStart(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+	}
+
+	private static boolean isNameChar(char c) {
+		return isNameStart(c) || (c >= '0' && c <= '9') || c == '-' || c == '.';
+	}
+
+	private static boolean isPublicIdChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || " \r\n-'()+,./:=?;!*#@$_%".indexOf(c) >= 0; //$NON-NLS-1$
+	}
+
+	private void scanDocument() throws GiveUpException {
+		if (startsWith("<?xml") && position + 5 < length && isWhitespace(text[position + 5])) //$NON-NLS-1$
+			scanXMLDeclaration();
+		scanMisc();
+		if (startsWith("<!DOCTYPE")) { //$NON-NLS-1$
+			scanDocumentType();
+			if (!checkRoot)
+				return;
+			scanMisc();
+		}
+		if (!startsWith("<")) //$NON-NLS-1$
+			throw GIVE_UP;
+		position++;
+		scanRootStartTag();
+	}
+
+	private void scanXMLDeclaration() throws GiveUpException {
+		position += 5;
+		requireWhitespace();
+		expect("version"); //$NON-NLS-1$
+		scanEquals();
+		if (!"1.0".equals(scanQuoted())) //$NON-NLS-1$
+			throw GIVE_UP;
+		boolean spaced = skipWhitespace();
+		if (spaced && startsWith("encoding")) { //$NON-NLS-1$
+			position += 8;
+			scanEquals();
+			String encoding = scanQuoted();
+			if (!ASCII_COMPATIBLE_ENCODINGS.contains(encoding.toUpperCase(Locale.ENGLISH)))
+				throw GIVE_UP;
+			spaced = skipWhitespace();
+		}
+		if (spaced && startsWith("standalone")) { //$NON-NLS-1$
+			position += 10;
+			scanEquals();
+			String standalone = scanQuoted();
+			if (!"yes".equals(standalone) && !"no".equals(standalone)) //$NON-NLS-1$ //$NON-NLS-2$
+				throw GIVE_UP;
+			skipWhitespace();
+		}
+		expect("?>"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Skips white space, comments and processing instructions.
+	 */
+	private void scanMisc() throws GiveUpException {
+		while (true) {
+			skipWhitespace();
+			if (startsWith("<!--")) { //$NON-NLS-1$
+				int end = indexOf("--", position + 4); //$NON-NLS-1$
+				// "--" may only appear at the end of a comment
+				if (end < 0 || end + 2 >= length || text[end + 2] != '>')
+					throw GIVE_UP;
+				position = end + 3;
+			} else if (startsWith("<?")) { //$NON-NLS-1$
+				position += 2;
+				String target = scanName();
+				if (target.equalsIgnoreCase("xml") || target.indexOf(':') >= 0) //$NON-NLS-1$
+					throw GIVE_UP;
+				if (!startsWith("?>")) //$NON-NLS-1$
+					requireWhitespace();
+				int end = indexOf("?>", position); //$NON-NLS-1$
+				if (end < 0)
+					throw GIVE_UP;
+				position = end + 2;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private void scanDocumentType() throws GiveUpException {
+		position += 9;
+		requireWhitespace();
+		scanQualifiedName();
+		boolean spaced = skipWhitespace();
+		String systemId = null;
+		if (spaced && startsWith("SYSTEM")) { //$NON-NLS-1$
+			position += 6;
+			requireWhitespace();
+			systemId = scanQuoted();
+			skipWhitespace();
+		} else if (spaced && startsWith("PUBLIC")) { //$NON-NLS-1$
+			position += 6;
+			requireWhitespace();
+			String publicId = scanQuoted();
+			for (int i = 0; i < publicId.length(); i++) {
+				if (!isPublicIdChar(publicId.charAt(i)))
+					throw GIVE_UP;
+			}
+			requireWhitespace();
+			systemId = scanQuoted();
+			skipWhitespace();
+		}
+		// an internal subset could declare anything, leave it to the parser
+		expect(">"); //$NON-NLS-1$
+		if (systemId != null && systemId.indexOf('#') >= 0)
+			throw GIVE_UP;
+		dtd = systemId;
+	}
+
+	private void scanRootStartTag() throws GiveUpException {
+		String name = scanQualifiedName();
+		Map<String, String> attributes = new HashMap<>();
+		while (true) {
+			boolean spaced = skipWhitespace();
+			if (startsWith(">") || startsWith("/>")) //$NON-NLS-1$ //$NON-NLS-2$
+				break;
+			if (!spaced)
+				throw GIVE_UP;
+			String attributeName = scanQualifiedName();
+			scanEquals();
+			String value = scanQuoted();
+			if (value.indexOf('<') >= 0 || value.indexOf('&') >= 0 || attributes.put(attributeName, value) != null)
+				throw GIVE_UP;
+		}
+		Map<String, String> namespaces = new HashMap<>();
+		Set<String> localNames = new HashSet<>();
+		for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+			String attributeName = attribute.getKey();
+			String value = attribute.getValue();
+			if (attributeName.equals("xmlns")) { //$NON-NLS-1$
+				namespaces.put("", checkNamespace(value)); //$NON-NLS-1$
+			} else if (attributeName.startsWith("xmlns:")) { //$NON-NLS-1$
+				String prefix = attributeName.substring(6);
+				if (value.isEmpty() || prefix.equals("xml") || prefix.equals("xmlns")) //$NON-NLS-1$ //$NON-NLS-2$
+					throw GIVE_UP;
+				namespaces.put(prefix, checkNamespace(value));
+			} else if (!localNames.add(localName(attributeName))) {
+				// possibly the same attribute as another one once prefixes are resolved
+				throw GIVE_UP;
+			}
+		}
+		for (String attributeName : attributes.keySet()) {
+			int colon = attributeName.indexOf(':');
+			if (colon < 0 || attributeName.startsWith("xmlns:")) //$NON-NLS-1$
+				continue;
+			String prefix = attributeName.substring(0, colon);
+			if (!prefix.equals("xml") && !namespaces.containsKey(prefix)) //$NON-NLS-1$
+				throw GIVE_UP;
+		}
+		int colon = name.indexOf(':');
+		String prefix = colon < 0 ? "" : name.substring(0, colon); //$NON-NLS-1$
+		if (prefix.startsWith("xml")) //$NON-NLS-1$
+			throw GIVE_UP;
+		String namespace = namespaces.get(prefix);
+		if (namespace == null) {
+			if (!prefix.isEmpty())
+				throw GIVE_UP;
+			namespace = ""; //$NON-NLS-1$
+		}
+		rootName = localName(name);
+		rootNamespace = namespace;
+	}
+
+	private static String checkNamespace(String value) throws GiveUpException {
+		// white space in attribute values is normalized by the parser
+		for (int i = 0; i < value.length(); i++) {
+			if (isWhitespace(value.charAt(i)) && value.charAt(i) != ' ')
+				throw GIVE_UP;
+		}
+		if (value.equals(XML_NAMESPACE) || value.equals(XMLNS_NAMESPACE))
+			throw GIVE_UP;
+		return value;
+	}
+
+	private static String localName(String qualifiedName) {
+		return qualifiedName.substring(qualifiedName.indexOf(':') + 1);
+	}
+
+	private String scanName() throws GiveUpException {
+		int start = position;
+		if (position >= length || !isNameStart(text[position]))
+			throw GIVE_UP;
+		while (position < length && (isNameChar(text[position]) || text[position] == ':'))
+			position++;
+		return new String(text, start, position - start);
+	}
+
+	/**
+	 * Scans a name with at most one colon, which separates a prefix and a local name.
+	 */
+	private String scanQualifiedName() throws GiveUpException {
+		String name = scanName();
+		int colon = name.indexOf(':');
+		if (colon >= 0 && (name.indexOf(':', colon + 1) >= 0 || colon == name.length() - 1 || !isNameStart(name.charAt(colon + 1))))
+			throw GIVE_UP;
+		return name;
+	}
+
+	private void scanEquals() throws GiveUpException {
+		skipWhitespace();
+		expect("="); //$NON-NLS-1$
+		skipWhitespace();
+	}
+
+	private String scanQuoted() throws GiveUpException {
+		if (position >= length || (text[position] != '"' && text[position] != '\''))
+			throw GIVE_UP;
+		char quote = text[position];
+		int end = -1;
+		for (int i = position + 1; i < length; i++) {
+			if (text[i] == quote) {
+				end = i;
+				break;
+			}
+		}
+		if (end < 0)
+			throw GIVE_UP;
+		String value = new String(text, position + 1, end - position - 1);
+		position = end + 1;
+		return value;
+	}
+
+	private boolean skipWhitespace() {
+		int start = position;
+		while (position < length && isWhitespace(text[position]))
+			position++;
+		return position > start;
+	}
+
+	private void requireWhitespace() throws GiveUpException {
+		if (!skipWhitespace())
+			throw GIVE_UP;
+	}
+
+	private void expect(String expected) throws GiveUpException {
+		if (!startsWith(expected))
+			throw GIVE_UP;
+		position += expected.length();
+	}
+
+	private boolean startsWith(String prefix) {
+		if (position + prefix.length() > length)
+			return false;
+		for (int i = 0; i < prefix.length(); i++) {
+			if (text[position + i] != prefix.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	private int indexOf(String string, int from) {
+		outer: for (int i = from; i + string.length() <= length; i++) {
+			for (int j = 0; j < string.length(); j++) {
+				if (text[i + j] != string.charAt(j))
+					continue outer;
+			}
+			return i;
+		}
+		return -1;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2008 IBM Corporation and others.
+ * Copyright (c) 2004, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,6 +15,8 @@ package org.eclipse.core.internal.content;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import javax.xml.parsers.*;
 import org.eclipse.core.runtime.ServiceCaller;
 import org.xml.sax.*;
@@ -32,6 +34,12 @@ import org.xml.sax.helpers.DefaultHandler;
  * @since 3.0
  */
 public final class XMLRootHandler extends DefaultHandler implements LexicalHandler {
+	/**
+	 * Parsers that are not in use. Creating a parser is costly compared to finding
+	 * the root element of a document, so parsers are reset and reused.
+	 */
+	private static final BlockingQueue<SAXParser> idleParsers = new ArrayBlockingQueue<>(Math.max(2, Runtime.getRuntime().availableProcessors()));
+
 	/**
 	 * An exception indicating that the parsing should stop. This is usually
 	 * triggered when the top-level element has been found.
@@ -87,14 +95,48 @@ public final class XMLRootHandler extends DefaultHandler implements LexicalHandl
 	}
 
 	/**
-	 * Creates a new SAX parser for use within this instance.
+	 * Returns an idle SAX parser, or creates a new one if there is none.
 	 *
-	 * @return The newly created parser.
+	 * @return The parser, or <code>null</code> if no parser factory is available.
 	 *
 	 * @throws ParserConfigurationException
 	 *             If a parser of the given configuration cannot be created.
 	 * @throws SAXException
 	 *             If something in general goes wrong when creating the parser.
+	 */
+	private SAXParser acquireParser() throws ParserConfigurationException, SAXException {
+		SAXParser parser = idleParsers.poll();
+		if (parser != null)
+			return parser;
+		SAXParser[] created = new SAXParser[1];
+		ServiceCaller.callOnce(getClass(), SAXParserFactory.class, factory -> {
+			try {
+				factory.setNamespaceAware(true);
+				created[0] = factory.newSAXParser();
+			} catch (SAXException | ParserConfigurationException e) {
+				sneakyThrow(e);
+			}
+		});
+		return created[0];
+	}
+
+	/**
+	 * Makes the given parser available for reuse.
+	 */
+	private static void releaseParser(SAXParser parser) {
+		try {
+			// forgets the handlers and restores the features of a new parser
+			parser.reset();
+		} catch (UnsupportedOperationException e) {
+			// can't be reused
+			return;
+		}
+		idleParsers.offer(parser);
+	}
+
+	/**
+	 * Configures the given SAX parser for use within this instance.
+	 *
 	 * @throws SAXNotRecognizedException
 	 *             If the <code>XMLReader</code> does not recognize the
 	 *             lexical handler configuration option.
@@ -102,9 +144,7 @@ public final class XMLRootHandler extends DefaultHandler implements LexicalHandl
 	 *             If the <code>XMLReader</code> does not support the lexical
 	 *             handler configuration option.
 	 */
-	private SAXParser createParser(SAXParserFactory parserFactory) throws ParserConfigurationException, SAXException, SAXNotRecognizedException, SAXNotSupportedException {
-		// Initialize the parser.
-		final SAXParser parser = parserFactory.newSAXParser();
+	private void configureParser(SAXParser parser) throws SAXException, SAXNotRecognizedException, SAXNotSupportedException {
 		final XMLReader reader = parser.getXMLReader();
 		reader.setProperty("http://xml.org/sax/properties/lexical-handler", this); //$NON-NLS-1$
 		// disable DTD validation (bug 63625)
@@ -115,7 +155,6 @@ public final class XMLRootHandler extends DefaultHandler implements LexicalHandl
 		} catch (SAXNotRecognizedException | SAXNotSupportedException e) {
 			// not a big deal if the parser does not support the features
 		}
-		return parser;
 	}
 
 	@Override
@@ -154,20 +193,29 @@ public final class XMLRootHandler extends DefaultHandler implements LexicalHandl
 	}
 
 	public boolean parseContents(InputSource contents) throws IOException, ParserConfigurationException, SAXException {
+		// Most documents start with a simple prolog that can be read without a parser
+		XMLPrologScanner scanner = XMLPrologScanner.scan(contents, checkRoot);
+		if (scanner != null) {
+			dtdFound = scanner.dtd;
+			elementFound = scanner.rootName;
+			namespaceFound = scanner.rootNamespace;
+			return true;
+		}
+		final SAXParser parser = acquireParser();
+		if (parser == null)
+			return false;
 		// Parse the file into we have what we need (or an error occurs).
-		return ServiceCaller.callOnce(getClass(), SAXParserFactory.class, factory -> {
-			try {
-				factory.setNamespaceAware(true);
-				final SAXParser parser = createParser(factory);
-				// to support external entities specified as relative URIs (see bug 63298)
-				contents.setSystemId("/"); //$NON-NLS-1$
-				parser.parse(contents, this);
-			} catch (StopParsingException e) {
-				// Abort the parsing normally. Fall through...
-			} catch (SAXException | IOException | ParserConfigurationException e) {
-				sneakyThrow(e);
-			}
-		});
+		try {
+			configureParser(parser);
+			// to support external entities specified as relative URIs (see bug 63298)
+			contents.setSystemId("/"); //$NON-NLS-1$
+			parser.parse(contents, this);
+		} catch (StopParsingException e) {
+			// Abort the parsing normally. Fall through...
+		} finally {
+			releaseParser(parser);
+		}
+		return true;
 	}
 
 	/*
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2006 IBM Corporation and others.
+ * Copyright (c) 2005, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,6 +14,7 @@
 package org.eclipse.core.runtime.content;
 
 import java.io.*;
+import java.util.List;
 import org.eclipse.core.runtime.QualifiedName;
 import org.eclipse.core.runtime.preferences.IScopeContext;
 
@@ -27,6 +28,32 @@ import org.eclipse.core.runtime.preferences.IScopeContext;
  * @since 3.1
  */
 public interface IContentTypeMatcher {
+	/**
+	 * The contents of a file to be described, opened only if they need to be read.
+	 * <p>
+	 * Clients may implement this interface.
+	 * </p>
+	 *
+	 * @see IContentTypeMatcher#getDescriptionsFor(List, QualifiedName[])
+	 * @since 3.10
+	 */
+	public interface IContentSource {
+		/**
+		 * Returns the name of the file, or <code>null</code> if it is not known.
+		 *
+		 * @return the file name, or <code>null</code>
+		 */
+		String getFileName();
+
+		/**
+		 * Opens a new stream on the contents of the file. The stream is closed by the caller.
+		 *
+		 * @return an input stream on the contents
+		 * @throws IOException if the contents can't be opened
+		 */
+		InputStream openStream() throws IOException;
+	}
+
 	/**
 	 * Returns the preferred content type for the given contents and file name.
 	 * <p>
@@ -140,4 +167,37 @@ public interface IContentTypeMatcher {
 	 * @see IContentDescription
 	 */
 	IContentDescription getDescriptionFor(Reader contents, String fileName, QualifiedName[] options) throws IOException;
-}
\ No newline at end of file
+
+	/**
+	 * Tries to obtain descriptions for the contents of many files at once.
+	 * <p>
+	 * This is equivalent to calling {@link #getDescriptionFor(InputStream, String, QualifiedName[])}
+	 * for each of the given sources, but implementations may be much faster: they only
+	 * open the contents of files whose names are associated with content types, and
+	 * may describe several files at the same time.
+	 * </p>
+	 * <p>
+	 * The streams opened by this operation are closed by it. Any IOExceptions that
+	 * may occur while opening or reading the contents will flow to the caller.
+	 * </p>
+	 *
+	 * @param sources the files to be described
+	 * @param options an array of keys for all properties that should be
+	 * described, or <code>IContentDescription.ALL</code>,  for all of them
+	 * @return an array with the description of each of the given sources, in the same
+	 * order, holding <code>null</code> for the sources no description could be obtained for
+	 * @throws IOException if an error occurs while opening or reading any of the contents
+	 * @see #getDescriptionFor(InputStream, String, QualifiedName[])
+	 * @since 3.10
+	 */
+	default IContentDescription[] getDescriptionsFor(List<? extends IContentSource> sources, QualifiedName[] options) throws IOException {
+		IContentDescription[] result = new IContentDescription[sources.size()];
+		for (int i = 0; i < result.length; i++) {
+			IContentSource source = sources.get(i);
+			try (InputStream contents = source.openStream()) {
+				result[i] = getDescriptionFor(contents, source.getFileName(), options);
+			}
+		}
+		return result;
+	}
+}
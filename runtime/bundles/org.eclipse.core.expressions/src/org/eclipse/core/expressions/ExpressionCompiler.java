@@ -0,0 +1,548 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.expressions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.internal.expressions.AdaptExpression;
+import org.eclipse.core.internal.expressions.EnablementExpression;
+import org.eclipse.core.internal.expressions.Expressions;
+import org.eclipse.core.internal.expressions.InstanceofExpression;
+import org.eclipse.core.internal.expressions.IterateExpression;
+import org.eclipse.core.internal.expressions.NotExpression;
+import org.eclipse.core.internal.expressions.Property;
+
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Compiles expression trees into trees that are cheaper to evaluate repeatedly.
+ * <p>
+ * A compiled expression evaluates to the same results as the expression it was
+ * compiled from, but:
+ * </p>
+ * <ul>
+ * <li>nested <code>and</code> and <code>or</code> expressions are flattened, and
+ * their children are evaluated in the order that measured cheapest, i.e. the
+ * children that are cheap and most often decide the result are evaluated first,</li>
+ * <li>the property testers of <code>test</code> expressions and the results of
+ * <code>instanceof</code> expressions are remembered per receiver type,</li>
+ * <li>sub-expressions that occur more than once, or that are evaluated for every
+ * element of an <code>iterate</code> expression without accessing the element, are
+ * evaluated only once per evaluation of the compiled expression and set of accessed
+ * variables, as described by their {@link ExpressionInfo}.</li>
+ * </ul>
+ * <p>
+ * Since the children of <code>and</code> and <code>or</code> expressions may be
+ * evaluated in a different order than they were added, only expressions whose
+ * children have no side effects should be compiled. Where evaluating the children
+ * in the order they were added fails, the compiled expression may return a result
+ * instead. Expressions that aren't known to this compiler are evaluated as they
+ * are.
+ * </p>
+ * <p>
+ * This class is not intended to be instantiated or subclassed by clients.
+ * </p>
+ *
+ * @since 3.10
+ */
+public final class ExpressionCompiler {
+
+	/**
+	 * The children of <code>and</code> and <code>or</code> expressions are timed on
+	 * one in this many evaluations.
+	 */
+	private static final int SAMPLE_MASK= 0x1f;
+
+	/**
+	 * The children of <code>and</code> and <code>or</code> expressions are reordered
+	 * after this many timed evaluations.
+	 */
+	private static final int REORDER_INTERVAL= 64;
+
+	/**
+	 * The results of memoized sub-expressions, for the evaluation running in the
+	 * current thread.
+	 */
+	private static final ThreadLocal<Frame> fgFrame= new ThreadLocal<>();
+
+	/**
+	 * Base class of all compiled expressions. Describes itself like the expression
+	 * it was compiled from.
+	 */
+	private abstract static class Node extends Expression {
+		final Expression fSource;
+
+		Node(Expression source) {
+			fSource= source;
+		}
+
+		@Override
+		public void collectExpressionInfo(ExpressionInfo info) {
+			fSource.collectExpressionInfo(info);
+		}
+
+		@Override
+		public String toString() {
+			return fSource.toString();
+		}
+	}
+
+	/**
+	 * The root of a compiled expression tree.
+	 */
+	private static final class Root extends Node {
+		private final Expression fExpression;
+		private final int fMemoCount;
+
+		Root(Expression source, Expression expression, int memoCount) {
+			super(source);
+			fExpression= expression;
+			fMemoCount= memoCount;
+		}
+
+		@Override
+		public EvaluationResult evaluate(IEvaluationContext context) throws CoreException {
+			if (fMemoCount == 0)
+				return fExpression.evaluate(context);
+			Frame previous= fgFrame.get();
+			fgFrame.set(new Frame(fMemoCount));
+			try {
+				return fExpression.evaluate(context);
+			} finally {
+				fgFrame.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * The results of the memoized sub-expressions of one evaluation of a compiled
+	 * expression.
+	 */
+	private static final class Frame {
+		/**
+		 * The remembered results by memo index, as arrays of the values of the
+		 * accessed variables followed by the result
+		 */
+		final List<Object[]>[] fResults;
+
+		@SuppressWarnings("unchecked")
+		Frame(int memoCount) {
+			fResults= new List[memoCount];
+		}
+	}
+
+	/**
+	 * An <code>and</code> or <code>or</code> expression with at least two children,
+	 * which evaluates its children in the order that measured cheapest.
+	 * <p>
+	 * If a child fails when evaluated out of order, for example because an earlier
+	 * child guards it against elements it can't test, the children are evaluated in
+	 * the order they were added again, from then on.
+	 * </p>
+	 * <p>
+	 * The statistics are updated without synchronization. Updates lost to races only
+	 * make the order less precise.
+	 * </p>
+	 */
+	private static final class Junction extends Node {
+		private final boolean fAnd;
+		private final Expression[] fChildren;
+		private final int[] fDeclaredOrder;
+		private volatile int[] fOrder;
+		private volatile boolean fKeepDeclaredOrder;
+
+		private int fEvaluations;
+		private int fSamples;
+		private final long[] fCost;
+		private final int[] fRuns;
+		private final int[] fDecisions;
+
+		Junction(Expression source, boolean and, Expression[] children) {
+			super(source);
+			fAnd= and;
+			fChildren= children;
+			fDeclaredOrder= new int[children.length];
+			for (int i= 0; i < children.length; i++) {
+				fDeclaredOrder[i]= i;
+			}
+			fOrder= fDeclaredOrder;
+			fCost= new long[children.length];
+			fRuns= new int[children.length];
+			fDecisions= new int[children.length];
+		}
+
+		@Override
+		public EvaluationResult evaluate(IEvaluationContext context) throws CoreException {
+			boolean sample= (++fEvaluations & SAMPLE_MASK) == 0;
+			int[] order= fOrder;
+			if (order == fDeclaredOrder)
+				return evaluate(context, order, sample);
+			try {
+				return evaluate(context, order, sample);
+			} catch (CoreException | RuntimeException e) {
+				fKeepDeclaredOrder= true;
+				fOrder= fDeclaredOrder;
+				return evaluate(context, fDeclaredOrder, false);
+			}
+		}
+
+		private EvaluationResult evaluate(IEvaluationContext context, int[] order, boolean sample) throws CoreException {
+			// the decisive result: false for and, true for or
+			EvaluationResult decisive= fAnd ? EvaluationResult.FALSE : EvaluationResult.TRUE;
+			EvaluationResult result= decisive.not();
+			for (int index : order) {
+				EvaluationResult childResult;
+				if (sample) {
+					long start= System.nanoTime();
+					childResult= fChildren[index].evaluate(context);
+					fCost[index]+= System.nanoTime() - start;
+					fRuns[index]++;
+				} else {
+					childResult= fChildren[index].evaluate(context);
+				}
+				result= fAnd ? result.and(childResult) : result.or(childResult);
+				// keep iterating on not loaded, a later child may still decide the result
+				if (result == decisive) {
+					if (sample)
+						fDecisions[index]++;
+					break;
+				}
+			}
+			if (sample && ++fSamples % REORDER_INTERVAL == 0 && !fKeepDeclaredOrder)
+				reorder();
+			return result;
+		}
+
+		private void reorder() {
+			int length= fChildren.length;
+			double[] score= new double[length];
+			Integer[] order= new Integer[length];
+			for (int i= 0; i < length; i++) {
+				int runs= fRuns[i];
+				// the expected cost of evaluating the child before it decides the result
+				double cost= runs == 0 ? 0 : (double) fCost[i] / runs;
+				double decisionRate= (fDecisions[i] + 1.0) / (runs + 2.0);
+				score[i]= cost / decisionRate;
+				order[i]= Integer.valueOf(i);
+			}
+			Arrays.sort(order, (left, right) -> Double.compare(score[left.intValue()], score[right.intValue()]));
+			int[] newOrder= new int[length];
+			for (int i= 0; i < length; i++) {
+				newOrder[i]= order[i].intValue();
+			}
+			if (!fKeepDeclaredOrder)
+				fOrder= newOrder;
+		}
+	}
+
+	private static final class Not extends Node {
+		private final Expression fExpression;
+
+		Not(Expression source, Expression expression) {
+			super(source);
+			fExpression= expression;
+		}
+
+		@Override
+		public EvaluationResult evaluate(IEvaluationContext context) throws CoreException {
+			return fExpression.evaluate(context).not();
+		}
+	}
+
+	/**
+	 * An <code>instanceof</code> expression that remembers its result per receiver
+	 * type.
+	 */
+	private static final class Instanceof extends Node {
+		private final ClassValue<Boolean> fIsInstance;
+
+		Instanceof(InstanceofExpression source) {
+			super(source);
+			final String typeName= source.getTypeName();
+			fIsInstance= new ClassValue<Boolean>() {
+				@Override
+				protected Boolean computeValue(Class<?> type) {
+					return Boolean.valueOf(Expressions.uncachedIsSubtype(type, typeName));
+				}
+			};
+		}
+
+		@Override
+		public EvaluationResult evaluate(IEvaluationContext context) {
+			Object element= context.getDefaultVariable();
+			// null isn't an instanceof of anything.
+			if (element == null)
+				return EvaluationResult.FALSE;
+			return EvaluationResult.valueOf(fIsInstance.get(element.getClass()).booleanValue());
+		}
+	}
+
+	/**
+	 * A <code>test</code> expression that remembers the property it tested last.
+	 */
+	private static final class Test extends Node {
+		private static final class Binding {
+			final Class<?> fType;
+			final boolean fForcePluginActivation;
+			final int fGeneration;
+			final Property fProperty;
+
+			Binding(Class<?> type, boolean forcePluginActivation, int generation, Property property) {
+				fType= type;
+				fForcePluginActivation= forcePluginActivation;
+				fGeneration= generation;
+				fProperty= property;
+			}
+		}
+
+		private final TestExpression fTest;
+		private volatile Binding fBinding;
+
+		Test(TestExpression source) {
+			super(source);
+			fTest= source;
+		}
+
+		@Override
+		public EvaluationResult evaluate(IEvaluationContext context) throws CoreException {
+			Object element= context.getDefaultVariable();
+			if (System.class.equals(element))
+				return fTest.evaluate(context);
+			boolean forcePluginActivation= context.getAllowPluginActivation() && fTest.fForcePluginActivation;
+			// if we call a static method than the receiver is the class object
+			Class<?> type= element instanceof Class ? (Class<?>) element : element.getClass();
+			Binding binding= fBinding;
+			Property property;
+			if (binding != null && binding.fType == type && binding.fForcePluginActivation == forcePluginActivation
+						&& binding.fGeneration == TestExpression.fgTypeExtensionManager.getGeneration()
+					&& binding.fProperty.isValidCacheEntry(forcePluginActivation)) {
+				property= binding.fProperty;
+			} else {
+				// read the generation first, so that a property looked up while the registry changes is not kept
+				int generation= TestExpression.fgTypeExtensionManager.getGeneration();
+				property= TestExpression.fgTypeExtensionManager.getProperty(element, fTest.fNamespace, fTest.fProperty, forcePluginActivation);
+				fBinding= new Binding(type, forcePluginActivation, generation, property);
+			}
+			if (!property.isInstantiated())
+				return EvaluationResult.NOT_LOADED;
+			return EvaluationResult.valueOf(property.test(element, fTest.fArgs, fTest.fExpectedValue));
+		}
+	}
+
+	/**
+	 * A sub-expression whose result is remembered for the rest of the evaluation of
+	 * the compiled expression, per value of the variables it accesses.
+	 */
+	private static final class Memo extends Node {
+		private final Expression fExpression;
+		private final int fIndex;
+		private final boolean fDefaultVariableAccess;
+		private final String[] fVariableNames;
+
+		Memo(Expression source, Expression expression, int index, ExpressionInfo info) {
+			super(source);
+			fExpression= expression;
+			fIndex= index;
+			fDefaultVariableAccess= info.hasDefaultVariableAccess();
+			fVariableNames= info.getAccessedVariableNames();
+		}
+
+		@Override
+		public EvaluationResult evaluate(IEvaluationContext context) throws CoreException {
+			Frame frame= fgFrame.get();
+			if (frame == null)
+				return fExpression.evaluate(context);
+			// plug-in activation, default variable and accessed variables, compared by identity
+			int length= fVariableNames.length + 2;
+			Object[] entry= new Object[length + 1];
+			entry[0]= Boolean.valueOf(context.getAllowPluginActivation());
+			entry[1]= fDefaultVariableAccess ? context.getDefaultVariable() : null;
+			for (int i= 0; i < fVariableNames.length; i++) {
+				entry[i + 2]= context.getVariable(fVariableNames[i]);
+			}
+			List<Object[]> results= frame.fResults[fIndex];
+			if (results == null) {
+				results= new ArrayList<>(2);
+				frame.fResults[fIndex]= results;
+			} else {
+				for (Object[] other : results) {
+					if (sameValues(other, entry, length))
+						return (EvaluationResult) other[length];
+				}
+			}
+			EvaluationResult result= fExpression.evaluate(context);
+			entry[length]= result;
+			results.add(entry);
+			return result;
+		}
+
+		private static boolean sameValues(Object[] left, Object[] right, int length) {
+			for (int i= 0; i < length; i++) {
+				if (left[i] != right[i])
+					return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * The number of times each expression occurs in the tree being compiled
+	 */
+	private final Map<Expression, Integer> fOccurrences= new HashMap<>();
+
+	/**
+	 * The compiled form of each expression compiled so far, so that equal
+	 * sub-expressions share one compiled form
+	 */
+	private final Map<Expression, Expression> fCompiled= new HashMap<>();
+
+	private int fMemoCount;
+
+	private ExpressionCompiler() {
+	}
+
+	/**
+	 * Compiles the given expression into an expression that evaluates to the same
+	 * results, but is cheaper to evaluate repeatedly.
+	 * <p>
+	 * The compiled expression collects the same expression information as the given
+	 * expression. The given expression must not be changed after it was compiled.
+	 * </p>
+	 *
+	 * @param expression the expression to compile
+	 * @return the compiled expression
+	 */
+	public static Expression compile(Expression expression) {
+		if (expression instanceof Root)
+			return expression;
+		ExpressionCompiler compiler= new ExpressionCompiler();
+		compiler.count(expression);
+		Expression compiled= compiler.compile(expression, false);
+		return new Root(expression, compiled, compiler.fMemoCount);
+	}
+
+	private void count(Expression expression) {
+		if (fOccurrences.merge(expression, Integer.valueOf(1), Integer::sum).intValue() > 1)
+			return;
+		if (expression instanceof NotExpression) {
+			count(((NotExpression) expression).getExpression());
+		} else if (isCompiledComposite(expression)) {
+			for (Expression child : ((CompositeExpression) expression).getChildren()) {
+				count(child);
+			}
+		}
+	}
+
+	private static boolean isCompiledComposite(Expression expression) {
+		Class<?> type= expression.getClass();
+		return type == AndExpression.class || type == OrExpression.class || type == EnablementExpression.class
+				|| type == WithExpression.class || type == AdaptExpression.class || type == IterateExpression.class;
+	}
+
+	/**
+	 * @param expression the expression to compile
+	 * @param repeated whether the expression is evaluated repeatedly for the
+	 *  elements of an enclosing iterate expression
+	 * @return the compiled expression
+	 */
+	private Expression compile(Expression expression, boolean repeated) {
+		Expression compiled= fCompiled.get(expression);
+		if (compiled != null)
+			return compiled;
+		compiled= compileNode(expression, repeated);
+		if (compiled != Expression.TRUE && compiled != Expression.FALSE && !(compiled instanceof Instanceof)) {
+			// don't remember results that are cheaper to compute than to look up
+			boolean shared= fOccurrences.get(expression).intValue() > 1;
+			ExpressionInfo info= expression.computeExpressionInfo();
+			if ((shared || (repeated && !info.hasDefaultVariableAccess())) && info.getMisbehavingExpressionTypes() == null)
+				compiled= new Memo(expression, compiled, fMemoCount++, info);
+		}
+		fCompiled.put(expression, compiled);
+		return compiled;
+	}
+
+	private Expression compileNode(Expression expression, boolean repeated) {
+		Class<?> type= expression.getClass();
+		if (type == AndExpression.class || type == EnablementExpression.class) {
+			return compileJunction(expression, true, repeated);
+		} else if (type == OrExpression.class) {
+			return compileJunction(expression, false, repeated);
+		} else if (type == NotExpression.class) {
+			Expression child= ((NotExpression) expression).getExpression();
+			if (child.getClass() == NotExpression.class)
+				return compile(((NotExpression) child).getExpression(), repeated);
+			return new Not(expression, compile(child, repeated));
+		} else if (type == TestExpression.class) {
+			return new Test((TestExpression) expression);
+		} else if (type == InstanceofExpression.class) {
+			return new Instanceof((InstanceofExpression) expression);
+		} else if (type == WithExpression.class) {
+			WithExpression with= (WithExpression) expression;
+			return copyWithChildren(with, new WithExpression(with.fVariable), repeated);
+		} else if (type == AdaptExpression.class) {
+			AdaptExpression adapt= (AdaptExpression) expression;
+			return copyWithChildren(adapt, new AdaptExpression(adapt.getTypeName()), repeated);
+		} else if (type == IterateExpression.class) {
+			IterateExpression iterate= (IterateExpression) expression;
+			return copyWithChildren(iterate, iterate.copyWithoutChildren(), true);
+		}
+		return expression;
+	}
+
+	private Expression compileJunction(Expression expression, boolean and, boolean repeated) {
+		CompositeExpression composite= (CompositeExpression) expression;
+		if (composite.fExpressions == null) {
+			// like CompositeExpression.evaluateAnd and evaluateOr
+			return Expression.TRUE;
+		}
+		List<Expression> children= new ArrayList<>();
+		flatten(composite, and ? AndExpression.class : OrExpression.class, children);
+		List<Expression> compiled= new ArrayList<>(children.size());
+		for (Expression child : children) {
+			compiled.add(compile(child, repeated));
+		}
+		if (compiled.size() == 1)
+			return compiled.get(0);
+		return new Junction(expression, and, compiled.toArray(new Expression[compiled.size()]));
+	}
+
+	private static void flatten(CompositeExpression composite, Class<?> type, List<Expression> children) {
+		for (Expression child : composite.fExpressions) {
+			CompositeExpression nested;
+			if (child.getClass() == type && (nested= (CompositeExpression) child).fExpressions != null) {
+				flatten(nested, type, children);
+			} else {
+				children.add(child);
+			}
+		}
+	}
+
+	/**
+	 * Adds the compiled children of the given composite expression to the given copy
+	 * of it, as a single child that evaluates them like an <code>and</code>
+	 * expression.
+	 */
+	private Expression copyWithChildren(CompositeExpression composite, CompositeExpression copy, boolean repeated) {
+		if (composite.fExpressions != null) {
+			AndExpression children= new AndExpression();
+			children.fExpressions= composite.fExpressions;
+			copy.add(compileJunction(children, true, repeated));
+		}
+		return copy;
+	}
+}
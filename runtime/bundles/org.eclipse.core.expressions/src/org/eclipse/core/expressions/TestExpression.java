@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -30,11 +30,12 @@ import org.eclipse.core.runtime.IConfigurationElement;
  */
 public class TestExpression extends Expression {
 
-	private String fNamespace;
-	private String fProperty;
-	private Object[] fArgs;
-	private Object fExpectedValue;
-	private boolean fForcePluginActivation;
+	// package visible so that ExpressionCompiler can pre-resolve the property
+	String fNamespace;
+	String fProperty;
+	Object[] fArgs;
+	Object fExpectedValue;
+	boolean fForcePluginActivation;
 
 	private static final char PROP_SEP = '.';
 	private static final String ATT_PROPERTY= "property"; //$NON-NLS-1$
@@ -45,7 +46,7 @@ public class TestExpression extends Expression {
 	 */
 	private static final int HASH_INITIAL= TestExpression.class.getName().hashCode();
 
-	private static final TypeExtensionManager fgTypeExtensionManager= new TypeExtensionManager("propertyTesters"); //$NON-NLS-1$
+	/* package */ static final TypeExtensionManager fgTypeExtensionManager= new TypeExtensionManager("propertyTesters"); //$NON-NLS-1$
 
 	public TestExpression(IConfigurationElement element) throws CoreException {
 		String property= element.getAttribute(ATT_PROPERTY);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -59,6 +59,10 @@ public class AdaptExpression extends CompositeExpression {
 		fTypeName= typeName;
 	}
 
+	public String getTypeName() {
+		return fTypeName;
+	}
+
 	@Override
 	public boolean equals(final Object object) {
 		if (!(object instanceof AdaptExpression))
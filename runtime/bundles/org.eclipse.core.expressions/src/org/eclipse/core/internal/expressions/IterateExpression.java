@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -125,6 +125,21 @@ public class IterateExpression extends CompositeExpression {
 		initializeEmptyResultValue(ifEmpty);
 	}
 
+	private IterateExpression(int operator, Boolean emptyResult) {
+		fOperator= operator;
+		fEmptyResult= emptyResult;
+	}
+
+	/**
+	 * Returns an iterate expression with the same operator and empty result as this
+	 * expression, but without children.
+	 *
+	 * @return the copy
+	 */
+	public IterateExpression copyWithoutChildren() {
+		return new IterateExpression(fOperator, fEmptyResult);
+	}
+
 	private void initializeOperatorValue(String opValue) throws CoreException {
 		if (opValue == null) {
 			fOperator= AND;
@@ -230,7 +245,8 @@ public class IterateExpression extends CompositeExpression {
 			return false;
 
 		final IterateExpression that= (IterateExpression)object;
-		return (this.fOperator == that.fOperator) && equals(this.fExpressions, that.fExpressions);
+		return (this.fOperator == that.fOperator) && equals(this.fEmptyResult, that.fEmptyResult)
+			&& equals(this.fExpressions, that.fExpressions);
 	}
 
 	@Override
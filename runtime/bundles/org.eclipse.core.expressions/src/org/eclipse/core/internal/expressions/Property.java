@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -79,7 +79,8 @@ public class Property {
 
 	@Override
 	public int hashCode() {
-		return (fType.hashCode() << 16) | fNamespace.hashCode() << 8 | fName.hashCode();
+		// spread the bits of all parts, properties are looked up in hash maps by many threads
+		return 31 * (31 * fType.hashCode() + fNamespace.hashCode()) + fName.hashCode();
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,26 +13,79 @@
  *******************************************************************************/
 package org.eclipse.core.internal.expressions;
 
-import org.eclipse.core.internal.expressions.util.LRUCache;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * A bounded cache of properties that can be read by many threads without locking.
+ * <p>
+ * When the cache is full, properties that were not used since the cache was last
+ * full are evicted first, in the order they were added ("second chance" eviction,
+ * an approximation of least recently used eviction that needs no lock on reads).
+ * </p>
+ */
 /* package */ class PropertyCache {
 
-	private LRUCache fCache;
+	private static final class Entry {
+		final Property fProperty;
+		volatile boolean fUsed;
+
+		Entry(Property property) {
+			// a new entry is only kept once it is used again
+			fProperty= property;
+		}
+	}
+
+	private final int fCacheSize;
+
+	private final Map<Property, Entry> fCache;
+
+	/*
+	 * The cached entries in the order they were added, or given a second chance.
+	 * Guarded by itself, like all changes to the cache.
+	 */
+	private final ArrayDeque<Entry> fEvictionQueue= new ArrayDeque<>();
 
 	public PropertyCache(final int cacheSize) {
-		fCache= new LRUCache(100);
-		fCache.setSpaceLimit(cacheSize);
+		fCacheSize= cacheSize;
+		fCache= new ConcurrentHashMap<>(Math.min(cacheSize, 256));
 	}
 
 	public Property get(Property key) {
-		return (Property)fCache.get(key);
+		Entry entry= fCache.get(key);
+		if (entry == null)
+			return null;
+		// avoid writing to shared memory on every hit
+		if (!entry.fUsed)
+			entry.fUsed= true;
+		return entry.fProperty;
 	}
 
 	public void put(Property method) {
-		fCache.put(method, method);
+		Entry entry= new Entry(method);
+		synchronized (fEvictionQueue) {
+			Entry previous= fCache.put(method, entry);
+			if (previous != null)
+				fEvictionQueue.remove(previous);
+			fEvictionQueue.add(entry);
+			while (fCache.size() > fCacheSize) {
+				Entry eldest= fEvictionQueue.poll();
+				if (eldest.fUsed) {
+					eldest.fUsed= false;
+					fEvictionQueue.add(eldest);
+				} else {
+					fCache.remove(eldest.fProperty);
+				}
+			}
+		}
 	}
 
 	public void remove(Property method) {
-		fCache.removeKey(method);
+		synchronized (fEvictionQueue) {
+			Entry removed= fCache.remove(method);
+			if (removed != null)
+				fEvictionQueue.remove(removed);
+		}
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -69,7 +69,8 @@ public class TypeExtensionManager implements IRegistryChangeListener {
 	};
 
 	/*
-	 * Map containing all already created type extension object.
+	 * Map containing all already created type extension object. Guarded by this
+	 * manager.
 	 */
 	private Map<Class<?>, TypeExtension> fTypeExtensionMap;
 
@@ -79,9 +80,16 @@ public class TypeExtensionManager implements IRegistryChangeListener {
 	private Map<String, List<IConfigurationElement>> fConfigurationElementMap;
 
 	/*
-	 * A cache to give fast access to the last 1000 method invocations.
+	 * A cache to give fast access to the last 1000 method invocations. Read
+	 * without locking, replaced when the registry changes.
 	 */
-	private PropertyCache fPropertyCache;
+	private volatile PropertyCache fPropertyCache;
+
+	/*
+	 * Incremented whenever the caches are reinitialized, i.e. when the property
+	 * testers contributed to the registry change.
+	 */
+	private volatile int fGeneration;
 
 
 	public TypeExtensionManager(String extensionPoint) {
@@ -95,7 +103,7 @@ public class TypeExtensionManager implements IRegistryChangeListener {
 		return getProperty(receiver, namespace, method, false);
 	}
 
-	public synchronized Property getProperty(Object receiver, String namespace, String method, boolean forcePluginActivation) throws CoreException  {
+	public Property getProperty(Object receiver, String namespace, String method, boolean forcePluginActivation) throws CoreException  {
 		long start= 0;
 		if (Expressions.TRACING)
 			start= System.currentTimeMillis();
@@ -103,15 +111,42 @@ public class TypeExtensionManager implements IRegistryChangeListener {
 		// if we call a static method than the receiver is the class object
 		Class<?> clazz= receiver instanceof Class ? (Class<?>)receiver : receiver.getClass();
 		Property result= new Property(clazz, namespace, method);
+		// fast path: most properties are found in the cache, which needs no lock
+		Property cached= fPropertyCache.get(result);
+		if (cached != null && cached.isValidCacheEntry(forcePluginActivation)) {
+			traceCacheHit(clazz, method, start);
+			return cached;
+		}
+		return lookupProperty(receiver, clazz, namespace, method, result, forcePluginActivation, start);
+	}
+
+	/**
+	 * Returns the generation of the property testers known to this manager. The
+	 * generation changes whenever property testers are added to or removed from the
+	 * registry, so that properties returned by {@link #getProperty(Object, String, String, boolean)}
+	 * can be reused for as long as the generation doesn't change.
+	 *
+	 * @return the current generation
+	 */
+	public int getGeneration() {
+		return fGeneration;
+	}
+
+	private void traceCacheHit(Class<?> clazz, String method, long start) {
+		if (Expressions.TRACING) {
+			System.out.println("[Type Extension] - method " + //$NON-NLS-1$
+				clazz.getName() + "#" + method + //$NON-NLS-1$
+				" found in cache: " +  //$NON-NLS-1$
+				(System.currentTimeMillis() - start) + " ms."); //$NON-NLS-1$
+		}
+	}
+
+	private synchronized Property lookupProperty(Object receiver, Class<?> clazz, String namespace, String method, Property result, boolean forcePluginActivation, long start) throws CoreException {
+		// another thread may have looked up the property in the meantime
 		Property cached= fPropertyCache.get(result);
 		if (cached != null) {
 			if (cached.isValidCacheEntry(forcePluginActivation)) {
-				if (Expressions.TRACING) {
-					System.out.println("[Type Extension] - method " + //$NON-NLS-1$
-						clazz.getName() + "#" + method + //$NON-NLS-1$
-						" found in cache: " +  //$NON-NLS-1$
-						(System.currentTimeMillis() - start) + " ms."); //$NON-NLS-1$
-				}
+				traceCacheHit(clazz, method, start);
 				return cached;
 			}
 			// The type extender isn't loaded in the cached method but can be loaded
@@ -148,7 +183,7 @@ public class TypeExtensionManager implements IRegistryChangeListener {
 
 	/*
 	 * This method doesn't need to be synchronized since it is called
-	 * from withing the getProperty method which is synchronized
+	 * from within the lookupProperty method which is synchronized
 	 */
 	/* package */ TypeExtension get(Class<?> clazz) {
 		TypeExtension result= fTypeExtensionMap.get(clazz);
@@ -161,7 +196,7 @@ public class TypeExtensionManager implements IRegistryChangeListener {
 
 	/*
 	 * This method doesn't need to be synchronized since it is called
-	 * from withing the getProperty method which is synchronized
+	 * from within the lookupProperty method which is synchronized
 	 */
 	/* package */ IPropertyTester[] loadTesters(Class<?> type) {
 		if (fConfigurationElementMap == null) {
@@ -211,5 +246,6 @@ public class TypeExtensionManager implements IRegistryChangeListener {
 		fTypeExtensionMap= new HashMap<>();
 		fConfigurationElementMap= null;
 		fPropertyCache= new PropertyCache(1000);
+		fGeneration++;
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2022 IBM Corporation and others.
+ * Copyright (c) 2009, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -24,6 +24,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +33,8 @@ import java.util.Set;
 import java.util.Stack;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import org.eclipse.e4.core.contexts.IContextFunction;
 import org.eclipse.e4.core.contexts.IEclipseContext;
 import org.eclipse.e4.core.contexts.RunAndTrack;
@@ -100,6 +103,24 @@ public class EclipseContext implements IEclipseContext {
 
 	private Set<String> modifiable;
 
+	/**
+	 * The contexts values were last resolved in, by name, for values set in this
+	 * context or its parents; {@link #UNRESOLVED} for names that are not set
+	 * anywhere. Entries are removed when the name is invalidated in this context.
+	 */
+	private final Map<String, Object> resolved = new ConcurrentHashMap<>();
+	/**
+	 * Incremented when entries are removed from {@link #resolved}, so that a value
+	 * resolved concurrently is not remembered.
+	 */
+	private final AtomicInteger resolvedStamp = new AtomicInteger();
+
+	private final static Object UNRESOLVED = new Object();
+
+	private final static LongAdder resolutionHits = new LongAdder();
+	private final static LongAdder resolutionMisses = new LongAdder();
+	private final static LongAdder resolutionDepth = new LongAdder();
+
 	private List<Computation> waiting; // list of Computations; null for all non-root entries
 
 	/** Concurrent Collection of {@link #selfRef} */
@@ -115,8 +136,8 @@ public class EclipseContext implements IEclipseContext {
 	// I don't think we need to sync referenceQueue access
 	private ReferenceQueue<Object> referenceQueue = new ReferenceQueue<>();
 
-	private Map<Reference<?>, TrackableComputationExt> activeComputations = Collections.synchronizedMap(new HashMap<>());
-	private Set<TrackableComputationExt> activeRATs = Collections.synchronizedSet(new HashSet<>());
+	private Map<Reference<?>, TrackableComputationExt> activeComputations = new ConcurrentHashMap<>();
+	private Set<TrackableComputationExt> activeRATs = ConcurrentHashMap.newKeySet();
 
 	private final static Object[] nullArgs = new Object[] {null};
 
@@ -201,6 +222,7 @@ public class EclipseContext implements IEclipseContext {
 		}
 
 		localValues.clear();
+		resolved.clear();
 
 		if (parent != null) {
 			selfRef.clear(); // remove from parent
@@ -245,8 +267,31 @@ public class EclipseContext implements IEclipseContext {
 					return result;
 				}
 			}
+			if (!local)
+				return resolve(name);
 		}
 
+		Object result = internalGetLocal(originatingContext, name);
+		if (result != IInjector.NOT_A_VALUE)
+			return result;
+		// 3. delegate to parent
+		if (!local) {
+			IEclipseContext parent = (IEclipseContext) localValues.get(PARENT);
+			if (parent != null) {
+				return ((EclipseContext) parent).internalGet(originatingContext, name, local);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the value of the given name in this context, without looking at the
+	 * parent contexts.
+	 *
+	 * @return {@link IInjector#NOT_A_VALUE} if the value should be looked up in the
+	 *         parent context
+	 */
+	private Object internalGetLocal(EclipseContext originatingContext, String name) {
 		Object result = null;
 		// 1. try for local value
 		Value<Object> value = localValues.getValue(name);
@@ -269,14 +314,68 @@ public class EclipseContext implements IEclipseContext {
 				return result;
 			}
 		}
-		// 3. delegate to parent
-		if (!local) {
-			IEclipseContext parent = (IEclipseContext) localValues.get(PARENT);
-			if (parent != null) {
-				return ((EclipseContext) parent).internalGet(originatingContext, name, local);
+		return IInjector.NOT_A_VALUE;
+	}
+
+	/**
+	 * Returns the value of the given name in this context or its parents,
+	 * remembering which context the value was found in.
+	 */
+	private Object resolve(String name) {
+		Object holder = resolved.get(name);
+		if (holder == UNRESOLVED) {
+			resolutionHits.increment();
+			return null;
+		}
+		if (holder != null) {
+			Value<Object> value = ((EclipseContext) holder).localValues.getValue(name);
+			// the value might have been replaced by a function since
+			if (value.isPresent() && !(value.unwrapped() instanceof IContextFunction)) {
+				resolutionHits.increment();
+				return value.unwrapped();
 			}
 		}
-		return null;
+
+		int stamp = resolvedStamp.get();
+		int depth = 0;
+		Object result = null;
+		holder = UNRESOLVED;
+		for (EclipseContext current = this; current != null; current = current.getParent()) {
+			depth++;
+			result = current.internalGetLocal(this, name);
+			if (result != IInjector.NOT_A_VALUE) {
+				// only plain values are remembered, functions are cached as computations
+				Value<Object> value = current.localValues.getValue(name);
+				holder = (value.isPresent() && value.unwrapped() == result && !(result instanceof IContextFunction)) ? current : null;
+				break;
+			}
+		}
+		if (result == IInjector.NOT_A_VALUE)
+			result = null;
+		resolutionMisses.increment();
+		resolutionDepth.add(depth);
+
+		if (holder != null) {
+			resolved.put(name, holder);
+			if (resolvedStamp.get() != stamp)
+				resolved.remove(name, holder);
+		}
+		return result;
+	}
+
+	/**
+	 * Forgets which contexts the given name was resolved in by this context and its
+	 * children, or all names if the given name is <code>null</code>.
+	 */
+	private void forgetResolved(String name) {
+		resolvedStamp.incrementAndGet();
+		if (name == null)
+			resolved.clear();
+		else
+			resolved.remove(name);
+		for (EclipseContext childContext : getChildren()) {
+			childContext.forgetResolved(name);
+		}
 	}
 
 	/**
@@ -286,6 +385,8 @@ public class EclipseContext implements IEclipseContext {
 	public void invalidate(String name, int eventType, Object oldValue, Object newValue, Set<Scheduled> scheduled) {
 		ContextChangeEvent event = new ContextChangeEvent(this, eventType, null, name, oldValue);
 
+		resolvedStamp.incrementAndGet();
+		resolved.remove(name);
 		ValueComputation newComputation = localValueComputations.computeIfPresent(name, (k, computation) -> {
 			if (computation.shouldRemove(event)) {
 				weakListeners.remove(computation);
@@ -359,6 +460,24 @@ public class EclipseContext implements IEclipseContext {
 		}
 	}
 
+	/**
+	 * Keeps a single update for each runnable scheduled because values were added,
+	 * removed or recalculated; such updates do not depend on the changed name.
+	 */
+	private static Set<Scheduled> coalesce(Set<Scheduled> scheduledList) {
+		Map<TrackableComputationExt, Scheduled> coalesced = new LinkedHashMap<>();
+		Set<Scheduled> result = new LinkedHashSet<>();
+		for (Scheduled scheduled : scheduledList) {
+			int eventType = scheduled.event.getEventType();
+			if (eventType == ContextChangeEvent.ADDED || eventType == ContextChangeEvent.REMOVED || eventType == ContextChangeEvent.RECALC) {
+				if (coalesced.putIfAbsent(scheduled.runnable, scheduled) != null)
+					continue;
+			}
+			result.add(scheduled);
+		}
+		return result;
+	}
+
 	@Override
 	public void set(String name, Object value) {
 		if (PARENT.equals(name)) {
@@ -373,8 +492,41 @@ public class EclipseContext implements IEclipseContext {
 			invalidate(name, ContextChangeEvent.ADDED, oldValue, value, scheduled);
 			processScheduled(scheduled);
 		}
+		cleanupReferences();
+	}
 
-		// cleanup unused computation listeners
+	/**
+	 * Sets several values in this context at once.
+	 * <p>
+	 * Unlike a sequence of {@link #set(String, Object)} calls, listeners are only
+	 * notified after all values are set, and a listener depending on several of the
+	 * values is notified once.
+	 * </p>
+	 *
+	 * @param values the names and values to set, in the order they are set
+	 */
+	public void setAll(Map<String, ?> values) {
+		Set<Scheduled> scheduled = new LinkedHashSet<>();
+		for (Map.Entry<String, ?> entry : values.entrySet()) {
+			String name = entry.getKey();
+			Object value = entry.getValue();
+			if (PARENT.equals(name)) {
+				setParent((IEclipseContext) value);
+				continue;
+			}
+			Value<Object> old = localValues.putAndGetOld(name, value);
+			Object oldValue = old.unwrapped();
+			if (!old.isPresent() || oldValue != value)
+				invalidate(name, ContextChangeEvent.ADDED, oldValue, value, scheduled);
+		}
+		processScheduled(coalesce(scheduled));
+		cleanupReferences();
+	}
+
+	/**
+	 * Cleanup unused computation listeners.
+	 */
+	private void cleanupReferences() {
 		Reference<?> ref = referenceQueue.poll();
 		if (ref != null) {
 			ContextChangeEvent event = new ContextChangeEvent(this, ContextChangeEvent.UNINJECTED, nullArgs, null, null);
@@ -430,6 +582,7 @@ public class EclipseContext implements IEclipseContext {
 		EclipseContext newParent = (EclipseContext) parent;
 		handleReparent(newParent, scheduled);
 		localValues.put(PARENT, parent);
+		forgetResolved(null);
 		if (parent != null) {
 			selfRef = new WeakReference<>(this);
 			newParent.addChild(selfRef);
@@ -468,7 +621,11 @@ public class EclipseContext implements IEclipseContext {
 		if (modifiable == null)
 			modifiable = new HashSet<>(3);
 		modifiable.add(name);
-		localValues.putIfAbsent(name, null);
+		if (!localValues.containsKey(name)) {
+			localValues.putIfAbsent(name, null);
+			// hides the value set in parent contexts
+			forgetResolved(name);
+		}
 	}
 
 	private boolean checkModifiable(String name) {
@@ -730,6 +887,24 @@ public class EclipseContext implements IEclipseContext {
 		return weakListeners.getListeners(name);
 	}
 
+	// This method is for debug only, do not use externally
+	public static long getResolutionHits() {
+		return resolutionHits.sum();
+	}
+
+	// This method is for debug only, do not use externally
+	public static long getResolutionMisses() {
+		return resolutionMisses.sum();
+	}
+
+	/**
+	 * Returns the number of contexts looked at to resolve values missing from the
+	 * resolution caches, for debug only, do not use externally.
+	 */
+	public static long getResolutionDepth() {
+		return resolutionDepth.sum();
+	}
+
 	static public Stack<Computation> getCalculatedComputations() {
 		Stack<Computation> current = currentComputation.get();
 		if (current == null) {
@@ -14,82 +14,107 @@
 
 package org.eclipse.e4.core.internal.contexts;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Listeners are held wrapped in weak references and are removed if no other [strong] reference
  * exists.
+ * <p>
+ * Listeners are grouped by name, and each group is locked on its own, so that listeners of
+ * different names can be added and notified concurrently. Groups left empty once their
+ * listeners are collected are only removed by {@link #cleanup()}.
+ * </p>
  */
 public class WeakGroupedListenerList {
 
-	private final Map<String, Set<Computation>> listeners = new HashMap<>();
+	private static final class Group {
+		private final Map<Computation, Boolean> computations = new WeakHashMap<>();
+		/** Whether this group was removed from the list; guarded by this group */
+		private boolean removed;
 
-	public synchronized void add(String groupName, Computation computation) {
+		synchronized boolean add(Computation computation) {
+			if (removed)
+				return false;
+			computations.put(computation, Boolean.TRUE);
+			return true;
+		}
+
+		synchronized void remove(Computation computation) {
+			computations.remove(computation);
+		}
+
+		synchronized void collectValid(Set<Computation> result) {
+			for (Computation computation : computations.keySet()) {
+				if (computation.isValid()) {
+					result.add(computation);
+				}
+			}
+		}
+
+		/**
+		 * Removes the invalid listeners of this group, and marks the group as removed if
+		 * it has no listeners left.
+		 *
+		 * @return whether this group can be removed from the list
+		 */
+		synchronized boolean expunge() {
+			computations.keySet().removeIf(computation -> !computation.isValid());
+			removed = computations.isEmpty();
+			return removed;
+		}
+	}
+
+	private final Map<String, Group> listeners = new ConcurrentHashMap<>();
+
+	public void add(String groupName, Computation computation) {
 		Objects.requireNonNull(computation);
-		listeners.computeIfAbsent(groupName,
-						k -> Collections.newSetFromMap(new WeakHashMap<>()))
-				.add(computation);
+		while (true) {
+			Group group = listeners.computeIfAbsent(groupName, k -> new Group());
+			if (group.add(computation))
+				return;
+			// the group was emptied by a concurrent cleanup
+			listeners.remove(groupName, group);
+		}
 	}
 
-	public synchronized void remove(Computation computation) {
-		Collection<Set<Computation>> allListeners = listeners.values();
-		for (Set<Computation> group : allListeners) {
+	public void remove(Computation computation) {
+		for (Group group : listeners.values()) {
 			group.remove(computation);
 		}
 	}
 
-	public synchronized Set<String> getNames() {
-		Set<String> groupNames = listeners.keySet(); // clone internal name list
-		Set<String> usedNames = new HashSet<>(groupNames.size());
-		usedNames.addAll(groupNames);
-		return usedNames;
+	public Set<String> getNames() {
+		return new HashSet<>(listeners.keySet()); // clone internal name list
 	}
 
-	public synchronized void clear() {
+	public void clear() {
 		listeners.clear();
 	}
 
-	public synchronized Set<Computation> getListeners() {
-		Collection<Set<Computation>> groups = listeners.values();
+	public Set<Computation> getListeners() {
 		Set<Computation> result = new HashSet<>();
-		for (Set<Computation> computations : groups) {
-			for (Computation computation : computations) {
-				if (computation.isValid()) {
-					result.add(computation);
-				}
-			}
+		for (Group group : listeners.values()) {
+			group.collectValid(result);
 		}
 		return result;
 	}
 
-	public synchronized Set<Computation> getListeners(String groupName) {
-		Set<Computation> computations = listeners.get(groupName);
-		if (computations == null)
+	public Set<Computation> getListeners(String groupName) {
+		Group group = listeners.get(groupName);
+		if (group == null)
 			return null;
-		Set<Computation> result = new HashSet<>(computations.size());
-		for (Computation computation : computations) {
-			if (computation.isValid()) {
-				result.add(computation);
-			}
-		}
+		Set<Computation> result = new HashSet<>();
+		group.collectValid(result);
 		return result;
 	}
 
-	public synchronized void cleanup() {
-		Set<Entry<String, Set<Computation>>> entries = listeners.entrySet();
-		entries.removeIf(entry -> {
-			Set<Computation> computations = entry.getValue();
-			computations.removeIf(computation -> !computation.isValid());
-			return computations.isEmpty();
-		});
+	public void cleanup() {
+		listeners.values().removeIf(Group::expunge);
 	}
 
 }
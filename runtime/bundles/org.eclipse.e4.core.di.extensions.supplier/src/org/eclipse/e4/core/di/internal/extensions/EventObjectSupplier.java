@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2017 IBM Corporation and others.
+ * Copyright (c) 2010, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -18,14 +18,16 @@ package org.eclipse.e4.core.di.internal.extensions;
 
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Set;
 import javax.annotation.PreDestroy;
 import org.eclipse.e4.core.contexts.IEclipseContext;
 import org.eclipse.e4.core.di.IInjector;
@@ -130,7 +132,53 @@ public class EventObjectSupplier extends ExtendedObjectSupplier implements Event
 
 	}
 
-	private Map<Subscriber, ServiceRegistration<EventHandler>> registrations = new HashMap<>();
+	/**
+	 * The only event handler registered for all subscribed topics, which forwards
+	 * events to the handlers of the matching subscribers.
+	 */
+	private class TopicDispatcher implements EventHandler {
+		@Override
+		public void handleEvent(Event event) {
+			List<Subscriber> matching = new ArrayList<>();
+			List<EventHandler> handlers = new ArrayList<>();
+			synchronized (registrations) {
+				subscribers.collect(event.getTopic(), matching);
+				for (Subscriber subscriber : matching) {
+					handlers.add(registrations.get(subscriber));
+				}
+			}
+			RuntimeException failure = null;
+			for (EventHandler handler : handlers) {
+				try {
+					handler.handleEvent(event);
+				} catch (RuntimeException e) {
+					// let the other subscribers handle the event, as if they were registered
+					// on their own
+					if (failure == null)
+						failure = e;
+					else
+						failure.addSuppressed(e);
+				}
+			}
+			if (failure != null)
+				throw failure;
+		}
+	}
+
+	/** The handlers of the subscribers; guards all subscriptions */
+	private Map<Subscriber, EventHandler> registrations = new HashMap<>();
+	/** The topics each requestor subscribed to */
+	private Map<IRequestor, Set<String>> requestorTopics = new HashMap<>();
+	private TopicTrie<Subscriber> subscribers = new TopicTrie<>();
+	/**
+	 * Whether the last subscriber of a topic left since the topics of the
+	 * dispatcher were last updated
+	 */
+	private boolean topicsRemoved;
+
+	private final TopicDispatcher dispatcher = new TopicDispatcher();
+	/** Guarded by {@link #dispatcher} */
+	private ServiceRegistration<EventHandler> dispatcherRegistration;
 
 	protected void addCurrentEvent(String topic, Event event) {
 		synchronized (currentEvents) {
@@ -170,6 +218,7 @@ public class EventObjectSupplier extends ExtendedObjectSupplier implements Event
 
 	private void subscribe(String topic, IRequestor requestor) {
 		Subscriber subscriber = new Subscriber(requestor, topic);
+		boolean newTopic;
 		synchronized (registrations) {
 			if (registrations.containsKey(subscriber))
 				return;
@@ -179,16 +228,45 @@ public class EventObjectSupplier extends ExtendedObjectSupplier implements Event
 			throw new InjectionException(
 					"Unable to subscribe to events: org.eclipse.e4.core.di.extensions bundle is not activated"); //$NON-NLS-1$
 
-		String[] topics = new String[] { topic };
-		Dictionary<String, Object> d = new Hashtable<>();
-		d.put(EventConstants.EVENT_TOPIC, topics);
 		EventHandler wrappedHandler = makeHandler(topic, requestor);
-		ServiceRegistration<EventHandler> registration = bundleContext.registerService(EventHandler.class,
-				wrappedHandler, d);
-		// due to the way requestors are constructed this limited synch should
-		// be OK
 		synchronized (registrations) {
-			registrations.put(subscriber, registration);
+			if (registrations.putIfAbsent(subscriber, wrappedHandler) != null)
+				return;
+			requestorTopics.computeIfAbsent(requestor, r -> new LinkedHashSet<>(2)).add(topic);
+			newTopic = subscribers.add(topic, subscriber);
+		}
+		// topics are only added to the dispatcher here, they are removed in batches
+		if (newTopic)
+			updateDispatcher(bundleContext);
+	}
+
+	/**
+	 * Registers the dispatcher for the topics that currently have subscribers.
+	 *
+	 * @param bundleContext the context to register the dispatcher with, or
+	 *                      <code>null</code> to only update or remove an
+	 *                      existing registration
+	 */
+	private void updateDispatcher(BundleContext bundleContext) {
+		synchronized (dispatcher) {
+			String[] topics;
+			synchronized (registrations) {
+				topics = subscribers.getTopics();
+				topicsRemoved = false;
+			}
+			if (topics.length == 0) {
+				if (dispatcherRegistration != null) {
+					dispatcherRegistration.unregister();
+					dispatcherRegistration = null;
+				}
+				return;
+			}
+			Dictionary<String, Object> d = new Hashtable<>();
+			d.put(EventConstants.EVENT_TOPIC, topics);
+			if (dispatcherRegistration != null)
+				dispatcherRegistration.setProperties(d);
+			else if (bundleContext != null)
+				dispatcherRegistration = bundleContext.registerService(EventHandler.class, dispatcher, d);
 		}
 	}
 
@@ -207,30 +285,38 @@ public class EventObjectSupplier extends ExtendedObjectSupplier implements Event
 		if (requestor == null)
 			return;
 		synchronized (registrations) {
-			Iterator<Entry<Subscriber, ServiceRegistration<EventHandler>>> i = registrations.entrySet().iterator();
-			while (i.hasNext()) {
-				Entry<Subscriber, ServiceRegistration<EventHandler>> entry = i.next();
-				Subscriber key = entry.getKey();
-				if (!requestor.equals(key.getRequestor()))
-					continue;
-				ServiceRegistration<EventHandler> registration = entry.getValue();
-				registration.unregister();
-				i.remove();
-			}
+			removeSubscriptions(requestor, requestorTopics.remove(requestor));
+		}
+	}
+
+	/**
+	 * Removes the subscriptions of the given requestor; the topics left without
+	 * subscribers are removed from the dispatcher on the next cleanup.
+	 */
+	private void removeSubscriptions(IRequestor requestor, Set<String> topics) {
+		if (topics == null)
+			return;
+		for (String topic : topics) {
+			Subscriber subscriber = new Subscriber(requestor, topic);
+			registrations.remove(subscriber);
+			if (subscribers.remove(topic, subscriber))
+				topicsRemoved = true;
 		}
 	}
 
-	@SuppressWarnings("rawtypes")
 	@PreDestroy
 	public void dispose() {
-		ServiceRegistration[] array;
 		synchronized (registrations) {
-			Collection<ServiceRegistration<EventHandler>> values = registrations.values();
-			array = values.toArray(new ServiceRegistration[values.size()]);
 			registrations.clear();
+			requestorTopics.clear();
+			subscribers = new TopicTrie<>();
+			topicsRemoved = false;
 		}
-		for (ServiceRegistration element : array) {
-			element.unregister();
+		synchronized (dispatcher) {
+			if (dispatcherRegistration != null) {
+				dispatcherRegistration.unregister();
+				dispatcherRegistration = null;
+			}
 		}
 	}
 
@@ -247,18 +333,21 @@ public class EventObjectSupplier extends ExtendedObjectSupplier implements Event
 
 	@Override
 	public void handleEvent(Event event) {
+		boolean update;
 		synchronized (registrations) {
-			Iterator<Entry<Subscriber, ServiceRegistration<EventHandler>>> i = registrations.entrySet().iterator();
+			Iterator<Map.Entry<IRequestor, Set<String>>> i = requestorTopics.entrySet().iterator();
 			while (i.hasNext()) {
-				Entry<Subscriber, ServiceRegistration<EventHandler>> entry = i.next();
-				Subscriber key = entry.getKey();
-				if (!key.getRequestor().isValid()) {
-					ServiceRegistration<EventHandler> registration = entry.getValue();
-					registration.unregister();
+				Map.Entry<IRequestor, Set<String>> entry = i.next();
+				IRequestor requestor = entry.getKey();
+				if (!requestor.isValid()) {
+					removeSubscriptions(requestor, entry.getValue());
 					i.remove();
 				}
 			}
+			update = topicsRemoved;
 		}
+		if (update)
+			updateDispatcher(null);
 	}
 
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2017 IBM Corporation and others.
+ * Copyright (c) 2010, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -18,11 +18,11 @@ package org.eclipse.e4.core.di.internal.extensions;
 
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences.IPreferenceChangeListener;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences.PreferenceChangeEvent;
@@ -61,35 +61,75 @@ public class PreferencesObjectSupplier extends ExtendedObjectSupplier implements
 		this.preferencesService = preferenceService;
 	}
 
+	/**
+	 * The only listener registered with a preference node, which forwards changes
+	 * to the requestors injected with the changed key.
+	 */
 	static private class PrefInjectionListener implements IPreferenceChangeListener {
 
-		final private IRequestor requestor;
 		final private IEclipsePreferences node;
-		final private String key;
+		// key -> requestors; guarded by this listener
+		final private Map<String, Set<IRequestor>> requestors = new HashMap<>();
 
-		public PrefInjectionListener(IEclipsePreferences node, String key, IRequestor requestor) {
+		public PrefInjectionListener(IEclipsePreferences node) {
 			this.node = node;
-			this.key = key;
-			this.requestor = requestor;
 		}
 
 		@Override
 		public void preferenceChange(final PreferenceChangeEvent event) {
-			if (!requestor.isValid()) {
-				node.removePreferenceChangeListener(this);
-				return;
+			IRequestor[] listening;
+			synchronized (this) {
+				Set<IRequestor> keyRequestors = requestors.get(event.getKey());
+				if (keyRequestors == null)
+					return;
+				listening = keyRequestors.toArray(new IRequestor[keyRequestors.size()]);
 			}
-
-			if (!event.getKey().equals(key)) {
-				return;
+			RuntimeException failure = null;
+			for (IRequestor requestor : listening) {
+				if (!requestor.isValid()) {
+					removeRequestor(event.getKey(), requestor);
+					continue;
+				}
+				try {
+					requestor.resolveArguments(false);
+					requestor.execute();
+				} catch (RuntimeException e) {
+					// let the other requestors see the change, as if they were listening on
+					// their own
+					if (failure == null)
+						failure = e;
+					else
+						failure.addSuppressed(e);
+				}
 			}
+			if (failure != null)
+				throw failure;
+		}
 
-			requestor.resolveArguments(false);
-			requestor.execute();
+		synchronized void addRequestor(String key, IRequestor requestor) {
+			// a requestor injected more than once with the same key is only notified once
+			requestors.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(requestor);
 		}
 
-		public IRequestor getRequestor() {
-			return requestor;
+		synchronized void removeRequestor(String key, IRequestor requestor) {
+			Set<IRequestor> keyRequestors = requestors.get(key);
+			if (keyRequestors != null && keyRequestors.remove(requestor) && keyRequestors.isEmpty())
+				requestors.remove(key);
+		}
+
+		/**
+		 * Removes the requestors that are no longer valid.
+		 *
+		 * @return <code>true</code> if no requestor is left
+		 */
+		synchronized boolean removeInvalid() {
+			for (Iterator<Set<IRequestor>> i = requestors.values().iterator(); i.hasNext();) {
+				Set<IRequestor> keyRequestors = i.next();
+				keyRequestors.removeIf(requestor -> !requestor.isValid());
+				if (keyRequestors.isEmpty())
+					i.remove();
+			}
+			return requestors.isEmpty();
 		}
 
 		public void stopListening() {
@@ -97,8 +137,8 @@ public class PreferencesObjectSupplier extends ExtendedObjectSupplier implements
 		}
 	}
 
-	// Hash (nodePath -> Hash (key -> list))
-	private Map<String, HashMap<String, List<PrefInjectionListener>>> listenerCache = new HashMap<>();
+	// nodePath -> listener of the node
+	private Map<String, PrefInjectionListener> listenerCache = new HashMap<>();
 
 	@Override
 	public Object get(IObjectDescriptor descriptor, IRequestor requestor, boolean track, boolean group) {
@@ -180,48 +220,24 @@ public class PreferencesObjectSupplier extends ExtendedObjectSupplier implements
 	private void addListener(String nodePath, String key, final IRequestor requestor) {
 		if (requestor == null)
 			return;
+		PrefInjectionListener listener;
 		synchronized (listenerCache) {
-			if (listenerCache.containsKey(nodePath)) {
-				HashMap<String, List<PrefInjectionListener>> map = listenerCache.get(nodePath);
-				if (map.containsKey(key)) {
-					for (PrefInjectionListener listener : map.get(key)) {
-						IRequestor previousRequestor = listener.getRequestor();
-						if (previousRequestor.equals(requestor))
-							return; // avoid adding duplicate listeners
-					}
-				}
+			listener = listenerCache.get(nodePath);
+			if (listener == null) {
+				final IEclipsePreferences node = InstanceScope.INSTANCE.getNode(nodePath);
+				listener = new PrefInjectionListener(node);
+				node.addPreferenceChangeListener(listener);
+				listenerCache.put(nodePath, listener);
 			}
-		}
-		final IEclipsePreferences node = InstanceScope.INSTANCE.getNode(nodePath);
-		PrefInjectionListener listener = new PrefInjectionListener(node, key, requestor);
-		node.addPreferenceChangeListener(listener);
-
-		synchronized (listenerCache) {
-			HashMap<String, List<PrefInjectionListener>> map = listenerCache.get(nodePath);
-			if (map == null) {
-				map = new HashMap<>();
-				listenerCache.put(nodePath, map);
-			}
-			List<PrefInjectionListener> listeningRequestors = map.get(key);
-			if (listeningRequestors == null) {
-				listeningRequestors = new ArrayList<>();
-				map.put(key, listeningRequestors);
-			}
-			listeningRequestors.add(listener);
+			listener.addRequestor(key, requestor);
 		}
 	}
 
 	@Deactivate
 	public void removeAllListeners() {
 		synchronized (listenerCache) {
-			for (HashMap<String, List<PrefInjectionListener>> map : listenerCache.values()) {
-				for (List<PrefInjectionListener> listeners : map.values()) {
-					if (listeners == null)
-						continue;
-					for (PrefInjectionListener listener : listeners) {
-						listener.stopListening();
-					}
-				}
+			for (PrefInjectionListener listener : listenerCache.values()) {
+				listener.stopListening();
 			}
 			listenerCache.clear();
 		}
@@ -230,30 +246,11 @@ public class PreferencesObjectSupplier extends ExtendedObjectSupplier implements
 	@Override
 	public void handleEvent(Event event) {
 		synchronized (listenerCache) {
-			for (Iterator<Map.Entry<String, HashMap<String, List<PrefInjectionListener>>>> nodesIterator = listenerCache
-					.entrySet().iterator(); nodesIterator.hasNext();) {
-				HashMap<String, List<PrefInjectionListener>> map = nodesIterator.next().getValue();
-				for (Iterator<HashMap.Entry<String, List<PrefInjectionListener>>> valuesIterator = map.entrySet()
-						.iterator(); valuesIterator.hasNext();) {
-					List<PrefInjectionListener> listeners = valuesIterator.next().getValue();
-					if (listeners != null) {
-						for (Iterator<PrefInjectionListener> listenerIterator = listeners.iterator(); listenerIterator
-								.hasNext();) {
-							PrefInjectionListener listener = listenerIterator.next();
-							if (!listener.getRequestor().isValid()) {
-								listener.stopListening();
-								listenerIterator.remove();
-							}
-						}
-
-						if (listeners.isEmpty()) {
-							valuesIterator.remove();
-						}
-					}
-				}
-
-				if (map.isEmpty()) {
-					nodesIterator.remove();
+			for (Iterator<PrefInjectionListener> i = listenerCache.values().iterator(); i.hasNext();) {
+				PrefInjectionListener listener = i.next();
+				if (listener.removeInvalid()) {
+					listener.stopListening();
+					i.remove();
 				}
 			}
 		}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.core.di.internal.extensions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Subscribers to event topics, organized by topic segments so that the
+ * subscribers to an event are found without matching every subscribed topic.
+ * <p>
+ * Topics follow the syntax of <code>EventConstants.EVENT_TOPIC</code>: either a
+ * topic name such as <code>org/eclipse/e4/event</code>, or a topic name prefix
+ * followed by a wildcard such as <code>org/eclipse/*</code> or <code>*</code>.
+ * </p>
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ *
+ * @param <T> the type of the subscribers
+ */
+final class TopicTrie<T> {
+
+	private static final String WILDCARD = "*"; //$NON-NLS-1$
+
+	private static final class Node<T> {
+		final Map<String, Node<T>> children = new HashMap<>(4);
+		/** subscribers to the topic ending at this node */
+		final Set<T> exact = new LinkedHashSet<>();
+		/** subscribers to all topics below this node */
+		final Set<T> wildcard = new LinkedHashSet<>();
+
+		boolean isEmpty() {
+			return exact.isEmpty() && wildcard.isEmpty() && children.isEmpty();
+		}
+	}
+
+	private final Node<T> root = new Node<>();
+	/** number of subscribers by topic */
+	private final Map<String, Integer> topics = new HashMap<>();
+
+	/**
+	 * Adds a subscriber to the given topic.
+	 *
+	 * @return <code>true</code> if the topic had no subscribers before
+	 */
+	boolean add(String topic, T subscriber) {
+		boolean wildcard = topic.equals(WILDCARD) || topic.endsWith("/" + WILDCARD); //$NON-NLS-1$
+		Node<T> node = root;
+		String[] segments = segments(topic, wildcard);
+		for (String segment : segments) {
+			node = node.children.computeIfAbsent(segment, s -> new Node<>());
+		}
+		if (!(wildcard ? node.wildcard : node.exact).add(subscriber))
+			return false;
+		return topics.merge(topic, 1, Integer::sum) == 1;
+	}
+
+	/**
+	 * Removes a subscriber from the given topic.
+	 *
+	 * @return <code>true</code> if the topic has no subscribers left
+	 */
+	boolean remove(String topic, T subscriber) {
+		boolean wildcard = topic.equals(WILDCARD) || topic.endsWith("/" + WILDCARD); //$NON-NLS-1$
+		String[] segments = segments(topic, wildcard);
+		List<Node<T>> path = new ArrayList<>(segments.length + 1);
+		Node<T> node = root;
+		path.add(node);
+		for (String segment : segments) {
+			node = node.children.get(segment);
+			if (node == null)
+				return false;
+			path.add(node);
+		}
+		if (!(wildcard ? node.wildcard : node.exact).remove(subscriber))
+			return false;
+		// prune the nodes left empty
+		for (int i = segments.length; i > 0 && path.get(i).isEmpty(); i--) {
+			path.get(i - 1).children.remove(segments[i - 1]);
+		}
+		if (topics.merge(topic, -1, Integer::sum) > 0)
+			return false;
+		topics.remove(topic);
+		return true;
+	}
+
+	/**
+	 * Adds the subscribers to all topics matching the given event topic to the
+	 * given list.
+	 */
+	void collect(String eventTopic, List<T> result) {
+		Node<T> node = root;
+		int start = 0;
+		while (node != null) {
+			// wildcards match any topic with at least one more segment
+			result.addAll(node.wildcard);
+			int end = eventTopic.indexOf('/', start);
+			if (end < 0) {
+				Node<T> last = node.children.get(eventTopic.substring(start));
+				if (last != null)
+					result.addAll(last.exact);
+				return;
+			}
+			node = node.children.get(eventTopic.substring(start, end));
+			start = end + 1;
+		}
+	}
+
+	/**
+	 * Returns the topics that have subscribers.
+	 */
+	String[] getTopics() {
+		return topics.keySet().toArray(new String[topics.size()]);
+	}
+
+	boolean isEmpty() {
+		return topics.isEmpty();
+	}
+
+	private static String[] segments(String topic, boolean wildcard) {
+		if (topic.equals(WILDCARD))
+			return new String[0];
+		String prefix = wildcard ? topic.substring(0, topic.length() - 2) : topic;
+		return prefix.split("/", -1); //$NON-NLS-1$
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2016 IBM Corporation and others.
+ * Copyright (c) 2010, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,6 +14,7 @@
 package org.eclipse.e4.core.internal.di;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Type;
@@ -24,14 +25,27 @@ import org.eclipse.e4.core.di.suppliers.PrimaryObjectSupplier;
 
 public class ConstructorRequestor extends Requestor<Constructor<?>> {
 
+	/** The handle to call the constructor, or <code>null</code> to call it by reflection */
+	private final MethodHandle creator;
+
 	public ConstructorRequestor(Constructor<?> constructor, IInjector injector, PrimaryObjectSupplier primarySupplier, PrimaryObjectSupplier tempSupplier) {
+		this(constructor, null, injector, primarySupplier, tempSupplier);
+	}
+
+	/**
+	 * @param creator a method handle of type <code>(Object[])Object</code> that
+	 *                calls the constructor with the given arguments, or
+	 *                <code>null</code> to call it by reflection
+	 */
+	public ConstructorRequestor(Constructor<?> constructor, MethodHandle creator, IInjector injector, PrimaryObjectSupplier primarySupplier, PrimaryObjectSupplier tempSupplier) {
 		super(constructor, injector, primarySupplier, tempSupplier, null, false /* do not track */);
+		this.creator = creator;
 	}
 
 	@Override
 	public Object execute() throws InjectionException {
 		Object result = null;
-		if (!location.isAccessible()) {
+		if (creator == null && !location.isAccessible()) {
 			location.setAccessible(true);
 		}
 		boolean pausedRecording = false;
@@ -40,7 +54,10 @@ public class ConstructorRequestor extends Requestor<Constructor<?>> {
 			pausedRecording = true;
 		}
 		try {
-			result = location.newInstance(actualArgs);
+			if (creator != null)
+				result = creator.invokeExact(actualArgs);
+			else
+				result = location.newInstance(actualArgs);
 		} catch (IllegalArgumentException | IllegalAccessException e) {
 			throw new InjectionException(e);
 		} catch (InstantiationException e) {
@@ -53,6 +70,12 @@ public class ConstructorRequestor extends Requestor<Constructor<?>> {
 				throw (Error) originalException;
 			}
 			throw new InjectionException((originalException != null) ? originalException : e);
+		} catch (Error e) {
+			// Errors such as ThreadDeath or OutOfMemoryError should not be trapped
+			throw e;
+		} catch (Throwable e) {
+			// thrown by the constructor called through the creator
+			throw new InjectionException(e);
 		} finally {
 			if (pausedRecording)
 				primarySupplier.resumeRecording();
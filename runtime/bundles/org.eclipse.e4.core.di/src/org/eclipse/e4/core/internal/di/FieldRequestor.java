@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2016 IBM Corporation and others.
+ * Copyright (c) 2010, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.e4.core.internal.di;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
 import org.eclipse.e4.core.di.IInjector;
 import org.eclipse.e4.core.di.InjectionException;
@@ -21,8 +22,20 @@ import org.eclipse.e4.core.di.suppliers.PrimaryObjectSupplier;
 
 public class FieldRequestor extends Requestor<Field> {
 
+	/** The handle to set the field, or <code>null</code> to set it by reflection */
+	private final MethodHandle setter;
+
 	public FieldRequestor(Field field, IInjector injector, PrimaryObjectSupplier primarySupplier, PrimaryObjectSupplier tempSupplier, Object requestingObject, boolean track) {
+		this(field, null, injector, primarySupplier, tempSupplier, requestingObject, track);
+	}
+
+	/**
+	 * @param setter a method handle of type <code>(Object, Object)void</code> that
+	 *               sets the field, or <code>null</code> to set it by reflection
+	 */
+	public FieldRequestor(Field field, MethodHandle setter, IInjector injector, PrimaryObjectSupplier primarySupplier, PrimaryObjectSupplier tempSupplier, Object requestingObject, boolean track) {
 		super(field, injector, primarySupplier, tempSupplier, requestingObject, track);
+		this.setter = setter;
 	}
 
 	@Override
@@ -44,6 +57,16 @@ public class FieldRequestor extends Requestor<Field> {
 		Object userObject = getRequestingObject();
 		if (userObject == null)
 			return false;
+		if (setter != null) {
+			try {
+				setter.invokeExact(userObject, value);
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new InjectionException(e);
+			}
+			return true;
+		}
 		if (!field.isAccessible()) {
 			field.setAccessible(true);
 		}
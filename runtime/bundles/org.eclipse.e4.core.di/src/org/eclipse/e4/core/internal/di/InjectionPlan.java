@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.e4.core.internal.di;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The members of a class that are injected, found once by reflection and reused
+ * for every instance of the class.
+ * <p>
+ * Members are called through method handles resolved when the plan is built, so
+ * that neither annotations nor overridden methods have to be checked again when
+ * an object is injected.
+ * </p>
+ */
+final class InjectionPlan {
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	/**
+	 * A field or method to inject, with the method handle to set or call it; the
+	 * handle is <code>null</code> if it could not be resolved, in which case the
+	 * member is accessed by reflection.
+	 */
+	static final class InjectionPoint<M extends Member> {
+		final M member;
+		final MethodHandle handle;
+
+		InjectionPoint(M member, MethodHandle handle) {
+			this.member = member;
+			this.handle = handle;
+		}
+
+		boolean isStatic() {
+			return Modifier.isStatic(member.getModifiers());
+		}
+	}
+
+	/**
+	 * The injected members declared by one class of the hierarchy.
+	 */
+	static final class Level {
+		final Class<?> declaringClass;
+		/**
+		 * Whether the class declares static members; static members are only injected
+		 * for the first instance of the class
+		 */
+		final boolean hasStatic;
+		final InjectionPoint<Field>[] fields;
+		final InjectionPoint<Method>[] methods;
+
+		Level(Class<?> declaringClass, boolean hasStatic, InjectionPoint<Field>[] fields, InjectionPoint<Method>[] methods) {
+			this.declaringClass = declaringClass;
+			this.hasStatic = hasStatic;
+			this.fields = fields;
+			this.methods = methods;
+		}
+	}
+
+	/** The classes of the hierarchy, superclasses first */
+	final Level[] levels;
+	/** The methods to call after injection, superclasses first */
+	final InjectionPoint<Method>[] postConstruct;
+	/** The methods to call before uninjection, superclasses first */
+	final InjectionPoint<Method>[] preDestroy;
+
+	/** Whether instances of the class are singletons */
+	final boolean singleton;
+	/**
+	 * The constructors to try when creating instances of the class, by descending
+	 * number of arguments; found on first use
+	 */
+	volatile InjectionPoint<Constructor<?>>[] constructors;
+
+	/** The methods annotated with a given qualifier, found on first use */
+	final Map<Class<? extends Annotation>, InjectionPoint<Method>[]> qualifiedMethods = new ConcurrentHashMap<>();
+
+	InjectionPlan(Level[] levels, InjectionPoint<Method>[] postConstruct, InjectionPoint<Method>[] preDestroy, boolean singleton) {
+		this.levels = levels;
+		this.postConstruct = postConstruct;
+		this.preDestroy = preDestroy;
+		this.singleton = singleton;
+	}
+
+	@SuppressWarnings("unchecked")
+	static <M extends Member> InjectionPoint<M>[] toArray(List<InjectionPoint<M>> points) {
+		return points.toArray(new InjectionPoint[points.size()]);
+	}
+
+	static InjectionPoint<Field> field(Field field) {
+		MethodHandle handle;
+		try {
+			field.setAccessible(true);
+			handle = LOOKUP.unreflectSetter(field);
+			if (Modifier.isStatic(field.getModifiers()))
+				handle = MethodHandles.dropArguments(handle, 0, Object.class);
+			handle = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+		} catch (IllegalAccessException | RuntimeException e) {
+			// e.g. final fields, fall back to reflection
+			handle = null;
+		}
+		return new InjectionPoint<>(field, handle);
+	}
+
+	static InjectionPoint<Method> method(Method method) {
+		MethodHandle handle;
+		try {
+			method.setAccessible(true);
+			handle = LOOKUP.unreflect(method).asFixedArity();
+			if (Modifier.isStatic(method.getModifiers()))
+				handle = MethodHandles.dropArguments(handle, 0, Object.class);
+			handle = handle.asSpreader(Object[].class, method.getParameterCount())
+					.asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+		} catch (IllegalAccessException | RuntimeException e) {
+			handle = null;
+		}
+		return new InjectionPoint<>(method, handle);
+	}
+
+	static InjectionPoint<Constructor<?>> constructor(Constructor<?> constructor) {
+		MethodHandle handle;
+		try {
+			constructor.setAccessible(true);
+			handle = LOOKUP.unreflectConstructor(constructor).asFixedArity()
+					.asSpreader(Object[].class, constructor.getParameterCount())
+					.asType(MethodType.methodType(Object.class, Object[].class));
+		} catch (IllegalAccessException | RuntimeException e) {
+			handle = null;
+		}
+		return new InjectionPoint<>(constructor, handle);
+	}
+}
@@ -52,6 +52,7 @@ import org.eclipse.e4.core.di.suppliers.ExtendedObjectSupplier;
 import org.eclipse.e4.core.di.suppliers.IObjectDescriptor;
 import org.eclipse.e4.core.di.suppliers.IRequestor;
 import org.eclipse.e4.core.di.suppliers.PrimaryObjectSupplier;
+import org.eclipse.e4.core.internal.di.InjectionPlan.InjectionPoint;
 import org.eclipse.e4.core.internal.di.osgi.LogHelper;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.FrameworkUtil;
@@ -82,10 +83,14 @@ public class InjectorImpl implements IInjector {
 
 	// Performance improvement:
 	private final Map<Class<?>, Method[]> methodsCache = Collections.synchronizedMap(new WeakHashMap<>());
-	private final Map<Class<?>, Field[]> fieldsCache = Collections.synchronizedMap(new WeakHashMap<>());
-	private final Map<Class<?>, Constructor<?>[]> constructorsCache = Collections.synchronizedMap(new WeakHashMap<>());
-	private final Map<Class<?>, Map<Method, Boolean>> isOverriddenCache = Collections
-			.synchronizedMap(new WeakHashMap<>());
+
+	/** The members to inject, found once for each class of injected objects */
+	private final ClassValue<InjectionPlan> plans = new ClassValue<InjectionPlan>() {
+		@Override
+		protected InjectionPlan computeValue(Class<?> type) {
+			return buildPlan(type);
+		}
+	};
 
 	private final Set<Class<?>> classesBeingCreated = new HashSet<>(5);
 
@@ -138,7 +143,7 @@ public class InjectorImpl implements IInjector {
 
 		// We call @PostConstruct after injection. This means that is is called
 		// as a part of both #make() and #inject().
-		processAnnotated(PostConstruct.class, object, object.getClass(), objectSupplier, tempSupplier, new ArrayList<>(5));
+		processAnnotated(plans.get(object.getClass()).postConstruct, object, objectSupplier, tempSupplier);
 
 		// remove references to the temporary suppliers
 		for (Requestor<?> requestor : requestors) {
@@ -190,7 +195,7 @@ public class InjectorImpl implements IInjector {
 		try {
 			if (!forgetInjectedObject(object, objectSupplier))
 				return; // not injected at this time
-			processAnnotated(PreDestroy.class, object, object.getClass(), objectSupplier, null, new ArrayList<>(5));
+			processAnnotated(plans.get(object.getClass()).preDestroy, object, objectSupplier, null);
 
 			ArrayList<Requestor<?>> requestors = new ArrayList<>();
 			processClassHierarchy(object, objectSupplier, null, true /* track */, false /* inverse order */, requestors);
@@ -291,12 +296,9 @@ public class InjectorImpl implements IInjector {
 	private Object invokeUsingClass(Object userObject, Class<?> currentClass, Class<? extends Annotation> qualifier,
 			Object defaultValue, PrimaryObjectSupplier objectSupplier, PrimaryObjectSupplier tempSupplier,
 			boolean throwUnresolved, boolean initial, boolean track) {
-		Method[] methods = getDeclaredMethods(currentClass);
-		for (Method method : methods) {
-			if (method.getAnnotation(qualifier) == null)
-				continue;
-			MethodRequestor requestor = new MethodRequestor(method, this, objectSupplier, tempSupplier, userObject,
-					track);
+		for (InjectionPoint<Method> method : getQualifiedMethods(currentClass, qualifier)) {
+			MethodRequestor requestor = new MethodRequestor(method.member, method.handle, this, objectSupplier,
+					tempSupplier, userObject, track);
 
 			Object[] actualArgs = resolveArgs(requestor, objectSupplier, tempSupplier, false, initial, track);
 			int unresolved = unresolved(actualArgs);
@@ -308,12 +310,28 @@ public class InjectorImpl implements IInjector {
 			requestor.setResolvedArgs(actualArgs);
 			return requestor.execute();
 		}
-		Class<?> superClass = currentClass.getSuperclass();
-		if (superClass == null)
-			return defaultValue;
+		return defaultValue;
+	}
 
-		return invokeUsingClass(userObject, superClass, qualifier, defaultValue, objectSupplier, tempSupplier,
-				throwUnresolved, initial, track);
+	/**
+	 * Returns the methods annotated with the given qualifier on the given class and
+	 * all its superclasses.
+	 */
+	private InjectionPoint<Method>[] getQualifiedMethods(Class<?> objectClass, Class<? extends Annotation> qualifier) {
+		InjectionPlan plan = plans.get(objectClass);
+		InjectionPoint<Method>[] methods = plan.qualifiedMethods.get(qualifier);
+		if (methods == null) {
+			List<InjectionPoint<Method>> qualified = new ArrayList<>();
+			for (Class<?> currentClass = objectClass; currentClass != null; currentClass = currentClass.getSuperclass()) {
+				for (Method method : getDeclaredMethods(currentClass)) {
+					if (method.getAnnotation(qualifier) != null)
+						qualified.add(InjectionPlan.method(method));
+				}
+			}
+			methods = InjectionPlan.toArray(qualified);
+			plan.qualifiedMethods.put(qualifier, methods);
+		}
+		return methods;
 	}
 
 	@Override
@@ -360,7 +378,8 @@ public class InjectorImpl implements IInjector {
 			if (shouldDebug)
 				classesBeingCreated.add(clazz);
 
-			boolean isSingleton = isAnnotationPresent(clazz, Singleton.class);
+			InjectionPlan plan = plans.get(clazz);
+			boolean isSingleton = plan.singleton;
 			if (isSingleton) {
 				synchronized (singletonCache) {
 					if (singletonCache.containsKey(clazz))
@@ -368,23 +387,8 @@ public class InjectorImpl implements IInjector {
 				}
 			}
 
-			Constructor<?>[] constructors = getDeclaredConstructors(clazz);
-			// Sort the constructors by descending number of constructor arguments
-			ArrayList<Constructor<?>> sortedConstructors = new ArrayList<>(constructors.length);
-			sortedConstructors.addAll(Arrays.asList(constructors));
-			sortedConstructors.sort(Comparator.comparing(c -> c.getParameterTypes().length, Comparator.reverseOrder()));
-
-			for (Constructor<?> constructor : sortedConstructors) {
-				// skip private and protected constructors; allow public and package visibility
-				int modifiers = constructor.getModifiers();
-				if (((modifiers & Modifier.PRIVATE) != 0) || ((modifiers & Modifier.PROTECTED) != 0))
-					continue;
-
-				// unless this is the default constructor, it has to be tagged
-				if (!isAnnotationPresent(constructor, Inject.class) && constructor.getParameterTypes().length != 0)
-					continue;
-
-				ConstructorRequestor requestor = new ConstructorRequestor(constructor, this, objectSupplier, tempSupplier);
+			for (InjectionPoint<Constructor<?>> constructor : getConstructors(plan, clazz)) {
+				ConstructorRequestor requestor = new ConstructorRequestor(constructor.member, constructor.handle, this, objectSupplier, tempSupplier);
 				Object[] actualArgs = resolveArgs(requestor, objectSupplier, tempSupplier, false, true, false);
 				if (unresolved(actualArgs) != -1)
 					continue;
@@ -441,7 +445,7 @@ public class InjectorImpl implements IInjector {
 			Object object = objects[i];
 			if (!forgetInjectedObject(object, objectSupplier))
 				continue; // not injected at this time
-			processAnnotated(PreDestroy.class, object, object.getClass(), objectSupplier, null, new ArrayList<>(5));
+			processAnnotated(plans.get(object.getClass()).preDestroy, object, objectSupplier, null);
 		}
 		forgetSupplier(objectSupplier);
 	}
@@ -637,33 +641,20 @@ public class InjectorImpl implements IInjector {
 	}
 
 	private void processClassHierarchy(Object userObject, PrimaryObjectSupplier objectSupplier, PrimaryObjectSupplier tempSupplier, boolean track, boolean normalOrder, List<Requestor<?>> requestors) {
-		processClass(userObject, objectSupplier, tempSupplier, (userObject == null) ? null : userObject.getClass(), new ArrayList<>(5), track, normalOrder, requestors);
-	}
-
-	/**
-	 * Make the processor visit all declared members on the given class and all superclasses
-	 */
-	private void processClass(Object userObject, PrimaryObjectSupplier objectSupplier, PrimaryObjectSupplier tempSupplier, Class<?> objectsClass, ArrayList<Class<?>> classHierarchy, boolean track, boolean normalOrder, List<Requestor<?>> requestors) {
 		// order: superclass, fields, methods
-		if (objectsClass != null) {
-			Class<?> superClass = objectsClass.getSuperclass();
-			if (superClass != null && !superClass.getName().equals(JAVA_OBJECT)) {
-				classHierarchy.add(objectsClass);
-				processClass(userObject, objectSupplier, tempSupplier, superClass, classHierarchy, track, normalOrder, requestors);
-				classHierarchy.remove(objectsClass);
+		for (InjectionPlan.Level level : plans.get(userObject.getClass()).levels) {
+			// static members are only injected once for each class
+			boolean skipStatic = level.hasStatic && hasInjectedStatic(level.declaringClass);
+			if (normalOrder) {
+				processFields(userObject, objectSupplier, tempSupplier, level, skipStatic, track, requestors);
+				processMethods(userObject, objectSupplier, tempSupplier, level, skipStatic, track, requestors);
+			} else {
+				processMethods(userObject, objectSupplier, tempSupplier, level, skipStatic, track, requestors);
+				processFields(userObject, objectSupplier, tempSupplier, level, skipStatic, track, requestors);
 			}
+			if (level.hasStatic && !skipStatic)
+				rememberInjectedStatic(level.declaringClass);
 		}
-		boolean injectedStaticFields;
-		boolean injectedStaticMethods;
-		if (normalOrder) {
-			injectedStaticFields = processFields(userObject, objectSupplier, tempSupplier, objectsClass, track, requestors);
-			injectedStaticMethods = processMethods(userObject, objectSupplier, tempSupplier, objectsClass, classHierarchy, track, requestors);
-		} else {
-			injectedStaticMethods = processMethods(userObject, objectSupplier, tempSupplier, objectsClass, classHierarchy, track, requestors);
-			injectedStaticFields = processFields(userObject, objectSupplier, tempSupplier, objectsClass, track, requestors);
-		}
-		if (injectedStaticFields || injectedStaticMethods)
-			rememberInjectedStatic(objectsClass);
 	}
 
 	private boolean hasInjectedStatic(Class<?> objectsClass) {
@@ -686,71 +677,130 @@ public class InjectorImpl implements IInjector {
 	}
 
 	/**
-	 * Make the processor visit all declared fields on the given class.
+	 * Make the processor visit all injected fields of the given class.
 	 */
-	private boolean processFields(Object userObject, PrimaryObjectSupplier objectSupplier, PrimaryObjectSupplier tempSupplier, Class<?> objectsClass, boolean track, List<Requestor<?>> requestors) {
-		boolean injectedStatic = false;
-		Field[] fields = getDeclaredFields(objectsClass);
-		for (Field field : fields) {
-			if (Modifier.isStatic(field.getModifiers())) {
-				if (hasInjectedStatic(objectsClass))
-					continue;
-				injectedStatic = true;
-			}
-			if (!isAnnotationPresent(field, Inject.class))
+	private void processFields(Object userObject, PrimaryObjectSupplier objectSupplier, PrimaryObjectSupplier tempSupplier, InjectionPlan.Level level, boolean skipStatic, boolean track, List<Requestor<?>> requestors) {
+		for (InjectionPoint<Field> field : level.fields) {
+			if (skipStatic && field.isStatic())
 				continue;
-			requestors.add(new FieldRequestor(field, this, objectSupplier, tempSupplier, userObject, track));
+			requestors.add(new FieldRequestor(field.member, field.handle, this, objectSupplier, tempSupplier, userObject, track));
 		}
-		return injectedStatic;
 	}
 
 	/**
-	 * Make the processor visit all declared methods on the given class.
+	 * Make the processor visit all injected methods of the given class.
 	 */
-	private boolean processMethods(final Object userObject, PrimaryObjectSupplier objectSupplier,
-			PrimaryObjectSupplier tempSupplier, Class<?> objectsClass, ArrayList<Class<?>> classHierarchy,
-			boolean track, List<Requestor<?>> requestors) {
-		boolean injectedStatic = false;
-		Method[] methods = getDeclaredMethods(objectsClass);
-		for (Method method : methods) {
-
-			Boolean isOverridden = null;
-			Map<Method, Boolean> methodMap = null;
-			Class<?> originalClass = userObject.getClass();
-			methodMap = isOverriddenCache.get(originalClass);
-			if (methodMap != null) {
-				isOverridden = methodMap.get(method);
-			}
-			if (isOverridden == null) {
-				isOverridden = isOverridden(method, classHierarchy);
-				if (methodMap == null) {
-					methodMap = Collections.synchronizedMap(new WeakHashMap<>());
-					isOverriddenCache.put(originalClass, methodMap);
-				}
-				methodMap.put(method, isOverridden);
+	private void processMethods(Object userObject, PrimaryObjectSupplier objectSupplier, PrimaryObjectSupplier tempSupplier, InjectionPlan.Level level, boolean skipStatic, boolean track, List<Requestor<?>> requestors) {
+		for (InjectionPoint<Method> method : level.methods) {
+			if (skipStatic && method.isStatic())
+				continue;
+			requestors.add(new MethodRequestor(method.member, method.handle, this, objectSupplier, tempSupplier, userObject, track));
+		}
+	}
+
+	/**
+	 * Finds the members of the given class and its superclasses to inject, and the
+	 * methods to call after injection and before uninjection.
+	 */
+	private InjectionPlan buildPlan(Class<?> objectClass) {
+		// the classes whose members are injected, subclasses first
+		ArrayList<Class<?>> classHierarchy = new ArrayList<>(5);
+		classHierarchy.add(objectClass);
+		Class<?> superClass = objectClass.getSuperclass();
+		while (superClass != null && !superClass.getName().equals(JAVA_OBJECT)) {
+			classHierarchy.add(superClass);
+			superClass = superClass.getSuperclass();
+		}
+
+		InjectionPlan.Level[] levels = new InjectionPlan.Level[classHierarchy.size()];
+		List<InjectionPoint<Method>> postConstruct = new ArrayList<>();
+		List<InjectionPoint<Method>> preDestroy = new ArrayList<>();
+		for (int i = classHierarchy.size() - 1; i >= 0; i--) {
+			Class<?> objectsClass = classHierarchy.get(i);
+			// the subclasses that might override methods of this class
+			List<Class<?>> subClasses = classHierarchy.subList(0, i);
+			boolean hasStatic = false;
+
+			List<InjectionPoint<Field>> fields = new ArrayList<>();
+			for (Field field : objectsClass.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()))
+					hasStatic = true;
+				if (isAnnotationPresent(field, Inject.class))
+					fields.add(InjectionPlan.field(field));
 			}
 
-			if (isOverridden) {
-				continue; // process in the subclass
+			List<InjectionPoint<Method>> methods = new ArrayList<>();
+			for (Method method : getDeclaredMethods(objectsClass)) {
+				boolean overridden = isOverridden(method, subClasses);
+				addLifecycleMethod(PostConstruct.class, method, overridden, postConstruct);
+				addLifecycleMethod(PreDestroy.class, method, overridden, preDestroy);
+				if (overridden)
+					continue; // process in the subclass
+				if (Modifier.isStatic(method.getModifiers()))
+					hasStatic = true;
+				if (isAnnotationPresent(method, Inject.class))
+					methods.add(InjectionPlan.method(method));
 			}
-			if (Modifier.isStatic(method.getModifiers())) {
-				if (hasInjectedStatic(objectsClass)) {
-					continue;
+			levels[classHierarchy.size() - 1 - i] = new InjectionPlan.Level(objectsClass, hasStatic, InjectionPlan.toArray(fields), InjectionPlan.toArray(methods));
+		}
+		return new InjectionPlan(levels, InjectionPlan.toArray(postConstruct), InjectionPlan.toArray(preDestroy), isAnnotationPresent(objectClass, Singleton.class));
+	}
+
+	private void addLifecycleMethod(Class<? extends Annotation> annotation, Method method, boolean overridden, List<InjectionPoint<Method>> lifecycleMethods) {
+		if (!isAnnotationPresent(method, annotation)) {
+			if (shouldDebug) {
+				for (Annotation a : method.getAnnotations()) {
+					if (annotation.getName().equals(a.annotationType().getName())) {
+						StringBuilder tmp = new StringBuilder();
+						tmp.append("Possbible annotation mismatch: method \""); //$NON-NLS-1$
+						tmp.append(method.toString());
+						tmp.append("\" annotated with \""); //$NON-NLS-1$
+						tmp.append(describeClass(a.annotationType()));
+						tmp.append("\" but was looking for \""); //$NON-NLS-1$
+						tmp.append(describeClass(annotation));
+						tmp.append("\""); //$NON-NLS-1$
+						LogHelper.logWarning(tmp.toString(), null);
+					}
 				}
-				injectedStatic = true;
 			}
-			if (!isAnnotationPresent(method, Inject.class)) {
-				continue;
+			return;
+		}
+		if (!overridden)
+			lifecycleMethods.add(InjectionPlan.method(method));
+	}
+
+	/**
+	 * Returns the constructors that can be used to create instances of the given
+	 * class, by descending number of arguments.
+	 */
+	private InjectionPoint<Constructor<?>>[] getConstructors(InjectionPlan plan, Class<?> clazz) {
+		InjectionPoint<Constructor<?>>[] constructors = plan.constructors;
+		if (constructors == null) {
+			Constructor<?>[] declared = clazz.getDeclaredConstructors();
+			// Sort the constructors by descending number of constructor arguments
+			Arrays.sort(declared, Comparator.comparing(c -> c.getParameterTypes().length, Comparator.reverseOrder()));
+			List<InjectionPoint<Constructor<?>>> candidates = new ArrayList<>(declared.length);
+			for (Constructor<?> constructor : declared) {
+				// skip private and protected constructors; allow public and package visibility
+				int modifiers = constructor.getModifiers();
+				if (((modifiers & Modifier.PRIVATE) != 0) || ((modifiers & Modifier.PROTECTED) != 0))
+					continue;
+
+				// unless this is the default constructor, it has to be tagged
+				if (!isAnnotationPresent(constructor, Inject.class) && constructor.getParameterTypes().length != 0)
+					continue;
+				candidates.add(InjectionPlan.constructor(constructor));
 			}
-			requestors.add(new MethodRequestor(method, this, objectSupplier, tempSupplier, userObject, track));
+			constructors = InjectionPlan.toArray(candidates);
+			plan.constructors = constructors;
 		}
-		return injectedStatic;
+		return constructors;
 	}
 
 	/**
 	 * Checks if a given method is overridden with an injectable method.
 	 */
-	private boolean isOverridden(Method method, ArrayList<Class<?>> classHierarchy) {
+	private boolean isOverridden(Method method, List<Class<?>> classHierarchy) {
 		int modifiers = method.getModifiers();
 		if (Modifier.isPrivate(modifiers))
 			return false;
@@ -801,22 +851,6 @@ public class InjectorImpl implements IInjector {
 		return false;
 	}
 
-	private Constructor<?>[] getDeclaredConstructors(Class<?> c) {
-		Constructor<?>[] constructors = constructorsCache.get(c);
-		if (constructors == null) {
-			constructors = c.getDeclaredConstructors();
-			// Sort the constructors by descending number of constructor
-			// arguments
-			Arrays.sort(constructors, (c1, c2) -> {
-				int l1 = c1.getParameterTypes().length;
-				int l2 = c2.getParameterTypes().length;
-				return l2 - l1;
-			});
-			constructorsCache.put(c, constructors);
-		}
-		return constructors;
-	}
-
 	private Method[] getDeclaredMethods(Class<?> c) {
 		Method[] methods = methodsCache.get(c);
 		if (methods == null) {
@@ -828,15 +862,6 @@ public class InjectorImpl implements IInjector {
 		return methods;
 	}
 
-	private Field[] getDeclaredFields(Class<?> c) {
-		Field[] fields = fieldsCache.get(c);
-		if (fields == null) {
-			fields = c.getDeclaredFields();
-			fieldsCache.put(c, fields);
-		}
-		return fields;
-	}
-
 	private Class<?> getDesiredClass(Type desiredType) {
 		if (desiredType instanceof Class<?>)
 			return (Class<?>) desiredType;
@@ -945,41 +970,13 @@ public class InjectorImpl implements IInjector {
 		return str1.equals(str2);
 	}
 
-	private void processAnnotated(Class<? extends Annotation> annotation, Object userObject, Class<?> objectClass, PrimaryObjectSupplier objectSupplier, PrimaryObjectSupplier tempSupplier, ArrayList<Class<?>> classHierarchy) {
-		Class<?> superClass = objectClass.getSuperclass();
-		if (superClass != null && !superClass.getName().equals(JAVA_OBJECT)) {
-			classHierarchy.add(objectClass);
-			processAnnotated(annotation, userObject, superClass, objectSupplier, tempSupplier, classHierarchy);
-			classHierarchy.remove(objectClass);
-		}
-		Method[] methods = getDeclaredMethods(objectClass);
-		for (Method method : methods) {
-			if (!isAnnotationPresent(method, annotation)) {
-				if (shouldDebug) {
-					for (Annotation a : method.getAnnotations()) {
-						if (annotation.getName().equals(a.annotationType().getName())) {
-							StringBuilder tmp = new StringBuilder();
-							tmp.append("Possbible annotation mismatch: method \""); //$NON-NLS-1$
-							tmp.append(method.toString());
-							tmp.append("\" annotated with \""); //$NON-NLS-1$
-							tmp.append(describeClass(a.annotationType()));
-							tmp.append("\" but was looking for \""); //$NON-NLS-1$
-							tmp.append(describeClass(annotation));
-							tmp.append("\""); //$NON-NLS-1$
-							LogHelper.logWarning(tmp.toString(), null);
-						}
-					}
-				}
-				continue;
-			}
-			if (isOverridden(method, classHierarchy))
-				continue;
-
-			MethodRequestor requestor = new MethodRequestor(method, this, objectSupplier, tempSupplier, userObject, false);
+	private void processAnnotated(InjectionPoint<Method>[] methods, Object userObject, PrimaryObjectSupplier objectSupplier, PrimaryObjectSupplier tempSupplier) {
+		for (InjectionPoint<Method> method : methods) {
+			MethodRequestor requestor = new MethodRequestor(method.member, method.handle, this, objectSupplier, tempSupplier, userObject, false);
 			Object[] actualArgs = resolveArgs(requestor, objectSupplier, tempSupplier, false, false, false);
 			int unresolved = unresolved(actualArgs);
 			if (unresolved != -1) {
-				if (isAnnotationPresent(method, Optional.class))
+				if (isAnnotationPresent(method.member, Optional.class))
 					continue;
 				reportUnresolvedArgument(requestor, unresolved);
 			}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2016 IBM Corporation and others.
+ * Copyright (c) 2010, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,6 +14,7 @@
 package org.eclipse.e4.core.internal.di;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
@@ -32,8 +33,21 @@ public class MethodRequestor extends Requestor<Method> {
 	 */
 	private static Map<Method, Annotation[][]> annotationCache = Collections.synchronizedMap(new WeakHashMap<>());
 
+	/** The handle to call the method, or <code>null</code> to call it by reflection */
+	private final MethodHandle invoker;
+
 	public MethodRequestor(Method method, IInjector injector, PrimaryObjectSupplier primarySupplier, PrimaryObjectSupplier tempSupplier, Object requestingObject, boolean track) {
+		this(method, null, injector, primarySupplier, tempSupplier, requestingObject, track);
+	}
+
+	/**
+	 * @param invoker a method handle of type <code>(Object, Object[])Object</code>
+	 *                that calls the method with the given arguments, or
+	 *                <code>null</code> to call it by reflection
+	 */
+	public MethodRequestor(Method method, MethodHandle invoker, IInjector injector, PrimaryObjectSupplier primarySupplier, PrimaryObjectSupplier tempSupplier, Object requestingObject, boolean track) {
 		super(method, injector, primarySupplier, tempSupplier, requestingObject, track);
+		this.invoker = invoker;
 	}
 
 	@Override
@@ -46,7 +60,7 @@ public class MethodRequestor extends Requestor<Method> {
 		if (userObject == null)
 			return null;
 		Object result = null;
-		if (!location.isAccessible()) {
+		if (invoker == null && !location.isAccessible()) {
 			location.setAccessible(true);
 		}
 		boolean pausedRecording = false;
@@ -55,7 +69,10 @@ public class MethodRequestor extends Requestor<Method> {
 			pausedRecording = true;
 		}
 		try {
-			result = location.invoke(userObject, actualArgs);
+			if (invoker != null)
+				result = invoker.invokeExact(userObject, actualArgs);
+			else
+				result = location.invoke(userObject, actualArgs);
 		} catch (IllegalArgumentException | IllegalAccessException e) {
 			throw new InjectionException(e);
 		} catch (InvocationTargetException e) {
@@ -66,6 +83,12 @@ public class MethodRequestor extends Requestor<Method> {
 				throw (Error) originalException;
 			}
 			throw new InjectionException((originalException != null) ? originalException : e);
+		} catch (Error e) {
+			// Errors such as ThreadDeath or OutOfMemoryError should not be trapped
+			throw e;
+		} catch (Throwable e) {
+			// thrown by the method called through the invoker
+			throw new InjectionException(e);
 		} finally {
 			if (pausedRecording)
 				primarySupplier.resumeRecording();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2018 BestSolution.at and others.
+ * Copyright (c) 2011, 2023 BestSolution.at and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,19 +16,22 @@
 package org.eclipse.e4.core.internal.services;
 
 import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.Locale;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 import javax.annotation.PostConstruct;
 import org.eclipse.e4.core.services.nls.IMessageFactoryService;
 import org.eclipse.e4.core.services.nls.Message;
@@ -49,77 +52,176 @@ public class MessageFactoryServiceImpl implements IMessageFactoryService {
 	private LoggerFactory factory;
 	private Logger logger;
 
+	/**
+	 * A reference to a cached message instance that knows its key, so that it can
+	 * be removed from the cache once the instance was collected.
+	 */
+	private interface KeyedReference {
+		String getKey();
+	}
+
+	private static final class KeyedSoftReference extends SoftReference<Object> implements KeyedReference {
+		private final String key;
+
+		KeyedSoftReference(String key, Object referent, ReferenceQueue<Object> queue) {
+			super(referent, queue);
+			this.key = key;
+		}
+
+		@Override
+		public String getKey() {
+			return key;
+		}
+	}
+
+	private static final class KeyedWeakReference extends WeakReference<Object> implements KeyedReference {
+		private final String key;
+
+		KeyedWeakReference(String key, Object referent, ReferenceQueue<Object> queue) {
+			super(referent, queue);
+			this.key = key;
+		}
+
+		@Override
+		public String getKey() {
+			return key;
+		}
+	}
+
 	// Cache so when multiple instance use the same message class
-	private Map<Object, Reference<Object>> SOFT_CACHE = Collections
-			.synchronizedMap(new HashMap<>());
+	private final ConcurrentMap<String, Reference<Object>> SOFT_CACHE = new ConcurrentHashMap<>();
 
-	private Map<Object, Reference<Object>> WEAK_CACHE = Collections
-			.synchronizedMap(new HashMap<>());
+	private final ConcurrentMap<String, Reference<Object>> WEAK_CACHE = new ConcurrentHashMap<>();
 
-	private int CLEANUPCOUNT = 0;
+	// the references of both caches whose instances were collected
+	private final ReferenceQueue<Object> staleReferences = new ReferenceQueue<>();
+
+	// the instances being created, so that concurrent requests for the same key
+	// wait for the same instance instead of creating their own
+	private final ConcurrentMap<String, CompletableFuture<Object>> pending = new ConcurrentHashMap<>();
+
+	// the keys of the instances being created by the current thread
+	private final ThreadLocal<Set<String>> creating = new ThreadLocal<>();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
 
-	@SuppressWarnings("removal")
 	@Override
 	public <M> M getMessageInstance(final Locale locale, final Class<M> messages,
 			final ResourceBundleProvider provider) {
-		String key = messages.getName() + "_" + locale; //$NON-NLS-1$
+		purgeStaleReferences();
 
 		final Message annotation = messages.getAnnotation(Message.class);
-		Map<Object, Reference<Object>> cache = null;
-		ReferenceType type = ReferenceType.NONE;
-
-		if (++CLEANUPCOUNT > 1000) {
-			Iterator<Entry<Object, Reference<Object>>> it = WEAK_CACHE.entrySet().iterator();
-			while (it.hasNext()) {
-				if (it.next().getValue().get() == null) {
-					it.remove();
-				}
-			}
+		ReferenceType type = annotation == null ? ReferenceType.SOFT : annotation.referenceType();
+		if (type != ReferenceType.SOFT && type != ReferenceType.WEAK) {
+			// not cached
+			misses.increment();
+			return createInstance(locale, messages, annotation, provider);
+		}
+		ConcurrentMap<String, Reference<Object>> cache = type == ReferenceType.SOFT ? SOFT_CACHE : WEAK_CACHE;
+		String key = messages.getName() + "_" + locale; //$NON-NLS-1$
+
+		M instance = getCached(cache, key, messages);
+		if (instance != null) {
+			hits.increment();
+			return instance;
+		}
 
-			it = SOFT_CACHE.entrySet().iterator();
-			while (it.hasNext()) {
-				if (it.next().getValue().get() == null) {
-					it.remove();
+		CompletableFuture<Object> creation = new CompletableFuture<>();
+		CompletableFuture<Object> existing = pending.putIfAbsent(key, creation);
+		if (existing != null && creating.get() != null) {
+			// requested while this thread initializes another instance, waiting could
+			// deadlock with the thread creating this one if it waits for ours
+			misses.increment();
+			return createInstance(locale, messages, annotation, provider);
+		} else if (existing != null) {
+			// another thread is creating the instance
+			hits.increment();
+			try {
+				return messages.cast(existing.join());
+			} catch (CompletionException e) {
+				// fail like the creating thread did
+				Throwable cause = e.getCause();
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw (RuntimeException) cause;
+			}
+		}
+		Set<String> keys = creating.get();
+		if (keys == null) {
+			keys = new HashSet<>();
+			creating.set(keys);
+		}
+		keys.add(key);
+		try {
+			// the instance may have been cached while this thread was looking it up
+			instance = getCached(cache, key, messages);
+			if (instance == null) {
+				misses.increment();
+				instance = createInstance(locale, messages, annotation, provider);
+				if (instance != null) {
+					cache.put(key, type == ReferenceType.SOFT ? new KeyedSoftReference(key, instance, staleReferences)
+							: new KeyedWeakReference(key, instance, staleReferences));
 				}
+			} else {
+				hits.increment();
 			}
-			CLEANUPCOUNT = 0;
+			creation.complete(instance);
+			return instance;
+		} catch (RuntimeException | Error e) {
+			creation.completeExceptionally(e);
+			throw e;
+		} finally {
+			pending.remove(key, creation);
+			keys.remove(key);
+			if (keys.isEmpty())
+				creating.remove();
 		}
+	}
 
-		if (annotation == null || annotation.referenceType() == ReferenceType.SOFT) {
-			cache = SOFT_CACHE;
-			type = ReferenceType.SOFT;
-		} else if (annotation.referenceType() == ReferenceType.WEAK) {
-			cache = WEAK_CACHE;
-			type = ReferenceType.WEAK;
-		}
+	private static <M> M getCached(ConcurrentMap<String, Reference<Object>> cache, String key, Class<M> messages) {
+		Reference<Object> ref = cache.get(key);
+		Object o = ref == null ? null : ref.get();
+		return o == null ? null : messages.cast(o);
+	}
 
-		if (cache != null && cache.containsKey(key)) {
-			@SuppressWarnings("unchecked")
-			Reference<M> ref = (Reference<M>) cache.get(key);
-			M o = ref.get();
-			if (o != null) {
-				return o;
+	/**
+	 * Removes the references to collected instances from the caches.
+	 */
+	private void purgeStaleReferences() {
+		Reference<?> ref;
+		while ((ref = staleReferences.poll()) != null) {
+			String key = ((KeyedReference) ref).getKey();
+			// the key may already map to a new instance
+			if (!SOFT_CACHE.remove(key, ref)) {
+				WEAK_CACHE.remove(key, ref);
 			}
-			cache.remove(key);
 		}
+	}
+
+	/**
+	 * @return the number of message instances that were found in the cache, or
+	 *         that were created by another thread at the same time
+	 */
+	public long getCacheHits() {
+		return hits.sum();
+	}
 
-		M instance;
+	/**
+	 * @return the number of message instances that had to be created
+	 */
+	public long getCacheMisses() {
+		return misses.sum();
+	}
 
+	@SuppressWarnings("removal")
+	private <M> M createInstance(Locale locale, Class<M> messages, Message annotation,
+			ResourceBundleProvider provider) {
 		if (System.getSecurityManager() == null) {
-			instance = createInstance(locale, messages, annotation, provider);
-		} else {
-			instance = AccessController.doPrivileged((PrivilegedAction<M>) () -> createInstance(locale, messages, annotation, provider));
+			return doCreateInstance(locale, messages, annotation, provider);
 		}
-
-		if (cache != null) {
-			if (type == ReferenceType.SOFT) {
-				cache.put(key, new SoftReference<>(instance));
-			} else if (type == ReferenceType.WEAK) {
-				cache.put(key, new WeakReference<>(instance));
-			}
-		}
-
-		return instance;
+		return AccessController
+				.doPrivileged((PrivilegedAction<M>) () -> doCreateInstance(locale, messages, annotation, provider));
 	}
 
 	/**
@@ -160,7 +262,7 @@ public class MessageFactoryServiceImpl implements IMessageFactoryService {
 	 *         <code>null</code> if an error occured on creating the instance.
 	 */
 	@SuppressWarnings("deprecation")
-	private <M> M createInstance(Locale locale, Class<M> messages, Message annotation,
+	private <M> M doCreateInstance(Locale locale, Class<M> messages, Message annotation,
 			ResourceBundleProvider rbProvider) {
 
 		ResourceBundle resourceBundle = null;
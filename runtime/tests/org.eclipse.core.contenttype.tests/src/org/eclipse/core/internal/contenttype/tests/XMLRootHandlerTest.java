@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2020, 2021 Alex Blewitt and others.
+ * Copyright (c) 2020, 2023 Alex Blewitt and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,10 +13,16 @@
  *******************************************************************************/
 package org.eclipse.core.internal.contenttype.tests;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -49,4 +55,65 @@ public class XMLRootHandlerTest {
 
 		assertTrue(handler.parseContents(contents));
 	}
+
+	private XMLRootHandler parse(String contents, boolean checkRoot) throws IOException, ParserConfigurationException, SAXException {
+		XMLRootHandler result = new XMLRootHandler(checkRoot);
+		byte[] bytes = contents.getBytes(StandardCharsets.UTF_8);
+		assertTrue(result.parseContents(new InputSource(new BufferedInputStream(new ByteArrayInputStream(bytes)))));
+		return result;
+	}
+
+	@Test
+	public void testParseRootNamespace() throws IOException, ParserConfigurationException, SAXException {
+		XMLRootHandler result = parse("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!-- comment -->\n<p:root xmlns:p=\"urn:test\" a=\"1\"><child/></p:root>", true); //$NON-NLS-1$
+		assertEquals("root", result.getRootName()); //$NON-NLS-1$
+		assertEquals("urn:test", result.getRootNamespace()); //$NON-NLS-1$
+		assertNull(result.getDTD());
+	}
+
+	@Test
+	public void testParseDTD() throws IOException, ParserConfigurationException, SAXException {
+		String contents = "<?xml version=\"1.0\"?><!DOCTYPE root PUBLIC \"-//Test//EN\" \"test.dtd\"><root/>"; //$NON-NLS-1$
+		XMLRootHandler result = parse(contents, true);
+		assertEquals("test.dtd", result.getDTD()); //$NON-NLS-1$
+		assertEquals("root", result.getRootName()); //$NON-NLS-1$
+		assertEquals("", result.getRootNamespace()); //$NON-NLS-1$
+		result = parse(contents, false);
+		assertEquals("test.dtd", result.getDTD()); //$NON-NLS-1$
+		assertNull(result.getRootName());
+	}
+
+	@Test
+	public void testParseInternalSubset() throws IOException, ParserConfigurationException, SAXException {
+		// not understood by the prolog scanner, needs a parser
+		XMLRootHandler result = parse("<!DOCTYPE root [<!ENTITY e \"x\">]><root a=\"&e;\"/>", true); //$NON-NLS-1$
+		assertEquals("root", result.getRootName()); //$NON-NLS-1$
+		assertEquals("", result.getRootNamespace()); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testParseMalformed() throws IOException, ParserConfigurationException {
+		for (int i = 0; i < 10; i++) {
+			try {
+				parse("<root xmlns:p=\"\"/>", true); //$NON-NLS-1$
+				fail("parsing should have failed"); //$NON-NLS-1$
+			} catch (SAXException e) {
+				// expected, the parser must still be usable afterwards
+			}
+			assertEquals("root", parse("<!DOCTYPE root [ ]><root/>", true).getRootName()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	@Test
+	public void testParseReaderWithByteOrderMark() throws IOException, ParserConfigurationException {
+		// a byte order mark is not allowed in a character stream, the prolog scanner must not accept it either
+		XMLRootHandler handler = new XMLRootHandler(true);
+		try {
+			handler.parseContents(new InputSource(new StringReader("\uFEFF<?xml version=\"1.0\"?><root/>"))); //$NON-NLS-1$
+			fail("parsing should have failed"); //$NON-NLS-1$
+		} catch (SAXException e) {
+			// expected
+		}
+		assertNull(handler.getRootName());
+	}
 }
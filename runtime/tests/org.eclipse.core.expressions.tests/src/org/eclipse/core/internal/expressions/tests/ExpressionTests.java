@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -46,7 +46,9 @@ import org.eclipse.core.expressions.EqualsExpression;
 import org.eclipse.core.expressions.EvaluationContext;
 import org.eclipse.core.expressions.EvaluationResult;
 import org.eclipse.core.expressions.Expression;
+import org.eclipse.core.expressions.ExpressionCompiler;
 import org.eclipse.core.expressions.ExpressionConverter;
+import org.eclipse.core.expressions.ExpressionInfo;
 import org.eclipse.core.expressions.IEvaluationContext;
 import org.eclipse.core.expressions.IVariableResolver;
 import org.eclipse.core.expressions.OrExpression;
@@ -1116,6 +1118,94 @@ public class ExpressionTests {
 		assertEquals(EvaluationResult.TRUE, with.evaluate(context));
 	}
 
+	private static class CountingExpression extends Expression {
+		int fEvaluations;
+
+		@Override
+		public EvaluationResult evaluate(IEvaluationContext context) {
+			fEvaluations++;
+			return EvaluationResult.TRUE;
+		}
+
+		@Override
+		public void collectExpressionInfo(ExpressionInfo info) {
+			info.markDefaultVariableAccessed();
+		}
+	}
+
+	@Test
+	public void testCompiledExpression() throws Exception {
+		OrExpression or= new OrExpression();
+		AndExpression tested= new AndExpression();
+		// guards the test, which fails for other types
+		tested.add(new InstanceofExpression("org.eclipse.core.internal.expressions.tests.A"));
+		tested.add(new TestExpression("org.eclipse.core.internal.expressions.tests", "simple", null, "simple"));
+		or.add(tested);
+		AndExpression strings= new AndExpression();
+		strings.add(new InstanceofExpression("java.lang.CharSequence"));
+		strings.add(new NotExpression(new InstanceofExpression("java.lang.StringBuilder")));
+		or.add(strings);
+		Expression compiled= ExpressionCompiler.compile(or);
+
+		Object[] elements= { "s", new StringBuilder(), new A(), Integer.valueOf(1) };
+		// evaluate often enough for the children to be reordered
+		for (int i= 0; i < 10000; i++) {
+			EvaluationContext context= new EvaluationContext(null, elements[i % elements.length]);
+			assertEquals(or.evaluate(context), compiled.evaluate(context));
+		}
+		assertEquals(EvaluationResult.TRUE, compiled.evaluate(new EvaluationContext(null, "s")));
+		assertEquals(EvaluationResult.FALSE, compiled.evaluate(new EvaluationContext(null, new StringBuilder())));
+		assertEquals(EvaluationResult.TRUE, compiled.evaluate(new EvaluationContext(null, new A())));
+		assertEquals(EvaluationResult.FALSE, compiled.evaluate(new EvaluationContext(null, Integer.valueOf(2))));
+		assertTrue(Arrays.equals(or.computeExpressionInfo().getAccessedPropertyNames(),
+				compiled.computeExpressionInfo().getAccessedPropertyNames()));
+	}
+
+	@Test
+	public void testCompiledExpressionSharedSubExpression() throws Exception {
+		CountingExpression counting= new CountingExpression();
+		OrExpression or= new OrExpression();
+		AndExpression first= new AndExpression();
+		first.add(counting);
+		first.add(Expression.FALSE);
+		or.add(first);
+		AndExpression second= new AndExpression();
+		second.add(counting);
+		second.add(Expression.TRUE);
+		or.add(second);
+
+		EvaluationContext context= new EvaluationContext(null, "s");
+		assertEquals(EvaluationResult.TRUE, or.evaluate(context));
+		assertEquals(2, counting.fEvaluations);
+
+		counting.fEvaluations= 0;
+		assertEquals(EvaluationResult.TRUE, ExpressionCompiler.compile(or).evaluate(context));
+		assertEquals(1, counting.fEvaluations);
+	}
+
+	@Test
+	public void testCompiledExpressionIterate() throws Exception {
+		CountingExpression counting= new CountingExpression();
+		WithExpression with= new WithExpression("selection");
+		IterateExpression iterate= new IterateExpression("and");
+		iterate.add(new InstanceofExpression("java.lang.String"));
+		WithExpression part= new WithExpression("part");
+		part.add(counting);
+		iterate.add(part);
+		with.add(iterate);
+
+		EvaluationContext context= new EvaluationContext(null, IEvaluationContext.UNDEFINED_VARIABLE);
+		context.addVariable("selection", Arrays.asList("a", "b", "c"));
+		context.addVariable("part", "part");
+		assertEquals(EvaluationResult.TRUE, with.evaluate(context));
+		assertEquals(3, counting.fEvaluations);
+
+		// the part is the same for all elements
+		counting.fEvaluations= 0;
+		assertEquals(EvaluationResult.TRUE, ExpressionCompiler.compile(with).evaluate(context));
+		assertEquals(1, counting.fEvaluations);
+	}
+
 	@Test
 	public void testSubTypeTiming() throws Exception {
 		HashSet<?> o1 = new HashSet<>();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,6 +13,10 @@
  *******************************************************************************/
 package org.eclipse.core.internal.expressions.tests;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.osgi.framework.Bundle;
 
 import org.eclipse.core.expressions.EvaluationContext;
@@ -66,6 +70,31 @@ public class PropertyTesterTests extends TestCase {
 		assertTrue(test(i, "simple", null, "simple")); //$NON-NLS-1$ //$NON-NLS-2$
 	}
 
+	public void testConcurrentLookup() throws Exception {
+		final List<Throwable> failures= Collections.synchronizedList(new ArrayList<>());
+		Thread[] threads= new Thread[8];
+		for (int t= 0; t < threads.length; t++) {
+			threads[t]= new Thread(() -> {
+				try {
+					for (int n= 0; n < 1000; n++) {
+						assertTrue(test(a, "simple", null, "simple")); //$NON-NLS-1$ //$NON-NLS-2$
+						assertTrue(test(b, "simple", null, "simple")); //$NON-NLS-1$ //$NON-NLS-2$
+						assertTrue(test(i, "simple", null, "simple")); //$NON-NLS-1$ //$NON-NLS-2$
+					}
+				} catch (Throwable e) {
+					failures.add(e);
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(failures.toString(), 0, failures.size());
+	}
+
 	public void testUnknown() throws Exception {
 		try {
 			test(a, "unknown", null, null); //$NON-NLS-1$
@@ -45,6 +45,7 @@ public class AllPerfTests extends TestCase {
 
 		suite.addTest(new UIPerformanceSessionTestSuite(RuntimeTestsPlugin.PI_RUNTIME_TESTS, 5, UIStartupTest.class));
 		suite.addTestSuite(BenchPath.class);
+		suite.addTestSuite(BenchLocks.class);
 		suite.addTest(ContentTypePerformanceTest.suite());
 		suite.addTestSuite(PreferencePerformanceTest.class);
 		return suite;
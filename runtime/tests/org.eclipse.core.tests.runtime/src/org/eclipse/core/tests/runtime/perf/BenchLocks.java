@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.runtime.perf;
+
+import java.util.concurrent.CountDownLatch;
+import org.eclipse.core.runtime.jobs.ILock;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.tests.harness.PerformanceTestRunner;
+import org.eclipse.core.tests.runtime.RuntimeTest;
+
+/**
+ * Stress benchmark for the deadlock detection that runs whenever an
+ * {@link ILock} is acquired, released or waited for.
+ */
+public class BenchLocks extends RuntimeTest {
+	private static final int THREADS = 32;
+	private static final int LOCKS = 64;
+	private static final int NESTING = 4;
+	private static final int ITERATIONS = 2000;
+
+	public BenchLocks() {
+		super();
+	}
+
+	public BenchLocks(String testName) {
+		super(testName);
+	}
+
+	/**
+	 * Many threads acquiring nested locks. The locks are always acquired in
+	 * ascending order so that no real deadlock can occur, but threads regularly
+	 * block on each other which triggers the wait cycle detection.
+	 */
+	public void testNestedAcquire() {
+		final ILock[] locks = new ILock[LOCKS];
+		for (int i = 0; i < LOCKS; i++) {
+			locks[i] = Job.getJobManager().newLock();
+		}
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				runThreads(locks);
+			}
+		}.run(this, 10, 1);
+	}
+
+	/**
+	 * Many threads that each acquire nested locks that are never contended.
+	 * This measures the cost of keeping the lock graph up to date when no
+	 * thread ever has to wait.
+	 */
+	public void testNestedAcquireUncontended() {
+		final ILock[][] locks = new ILock[THREADS][NESTING];
+		for (ILock[] threadLocks : locks) {
+			for (int i = 0; i < NESTING; i++) {
+				threadLocks[i] = Job.getJobManager().newLock();
+			}
+		}
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				final CountDownLatch done = new CountDownLatch(THREADS);
+				for (int t = 0; t < THREADS; t++) {
+					final ILock[] threadLocks = locks[t];
+					new Thread(() -> {
+						try {
+							for (int i = 0; i < ITERATIONS; i++) {
+								acquireNested(threadLocks, 0);
+							}
+						} finally {
+							done.countDown();
+						}
+					}, "BenchLocks-" + t).start();
+				}
+				await(done);
+			}
+		}.run(this, 10, 1);
+	}
+
+	void runThreads(final ILock[] locks) {
+		final CountDownLatch done = new CountDownLatch(THREADS);
+		for (int t = 0; t < THREADS; t++) {
+			final int offset = t % (LOCKS - NESTING);
+			new Thread(() -> {
+				try {
+					for (int i = 0; i < ITERATIONS; i++) {
+						acquireNested(locks, (offset + i) % (LOCKS - NESTING));
+					}
+				} finally {
+					done.countDown();
+				}
+			}, "BenchLocks-" + t).start();
+		}
+		await(done);
+	}
+
+	/**
+	 * Acquires NESTING locks starting at the given index, then releases them
+	 * in reverse order.
+	 */
+	static void acquireNested(ILock[] locks, int start) {
+		for (int j = 0; j < NESTING; j++) {
+			locks[start + j].acquire();
+		}
+		for (int j = NESTING; --j >= 0;) {
+			locks[start + j].release();
+		}
+	}
+
+	static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			fail("Interrupted while waiting for lock threads", e);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2015 IBM Corporation and others.
+ * Copyright (c) 2005, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,8 +15,12 @@
 package org.eclipse.core.tests.runtime.perf;
 
 import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.eclipse.core.internal.content.*;
@@ -39,6 +43,7 @@ public class ContentTypePerformanceTest extends RuntimeTest {
 	private static final String DEFAULT_NAME = "file_" + ContentTypePerformanceTest.class.getName();
 	private static final int ELEMENTS_PER_LEVEL = 4;
 	private static final int NUMBER_OF_LEVELS = 4;
+	private static final int NUMBER_OF_THREADS = 8;
 	private static final String TEST_DATA_ID = "org.eclipse.core.tests.runtime.contenttype.perf.testdata";
 	private static final int TOTAL_NUMBER_OF_ELEMENTS = computeTotalTypes(NUMBER_OF_LEVELS, ELEMENTS_PER_LEVEL);
 
@@ -141,7 +146,11 @@ public class ContentTypePerformanceTest extends RuntimeTest {
 		TestSuite singleRun = new PerformanceSessionTestSuite(PI_RUNTIME_TESTS, 1, "singleSessionTests");
 		singleRun.addTest(new ContentTypePerformanceTest("testContentMatching"));
 		singleRun.addTest(new ContentTypePerformanceTest("testNameMatching"));
+		singleRun.addTest(new ContentTypePerformanceTest("testNameMatchingConcurrent"));
+		singleRun.addTest(new ContentTypePerformanceTest("testNameMatchingManyNames"));
 		singleRun.addTest(new ContentTypePerformanceTest("testIsKindOf"));
+		singleRun.addTest(new ContentTypePerformanceTest("testXMLDescription"));
+		singleRun.addTest(new ContentTypePerformanceTest("testBufferAllocations"));
 		suite.addTest(singleRun);
 
 		TestSuite loadCatalog = new PerformanceSessionTestSuite(PI_RUNTIME_TESTS, 10, "multipleSessionTests");
@@ -378,4 +387,171 @@ public class ContentTypePerformanceTest extends RuntimeTest {
 			}
 		}.run(this, 10, 200000);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Returns synthetic file names, mixing names and extensions known to the
+	 * content type manager with unknown ones, like the files of a large workspace.
+	 */
+	private String[] createFileNames(IContentTypeManager manager, int count) {
+		List<String> fileNames = new ArrayList<>();
+		List<String> fileExtensions = new ArrayList<>();
+		for (IContentType type : manager.getAllContentTypes()) {
+			fileNames.addAll(Arrays.asList(type.getFileSpecs(IContentType.FILE_NAME_SPEC)));
+			fileExtensions.addAll(Arrays.asList(type.getFileSpecs(IContentType.FILE_EXTENSION_SPEC)));
+		}
+		fileExtensions.add("unknown");
+		Random random = new Random(4711);
+		String[] result = new String[count];
+		for (int i = 0; i < count; i++) {
+			int kind = random.nextInt(10);
+			if (kind == 0 && !fileNames.isEmpty())
+				result[i] = fileNames.get(random.nextInt(fileNames.size()));
+			else if (kind == 1)
+				result[i] = "file" + i;
+			else
+				result[i] = "file" + i + '.' + fileExtensions.get(random.nextInt(fileExtensions.size()));
+		}
+		return result;
+	}
+
+	/** Tests content type matching by name over a large number of distinct file names */
+	public void testNameMatchingManyNames() {
+		// warm up preference service
+		loadPreferences();
+		// warm up content type registry
+		final IContentTypeManager manager = loadContentTypeManager();
+		loadChildren();
+		final String[] fileNames = createFileNames(manager, 1000000);
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				for (String fileName : fileNames) {
+					manager.findContentTypesFor(fileName);
+				}
+			}
+		}.run(this, 10, 1);
+	}
+
+	/**
+	 * Tests how well content type matching by name scales when many threads,
+	 * like builders and indexers, look up content types at the same time.
+	 */
+	public void testNameMatchingConcurrent() {
+		// warm up preference service
+		loadPreferences();
+		// warm up content type registry
+		final IContentTypeManager manager = loadContentTypeManager();
+		loadDescribers();
+		loadChildren();
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				Thread[] threads = new Thread[NUMBER_OF_THREADS];
+				AssertionError[] failures = new AssertionError[NUMBER_OF_THREADS];
+				for (int t = 0; t < threads.length; t++) {
+					final int index = t;
+					threads[t] = new Thread(() -> {
+						try {
+							for (int i = 0; i < 200000 / NUMBER_OF_THREADS; i++) {
+								IContentType[] associated = manager.findContentTypesFor("foo.txt");
+								assertTrue("2.0", associated.length >= 1);
+								assertEquals("2.1", IContentTypeManager.CT_TEXT, associated[0].getId());
+							}
+						} catch (AssertionError e) {
+							failures[index] = e;
+						}
+					}, "ContentTypePerformanceTest-" + t);
+					threads[t].start();
+				}
+				for (Thread thread : threads) {
+					try {
+						thread.join();
+					} catch (InterruptedException e) {
+						fail("3.0", e);
+					}
+				}
+				for (AssertionError failure : failures) {
+					if (failure != null)
+						throw failure;
+				}
+			}
+		}.run(this, 10, 1);
+	}
+
+	/**
+	 * Tests content description of XML files, which needs the root element and DTD
+	 * of every file, like a refresh of a workspace full of XML files does.
+	 */
+	public void testXMLDescription() {
+		// warm up preference service
+		loadPreferences();
+		// warm up content type registry
+		final IContentTypeManager manager = loadContentTypeManager();
+		loadDescribers();
+		final String[] documents = {
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<project>\n\t<name>test</name>\n</project>\n",
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!-- a comment -->\n<p:root xmlns:p=\"urn:test\" version=\"1\"/>\n",
+				"<?xml version=\"1.0\"?>\n<!DOCTYPE root PUBLIC \"-//Test//EN\" \"test.dtd\">\n<root/>\n",
+				"<!DOCTYPE root [<!ENTITY e \"x\">]>\n<root a=\"&e;\"/>\n" };
+		final byte[][] contents = new byte[documents.length][];
+		for (int i = 0; i < documents.length; i++)
+			contents[i] = documents[i].getBytes(StandardCharsets.UTF_8);
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				try {
+					for (int i = 0; i < 1000; i++) {
+						IContentDescription description = manager.getDescriptionFor(new ByteArrayInputStream(contents[i % contents.length]), "file.xml", IContentDescription.ALL);
+						assertNotNull("1.0." + i, description);
+					}
+				} catch (IOException e) {
+					fail("2.0", e);
+				}
+			}
+		}.run(this, 10, 20);
+	}
+
+	/**
+	 * Returns the number of bytes allocated by the current thread so far, or -1 if
+	 * the virtual machine can't tell.
+	 */
+	private static long getAllocatedBytes() {
+		try {
+			Method method = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+			return (Long) method.invoke(ManagementFactory.getThreadMXBean(), Thread.currentThread().getId());
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return -1;
+		}
+	}
+
+	private static long measureBufferAllocations(byte[] contents, int blockSize) throws IOException {
+		byte[] read = new byte[contents.length];
+		long before = getAllocatedBytes();
+		for (int i = 0; i < 10000; i++) {
+			LazyInputStream stream = new LazyInputStream(new ByteArrayInputStream(contents), blockSize);
+			while (stream.read(read) != -1) {
+				// read everything, like describers reading the whole contents do
+			}
+			stream.release();
+		}
+		return getAllocatedBytes() - before;
+	}
+
+	/**
+	 * Measures how many bytes buffering contents for content description allocates,
+	 * with blocks taken from the pool and with blocks of a size that is not pooled.
+	 */
+	public void testBufferAllocations() throws IOException {
+		if (getAllocatedBytes() < 0)
+			// allocations can't be measured in this virtual machine
+			return;
+		byte[] contents = new byte[ContentTypeManager.BLOCK_SIZE * 4];
+		Arrays.fill(contents, (byte) 'a');
+		// warm up
+		measureBufferAllocations(contents, ContentTypeManager.BLOCK_SIZE);
+		measureBufferAllocations(contents, ContentTypeManager.BLOCK_SIZE + 1);
+		long pooled = measureBufferAllocations(contents, ContentTypeManager.BLOCK_SIZE);
+		long unpooled = measureBufferAllocations(contents, ContentTypeManager.BLOCK_SIZE + 1);
+		assertTrue("1.0: " + pooled / 10000 + " bytes allocated per description with pooled blocks, " + unpooled / 10000 + " without", pooled < unpooled);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2021 IBM Corporation and others.
+ * Copyright (c) 2009, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -19,6 +19,9 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.eclipse.e4.core.contexts.ContextFunction;
 import org.eclipse.e4.core.contexts.EclipseContextFactory;
 import org.eclipse.e4.core.contexts.IEclipseContext;
@@ -214,6 +217,70 @@ public class EclipseContextTest {
 
 	}
 
+	@Test
+	public void testSetAll() {
+		final Object[] value = new Object[2];
+		context.runAndTrack(new RunAndTrack() {
+			@Override
+			public boolean changed(IEclipseContext context) {
+				runCounter++;
+				value[0] = context.get("foo");
+				value[1] = context.get("bar");
+				return true;
+			}
+		});
+		assertEquals(1, runCounter);
+		Map<String, Object> values = new LinkedHashMap<>();
+		values.put("foo", "x");
+		values.put("bar", "y");
+		((EclipseContext) parentContext).setAll(values);
+		// notified once, with both values set
+		assertEquals(2, runCounter);
+		assertEquals("x", value[0]);
+		assertEquals("y", value[1]);
+		((EclipseContext) parentContext).setAll(values);
+		assertEquals(2, runCounter);
+		values.put("bar", "z");
+		((EclipseContext) parentContext).setAll(values);
+		assertEquals(3, runCounter);
+		assertEquals("z", value[1]);
+	}
+
+	@Test
+	public void testResolveInDeepHierarchy() {
+		IEclipseContext middle = context.createChild("middle");
+		IEclipseContext leaf = middle.createChild("leaf");
+		parentContext.set("foo", "root");
+		assertEquals("root", leaf.get("foo"));
+		long hits = EclipseContext.getResolutionHits();
+		assertEquals("root", leaf.get("foo"));
+		assertTrue(EclipseContext.getResolutionHits() > hits);
+
+		// values set closer to the leaf hide the resolved value
+		middle.set("foo", "middle");
+		assertEquals("middle", leaf.get("foo"));
+		middle.declareModifiable("bar");
+		parentContext.set("bar", "root");
+		assertNull(leaf.get("bar"));
+		middle.remove("foo");
+		assertEquals("root", leaf.get("foo"));
+		parentContext.set("foo", "changed");
+		assertEquals("changed", leaf.get("foo"));
+
+		// names set nowhere are resolved once set
+		assertNull(leaf.get("baz"));
+		parentContext.set("baz", "root");
+		assertEquals("root", leaf.get("baz"));
+
+		// values are resolved in the new parent after reparenting
+		IEclipseContext other = EclipseContextFactory.create("other");
+		other.set("foo", "other");
+		middle.setParent(other);
+		assertEquals("other", leaf.get("foo"));
+		assertNull(leaf.get("baz"));
+		other.dispose();
+	}
+
 	@Test
 	public void testRunAndTrackMultipleValues() {
 		IEclipseContext parent = EclipseContextFactory.create("ParentContext");
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2015 IBM Corporation and others.
+ * Copyright (c) 2010, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,17 +15,33 @@
 
 package org.eclipse.e4.core.internal.tests.contexts.performance;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.inject.Named;
+
 import org.eclipse.core.runtime.IAdapterManager;
 import org.eclipse.core.runtime.IExtensionRegistry;
 import org.eclipse.core.runtime.preferences.IPreferencesService;
 import org.eclipse.core.tests.harness.PerformanceTestRunner;
 import org.eclipse.e4.core.contexts.ContextFunction;
+import org.eclipse.e4.core.contexts.ContextInjectionFactory;
 import org.eclipse.e4.core.contexts.EclipseContextFactory;
 import org.eclipse.e4.core.contexts.IEclipseContext;
 import org.eclipse.e4.core.contexts.RunAndTrack;
+import org.eclipse.e4.core.di.annotations.Optional;
+import org.eclipse.e4.core.di.extensions.EventTopic;
+import org.eclipse.e4.core.internal.contexts.EclipseContext;
 import org.eclipse.e4.core.internal.tests.CoreTestsActivator;
+import org.eclipse.e4.core.internal.tests.di.extensions.InjectionEventTest;
 import org.eclipse.osgi.service.datalocation.Location;
 import org.eclipse.osgi.service.debug.DebugOptions;
+import org.osgi.service.event.Event;
+import org.osgi.service.event.EventAdmin;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -36,6 +52,53 @@ import junit.framework.TestSuite;
  */
 public class ContextPerformanceTest extends TestCase {
 
+	static class InjectionBase {
+		@Inject
+		@Named("Value-1")
+		Integer baseValue;
+
+		@Inject
+		void setBaseValues(@Named("Value-2") Integer value2, @Named("Value-3") Integer value3) {
+			// nothing to do
+		}
+	}
+
+	static class InjectionTarget extends InjectionBase {
+		@Inject
+		@Named("Value-4")
+		Integer value;
+
+		@Inject
+		void setValue(@Named("Value-5") Integer value5) {
+			// nothing to do
+		}
+
+		@PostConstruct
+		void init() {
+			// nothing to do
+		}
+	}
+
+	static class EventTarget {
+		int counter;
+
+		@Inject
+		@Optional
+		void receive(@EventTopic("e4/test/performance/event") Object data) {
+			counter++;
+		}
+	}
+
+	static class WildcardEventTarget {
+		int counter;
+
+		@Inject
+		@Optional
+		void receive(@EventTopic("e4/test/performance/*") Object data) {
+			counter++;
+		}
+	}
+
 	IEclipseContext parentContext, context;
 
 	public static Test suite() {
@@ -113,6 +176,155 @@ public class ContextPerformanceTest extends TestCase {
 		}.run(this, 10, 600000);
 	}
 
+	/**
+	 * Tests creating objects with injected fields and methods in a class hierarchy.
+	 */
+	public void testMake() {
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				Object object = ContextInjectionFactory.make(InjectionTarget.class, context);
+				ContextInjectionFactory.uninject(object, context);
+			}
+		}.run(this, 10, 20000);
+	}
+
+	/**
+	 * Tests injecting existing objects with injected fields and methods in a class
+	 * hierarchy.
+	 */
+	public void testInject() {
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				Object object = new InjectionTarget();
+				ContextInjectionFactory.inject(object, context);
+				ContextInjectionFactory.uninject(object, context);
+			}
+		}.run(this, 10, 20000);
+	}
+
+	/**
+	 * Creates a chain of contexts below {@link #context}, with a RAT in each
+	 * context that depends on all the given names.
+	 *
+	 * @return the leaf context
+	 */
+	private IEclipseContext createDeepHierarchy(int depth, String... names) {
+		IEclipseContext current = context;
+		for (int i = 0; i < depth; i++) {
+			current = current.createChild("Level-" + i);
+			current.runAndTrack(new RunAndTrack() {
+				@Override
+				public boolean changed(IEclipseContext context) {
+					for (String name : names) {
+						context.get(name);
+					}
+					return true;
+				}
+			});
+		}
+		return current;
+	}
+
+	/**
+	 * Tests looking up values set at the top of a deep context hierarchy.
+	 */
+	public void testLookupDeepHierarchy() {
+		IEclipseContext leaf = createDeepHierarchy(20, "Value-1");
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				leaf.get("Value-1");
+			}
+		}.run(this, 10, 600000);
+	}
+
+	/**
+	 * Tests looking up OSGi services from the bottom of a deep context hierarchy.
+	 */
+	public void testLookupServiceDeepHierarchy() {
+		IEclipseContext leaf = createDeepHierarchy(20);
+		new PerformanceTestRunner() {
+			@Override
+			protected void test() {
+				leaf.get(IExtensionRegistry.class);
+				leaf.get(IPreferencesService.class);
+				leaf.get("NonExistentValue-1");
+			}
+		}.run(this, 10, 200000);
+	}
+
+	/**
+	 * Tests setting a value at the top of a deep context hierarchy that RATs in
+	 * all contexts are listening to.
+	 */
+	public void testSetValueDeepHierarchy() {
+		createDeepHierarchy(20, "something");
+		new PerformanceTestRunner() {
+			int i = 0;
+
+			@Override
+			protected void test() {
+				context.set("something", "value-" + i++);
+			}
+		}.run(this, 10, 20000);
+	}
+
+	/**
+	 * Tests setting several values at once at the top of a deep context hierarchy
+	 * that RATs in all contexts are listening to.
+	 */
+	public void testSetAllDeepHierarchy() {
+		String[] names = new String[10];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = "something-" + i;
+		}
+		createDeepHierarchy(20, names);
+		new PerformanceTestRunner() {
+			int i = 0;
+
+			@Override
+			protected void test() {
+				Map<String, Object> values = new HashMap<>();
+				for (String name : names) {
+					values.put(name, "value-" + i);
+				}
+				i++;
+				((EclipseContext) context).setAll(values);
+			}
+		}.run(this, 10, 2000);
+	}
+
+	/**
+	 * Tests sending events to 10,000 objects injected with event topics.
+	 */
+	public void testSendEventManySubscribers() {
+		InjectionEventTest.ensureEventAdminStarted();
+		EventAdmin eventAdmin = CoreTestsActivator.getDefault().getEventAdmin();
+		assertNotNull(eventAdmin);
+		List<IEclipseContext> children = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			IEclipseContext child = context.createChild("Subscriber-" + i);
+			ContextInjectionFactory.make(EventTarget.class, child);
+			ContextInjectionFactory.make(WildcardEventTarget.class, child);
+			children.add(child);
+		}
+		Event event = new Event("e4/test/performance/event", (Map<String, ?>) null);
+		try {
+			new PerformanceTestRunner() {
+				@Override
+				protected void test() {
+					eventAdmin.sendEvent(event);
+				}
+			}.run(this, 10, 100);
+		} finally {
+			for (IEclipseContext child : children) {
+				child.dispose();
+			}
+		}
+	}
+
 	/**
 	 * Tests setting a value in a context that a RAT is listening to. This test mimics what occurs
 	 * when handlers change in e4. See https://bugs.eclipse.org/bugs/show_bug.cgi?id=305038
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2015 IBM Corporation and others.
+ * Copyright (c) 2010, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -20,8 +20,10 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.Dictionary;
 import java.util.Hashtable;
+import java.util.List;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -269,7 +271,39 @@ public class InjectionEventTest {
 
 	}
 
-	static void ensureEventAdminStarted() {
+	@Test
+	public void testManySubscribers() {
+		IEclipseContext context = EclipseContextFactory.create();
+		List<IEclipseContext> children = new ArrayList<>();
+		List<InjectTargetEvent> targets = new ArrayList<>();
+		List<InjectStarEvent> starTargets = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			IEclipseContext child = context.createChild();
+			children.add(child);
+			targets.add(ContextInjectionFactory.make(InjectTargetEvent.class, child));
+			starTargets.add(ContextInjectionFactory.make(InjectStarEvent.class, child));
+		}
+
+		helper.sendEvent("e4/test/eventInjection", "data");
+		helper.sendEvent("e4/test/other", "data");
+		for (int i = 0; i < 100; i++) {
+			assertEquals(1, targets.get(i).counter1);
+			assertEquals(2, starTargets.get(i).counter1);
+		}
+
+		// disposed subscribers stop receiving events, the others keep receiving them
+		for (int i = 0; i < 50; i++) {
+			children.get(i).dispose();
+		}
+		helper.sendEvent("e4/test/eventInjection", "data");
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i < 50 ? 1 : 2, targets.get(i).counter1);
+			assertEquals(i < 50 ? 2 : 3, starTargets.get(i).counter1);
+		}
+		context.dispose();
+	}
+
+	public static void ensureEventAdminStarted() {
 		if (CoreTestsActivator.getDefault().getEventAdmin() == null) {
 			Bundle[] bundles = CoreTestsActivator.getDefault().getBundleContext().getBundles();
 			for (Bundle bundle : bundles) {
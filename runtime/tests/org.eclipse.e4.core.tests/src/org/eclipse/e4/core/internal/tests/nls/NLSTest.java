@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2015  Dirk Fauth and others.
+ * Copyright (c) 2014, 2023  Dirk Fauth and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,16 +16,25 @@
 package org.eclipse.e4.core.internal.tests.nls;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 
 import org.eclipse.e4.core.contexts.ContextInjectionFactory;
 import org.eclipse.e4.core.contexts.EclipseContextFactory;
 import org.eclipse.e4.core.contexts.IEclipseContext;
+import org.eclipse.e4.core.internal.services.MessageFactoryServiceImpl;
 import org.eclipse.e4.core.services.nls.Translation;
+import org.eclipse.e4.core.services.translation.ResourceBundleProvider;
 import org.eclipse.e4.core.services.translation.TranslationService;
 import org.junit.After;
 import org.junit.Before;
@@ -64,6 +73,45 @@ public class NLSTest {
 		ResourcesMessages resourcesMessages;
 	}
 
+	/**
+	 * Messages whose first instance requests the other messages class while it is
+	 * initialized, once the first instance of the other class is being initialized
+	 * by another thread.
+	 */
+	public static class CrossMessagesA {
+		static MessageFactoryServiceImpl factory;
+		static ResourceBundleProvider provider;
+		static CountDownLatch bothCreating;
+		static final AtomicBoolean first = new AtomicBoolean();
+
+		CrossMessagesB other;
+
+		@PostConstruct
+		public void init() throws InterruptedException {
+			if (first.compareAndSet(false, true)) {
+				bothCreating.countDown();
+				bothCreating.await();
+				other = factory.getMessageInstance(Locale.ENGLISH, CrossMessagesB.class, provider);
+			}
+		}
+	}
+
+	public static class CrossMessagesB {
+		static final AtomicBoolean first = new AtomicBoolean();
+
+		CrossMessagesA other;
+
+		@PostConstruct
+		public void init() throws InterruptedException {
+			if (first.compareAndSet(false, true)) {
+				CrossMessagesA.bothCreating.countDown();
+				CrossMessagesA.bothCreating.await();
+				other = CrossMessagesA.factory.getMessageInstance(Locale.ENGLISH, CrossMessagesA.class,
+						CrossMessagesA.provider);
+			}
+		}
+	}
+
 	private IEclipseContext context;
 	private Locale beforeLocale;
 
@@ -945,4 +993,74 @@ public class NLSTest {
 				messages.messageNine_Sub);
 	}
 
-}
\ No newline at end of file
+	@Test
+	@SuppressWarnings("restriction")
+	public void testConcurrentMessageInstances() throws InterruptedException {
+		MessageFactoryServiceImpl factory = new MessageFactoryServiceImpl();
+		ResourceBundleProvider provider = this.context.get(ResourceBundleProvider.class);
+		assertNotNull(provider);
+
+		int threadCount = 8;
+		CountDownLatch start = new CountDownLatch(1);
+		SimpleMessages[] results = new SimpleMessages[threadCount];
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < threadCount; i++) {
+			int index = i;
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				results[index] = factory.getMessageInstance(Locale.ENGLISH, SimpleMessages.class, provider);
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		// all threads get the same instance, which is only created once
+		assertNotNull(results[0]);
+		assertEquals("SimpleMessage", results[0].message);
+		for (SimpleMessages result : results) {
+			assertSame(results[0], result);
+		}
+		assertEquals(1, factory.getCacheMisses());
+		assertEquals(threadCount - 1, factory.getCacheHits());
+
+		assertSame(results[0], factory.getMessageInstance(Locale.ENGLISH, SimpleMessages.class, provider));
+		assertEquals(threadCount, factory.getCacheHits());
+	}
+
+	@Test
+	@SuppressWarnings("restriction")
+	public void testCrossCreationDoesNotDeadlock() throws InterruptedException {
+		CrossMessagesA.factory = new MessageFactoryServiceImpl();
+		CrossMessagesA.provider = this.context.get(ResourceBundleProvider.class);
+		CrossMessagesA.bothCreating = new CountDownLatch(2);
+		CrossMessagesA.first.set(false);
+		CrossMessagesB.first.set(false);
+
+		// each thread needs the instance the other one is creating
+		CrossMessagesA[] a = new CrossMessagesA[1];
+		CrossMessagesB[] b = new CrossMessagesB[1];
+		Thread threadA = new Thread(() -> a[0] = CrossMessagesA.factory.getMessageInstance(Locale.ENGLISH,
+				CrossMessagesA.class, CrossMessagesA.provider));
+		Thread threadB = new Thread(() -> b[0] = CrossMessagesA.factory.getMessageInstance(Locale.ENGLISH,
+				CrossMessagesB.class, CrossMessagesA.provider));
+		threadA.setDaemon(true);
+		threadB.setDaemon(true);
+		threadA.start();
+		threadB.start();
+		threadA.join(10000);
+		threadB.join(10000);
+
+		assertFalse("deadlock", threadA.isAlive() || threadB.isAlive());
+		assertNotNull(a[0].other);
+		assertNotNull(b[0].other);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2011 IBM Corporation and others.
+ * Copyright (c) 2008, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -26,6 +26,8 @@ public class CompareSettings {
 
 	private boolean cappingDisabled;
 
+	private boolean parallelismDisabled;
+
 	/**
 	 * The constructor
 	 */
@@ -54,4 +56,18 @@ public class CompareSettings {
 		return this.cappingDisabled;
 	}
 
+	/**
+	 * Disables comparing large inputs in parallel, which never changes the
+	 * differences found.
+	 *
+	 * @param disable whether to compare inputs in the calling thread only
+	 */
+	public void setParallelismDisabled(boolean disable) {
+		this.parallelismDisabled = disable;
+	}
+
+	public boolean isParallelismDisabled() {
+		return this.parallelismDisabled;
+	}
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2011 IBM Corporation and others.
+ * Copyright (c) 2006, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -148,13 +148,14 @@ public class FileDiffResult implements IFilePatchResult {
 			calculateFuzz(this.fBeforeLines, monitor);
 		}
 		int shift= 0;
+		LineIndex target = new LineIndex(lines, getConfiguration().isIgnoreWhitespace());
 		IHunk[] hunks = this.fDiff.getHunks();
 		for (IHunk h : hunks) {
 			Hunk hunk = (Hunk) h;
 			hunk.setCharset(getCharset());
 			HunkResult result = getHunkResult(hunk);
 			result.setShift(shift);
-			if (result.patch(lines)) {
+			if (result.patch(target)) {
 				shift = result.getShift();
 			}
 		}
@@ -217,6 +218,7 @@ public class FileDiffResult implements IFilePatchResult {
 		}
 		int shift= 0;
 		int highestFuzz = -1; // the maximum fuzz factor for all hunks
+		LineIndex target = new LineIndex(lines, getConfiguration().isIgnoreWhitespace());
 		String name = getTargetPath() != null ? getTargetPath().lastSegment() : ""; //$NON-NLS-1$
 		IHunk[] hunks = this.fDiff.getHunks();
 		for (int j = 0; j < hunks.length; j++) {
@@ -224,7 +226,7 @@ public class FileDiffResult implements IFilePatchResult {
 			monitor.subTask(NLS.bind(Messages.FileDiffResult_3, new String[] {name, Integer.toString(j + 1)}));
 			HunkResult result = getHunkResult(h);
 			result.setShift(shift);
-			int fuzz = result.calculateFuzz(lines, monitor);
+			int fuzz = result.calculateFuzz(target, monitor);
 			shift = result.getShift();
 			if (fuzz > highestFuzz)
 				highestFuzz = fuzz;
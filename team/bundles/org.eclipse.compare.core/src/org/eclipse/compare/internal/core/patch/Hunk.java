@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -30,6 +30,9 @@ public class Hunk implements IHunk {
 	private String[] fLines;
 	private int hunkType;
 	private String charset = null;
+	/** The compared forms of the lines, without the control character */
+	private String[] fKeys;
+	private boolean fKeysIgnoreWhitespace;
 
 	public static Hunk createHunk(FilePatch2 parent, int[] oldRange, int[] newRange,
 			List<String> lines, boolean hasLineAdditions, boolean hasLineDeletions, boolean hasContextLines) {
@@ -173,22 +176,28 @@ public class Hunk implements IHunk {
 	 * in the hunk.
 	 */
 	public boolean tryPatch(PatchConfiguration configuration, List<String> lines, int shift, int fuzz) {
+		return tryPatch(configuration, new LineIndex(lines, configuration.isIgnoreWhitespace()), shift, fuzz);
+	}
+
+	boolean tryPatch(PatchConfiguration configuration, LineIndex target, int shift, int fuzz) {
 		boolean reverse = configuration.isReversed();
+		String[] keys = getKeys(configuration.isIgnoreWhitespace());
 		int pos = getStart(reverse) + shift;
 		List<String> contextLines = new ArrayList<>();
 		boolean contextLinesMatched = true;
 		boolean precedingLinesChecked = false;
-		for (String s : this.fLines) {
+		for (int i = 0; i < this.fLines.length; i++) {
+			String s = this.fLines[i];
 			Assert.isTrue(s.length() > 0);
-			String line = s.substring(1);
+			String line = keys[i];
 			char controlChar = s.charAt(0);
 
 			if (controlChar == ' ') {	// context lines
 
-				if (pos < 0 || pos >= lines.size())
+				if (pos < 0 || pos >= target.size())
 					return false;
 				contextLines.add(line);
-				if (linesMatch(configuration, line, lines.get(pos))) {
+				if (line.equals(target.getKey(pos))) {
 					pos++;
 					continue;
 				} else if (fuzz > 0) {
@@ -210,7 +219,7 @@ public class Hunk implements IHunk {
 				if (!precedingLinesChecked
 						&& !contextLinesMatched
 						&& contextLines.size() >= fuzz
-						&& !checkPrecedingContextLines(configuration, lines,
+						&& !checkPrecedingContextLines(target,
 								fuzz, pos, contextLines))
 					return false;
 				// else if there is less or equal context line to the fuzz
@@ -220,9 +229,9 @@ public class Hunk implements IHunk {
 				contextLines.clear();
 				contextLinesMatched = true;
 
-				if (pos < 0 || pos >= lines.size()) // out of the file
+				if (pos < 0 || pos >= target.size()) // out of the file
 					return false;
-				if (linesMatch(configuration, line, lines.get(pos))) {
+				if (line.equals(target.getKey(pos))) {
 					pos++;
 					continue; // line matched, continue with the next one
 				}
@@ -239,7 +248,7 @@ public class Hunk implements IHunk {
 				if (!precedingLinesChecked
 						&& !contextLinesMatched
 						&& contextLines.size() >= fuzz
-						&& !checkPrecedingContextLines(configuration, lines,
+						&& !checkPrecedingContextLines(target,
 								fuzz, pos, contextLines))
 					return false;
 
@@ -256,39 +265,74 @@ public class Hunk implements IHunk {
 		if (!contextLinesMatched
 				&& fuzz > 0
 				&& contextLines.size() > fuzz
-				&& !checkFollowingContextLines(configuration, lines, fuzz, pos,
+				&& !checkFollowingContextLines(target, fuzz, pos,
 						contextLines))
 			return false;
 
 		return true;
 	}
 
-	private boolean checkPrecedingContextLines(
-			PatchConfiguration configuration, List<String> lines, int fuzz, int pos,
+	private boolean checkPrecedingContextLines(LineIndex target, int fuzz, int pos,
 			List<String> contextLines) {
 		// ignore from the beginning
 		for (int j = fuzz; j < contextLines.size(); j++) {
-			if (!linesMatch(configuration, contextLines.get(j),
-							lines.get(pos - contextLines.size() + j)))
+			if (!contextLines.get(j).equals(target.getKey(pos - contextLines.size() + j)))
 				return false;
 		}
 		return true;
 	}
 
-	private boolean checkFollowingContextLines(
-			PatchConfiguration configuration, List<String> lines, int fuzz, int pos,
+	private boolean checkFollowingContextLines(LineIndex target, int fuzz, int pos,
 			List<String> contextLines) {
 		if (!contextLines.isEmpty()) {
 			// ignore from the end
 			for (int j = 0; j < contextLines.size() - fuzz; j++) {
-				if (!linesMatch(configuration, contextLines.get(j),
-						lines.get(pos - contextLines.size() + j)))
+				if (!contextLines.get(j).equals(target.getKey(pos - contextLines.size() + j)))
 					return false;
 			}
 		}
 		return true;
 	}
 
+	/**
+	 * Returns the compared forms of the lines of this hunk, computed once for the
+	 * given whitespace handling.
+	 */
+	String[] getKeys(boolean ignoreWhitespace) {
+		String[] keys = this.fKeys;
+		if (keys == null || this.fKeysIgnoreWhitespace != ignoreWhitespace) {
+			keys = new String[this.fLines.length];
+			for (int i = 0; i < keys.length; i++) {
+				keys[i] = LineIndex.toKey(this.fLines[i].substring(1), ignoreWhitespace);
+			}
+			this.fKeysIgnoreWhitespace = ignoreWhitespace;
+			this.fKeys = keys;
+		}
+		return keys;
+	}
+
+	/**
+	 * Returns the lines of this hunk that must match the target for the hunk to
+	 * apply with the given fuzz factor: the deleted lines, and the context lines
+	 * too if there is no fuzz.
+	 *
+	 * @return the indices of the lines, paired with their offsets from the start
+	 *         of the hunk in the target
+	 */
+	int[][] getRequiredLines(boolean reverse, int fuzz) {
+		List<int[]> required = new ArrayList<>();
+		int offset = 0;
+		for (int i = 0; i < this.fLines.length; i++) {
+			char controlChar = this.fLines[i].charAt(0);
+			if (isAddedDelimeter(controlChar, reverse))
+				continue;
+			if (isDeletedDelimeter(controlChar, reverse) || fuzz == 0)
+				required.add(new int[] { i, offset });
+			offset++;
+		}
+		return required.toArray(new int[required.size()][]);
+	}
+
 	public int getStart(boolean after) {
 		if (after) {
 			return this.fNewStart;
@@ -318,23 +362,26 @@ public class Hunk implements IHunk {
 		return this.fNewLength - this.fOldLength;
 	}
 
-	int doPatch(PatchConfiguration configuration, List<String> lines, int shift, int fuzz) {
+	int doPatch(PatchConfiguration configuration, LineIndex target, int shift, int fuzz) {
 		boolean reverse = configuration.isReversed();
+		String[] keys = getKeys(configuration.isIgnoreWhitespace());
+		List<String> lines = target.getLines();
 		int pos = getStart(reverse) + shift;
 		List<String> contextLines = new ArrayList<>();
 		boolean contextLinesMatched = true;
 		boolean precedingLinesChecked = false;
 		String lineDelimiter = getLineDelimiter(lines);
 
-		for (String s : this.fLines) {
+		for (int i = 0; i < this.fLines.length; i++) {
+			String s = this.fLines[i];
 			Assert.isTrue(s.length() > 0);
 			String line= s.substring(1);
 			char controlChar= s.charAt(0);
 			if (controlChar == ' ') {
 				// context lines
 				Assert.isTrue(pos < lines.size(), "doPatch: inconsistency in context"); //$NON-NLS-1$
-				contextLines.add(line);
-				if (linesMatch(configuration, line, lines.get(pos))) {
+				contextLines.add(keys[i]);
+				if (keys[i].equals(target.getKey(pos))) {
 					pos++;
 					continue;
 				} else if (fuzz > 0) {
@@ -356,7 +403,7 @@ public class Hunk implements IHunk {
 				if (!precedingLinesChecked
 						&& !contextLinesMatched
 						&& contextLines.size() >= fuzz
-						&& !checkPrecedingContextLines(configuration, lines,
+						&& !checkPrecedingContextLines(target,
 								fuzz, pos, contextLines))
 					Assert.isTrue(false, "doPatch: preceding context lines don't match, even though fuzz factor has been used"); //$NON-NLS-1$
 				// else if there is less or equal context line to the fuzz
@@ -375,7 +422,7 @@ public class Hunk implements IHunk {
 				if (!precedingLinesChecked
 						&& !contextLinesMatched
 						&& contextLines.size() >= fuzz
-						&& !checkPrecedingContextLines(configuration, lines,
+						&& !checkPrecedingContextLines(target,
 								fuzz, pos, contextLines))
 					Assert.isTrue(false, "doPatch: preceding context lines don't match, even though fuzz factor has been used"); //$NON-NLS-1$
 
@@ -395,6 +442,7 @@ public class Hunk implements IHunk {
 			} else
 				Assert.isTrue(false, "doPatch: unknown control character: " + controlChar); //$NON-NLS-1$
 		}
+		target.invalidate();
 		return getShift(reverse);
 	}
 
@@ -406,27 +454,6 @@ public class Hunk implements IHunk {
 		return (reverse && controlChar == '-') || (!reverse && controlChar == '+');
 	}
 
-	/*
-	 * Compares two strings.
-	 * If fIgnoreWhitespace is true whitespace is ignored.
-	 */
-	private boolean linesMatch(PatchConfiguration configuration, String line1, String line2) {
-		if (configuration.isIgnoreWhitespace())
-			return stripWhiteSpace(line1).equals(stripWhiteSpace(line2));
-		if (isIgnoreLineDelimiter()) {
-			int l1= LineReader.length(line1);
-			int l2= LineReader.length(line2);
-			if (l1 != l2)
-				return false;
-			return line1.regionMatches(0, line2, 0, l1);
-		}
-		return line1.equals(line2);
-	}
-
-	private boolean isIgnoreLineDelimiter() {
-		return true;
-	}
-
 	private String getLineDelimiter(List<String> lines) {
 		if (lines.size() > 0) {
 			// get a line separator from the file being patched
@@ -439,21 +466,6 @@ public class Hunk implements IHunk {
 		return System.getProperty("line.separator"); //$NON-NLS-1$
 	}
 
-	/*
-	 * Returns the given string with all whitespace characters removed.
-	 * Whitespace is defined by <code>Character.isWhitespace(...)</code>.
-	 */
-	private String stripWhiteSpace(String s) {
-		StringBuilder sb= new StringBuilder();
-		int l= s.length();
-		for (int i= 0; i < l; i++) {
-			char c= s.charAt(i);
-			if (!Character.isWhitespace(c))
-				sb.append(c);
-		}
-		return sb.toString();
-	}
-
 	public String getContents(boolean isAfterState, boolean reverse) {
 		StringBuilder result= new StringBuilder();
 		for (String line : this.fLines) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2011 IBM Corporation and others.
+ * Copyright (c) 2006, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.compare.internal.core.patch;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.compare.patch.IHunkFilter;
@@ -30,6 +31,12 @@ public class HunkResult {
 	 */
 	private static final int MAXIMUM_FUZZ_FACTOR = 2;
 
+	/**
+	 * The number of lines a hunk is shifted by one by one before only the
+	 * positions where its lines occur are tried.
+	 */
+	private static final int NEAR_SHIFT = 32;
+
 	private Hunk fHunk;
 	private boolean fMatches;
 	private int fShift;
@@ -55,43 +62,24 @@ public class HunkResult {
 	 * @return whether the hunk could be applied
 	 */
 	public boolean patch(List<String> lines) {
+		return patch(new LineIndex(lines, getConfiguration().isIgnoreWhitespace()));
+	}
+
+	boolean patch(LineIndex target) {
 		this.fMatches = false;
 		PatchConfiguration configuration = getConfiguration();
 		// if the fuzz is not set for the current hunk use the one from fDiffResult
 		int fuzz = this.fFuzz != -1 ? this.fFuzz : configuration.getFuzz();
 		if (isEnabled(configuration)) {
-			if (this.fHunk.tryPatch(configuration, lines, this.fShift, fuzz)) {
+			if (this.fHunk.tryPatch(configuration, target, this.fShift, fuzz)) {
 				// it's a perfect match, no shifting is needed
-				this.fShift += this.fHunk.doPatch(configuration, lines, this.fShift, fuzz);
+				this.fShift += this.fHunk.doPatch(configuration, target, this.fShift, fuzz);
 				this.fMatches = true;
 			} else {
-				boolean found= false;
 				int oldShift= this.fShift;
-
-				int hugeShift = lines.size();
-				for (int i = 1; i <= hugeShift; i++) {
-					if (this.fHunk.tryPatch(configuration, lines, this.fShift - i, fuzz)) {
-						if (isAdjustShift())
-							this.fShift -= i;
-						found = true;
-						break;
-					}
-				}
-
-				if (!found) {
-					for (int i = 1; i <= hugeShift; i++) {
-						if (this.fHunk.tryPatch(configuration, lines, this.fShift + i, fuzz)) {
-							if (isAdjustShift())
-								this.fShift += i;
-							found = true;
-							break;
-						}
-					}
-				}
-
-				if (found) {
+				if (shift(configuration, target, fuzz, null)) {
 					if (DEBUG) System.out.println("patched hunk at offset: " + (this.fShift-oldShift)); //$NON-NLS-1$
-					this.fShift+= this.fHunk.doPatch(configuration, lines, this.fShift, fuzz);
+					this.fShift+= this.fHunk.doPatch(configuration, target, this.fShift, fuzz);
 					this.fMatches = true;
 				}
 			}
@@ -99,6 +87,96 @@ public class HunkResult {
 		return this.fMatches;
 	}
 
+	/**
+	 * Looks for the nearest position where the hunk applies, first above then
+	 * below the current shift, and adjusts the shift to it.
+	 * <p>
+	 * The nearby positions are tried one by one. Beyond them, only the positions
+	 * where the least frequent of the lines that must match occurs in the target
+	 * are tried, which finds the same position as trying them all.
+	 * </p>
+	 *
+	 * @return whether a position was found
+	 */
+	private boolean shift(PatchConfiguration configuration, LineIndex target, int fuzz, IProgressMonitor monitor) {
+		boolean reverse = configuration.isReversed();
+		// TODO (tzarna): hugeShift=lines.size() is more than we need.
+		// Lines to the beg/end of a file would be enough but this can still
+		// in matching hunks out of order. Try to shift using only lines
+		// available "between" hunks.
+		int hugeShift = target.size();
+		int nearShift = Math.min(NEAR_SHIFT, hugeShift);
+
+		// shift up
+		for (int i = 1; i <= nearShift; i++) {
+			if (tryShift(configuration, target, this.fShift - i, fuzz, monitor))
+				return true;
+		}
+		if (nearShift == hugeShift) {
+			// shift down
+			for (int i = 1; i <= nearShift; i++) {
+				if (tryShift(configuration, target, this.fShift + i, fuzz, monitor))
+					return true;
+			}
+			return false;
+		}
+
+		int[] positions = null;
+		int offset = 0;
+		String[] keys = this.fHunk.getKeys(configuration.isIgnoreWhitespace());
+		for (int[] required : this.fHunk.getRequiredLines(reverse, fuzz)) {
+			int[] linePositions = target.getPositions(keys[required[0]]);
+			if (positions == null || linePositions.length < positions.length) {
+				positions = linePositions;
+				offset = this.fHunk.getStart(reverse) + required[1];
+			}
+		}
+
+		if (positions == null) {
+			// no line has to match, try every position
+			for (int i = nearShift + 1; i <= hugeShift; i++) {
+				if (tryShift(configuration, target, this.fShift - i, fuzz, monitor))
+					return true;
+			}
+			for (int i = 1; i <= hugeShift; i++) {
+				if (tryShift(configuration, target, this.fShift + i, fuzz, monitor))
+					return true;
+			}
+			return false;
+		}
+
+		// the hunk is shifted by the distance between a position and the offset
+		int current = offset + this.fShift;
+		int index = Arrays.binarySearch(positions, current - nearShift);
+		for (int i = index >= 0 ? index - 1 : -index - 2; i >= 0 && positions[i] >= current - hugeShift; i--) {
+			if (tryShift(configuration, target, positions[i] - offset, fuzz, monitor))
+				return true;
+		}
+		// shift down
+		for (int i = 1; i <= nearShift; i++) {
+			if (tryShift(configuration, target, this.fShift + i, fuzz, monitor))
+				return true;
+		}
+		index = Arrays.binarySearch(positions, current + nearShift);
+		for (int i = index >= 0 ? index + 1 : -index - 1; i < positions.length && positions[i] <= current + hugeShift; i++) {
+			if (tryShift(configuration, target, positions[i] - offset, fuzz, monitor))
+				return true;
+		}
+		return false;
+	}
+
+	private boolean tryShift(PatchConfiguration configuration, LineIndex target, int shift, int fuzz, IProgressMonitor monitor) {
+		if (monitor != null && monitor.isCanceled()) {
+			throw new OperationCanceledException();
+		}
+		if (this.fHunk.tryPatch(configuration, target, shift, fuzz)) {
+			if (isAdjustShift())
+				this.fShift = shift;
+			return true;
+		}
+		return false;
+	}
+
 	private boolean isAdjustShift() {
 		return true;
 	}
@@ -119,6 +197,10 @@ public class HunkResult {
 	 * @return the fuzz factor or -1 if the hunk could not be matched
 	 */
 	public int calculateFuzz(List<String> lines, IProgressMonitor monitor) {
+		return calculateFuzz(new LineIndex(lines, getConfiguration().isIgnoreWhitespace()), monitor);
+	}
+
+	int calculateFuzz(LineIndex target, IProgressMonitor monitor) {
 		this.fMatches = false;
 		PatchConfiguration configuration = getConfiguration();
 		int fuzz = 0;
@@ -126,49 +208,16 @@ public class HunkResult {
 				: configuration.getFuzz();
 		for (; fuzz <= maxFuzz; fuzz++) {
 			// try to apply using lines coordinates from the patch
-			if (this.fHunk.tryPatch(configuration, lines, this.fShift, fuzz)) {
+			if (this.fHunk.tryPatch(configuration, target, this.fShift, fuzz)) {
 				// it's a perfect match, no adjustment is needed
-				this.fShift += this.fHunk.doPatch(configuration, lines, this.fShift, fuzz);
+				this.fShift += this.fHunk.doPatch(configuration, target, this.fShift, fuzz);
 				this.fMatches = true;
 				break;
 			}
 
-			// TODO (tzarna): hugeShift=lines.size() is more than we need.
-			// Lines to the beg/end of a file would be enough but this can still
-			// in matching hunks out of order. Try to shift using only lines
-			// available "between" hunks.
-			int hugeShift = lines.size();
-
-			// shift up
-			for (int i = 1; i <= hugeShift; i++) {
-				if (monitor.isCanceled()) {
-					throw new OperationCanceledException();
-				}
-				if (this.fHunk.tryPatch(configuration, lines, this.fShift - i, fuzz)) {
-					if (isAdjustShift())
-						this.fShift -= i;
-					this.fMatches = true;
-					break;
-				}
-			}
-
-			// shift down
-			if (!this.fMatches) {
-				for (int i = 1; i <= hugeShift; i++) {
-					if (monitor.isCanceled()) {
-						throw new OperationCanceledException();
-					}
-					if (this.fHunk.tryPatch(configuration, lines, this.fShift + i, fuzz)) {
-						if (isAdjustShift())
-							this.fShift += i;
-						this.fMatches = true;
-						break;
-					}
-				}
-			}
-
-			if (this.fMatches) {
-				this.fShift += this.fHunk.doPatch(configuration, lines, this.fShift, fuzz);
+			if (shift(configuration, target, fuzz, monitor)) {
+				this.fMatches = true;
+				this.fShift += this.fHunk.doPatch(configuration, target, this.fShift, fuzz);
 				break;
 			}
 		}
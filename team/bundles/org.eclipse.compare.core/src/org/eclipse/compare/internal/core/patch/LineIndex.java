@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.internal.core.patch;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The lines of a file being patched, with the form in which they are compared
+ * to the lines of hunks and the positions of the hash of each such form, so
+ * that the positions where a hunk may apply are looked up instead of trying
+ * every position of the file.
+ * <p>
+ * The compared form of a line is computed once, even if the line moves when
+ * hunks are applied. The positions are computed on first use and must be
+ * invalidated whenever lines are added or removed.
+ * </p>
+ */
+class LineIndex {
+
+	private final List<String> lines;
+	private final boolean ignoreWhitespace;
+	/** line -> compared form, by identity as equal lines are usually distinct strings */
+	private final Map<String, String> keys;
+	/**
+	 * The hashes of the compared forms in the high and the positions in the low
+	 * bits, sorted, or <code>null</code> if not computed
+	 */
+	private long[] positions;
+
+	LineIndex(List<String> lines, boolean ignoreWhitespace) {
+		this.lines = lines;
+		this.ignoreWhitespace = ignoreWhitespace;
+		this.keys = new IdentityHashMap<>(lines.size());
+	}
+
+	List<String> getLines() {
+		return this.lines;
+	}
+
+	int size() {
+		return this.lines.size();
+	}
+
+	/**
+	 * Returns the compared form of the line at the given position.
+	 */
+	String getKey(int pos) {
+		return this.keys.computeIfAbsent(this.lines.get(pos), line -> toKey(line, this.ignoreWhitespace));
+	}
+
+	/**
+	 * Returns in ascending order the positions of the lines whose compared form
+	 * has the same hash as the given one, which include the positions of the
+	 * lines with the given compared form.
+	 */
+	int[] getPositions(String key) {
+		if (this.positions == null) {
+			this.positions = new long[this.lines.size()];
+			for (int i = 0; i < this.positions.length; i++) {
+				this.positions[i] = (long) hashKey(this.lines.get(i), this.ignoreWhitespace) << 32 | i;
+			}
+			Arrays.sort(this.positions);
+		}
+		long hash = (long) key.hashCode() << 32;
+		int start = Arrays.binarySearch(this.positions, hash);
+		if (start < 0)
+			start = -start - 1;
+		int end = start;
+		while (end < this.positions.length && (this.positions[end] & 0xFFFFFFFF00000000L) == hash)
+			end++;
+		int[] result = new int[end - start];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = (int) this.positions[start + i];
+		}
+		return result;
+	}
+
+	/**
+	 * Forgets the positions of the lines, after lines have been added or removed.
+	 */
+	void invalidate() {
+		this.positions = null;
+	}
+
+	/**
+	 * Returns the form in which the given line is compared: without whitespace if
+	 * whitespace is ignored, otherwise without line delimiter.
+	 */
+	static String toKey(String line, boolean ignoreWhitespace) {
+		if (ignoreWhitespace) {
+			StringBuilder sb = new StringBuilder();
+			int l = line.length();
+			for (int i = 0; i < l; i++) {
+				char c = line.charAt(i);
+				if (!Character.isWhitespace(c))
+					sb.append(c);
+			}
+			return sb.toString();
+		}
+		int length = LineReader.length(line);
+		return length == line.length() ? line : line.substring(0, length);
+	}
+
+	/**
+	 * Returns the hash code of the compared form of the given line, without
+	 * creating it.
+	 */
+	private static int hashKey(String line, boolean ignoreWhitespace) {
+		int length = ignoreWhitespace ? line.length() : LineReader.length(line);
+		int hash = 0;
+		for (int i = 0; i < length; i++) {
+			char c = line.charAt(i);
+			if (!ignoreWhitespace || !Character.isWhitespace(c))
+				hash = 31 * hash + c;
+		}
+		return hash;
+	}
+}
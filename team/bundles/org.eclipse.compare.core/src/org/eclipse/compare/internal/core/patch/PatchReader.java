@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2018 IBM Corporation and others.
+ * Copyright (c) 2006, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -47,6 +47,18 @@ public class PatchReader {
 	private DiffProject[] fDiffProjects;
 	private FilePatch2[] fDiffs;
 
+	// state of the patch being read
+	private LineReader fLineReader;
+	private String fLine;
+	private boolean fReread;
+	private String fProjectName;
+	private Map<String, DiffProject> fProjects;
+	private String fDiffArgs;
+	private String fFileName;
+	private List<String> fHeaderLines;
+	private boolean fFoundDiff;
+	private FilePatch2 fLastDiff;
+
 	// API for writing new multi-project patch format
 	public static final String MULTIPROJECTPATCH_HEADER= "### Eclipse Workspace Patch"; //$NON-NLS-1$
 
@@ -76,75 +88,143 @@ public class PatchReader {
 	}
 
 	public void parse(BufferedReader reader) throws IOException {
-		List<FilePatch2> diffs= new ArrayList<>();
-		HashMap<String, DiffProject> diffProjects= new HashMap<>(4);
-		boolean reread= false;
-		String diffArgs= null;
-		String fileName= null;
-		// no project means this is a single patch,create a placeholder project for now
-		// which will be replaced by the target selected by the user in the preview pane
-		String projectName= ""; //$NON-NLS-1$
-		this.fIsWorkspacePatch= false;
-		this.fIsGitPatch = false;
+		start(reader);
+		readAll();
+	}
 
+	/**
+	 * Starts reading the given patch, one file diff at a time. The file diffs
+	 * are then returned by {@link #nextDiff()}, so that only the one being
+	 * processed has to be kept in memory.
+	 *
+	 * @param reader
+	 *            the patch
+	 * @throws IOException
+	 *             if the patch cannot be read
+	 */
+	public void start(BufferedReader reader) throws IOException {
 		LineReader lr= new LineReader(reader);
 		lr.ignoreSingleCR(); // Don't treat single CRs as line feeds to be consistent with command line patch
 		// Test for our format
 		String line= lr.readLine();
-		if (line != null && line.startsWith(PatchReader.MULTIPROJECTPATCH_HEADER)) {
-			this.fIsWorkspacePatch= true;
-		} else {
-			parse(lr, line);
-			return;
-		}
+		start(lr, line, line != null && line.startsWith(PatchReader.MULTIPROJECTPATCH_HEADER));
+	}
 
-		// read leading garbage
+	private void start(LineReader lr, String line, boolean isWorkspacePatch) {
+		this.fLineReader= lr;
+		// a workspace patch starts with a line that isn't part of any diff
+		this.fLine= line;
+		this.fReread= line != null && !isWorkspacePatch;
+		// no project means this is a single patch,create a placeholder project for now
+		// which will be replaced by the target selected by the user in the preview pane
+		this.fProjectName= ""; //$NON-NLS-1$
+		this.fProjects= new HashMap<>(4);
+		this.fDiffArgs= null;
+		this.fFileName= null;
+		this.fHeaderLines= new ArrayList<>();
+		this.fFoundDiff= false;
+		this.fLastDiff= null;
+		this.fIsWorkspacePatch= isWorkspacePatch;
+		this.fIsGitPatch= false;
+	}
+
+	/**
+	 * Returns the next file diff of the patch being read, adjusted like the
+	 * ones returned by {@link #getAdjustedDiffs()}. A file diff returned is only
+	 * kept by this reader until the next one is read, and isn't kept by the
+	 * projects of a workspace patch.
+	 *
+	 * @return the next file diff, or <code>null</code> if the end of the patch
+	 *         has been reached
+	 * @throws IOException
+	 *             if the patch cannot be read
+	 */
+	public FilePatch2 nextDiff() throws IOException {
+		FilePatch2 diff= readDiff();
+		if (diff == null)
+			return null;
+		if (!isWorkspacePatch())
+			return diff;
+		FilePatch2 adjusted= diff.asRelativeDiff();
+		diff.getProject().remove(diff);
+		return adjusted;
+	}
+
+	private void readAll() throws IOException {
+		List<FilePatch2> diffs= new ArrayList<>();
+		FilePatch2 diff;
+		while ((diff= readDiff()) != null)
+			diffs.add(diff);
+		if (this.fIsWorkspacePatch)
+			this.fDiffProjects= this.fProjects.values().toArray(new DiffProject[this.fProjects.size()]);
+		this.fDiffs = diffs.toArray(new FilePatch2[diffs.size()]);
+	}
+
+	/*
+	 * Returns the next file diff, or null at the end of the patch
+	 */
+	private FilePatch2 readDiff() throws IOException {
+		if (this.fLineReader == null)
+			return null;
 		while (true) {
-			if (!reread)
-				line= lr.readLine();
-			reread= false;
-			if (line == null)
+			if (!this.fReread)
+				this.fLine= this.fLineReader.readLine();
+			this.fReread= false;
+			if (this.fLine == null)
 				break;
-			if (line.length() < 4)
-				continue; // too short
+			FilePatch2 diff= this.fIsWorkspacePatch ? readWorkspaceDiff() : readSingleDiff();
+			if (diff != null)
+				return diff;
+		}
 
-			if (line.startsWith(PatchReader.MULTIPROJECTPATCH_PROJECT)) {
-				projectName= line.substring(2).trim();
-				continue;
-			}
+		this.fLineReader.close();
+		this.fLineReader= null;
+		return null;
+	}
 
-			if (line.startsWith("Index: ")) { //$NON-NLS-1$
-				fileName= line.substring(7).trim();
-				continue;
-			}
-			if (line.startsWith("diff")) { //$NON-NLS-1$
-				diffArgs= line.substring(4).trim();
-				continue;
-			}
+	/*
+	 * Reads the diff starting at the current line of a workspace patch, if any
+	 */
+	private FilePatch2 readWorkspaceDiff() throws IOException {
+		String line= this.fLine;
+		// read leading garbage
+		if (line.length() < 4)
+			return null; // too short
 
-			if (line.startsWith("--- ")) { //$NON-NLS-1$
-				// if there is no current project or
-				// the current project doesn't equal the newly parsed project
-				// reset the current project to the newly parsed one, create a new DiffProject
-				// and add it to the array
-				DiffProject diffProject;
-				if (!diffProjects.containsKey(projectName)) {
-					diffProject= new DiffProject(projectName);
-					diffProjects.put(projectName, diffProject);
-				} else {
-					diffProject= diffProjects.get(projectName);
-				}
+		if (line.startsWith(PatchReader.MULTIPROJECTPATCH_PROJECT)) {
+			this.fProjectName= line.substring(2).trim();
+			return null;
+		}
 
-				line= readUnifiedDiff(diffs, lr, line, diffArgs, fileName, diffProject);
-				diffArgs= fileName= null;
-				reread= true;
-			}
+		if (line.startsWith("Index: ")) { //$NON-NLS-1$
+			this.fFileName= line.substring(7).trim();
+			return null;
+		}
+		if (line.startsWith("diff")) { //$NON-NLS-1$
+			this.fDiffArgs= line.substring(4).trim();
+			return null;
 		}
 
-		lr.close();
+		if (line.startsWith("--- ")) { //$NON-NLS-1$
+			// if there is no current project or
+			// the current project doesn't equal the newly parsed project
+			// reset the current project to the newly parsed one, create a new DiffProject
+			// and add it to the array
+			DiffProject diffProject;
+			if (!this.fProjects.containsKey(this.fProjectName)) {
+				diffProject= new DiffProject(this.fProjectName);
+				this.fProjects.put(this.fProjectName, diffProject);
+			} else {
+				diffProject= this.fProjects.get(this.fProjectName);
+			}
 
-		this.fDiffProjects= diffProjects.values().toArray(new DiffProject[diffProjects.size()]);
-		this.fDiffs = diffs.toArray(new FilePatch2[diffs.size()]);
+			List<FilePatch2> diffs= new ArrayList<>(1);
+			this.fLine= readUnifiedDiff(diffs, this.fLineReader, line, this.fDiffArgs, this.fFileName, diffProject);
+			this.fDiffArgs= this.fFileName= null;
+			this.fReread= true;
+			return diffs.isEmpty() ? null : diffs.get(0);
+		}
+		return null;
 	}
 
 	protected FilePatch2 createFileDiff(IPath oldPath, long oldDate,
@@ -163,53 +243,45 @@ public class PatchReader {
 	}
 
 	public void parse(LineReader lr, String line) throws IOException {
-		List<FilePatch2> diffs= new ArrayList<>();
-		boolean reread= line!=null;
-		String diffArgs= null;
-		String fileName= null;
-		List<String> headerLines = new ArrayList<>();
-		boolean foundDiff= false;
-
-		while (true) {
-			// read leading garbage
-			if (!reread)
-				line= lr.readLine();
-			reread= false;
-			if (line == null)
-				break;
-
-			// remember some infos
-			if (line.startsWith("Index: ")) { //$NON-NLS-1$
-				fileName= line.substring(7).trim();
-			} else if (line.startsWith("diff")) { //$NON-NLS-1$
-				if (!foundDiff && GIT_PATCH_PATTERN.matcher(line).matches())
-					this.fIsGitPatch= true;
-				foundDiff= true;
-				diffArgs= line.substring(4).trim();
-			} else if (line.startsWith("--- ")) { //$NON-NLS-1$
-				line= readUnifiedDiff(diffs, lr, line, diffArgs, fileName);
-				if (!headerLines.isEmpty())
-					setHeader(diffs.get(diffs.size() - 1), headerLines);
-				diffArgs= fileName= null;
-				reread= true;
-			} else if (line.startsWith("*** ")) { //$NON-NLS-1$
-				line= readContextDiff(diffs, lr, line, diffArgs, fileName);
-				if (!headerLines.isEmpty())
-					setHeader(diffs.get(diffs.size() - 1), headerLines);
-				diffArgs= fileName= null;
-				reread= true;
-			}
+		start(lr, line, false);
+		readAll();
+	}
 
-			// Any lines we read here are header lines.
-			// However, if reread is set, we will add them to the header on the next pass through
-			if (!reread) {
-				headerLines.add(line);
-			}
+	/*
+	 * Reads the diff starting at the current line of a patch, if any
+	 */
+	private FilePatch2 readSingleDiff() throws IOException {
+		String line= this.fLine;
+		List<FilePatch2> diffs= new ArrayList<>(1);
+		// remember some infos
+		if (line.startsWith("Index: ")) { //$NON-NLS-1$
+			this.fFileName= line.substring(7).trim();
+		} else if (line.startsWith("diff")) { //$NON-NLS-1$
+			if (!this.fFoundDiff && GIT_PATCH_PATTERN.matcher(line).matches())
+				this.fIsGitPatch= true;
+			this.fFoundDiff= true;
+			this.fDiffArgs= line.substring(4).trim();
+		} else if (line.startsWith("--- ")) { //$NON-NLS-1$
+			this.fLine= readUnifiedDiff(diffs, this.fLineReader, line, this.fDiffArgs, this.fFileName);
+			this.fReread= true;
+		} else if (line.startsWith("*** ")) { //$NON-NLS-1$
+			this.fLine= readContextDiff(diffs, this.fLineReader, line, this.fDiffArgs, this.fFileName);
+			this.fReread= true;
 		}
 
-		lr.close();
+		// Any lines we read here are header lines.
+		// However, if reread is set, we will add them to the header on the next pass through
+		if (!this.fReread) {
+			this.fHeaderLines.add(line);
+			return null;
+		}
 
-		this.fDiffs = diffs.toArray(new FilePatch2[diffs.size()]);
+		if (!diffs.isEmpty())
+			this.fLastDiff= diffs.get(0);
+		if (!this.fHeaderLines.isEmpty() && this.fLastDiff != null)
+			setHeader(this.fLastDiff, this.fHeaderLines);
+		this.fDiffArgs= this.fFileName= null;
+		return diffs.isEmpty() ? null : this.fLastDiff;
 	}
 
 	private void setHeader(FilePatch2 diff, List<String> headerLines) {
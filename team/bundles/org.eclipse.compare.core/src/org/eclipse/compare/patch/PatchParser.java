@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2011 IBM Corporation and others.
+ * Copyright (c) 2008, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,8 +15,11 @@ package org.eclipse.compare.patch;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.eclipse.compare.internal.core.CompareSettings;
+import org.eclipse.compare.internal.core.patch.FilePatch2;
 import org.eclipse.compare.internal.core.patch.PatchReader;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
@@ -44,8 +47,15 @@ public class PatchParser {
 		BufferedReader reader = new BufferedReader(content.createReader());
 		try {
 			PatchReader patchReader = new PatchReader();
-			patchReader.parse(reader);
-			return patchReader.getAdjustedDiffs();
+			// read the file diffs one at a time, so that the diffs of a
+			// workspace patch aren't kept twice while they are adjusted
+			patchReader.start(reader);
+			List<IFilePatch2> diffs = new ArrayList<>();
+			FilePatch2 diff;
+			while ((diff = patchReader.nextDiff()) != null) {
+				diffs.add(diff);
+			}
+			return diffs.toArray(new IFilePatch2[diffs.size()]);
 		} catch (IOException e) {
 			throw new CoreException(new Status(IStatus.ERROR,
 					CompareSettings.PLUGIN_ID, 0, e.getMessage(), e));
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.rangedifferencer;
+
+/**
+ * The algorithms that a <code>RangeDifferencer</code> can use to find the
+ * differences between two <code>IRangeComparator</code>s.
+ *
+ * @see RangeDifferencer
+ * @since 3.8
+ */
+public enum DiffAlgorithm {
+
+	/**
+	 * Myers' longest common subsequence algorithm. On very long inputs its
+	 * running time is bounded, at the expense of the quality of the differences,
+	 * unless capping is disabled in the compare preferences.
+	 */
+	MYERS,
+
+	/**
+	 * The histogram algorithm, which matches the least frequent ranges of both
+	 * sides first, like the patience algorithm. It runs in linear memory and is
+	 * typically much faster than {@link #MYERS} on long inputs, and it tends to
+	 * keep blocks of code together. It requires both comparators to implement
+	 * {@link IHashedRangeComparator}; other comparators are compared with
+	 * {@link #MYERS}.
+	 */
+	HISTOGRAM
+}
@@ -0,0 +1,423 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.rangedifferencer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.compare.internal.core.Messages;
+import org.eclipse.core.runtime.*;
+
+/**
+ * Finds the differences between the lines of two files in bounded memory.
+ * <p>
+ * The files are read through a few small blocks each and never decoded, and
+ * they are closed when the comparison ends: lines are separated by
+ * <code>'\n'</code>, <code>'\r'</code> or <code>"\r\n"</code> and compared
+ * byte by byte. The common prefix and suffix are skipped line by line. The
+ * remaining lines are read into windows of at most {@link #WINDOW_SIZE} lines
+ * per side, holding the offset, length and hash code of each line, and the
+ * windows are compared with the histogram algorithm. When the changed region
+ * does not fit in one window, the differences found in the first half of the
+ * windows are kept and the windows are moved past them, so differences
+ * spanning windows may be larger than necessary.
+ * </p>
+ */
+/* package */ class FileLineDifferencer {
+
+	/** The maximum number of lines of each side compared at once */
+	static final int WINDOW_SIZE = 1 << 16;
+
+	private final AbstractRangeDifferenceFactory factory;
+	private final BufferedFile leftFile, rightFile;
+	private final int windowSize;
+	private final List<RangeDifference> differences = new ArrayList<>();
+
+	public static RangeDifference[] findDifferences(AbstractRangeDifferenceFactory factory, IProgressMonitor pm, Path left, Path right) throws IOException {
+		try (BufferedFile leftFile = new BufferedFile(left); BufferedFile rightFile = new BufferedFile(right)) {
+			return new FileLineDifferencer(factory, leftFile, rightFile, WINDOW_SIZE).findDifferences(pm);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	FileLineDifferencer(AbstractRangeDifferenceFactory factory, BufferedFile leftFile, BufferedFile rightFile, int windowSize) {
+		this.factory = factory;
+		this.leftFile = leftFile;
+		this.rightFile = rightFile;
+		this.windowSize = windowSize;
+	}
+
+	RangeDifference[] findDifferences(IProgressMonitor pm) {
+		SubMonitor monitor = SubMonitor.convert(pm, Messages.RangeComparatorLCS_0, 100);
+		try {
+			LineReader left = new LineReader(leftFile);
+			LineReader right = new LineReader(rightFile);
+
+			// skip the common prefix
+			int prefixLines = 0;
+			while (!left.isDone() && !right.isDone()) {
+				long leftPosition = left.position, rightPosition = right.position;
+				left.next();
+				right.next();
+				if (!left.sameLine(right)) {
+					left.position = leftPosition;
+					left.done = false;
+					right.position = rightPosition;
+					right.done = false;
+					break;
+				}
+				if ((++prefixLines & 0xFFF) == 0 && monitor.isCanceled())
+					throw new OperationCanceledException();
+			}
+			if (left.isDone() && right.isDone())
+				return new RangeDifference[0];
+
+			// skip the common suffix, the middle lines of each side end before the limit
+			if (!left.isDone() && !right.isDone()) {
+				long leftEnd = leftFile.size, rightEnd = rightFile.size;
+				int suffixLines = 0;
+				while (true) {
+					long leftStart = leftFile.lineStart(leftEnd, left.position);
+					long rightStart = rightFile.lineStart(rightEnd, right.position);
+					if (leftEnd - leftStart != rightEnd - rightStart
+							|| !leftFile.sameBytes(leftStart, rightFile, rightStart, leftEnd - leftStart))
+						break;
+					left.limit = leftStart;
+					right.limit = rightStart;
+					if (leftStart == left.position || rightStart == right.position)
+						break;
+					leftEnd = leftFile.previousLineEnd(leftStart);
+					rightEnd = rightFile.previousLineEnd(rightStart);
+					if ((++suffixLines & 0xFFF) == 0 && monitor.isCanceled())
+						throw new OperationCanceledException();
+				}
+			}
+			monitor.worked(10);
+
+			compareMiddle(monitor.newChild(90), new Window(left, prefixLines), new Window(right, prefixLines));
+			return differences.toArray(new RangeDifference[differences.size()]);
+		} finally {
+			if (pm != null)
+				pm.done();
+		}
+	}
+
+	private void compareMiddle(SubMonitor monitor, Window left, Window right) {
+		long total = left.reader.remaining() + right.reader.remaining();
+		monitor.beginTask(null, (int) Math.min(total >>> 10, Integer.MAX_VALUE));
+		while (true) {
+			if (monitor.isCanceled())
+				throw new OperationCanceledException();
+			left.fill();
+			right.fill();
+			boolean last = left.reader.isDone() && right.reader.isDone();
+			RangeDifference[] diffs = RangeComparatorHistogram.findDifferences(factory, null, left, right);
+			if (last) {
+				for (RangeDifference diff : diffs) {
+					add(left, right, diff.leftStart(), diff.leftEnd(), diff.rightStart(), diff.rightEnd());
+				}
+				return;
+			}
+
+			// keep the differences in the first half of the windows, the others may
+			// change once more lines are read
+			int leftLimit = left.reader.isDone() ? left.count : left.count / 2;
+			int rightLimit = right.reader.isDone() ? right.count : right.count / 2;
+			int leftCut = 0, rightCut = 0;
+			for (RangeDifference diff : diffs) {
+				if (diff.leftEnd() > leftLimit || diff.rightEnd() > rightLimit) {
+					if (leftCut == 0 && rightCut == 0) {
+						// continue after the common lines before the difference, or give up
+						// and report the first half of the windows as changed
+						if (diff.leftStart() > 0 || diff.rightStart() > 0) {
+							leftCut = diff.leftStart();
+							rightCut = diff.rightStart();
+						} else {
+							leftCut = leftLimit;
+							rightCut = rightLimit;
+							add(left, right, 0, leftCut, 0, rightCut);
+						}
+					}
+					break;
+				}
+				add(left, right, diff.leftStart(), diff.leftEnd(), diff.rightStart(), diff.rightEnd());
+				leftCut = diff.leftEnd();
+				rightCut = diff.rightEnd();
+			}
+			if (leftCut == 0 && rightCut == 0) {
+				// no difference in the first half, move past the common lines
+				leftCut = rightCut = Math.min(leftLimit, rightLimit);
+			}
+			long bytes = left.consume(leftCut) + right.consume(rightCut);
+			monitor.worked((int) (bytes >>> 10));
+		}
+	}
+
+	/**
+	 * Adds a difference given in window indices, merging it with the previous one
+	 * if they are adjacent.
+	 */
+	private void add(Window left, Window right, int leftStart, int leftEnd, int rightStart, int rightEnd) {
+		if (leftStart == leftEnd && rightStart == rightEnd)
+			return;
+		int start = left.first + leftStart;
+		int otherStart = right.first + rightStart;
+		if (!differences.isEmpty()) {
+			RangeDifference previous = differences.get(differences.size() - 1);
+			if (previous.leftEnd() == start && previous.rightEnd() == otherStart) {
+				previous.leftLength += leftEnd - leftStart;
+				previous.rightLength += rightEnd - rightStart;
+				return;
+			}
+		}
+		differences.add(factory.createRangeDifference(RangeDifference.CHANGE, otherStart, rightEnd - rightStart, start, leftEnd - leftStart));
+	}
+
+	/**
+	 * A read only file whose bytes are read through a small cache of blocks. The
+	 * lines are mostly read in order, so a few blocks per file are enough.
+	 */
+	static final class BufferedFile implements Closeable {
+		private static final int BLOCK_SHIFT = 16;
+		private static final long BLOCK_MASK = (1L << BLOCK_SHIFT) - 1;
+		/** The number of blocks cached, a power of two */
+		private static final int CACHED_BLOCKS = 16;
+
+		final long size;
+		private final FileChannel channel;
+		private final byte[][] blocks = new byte[CACHED_BLOCKS][1 << BLOCK_SHIFT];
+		/** The index of the block held by each cache slot, -1 if none */
+		private final long[] blockIndexes = new long[CACHED_BLOCKS];
+
+		BufferedFile(Path path) throws IOException {
+			channel = FileChannel.open(path, StandardOpenOption.READ);
+			try {
+				size = channel.size();
+			} catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+			Arrays.fill(blockIndexes, -1);
+		}
+
+		/**
+		 * Returns the byte at the given position.
+		 *
+		 * @throws UncheckedIOException if the file cannot be read
+		 */
+		byte get(long position) {
+			long block = position >>> BLOCK_SHIFT;
+			int slot = (int) (block & (CACHED_BLOCKS - 1));
+			if (blockIndexes[slot] != block)
+				load(slot, block);
+			return blocks[slot][(int) (position & BLOCK_MASK)];
+		}
+
+		private void load(int slot, long block) {
+			ByteBuffer buffer = ByteBuffer.wrap(blocks[slot]);
+			long start = block << BLOCK_SHIFT;
+			blockIndexes[slot] = -1;
+			try {
+				while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+					// read until the block is full or the file ends
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			blockIndexes[slot] = block;
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+
+		boolean sameBytes(long position, BufferedFile other, long otherPosition, long length) {
+			for (long i = 0; i < length; i++) {
+				if (get(position + i) != other.get(otherPosition + i))
+					return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Returns the start of the line ending at the given position, not before the
+		 * given floor.
+		 */
+		long lineStart(long end, long floor) {
+			long start = end;
+			while (start > floor && !isLineBreak(get(start - 1))) {
+				start--;
+			}
+			return start;
+		}
+
+		/**
+		 * Returns the end of the line before the line starting at the given position.
+		 */
+		long previousLineEnd(long start) {
+			if (start >= 2 && get(start - 1) == '\n' && get(start - 2) == '\r')
+				return start - 2;
+			return start - 1;
+		}
+
+		/**
+		 * Returns the start of the line after the line ending at the given position,
+		 * or the size of the file if it is the last line.
+		 */
+		long nextLineStart(long end) {
+			if (end == size)
+				return size;
+			if (get(end) == '\r' && end + 1 < size && get(end + 1) == '\n')
+				return end + 2;
+			return end + 1;
+		}
+
+		private static boolean isLineBreak(byte b) {
+			return b == '\n' || b == '\r';
+		}
+	}
+
+	/**
+	 * Reads the lines of a file forward, up to the line starting at the limit.
+	 */
+	private static final class LineReader {
+		final BufferedFile file;
+		/** The start of the next line */
+		long position;
+		/** Whether the last line has been read */
+		boolean done;
+		/** The start of the first line not to read, -1 to read all lines */
+		long limit = -1;
+
+		/** The last line read */
+		long start, end;
+		int hash;
+
+		LineReader(BufferedFile file) {
+			this.file = file;
+		}
+
+		boolean isDone() {
+			return done || position == limit;
+		}
+
+		long remaining() {
+			return (limit == -1 ? file.size : limit) - position;
+		}
+
+		void next() {
+			start = position;
+			int h = 0;
+			long i = position;
+			byte b = 0;
+			while (i < file.size && (b = file.get(i)) != '\n' && b != '\r') {
+				h = 31 * h + b;
+				i++;
+			}
+			end = i;
+			hash = h;
+			if (i == file.size) {
+				position = i;
+				done = true;
+			} else {
+				position = file.nextLineStart(i);
+			}
+		}
+
+		boolean sameLine(LineReader other) {
+			return hash == other.hash && end - start == other.end - other.start
+					&& file.sameBytes(start, other.file, other.start, end - start);
+		}
+	}
+
+	/**
+	 * The next lines of one side, as compared with the histogram algorithm.
+	 */
+	private final class Window implements IHashedRangeComparator {
+		final LineReader reader;
+		/** The line number of the first line of the window */
+		int first;
+		int count;
+		private final long[] starts = new long[windowSize];
+		private final long[] lengths = new long[windowSize];
+		private final int[] hashes = new int[windowSize];
+
+		Window(LineReader reader, int first) {
+			this.reader = reader;
+			this.first = first;
+		}
+
+		/**
+		 * Reads lines until the window is full or all lines are read.
+		 */
+		void fill() {
+			while (count < windowSize && !reader.isDone()) {
+				reader.next();
+				starts[count] = reader.start;
+				lengths[count] = reader.end - reader.start;
+				hashes[count] = reader.hash;
+				count++;
+			}
+		}
+
+		/**
+		 * Removes the given number of lines from the start of the window.
+		 *
+		 * @return the number of bytes of the lines removed
+		 */
+		long consume(int lines) {
+			if (lines == 0)
+				return 0;
+			long bytes = (lines < count ? starts[lines] : reader.position) - starts[0];
+			System.arraycopy(starts, lines, starts, 0, count - lines);
+			System.arraycopy(lengths, lines, lengths, 0, count - lines);
+			System.arraycopy(hashes, lines, hashes, 0, count - lines);
+			count -= lines;
+			first += lines;
+			return bytes;
+		}
+
+		@Override
+		public int getRangeCount() {
+			return count;
+		}
+
+		@Override
+		public boolean rangesEqual(int thisIndex, IRangeComparator other, int otherIndex) {
+			Window window = (Window) other;
+			return hashes[thisIndex] == window.hashes[otherIndex] && lengths[thisIndex] == window.lengths[otherIndex]
+					&& reader.file.sameBytes(starts[thisIndex], window.reader.file, window.starts[otherIndex], lengths[thisIndex]);
+		}
+
+		@Override
+		public boolean skipRangeComparison(int length, int maxLength, IRangeComparator other) {
+			return false;
+		}
+
+		@Override
+		public int rangeHashCode(int index) {
+			return hashes[index];
+		}
+	}
+}
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.rangedifferencer;
+
+/**
+ * An <code>IRangeComparator</code> that can compute a hash code for each of
+ * its ranges.
+ * <p>
+ * Hash codes let the {@link DiffAlgorithm#HISTOGRAM histogram} differencer
+ * find equal ranges without comparing every range with every other range. Two
+ * ranges that are equal according to
+ * {@link IRangeComparator#rangesEqual(int, IRangeComparator, int)
+ * rangesEqual} must have the same hash code, both within a comparator and
+ * across the comparators that are compared with each other. Ranges with the
+ * same hash code are still compared with <code>rangesEqual</code>.
+ * </p>
+ *
+ * @see RangeDifferencer
+ * @since 3.8
+ */
+public interface IHashedRangeComparator extends IRangeComparator {
+
+	/**
+	 * Returns the hash code of the range with the given index.
+	 *
+	 * @param index the index of the range
+	 * @return the hash code of the range
+	 */
+	int rangeHashCode(int index);
+}
@@ -0,0 +1,466 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.rangedifferencer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.eclipse.compare.internal.core.CompareSettings;
+import org.eclipse.compare.internal.core.LCS;
+import org.eclipse.compare.internal.core.Messages;
+import org.eclipse.core.runtime.*;
+
+/**
+ * Finds the differences between two comparators with the histogram algorithm.
+ * <p>
+ * The ranges of both comparators are first replaced by the number of their
+ * equivalence class, found by hashing every range once. Then, in each region
+ * left to compare, the longest run of equal ranges that contains the range
+ * occurring least often on the left side is matched, and the regions before and
+ * after that run are compared the same way. Regions whose ranges all occur too
+ * often are compared with Myers' algorithm instead.
+ * </p>
+ * <p>
+ * Only the classification calls the comparators, which need not be thread safe.
+ * As the regions split at the matched runs are independent, large ones are then
+ * compared in parallel; the result does not depend on the order in which the
+ * regions are compared.
+ * </p>
+ */
+/* package */ class RangeComparatorHistogram {
+
+	/**
+	 * Regions in which every common range occurs more often than this on the left
+	 * side are compared with Myers' algorithm
+	 */
+	private static final int MAX_CHAIN_LENGTH = 64;
+
+	/**
+	 * Gives up hashing if that many different ranges have the same hash code, as
+	 * the comparators then probably do not compute useful hash codes
+	 */
+	private static final int MAX_COLLISIONS = 64;
+
+	/**
+	 * Regions with at least that many ranges on both sides are compared in
+	 * parallel
+	 */
+	private static final int PARALLEL_THRESHOLD = 8192;
+
+	public static RangeDifference[] findDifferences(AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator left, IRangeComparator right) {
+		if (!(left instanceof IHashedRangeComparator) || !(right instanceof IHashedRangeComparator))
+			return RangeComparatorLCS.findDifferences(factory, pm, left, right);
+		SubMonitor monitor = SubMonitor.convert(pm, Messages.RangeComparatorLCS_0, 100);
+		try {
+			Classes classes = Classes.classify(monitor.newChild(20), (IHashedRangeComparator) left, (IHashedRangeComparator) right);
+			if (classes == null)
+				return RangeComparatorLCS.findDifferences(factory, monitor.newChild(80), left, right);
+			Matcher matcher = new Matcher(classes, 0, 1, monitor);
+			if (isParallel(left, right))
+				ForkJoinPool.commonPool().invoke(matcher.newTask());
+			else
+				matcher.match(monitor.newChild(75));
+			return matcher.getDifferences(factory);
+		} finally {
+			if (pm != null)
+				pm.done();
+		}
+	}
+
+	/**
+	 * Finds the differences between the ancestor and each side, in parallel for
+	 * long inputs.
+	 *
+	 * @return the differences between the ancestor and the right side and between
+	 *         the ancestor and the left side, as found by
+	 *         {@link #findDifferences(AbstractRangeDifferenceFactory, IProgressMonitor, IRangeComparator, IRangeComparator)},
+	 *         or <code>null</code> if the comparators cannot be hashed
+	 */
+	static RangeDifference[][] findDifferences(AbstractRangeDifferenceFactory factory, SubMonitor monitor, IRangeComparator ancestor, IRangeComparator left, IRangeComparator right) {
+		if (!(ancestor instanceof IHashedRangeComparator) || !(left instanceof IHashedRangeComparator)
+				|| !(right instanceof IHashedRangeComparator))
+			return null;
+		monitor.setWorkRemaining(100);
+		// the ancestor is only hashed once for both sides
+		Classes classes = Classes.classify(monitor.newChild(30), (IHashedRangeComparator) ancestor, (IHashedRangeComparator) right, (IHashedRangeComparator) left);
+		if (classes == null)
+			return null;
+		Matcher rightMatcher = new Matcher(classes, 0, 1, monitor);
+		Matcher leftMatcher = new Matcher(classes, 0, 2, monitor);
+		if (isParallel(ancestor, right) || isParallel(ancestor, left)) {
+			ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					invokeAll(rightMatcher.newTask(), leftMatcher.newTask());
+				}
+			});
+		} else {
+			rightMatcher.match(monitor.newChild(35));
+			leftMatcher.match(monitor.newChild(35));
+		}
+		monitor.setWorkRemaining(0);
+		return new RangeDifference[][] { rightMatcher.getDifferences(factory), leftMatcher.getDifferences(factory) };
+	}
+
+	private static boolean isParallel(IRangeComparator comparator1, IRangeComparator comparator2) {
+		return !CompareSettings.getDefault().isParallelismDisabled()
+				&& Math.min(comparator1.getRangeCount(), comparator2.getRangeCount()) >= PARALLEL_THRESHOLD;
+	}
+
+	/**
+	 * The equivalence classes of the ranges of several comparators.
+	 */
+	private static final class Classes {
+		/** The equivalence class of each range of each comparator */
+		final int[][] classes;
+		final int count;
+
+		private Classes(int[][] classes, int count) {
+			this.classes = classes;
+			this.count = count;
+		}
+
+		/**
+		 * Computes the equivalence class of every range.
+		 *
+		 * @return <code>null</code> if too many different ranges have the same hash
+		 *         code
+		 */
+		static Classes classify(SubMonitor subMonitor, IHashedRangeComparator... comparators) {
+			int total = 0;
+			for (IHashedRangeComparator comparator : comparators) {
+				total += comparator.getRangeCount();
+			}
+			subMonitor.beginTask(null, total);
+			int size = Integer.highestOneBit(Math.max(total, 8)) * 4;
+			// open addressing hash table: hash code -> last class with that hash code
+			int[] tableHashes = new int[size];
+			int[] tableClasses = new int[size];
+			Arrays.fill(tableClasses, -1);
+			// for each class, the comparator and the range it was created for, and the
+			// previous class with the same hash code
+			int[] representativeComparators = new int[total];
+			int[] representatives = new int[total];
+			int[] nextClasses = new int[total];
+			int count = 0;
+
+			int[][] classes = new int[comparators.length][];
+			for (int k = 0; k < comparators.length; k++) {
+				IHashedRangeComparator comparator = comparators[k];
+				int length = comparator.getRangeCount();
+				classes[k] = new int[length];
+				for (int index = 0; index < length; index++) {
+					int hash = comparator.rangeHashCode(index);
+					int slot = mix(hash) & (size - 1);
+					while (tableClasses[slot] != -1 && tableHashes[slot] != hash) {
+						slot = (slot + 1) & (size - 1);
+					}
+					int found = -1;
+					int collisions = 0;
+					for (int c = tableClasses[slot]; c != -1; c = nextClasses[c]) {
+						if (comparators[representativeComparators[c]].rangesEqual(representatives[c], comparator, index)) {
+							found = c;
+							break;
+						}
+						if (++collisions > MAX_COLLISIONS)
+							return null;
+					}
+					if (found == -1) {
+						found = count++;
+						representativeComparators[found] = k;
+						representatives[found] = index;
+						nextClasses[found] = tableClasses[slot];
+						tableHashes[slot] = hash;
+						tableClasses[slot] = found;
+					}
+					classes[k][index] = found;
+					if ((index & 0xFFF) == 0)
+						worked(subMonitor, Math.min(0x1000, length - index));
+				}
+			}
+			return new Classes(classes, count);
+		}
+
+		private static int mix(int hash) {
+			// spread the bits of poor hash codes such as small numbers
+			int h = hash * 0x9E3779B9;
+			return h ^ (h >>> 16);
+		}
+	}
+
+	/**
+	 * Matches the ranges of two comparators.
+	 */
+	private static final class Matcher {
+		private final int[] classes1, classes2;
+		private final int classCount;
+		private final IProgressMonitor monitor;
+
+		/** The index of the range of comparator2 matched with each range of comparator1, or -1 */
+		final int[] matches;
+		/** The next index in the same class for each index of comparator1 */
+		private final int[] nexts;
+
+		/**
+		 * Arrays indexed by class: the first index of a region of comparator1 in that
+		 * class and the number of ranges of that region in that class; one pair per
+		 * thread matching regions, all -1 and 0 when not in use
+		 */
+		private final Queue<int[][]> scratches = new ConcurrentLinkedQueue<>();
+
+		Matcher(Classes classes, int side1, int side2, IProgressMonitor monitor) {
+			this.classes1 = classes.classes[side1];
+			this.classes2 = classes.classes[side2];
+			this.classCount = classes.count;
+			this.monitor = monitor;
+			this.matches = new int[classes1.length];
+			Arrays.fill(matches, -1);
+			this.nexts = new int[classes1.length];
+		}
+
+		void match(SubMonitor subMonitor) {
+			subMonitor.beginTask(null, classes1.length);
+			matchRegions(new int[] { 0, classes1.length, 0, classes2.length }, null, subMonitor);
+		}
+
+		ForkJoinTask<?> newTask() {
+			return new RegionTask(new int[] { 0, classes1.length, 0, classes2.length });
+		}
+
+		/**
+		 * Matches the ranges of a region and of the regions it is split into, forking
+		 * tasks for the large ones if <code>forked</code> is not <code>null</code>.
+		 * Progress is only reported to <code>subMonitor</code>, if not
+		 * <code>null</code>, by the thread that created it.
+		 */
+		void matchRegions(int[] first, List<RegionTask> forked, SubMonitor subMonitor) {
+			int[][] scratch = scratches.poll();
+			if (scratch == null) {
+				scratch = new int[2][classCount];
+				Arrays.fill(scratch[0], -1);
+			}
+			try {
+				Deque<int[]> regions = new ArrayDeque<>();
+				regions.push(first);
+				while (!regions.isEmpty()) {
+					if (monitor.isCanceled())
+						throw new OperationCanceledException();
+					int[] region = regions.pop();
+					if (forked != null && region != first
+							&& Math.min(region[1] - region[0], region[3] - region[2]) >= PARALLEL_THRESHOLD) {
+						RegionTask task = new RegionTask(region);
+						task.fork();
+						forked.add(task);
+					} else {
+						int matched = matchRegion(region[0], region[1], region[2], region[3], scratch[0], scratch[1], regions);
+						if (subMonitor != null)
+							subMonitor.worked(matched);
+					}
+				}
+			} finally {
+				scratches.add(scratch);
+			}
+		}
+
+		/**
+		 * Matches the longest run of equal ranges containing the least frequent range
+		 * of a region, and adds the regions before and after the run.
+		 *
+		 * @return the number of ranges matched
+		 */
+		private int matchRegion(int start1, int end1, int start2, int end2, int[] heads, int[] counts, Deque<int[]> regions) {
+			int matched = 0;
+			// the common prefix and suffix are always matched
+			while (start1 < end1 && start2 < end2 && classes1[start1] == classes2[start2]) {
+				matches[start1++] = start2++;
+				matched++;
+			}
+			while (start1 < end1 && start2 < end2 && classes1[end1 - 1] == classes2[end2 - 1]) {
+				matches[--end1] = --end2;
+				matched++;
+			}
+			if (start1 == end1 || start2 == end2)
+				return matched;
+
+			for (int i = end1 - 1; i >= start1; i--) {
+				int c = classes1[i];
+				nexts[i] = heads[c];
+				heads[c] = i;
+				counts[c]++;
+			}
+
+			boolean common = false;
+			int bestStart1 = -1, bestStart2 = -1, bestLength = 0;
+			int bestCount = MAX_CHAIN_LENGTH + 1;
+			for (int j = start2; j < end2;) {
+				int c = classes2[j];
+				int nextJ = j + 1;
+				if (counts[c] > 0) {
+					common = true;
+					if (counts[c] <= bestCount) {
+						for (int i = heads[c]; i != -1;) {
+							// extend the run of equal ranges in both directions
+							int s1 = i, s2 = j, e1 = i + 1, e2 = j + 1;
+							int count = counts[c];
+							while (s1 > start1 && s2 > start2 && classes1[s1 - 1] == classes2[s2 - 1]) {
+								s1--;
+								s2--;
+								count = Math.min(count, counts[classes1[s1]]);
+							}
+							while (e1 < end1 && e2 < end2 && classes1[e1] == classes2[e2]) {
+								count = Math.min(count, counts[classes1[e1]]);
+								e1++;
+								e2++;
+							}
+							if (count < bestCount || (count == bestCount && e1 - s1 > bestLength)) {
+								bestStart1 = s1;
+								bestStart2 = s2;
+								bestLength = e1 - s1;
+								bestCount = count;
+							}
+							nextJ = Math.max(nextJ, e2);
+							// skip the other occurrences within the run
+							do {
+								i = nexts[i];
+							} while (i != -1 && i < e1);
+						}
+					}
+				}
+				j = nextJ;
+			}
+
+			for (int i = start1; i < end1; i++) {
+				int c = classes1[i];
+				heads[c] = -1;
+				counts[c] = 0;
+			}
+
+			if (bestLength > 0 && bestCount <= MAX_CHAIN_LENGTH) {
+				for (int k = 0; k < bestLength; k++) {
+					matches[bestStart1 + k] = bestStart2 + k;
+				}
+				matched += bestLength;
+				// compare the region before the run first
+				regions.push(new int[] { bestStart1 + bestLength, end1, bestStart2 + bestLength, end2 });
+				regions.push(new int[] { start1, bestStart1, start2, bestStart2 });
+			} else if (common) {
+				new RegionLCS(start1, end1, start2, end2).longestCommonSubsequence(SubMonitor.convert(null));
+			}
+			// else nothing in common, the regions are changed
+			return matched;
+		}
+
+		RangeDifference[] getDifferences(AbstractRangeDifferenceFactory factory) {
+			int length1 = classes1.length;
+			int length2 = classes2.length;
+			List<RangeDifference> differences = new ArrayList<>();
+			int index1 = 0, index2 = 0;
+			while (index1 < length1 || index2 < length2) {
+				if (index1 < length1 && matches[index1] == index2) {
+					index1++;
+					index2++;
+					continue;
+				}
+				int leftStart = index1;
+				int rightStart = index2;
+				while (index1 < length1 && matches[index1] == -1) {
+					index1++;
+				}
+				index2 = index1 < length1 ? matches[index1] : length2;
+				differences.add(factory.createRangeDifference(RangeDifference.CHANGE, rightStart, index2 - rightStart, leftStart, index1 - leftStart));
+			}
+			return differences.toArray(new RangeDifference[differences.size()]);
+		}
+
+		/**
+		 * Matches the ranges of a region in a fork/join pool.
+		 */
+		private final class RegionTask extends RecursiveAction {
+			private static final long serialVersionUID = 1L;
+
+			private final int[] region;
+
+			RegionTask(int[] region) {
+				this.region = region;
+			}
+
+			@Override
+			protected void compute() {
+				List<RegionTask> forked = new ArrayList<>();
+				try {
+					matchRegions(region, forked, null);
+				} finally {
+					for (RegionTask task : forked) {
+						task.join();
+					}
+				}
+			}
+		}
+
+		/**
+		 * Myers' algorithm on a region of the equivalence classes.
+		 */
+		private final class RegionLCS extends LCS {
+			private final int start1, end1, start2, end2;
+
+			RegionLCS(int start1, int end1, int start2, int end2) {
+				this.start1 = start1;
+				this.end1 = end1;
+				this.start2 = start2;
+				this.end2 = end2;
+			}
+
+			@Override
+			protected int getLength1() {
+				return end1 - start1;
+			}
+
+			@Override
+			protected int getLength2() {
+				return end2 - start2;
+			}
+
+			@Override
+			protected boolean isRangeEqual(int i1, int i2) {
+				return classes1[start1 + i1] == classes2[start2 + i2];
+			}
+
+			@Override
+			protected void setLcs(int sl1, int sl2) {
+				matches[start1 + sl1] = start2 + sl2;
+			}
+
+			@Override
+			protected void initializeLcs(int lcsLength) {
+				// the matches are stored directly
+			}
+		}
+	}
+
+	private static void worked(SubMonitor subMonitor, int work) {
+		if (subMonitor.isCanceled())
+			throw new OperationCanceledException();
+		subMonitor.worked(work);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,6 +13,8 @@
  *******************************************************************************/
 package org.eclipse.compare.rangedifferencer;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -34,6 +36,10 @@ import org.eclipse.core.runtime.*;
  * Alternatively, the <code>findRanges</code> methods not only return objects for
  * the differing ranges but for non-differing ranges too.
  * </p>
+ * <p>
+ * Unless specified otherwise, the differences are found with
+ * {@link DiffAlgorithm#MYERS}.
+ * </p>
  *
  * @see IRangeComparator
  * @see RangeDifference
@@ -84,6 +90,23 @@ public final class RangeDifferencer {
 		return findDifferences(defaultFactory, null, left, right);
 	}
 
+	/**
+	 * Finds the differences between two <code>IRangeComparator</code>s with the
+	 * given algorithm.
+	 * The differences are returned as an array of <code>RangeDifference</code>s.
+	 * If no differences are detected an empty array is returned.
+	 *
+	 * @param pm if not <code>null</code> used to report progress
+	 * @param left the left range comparator
+	 * @param right the right range comparator
+	 * @param algorithm the algorithm to find the differences with
+	 * @return an array of range differences, or an empty array if no differences were found
+	 * @since 3.8
+	 */
+	public static RangeDifference[] findDifferences(IProgressMonitor pm, IRangeComparator left, IRangeComparator right, DiffAlgorithm algorithm) {
+		return findDifferences(defaultFactory, pm, left, right, algorithm);
+	}
+
 	/**
 	 * Finds the differences between two <code>IRangeComparator</code>s.
 	 * The differences are returned as an array of <code>RangeDifference</code>s.
@@ -97,6 +120,26 @@ public final class RangeDifferencer {
 	 * @since org.eclipse.compare.core 3.5
 	 */
 	public static RangeDifference[] findDifferences(AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator left, IRangeComparator right) {
+		return findDifferences(factory, pm, left, right, DiffAlgorithm.MYERS);
+	}
+
+	/**
+	 * Finds the differences between two <code>IRangeComparator</code>s with the
+	 * given algorithm.
+	 * The differences are returned as an array of <code>RangeDifference</code>s.
+	 * If no differences are detected an empty array is returned.
+	 *
+	 * @param factory factory to instantiate new {@link RangeDifference}s
+	 * @param pm if not <code>null</code> used to report progress
+	 * @param left the left range comparator
+	 * @param right the right range comparator
+	 * @param algorithm the algorithm to find the differences with
+	 * @return an array of range differences, or an empty array if no differences were found
+	 * @since 3.8
+	 */
+	public static RangeDifference[] findDifferences(AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator left, IRangeComparator right, DiffAlgorithm algorithm) {
+		if (algorithm == DiffAlgorithm.HISTOGRAM)
+			return RangeComparatorHistogram.findDifferences(factory, pm, left, right);
 		return RangeComparatorLCS.findDifferences(factory, pm, left, right);
 	}
 
@@ -134,6 +177,26 @@ public final class RangeDifferencer {
 		return findDifferences(defaultFactory, pm, ancestor, left, right);
 	}
 
+	/**
+	 * Finds the differences among three <code>IRangeComparator</code>s with the
+	 * given algorithm.
+	 * The differences are returned as a list of <code>RangeDifference</code>s.
+	 * If no differences are detected an empty list is returned.
+	 * If the ancestor range comparator is <code>null</code>, a two-way
+	 * comparison is performed.
+	 *
+	 * @param pm if not <code>null</code> used to report progress
+	 * @param ancestor the ancestor range comparator or <code>null</code>
+	 * @param left the left range comparator
+	 * @param right the right range comparator
+	 * @param algorithm the algorithm to find the differences with
+	 * @return an array of range differences, or an empty array if no differences were found
+	 * @since 3.8
+	 */
+	public static RangeDifference[] findDifferences(IProgressMonitor pm, IRangeComparator ancestor, IRangeComparator left, IRangeComparator right, DiffAlgorithm algorithm) {
+		return findDifferences(defaultFactory, pm, ancestor, left, right, algorithm);
+	}
+
 	/**
 	 * Finds the differences among three <code>IRangeComparator</code>s.
 	 * The differences are returned as a list of <code>RangeDifference</code>s.
@@ -150,15 +213,46 @@ public final class RangeDifferencer {
 	 * @since org.eclipse.compare.core 3.5
 	 */
 	public static RangeDifference[] findDifferences(AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator ancestor, IRangeComparator left, IRangeComparator right) {
+		return findDifferences(factory, pm, ancestor, left, right, DiffAlgorithm.MYERS);
+	}
+
+	/**
+	 * Finds the differences among three <code>IRangeComparator</code>s with the
+	 * given algorithm.
+	 * The differences are returned as a list of <code>RangeDifference</code>s.
+	 * If no differences are detected an empty list is returned.
+	 * If the ancestor range comparator is <code>null</code>, a two-way
+	 * comparison is performed.
+	 *
+	 * @param factory factory to instantiate new {@link RangeDifference}s
+	 * @param pm if not <code>null</code> used to report progress
+	 * @param ancestor the ancestor range comparator or <code>null</code>
+	 * @param left the left range comparator
+	 * @param right the right range comparator
+	 * @param algorithm the algorithm to find the differences with
+	 * @return an array of range differences, or an empty array if no differences were found
+	 * @since 3.8
+	 */
+	public static RangeDifference[] findDifferences(AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator ancestor, IRangeComparator left, IRangeComparator right, DiffAlgorithm algorithm) {
 		try {
 			if (ancestor == null)
-				return findDifferences(factory, pm, left, right);
+				return findDifferences(factory, pm, left, right, algorithm);
 			SubMonitor monitor = SubMonitor.convert(pm, Messages.RangeComparatorLCS_0, 100);
 			RangeDifference[] leftAncestorScript= null;
-			RangeDifference[] rightAncestorScript= findDifferences(factory, monitor.newChild(50), ancestor, right);
-			if (rightAncestorScript != null) {
-				monitor.setWorkRemaining(100);
-				leftAncestorScript= findDifferences(factory, monitor.newChild(50), ancestor, left);
+			RangeDifference[] rightAncestorScript= null;
+			// the histogram algorithm compares both sides with the ancestor in parallel
+			RangeDifference[][] scripts= algorithm == DiffAlgorithm.HISTOGRAM
+					? RangeComparatorHistogram.findDifferences(factory, monitor, ancestor, left, right)
+					: null;
+			if (scripts != null) {
+				rightAncestorScript= scripts[0];
+				leftAncestorScript= scripts[1];
+			} else {
+				rightAncestorScript= findDifferences(factory, monitor.newChild(50), ancestor, right, algorithm);
+				if (rightAncestorScript != null) {
+					monitor.setWorkRemaining(100);
+					leftAncestorScript= findDifferences(factory, monitor.newChild(50), ancestor, left, algorithm);
+				}
 			}
 			if (rightAncestorScript == null || leftAncestorScript == null)
 				return null;
@@ -244,6 +338,48 @@ public final class RangeDifferencer {
 		}
 	}
 
+	/**
+	 * Finds the differences between the lines of two files, in memory bounded
+	 * independently of the size of the files.
+	 * <p>
+	 * The files are read in small blocks rather than into strings. Lines are
+	 * separated by <code>'\n'</code>, <code>'\r'</code> or <code>"\r\n"</code>
+	 * and compared byte by byte, so both files must use the same encoding, in
+	 * which these characters are single bytes. As with a document, a file ending
+	 * with a line separator ends with an empty line. The changed lines are
+	 * compared with {@link DiffAlgorithm#HISTOGRAM}; when they are too many to be
+	 * compared at once, they are compared in chunks and the differences may be
+	 * larger than necessary.
+	 * </p>
+	 *
+	 * @param pm if not <code>null</code> used to report progress
+	 * @param left the left file
+	 * @param right the right file
+	 * @return an array of range differences, or an empty array if no differences were found
+	 * @throws IOException if a file cannot be read
+	 * @since 3.8
+	 */
+	public static RangeDifference[] findLineDifferences(IProgressMonitor pm, Path left, Path right) throws IOException {
+		return findLineDifferences(defaultFactory, pm, left, right);
+	}
+
+	/**
+	 * Finds the differences between the lines of two files, in memory bounded
+	 * independently of the size of the files.
+	 *
+	 * @param factory factory to instantiate new {@link RangeDifference}s
+	 * @param pm if not <code>null</code> used to report progress
+	 * @param left the left file
+	 * @param right the right file
+	 * @return an array of range differences, or an empty array if no differences were found
+	 * @throws IOException if a file cannot be read
+	 * @see #findLineDifferences(IProgressMonitor, Path, Path)
+	 * @since 3.8
+	 */
+	public static RangeDifference[] findLineDifferences(AbstractRangeDifferenceFactory factory, IProgressMonitor pm, Path left, Path right) throws IOException {
+		return FileLineDifferencer.findDifferences(factory, pm, left, right);
+	}
+
 	/**
 	 * Finds the differences among two <code>IRangeComparator</code>s.
 	 * In contrast to <code>findDifferences</code>, the result
@@ -273,6 +409,23 @@ public final class RangeDifferencer {
 		return findRanges(defaultFactory, pm, left, right);
 	}
 
+	/**
+	 * Finds the differences among two <code>IRangeComparator</code>s with the
+	 * given algorithm.
+	 * In contrast to <code>findDifferences</code>, the result
+	 * contains <code>RangeDifference</code> elements for non-differing ranges too.
+	 *
+	 * @param pm if not <code>null</code> used to report progress
+	 * @param left the left range comparator
+	 * @param right the right range comparator
+	 * @param algorithm the algorithm to find the differences with
+	 * @return an array of range differences
+	 * @since 3.8
+	 */
+	public static RangeDifference[] findRanges(IProgressMonitor pm, IRangeComparator left, IRangeComparator right, DiffAlgorithm algorithm) {
+		return findRanges(defaultFactory, pm, left, right, algorithm);
+	}
+
 	/**
 	 * Finds the differences among two <code>IRangeComparator</code>s.
 	 * In contrast to <code>findDifferences</code>, the result
@@ -286,7 +439,25 @@ public final class RangeDifferencer {
 	 * @since org.eclipse.compare.core 3.5
 	 */
 	public static RangeDifference[] findRanges(AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator left, IRangeComparator right) {
-		RangeDifference[] in= findDifferences(factory, pm, left, right);
+		return findRanges(factory, pm, left, right, DiffAlgorithm.MYERS);
+	}
+
+	/**
+	 * Finds the differences among two <code>IRangeComparator</code>s with the
+	 * given algorithm.
+	 * In contrast to <code>findDifferences</code>, the result
+	 * contains <code>RangeDifference</code> elements for non-differing ranges too.
+	 *
+	 * @param factory factory to instantiate new {@link RangeDifference}s
+	 * @param pm if not <code>null</code> used to report progress
+	 * @param left the left range comparator
+	 * @param right the right range comparator
+	 * @param algorithm the algorithm to find the differences with
+	 * @return an array of range differences
+	 * @since 3.8
+	 */
+	public static RangeDifference[] findRanges(AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator left, IRangeComparator right, DiffAlgorithm algorithm) {
+		RangeDifference[] in= findDifferences(factory, pm, left, right, algorithm);
 		List<RangeDifference> out= new ArrayList<>();
 
 		RangeDifference rd;
@@ -345,6 +516,26 @@ public final class RangeDifferencer {
 		return findRanges(defaultFactory, pm, ancestor, left, right);
 	}
 
+	/**
+	 * Finds the differences among three <code>IRangeComparator</code>s with the
+	 * given algorithm.
+	 * In contrast to <code>findDifferences</code>, the result
+	 * contains <code>RangeDifference</code> elements for non-differing ranges too.
+	 * If the ancestor range comparator is <code>null</code>, a two-way
+	 * comparison is performed.
+	 *
+	 * @param pm if not <code>null</code> used to report progress
+	 * @param ancestor the ancestor range comparator or <code>null</code>
+	 * @param left the left range comparator
+	 * @param right the right range comparator
+	 * @param algorithm the algorithm to find the differences with
+	 * @return an array of range differences
+	 * @since 3.8
+	 */
+	public static RangeDifference[] findRanges(IProgressMonitor pm, IRangeComparator ancestor, IRangeComparator left, IRangeComparator right, DiffAlgorithm algorithm) {
+		return findRanges(defaultFactory, pm, ancestor, left, right, algorithm);
+	}
+
 	/**
 	 * Finds the differences among three <code>IRangeComparator</code>s.
 	 * In contrast to <code>findDifferences</code>, the result
@@ -361,10 +552,31 @@ public final class RangeDifferencer {
 	 * @since org.eclipse.compare.core 3.5
 	 */
 	public static RangeDifference[] findRanges(AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator ancestor, IRangeComparator left, IRangeComparator right) {
+		return findRanges(factory, pm, ancestor, left, right, DiffAlgorithm.MYERS);
+	}
+
+	/**
+	 * Finds the differences among three <code>IRangeComparator</code>s with the
+	 * given algorithm.
+	 * In contrast to <code>findDifferences</code>, the result
+	 * contains <code>RangeDifference</code> elements for non-differing ranges too.
+	 * If the ancestor range comparator is <code>null</code>, a two-way
+	 * comparison is performed.
+	 *
+	 * @param factory factory to instantiate new {@link RangeDifference}s
+	 * @param pm if not <code>null</code> used to report progress
+	 * @param ancestor the ancestor range comparator or <code>null</code>
+	 * @param left the left range comparator
+	 * @param right the right range comparator
+	 * @param algorithm the algorithm to find the differences with
+	 * @return an array of range differences
+	 * @since 3.8
+	 */
+	public static RangeDifference[] findRanges(AbstractRangeDifferenceFactory factory, IProgressMonitor pm, IRangeComparator ancestor, IRangeComparator left, IRangeComparator right, DiffAlgorithm algorithm) {
 		if (ancestor == null)
-			return findRanges(factory,pm, left, right);
+			return findRanges(factory, pm, left, right, algorithm);
 
-		RangeDifference[] in= findDifferences(factory, pm, ancestor, left, right);
+		RangeDifference[] in= findDifferences(factory, pm, ancestor, left, right, algorithm);
 		List<RangeDifference> out= new ArrayList<>();
 
 		RangeDifference rd;
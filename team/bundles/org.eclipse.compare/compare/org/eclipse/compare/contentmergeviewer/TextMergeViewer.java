@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -71,6 +71,7 @@ import org.eclipse.compare.internal.Utilities;
 import org.eclipse.compare.internal.merge.DocumentMerger;
 import org.eclipse.compare.internal.merge.DocumentMerger.Diff;
 import org.eclipse.compare.internal.merge.DocumentMerger.IDocumentMergerInput;
+import org.eclipse.compare.internal.merge.DocumentMerger.IncrementalDiff;
 import org.eclipse.compare.patch.IHunk;
 import org.eclipse.compare.rangedifferencer.RangeDifference;
 import org.eclipse.compare.structuremergeviewer.DiffNode;
@@ -91,6 +92,7 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.ActionContributionItem;
 import org.eclipse.jface.action.IAction;
@@ -485,6 +487,10 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 	// whether enhanced viewer configuration has been done
 	private boolean isConfigured = false;
 	private boolean fRedoDiff = false;
+	/** The regions edited since the last diff, which are not yet re-diffed */
+	private Position fLeftEdit;
+	private Position fRightEdit;
+	private Job fIncrementalDiffJob;
 
 	private final class InternalOutlineViewerCreator extends OutlineViewerCreator implements ISelectionChangedListener {
 		@Override
@@ -1964,6 +1970,9 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 	protected void handleDispose(DisposeEvent event) {
 		OperationHistoryFactory.getOperationHistory().removeOperationHistoryListener(operationHistoryListener);
 
+		if (fIncrementalDiffJob != null)
+			fIncrementalDiffJob.cancel();
+
 		if (fHandlerService != null)
 			fHandlerService.dispose();
 
@@ -3187,7 +3196,95 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 			}.schedule();
 		} else {
 			updateLines(doc);
+			if (!copyOperationInProgress)
+				scheduleIncrementalDiff(e);
+		}
+	}
+
+	/*
+	 * Re-diffs the part of the documents around the edits made since the last
+	 * diff off the UI thread. A further edit cancels the re-diff and schedules
+	 * one for the part around all the edits.
+	 */
+	private void scheduleIncrementalDiff(DocumentEvent e) {
+		IDocument doc= e.getDocument();
+		int end= e.getOffset() + (e.getText() != null ? e.getText().length() : 0);
+		if (doc == fLeft.getSourceViewer().getDocument()) {
+			fLeftEdit= addEdit(fLeftEdit, e.getOffset(), e.getLength(), end);
+		} else if (doc == fRight.getSourceViewer().getDocument()) {
+			fRightEdit= addEdit(fRightEdit, e.getOffset(), e.getLength(), end);
+		} else {
+			return;
 		}
+
+		if (fIncrementalDiffJob != null)
+			fIncrementalDiffJob.cancel();
+		fIncrementalDiffJob= new UIJob(CompareMessages.DocumentMerger_0) {
+			@Override
+			public IStatus runInUIThread(IProgressMonitor monitor) {
+				if (getControl().isDisposed())
+					return Status.OK_STATUS;
+				final IncrementalDiff diff= fMerger.createIncrementalDiff(fLeftEdit, fRightEdit);
+				if (diff == null) {
+					// the diffs of these edits are left to the next full diff
+					fLeftEdit= null;
+					fRightEdit= null;
+					return Status.OK_STATUS;
+				}
+				fIncrementalDiffJob= Job.create(CompareMessages.DocumentMerger_0, diffMonitor -> {
+					diff.run(diffMonitor);
+					if (diffMonitor.isCanceled())
+						return Status.CANCEL_STATUS;
+					new UIJob(CompareMessages.DocumentMerger_0) {
+						@Override
+						public IStatus runInUIThread(IProgressMonitor applyMonitor) {
+							if (!getControl().isDisposed())
+								applyIncrementalDiff(diff);
+							return Status.OK_STATUS;
+						}
+					}.schedule();
+					return Status.OK_STATUS;
+				});
+				fIncrementalDiffJob.setSystem(true);
+				fIncrementalDiffJob.schedule();
+				return Status.OK_STATUS;
+			}
+		};
+		fIncrementalDiffJob.setSystem(true);
+		fIncrementalDiffJob.schedule();
+	}
+
+	/*
+	 * Returns the edited region containing the given one and the given edit,
+	 * which replaced the given length at the given offset and ends at the
+	 * given end.
+	 */
+	private static Position addEdit(Position edit, int offset, int length, int end) {
+		if (edit == null)
+			return new Position(offset, end - offset);
+		int editEnd= edit.offset + edit.length;
+		if (editEnd >= offset + length)
+			editEnd+= end - offset - length;
+		else if (editEnd > offset)
+			editEnd= end;
+		int start= Math.min(edit.offset, offset);
+		return new Position(start, Math.max(editEnd, end) - start);
+	}
+
+	private void applyIncrementalDiff(IncrementalDiff diff) {
+		// an outdated re-diff is followed by one for the later edits
+		if (!diff.apply())
+			return;
+		fLeftEdit= null;
+		fRightEdit= null;
+		if (fCurrentDiff != null && fCurrentDiff.isDeleted())
+			setCurrentDiff(findNewDiff(fCurrentDiff), false);
+		else
+			updateControls();
+		invalidateTextPresentation();
+		invalidateLines();
+		updateVScrollBar();
+		refreshBirdsEyeView();
 	}
 
 
@@ -3544,6 +3641,10 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 		fRight.resetLineBackground();
 		saveDiff();
 		fCurrentDiff= null;
+		if (fIncrementalDiffJob != null)
+			fIncrementalDiffJob.cancel();
+		fLeftEdit= null;
+		fRightEdit= null;
 		try {
 			fMerger.doDiff();
 		} catch (CoreException e) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -19,6 +19,7 @@ import java.util.Optional;
 import org.eclipse.compare.ICompareFilter;
 import org.eclipse.compare.contentmergeviewer.IIgnoreWhitespaceContributor;
 import org.eclipse.compare.contentmergeviewer.ITokenComparator;
+import org.eclipse.compare.rangedifferencer.IHashedRangeComparator;
 import org.eclipse.compare.rangedifferencer.IRangeComparator;
 import org.eclipse.core.internal.expressions.util.LRUCache;
 import org.eclipse.jface.text.BadLocationException;
@@ -34,7 +35,7 @@ import org.eclipse.jface.text.IRegion;
  * its notion of lines is solely defined in the underlying <code>IDocument</code>.
  */
 @SuppressWarnings("restriction")
-public class DocLineComparator implements ITokenComparator {
+public class DocLineComparator implements ITokenComparator, IHashedRangeComparator {
 
 	private IDocument fDocument;
 	private int fLineOffset;
@@ -192,6 +193,31 @@ public class DocLineComparator implements ITokenComparator {
 		return false;
 	}
 
+	/**
+	 * Returns a hash code of the given line that is the same for all lines that
+	 * are equal according to {@link #rangesEqual(int, IRangeComparator, int)}.
+	 *
+	 * @param index the number of the line within this range comparator
+	 * @return the hash code of the line
+	 */
+	@Override
+	public int rangeHashCode(int index) {
+		if (fCompareFilters != null && fCompareFilters.length > 0) {
+			// filtered lines depend on the line they are compared with
+			return 0;
+		}
+		String line = extract(index, false);
+		if (!fIgnoreWhiteSpace)
+			return line.hashCode();
+		int hash = 0;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (!isSignificantWhitespace(line, i, c, index, this))
+				hash = 31 * hash + c;
+		}
+		return hash;
+	}
+
 	/**
 	 * Aborts the comparison if the number of tokens is too large.
 	 *
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -417,11 +417,24 @@ class ResourceCompareInput extends CompareEditorInput {
 			setTitle(title);
 
 			Differencer d= new Differencer() {
+				@Override
+				protected boolean contentsEqual(Object input1, Object input2) {
+					IFile file1= getUnbufferedFile(input1);
+					IFile file2= getUnbufferedFile(input2);
+					if (file1 != null && file2 != null) {
+						Boolean equal= ResourceContentDigests.contentsEqual(file1, file2);
+						if (equal != null)
+							return equal.booleanValue();
+					}
+					return super.contentsEqual(input1, input2);
+				}
 				@Override
 				protected Object visit(Object parent, int description, Object ancestor, Object left, Object right) {
 					return new MyDiffNode((IDiffContainer) parent, description, (ITypedElement)ancestor, (ITypedElement)left, (ITypedElement)right);
 				}
 			};
+			// the nodes only read the workspace, so subtrees can be compared in parallel
+			d.setParallel(true);
 
 			fRoot= d.findDifferences(fThreeWay, pm, null, fAncestor, fLeft, fRight);
 			return fRoot;
@@ -433,6 +446,19 @@ class ResourceCompareInput extends CompareEditorInput {
 		}
 	}
 
+	/*
+	 * Returns the file of the given node, if its contents are those of the
+	 * file and have not been edited.
+	 */
+	private static IFile getUnbufferedFile(Object input) {
+		if (input instanceof BufferedResourceNode) {
+			BufferedResourceNode node= (BufferedResourceNode) input;
+			if (!node.isDirty() && node.getResource() instanceof IFile)
+				return (IFile) node.getResource();
+		}
+		return null;
+	}
+
 	@Override
 	public String getToolTipText() {
 		if (fLeftResource != null && fRightResource != null) {
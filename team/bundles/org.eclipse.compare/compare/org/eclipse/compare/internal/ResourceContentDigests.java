@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Compares the contents of workspace files by their sizes and digests. The
+ * digest of a file is remembered with its modification stamp, local time stamp
+ * and length, so that a file compared again, for example with both sides of a
+ * three-way compare or in a later compare, is only read again if it has been
+ * modified, or deleted and created again.
+ * <p>
+ * Digests are only computed for a file when the file it is compared with
+ * already has one. Otherwise the contents are compared directly, stopping at the
+ * first difference, and the digests are only remembered if the files are equal.
+ * </p>
+ * <p>
+ * The methods may be called from several threads at once.
+ * </p>
+ */
+final class ResourceContentDigests {
+
+	private static final String ALGORITHM= "SHA-256"; //$NON-NLS-1$
+	/** The digests are forgotten when there are more */
+	private static final int MAX_DIGESTS= 200000;
+	private static final int BUFFER_SIZE= 8192;
+
+	/**
+	 * The state of a file in the workspace and the local file system, a digest
+	 * is only valid for the state it was computed for.
+	 */
+	private static class FileState {
+		final IFile fFile;
+		final long fStamp;
+		final long fLocalTimeStamp;
+		final long fLength;
+
+		FileState(IFile file) {
+			fFile= file;
+			fStamp= file.getModificationStamp();
+			fLocalTimeStamp= file.getLocalTimeStamp();
+			fLength= getLength(file);
+		}
+
+		boolean isKnown() {
+			return fStamp != IResource.NULL_STAMP && fLocalTimeStamp != IResource.NULL_STAMP && fLength >= 0;
+		}
+
+		boolean isSame(FileState other) {
+			return fStamp == other.fStamp && fLocalTimeStamp == other.fLocalTimeStamp && fLength == other.fLength;
+		}
+
+		String getKey() {
+			return fFile.getFullPath().toString();
+		}
+	}
+
+	private static class Digest {
+		final FileState fState;
+		final byte[] fBytes;
+
+		Digest(FileState state, byte[] bytes) {
+			fState= state;
+			fBytes= bytes;
+		}
+	}
+
+	/** full path -> digest of the contents */
+	private static final Map<String, Digest> fDigests= new ConcurrentHashMap<>();
+
+	private ResourceContentDigests() {
+		// not intended to be instantiated
+	}
+
+	/**
+	 * Returns whether the given files have the same contents, or
+	 * <code>null</code> if that cannot be found out this way, for example
+	 * because a file cannot be read.
+	 *
+	 * @param file1 the first file
+	 * @param file2 the second file
+	 * @return whether the files have the same contents, or <code>null</code>
+	 */
+	static Boolean contentsEqual(IFile file1, IFile file2) {
+		FileState state1= new FileState(file1);
+		FileState state2= new FileState(file2);
+		if (state1.fLength >= 0 && state2.fLength >= 0 && state1.fLength != state2.fLength)
+			return Boolean.FALSE;
+		byte[] digest1= getCachedDigest(state1);
+		byte[] digest2= getCachedDigest(state2);
+		if (digest1 == null && digest2 == null)
+			return compareContents(state1, state2);
+		if (digest1 == null)
+			digest1= computeDigest(state1);
+		if (digest2 == null)
+			digest2= computeDigest(state2);
+		if (digest1 == null || digest2 == null)
+			return null;
+		return Boolean.valueOf(Arrays.equals(digest1, digest2));
+	}
+
+	/*
+	 * Returns the length of the file in the local file system, or -1 if it is
+	 * not known.
+	 */
+	private static long getLength(IFile file) {
+		IPath location= file.getLocation();
+		if (location == null)
+			return -1;
+		try {
+			return Files.size(location.toFile().toPath());
+		} catch (IOException | SecurityException e) {
+			return -1;
+		}
+	}
+
+	private static byte[] getCachedDigest(FileState state) {
+		if (!state.isKnown())
+			return null;
+		Digest digest= fDigests.get(state.getKey());
+		if (digest != null && digest.fState.isSame(state))
+			return digest.fBytes;
+		return null;
+	}
+
+	private static void cacheDigest(FileState state, byte[] bytes) {
+		if (!state.isKnown())
+			return;
+		if (fDigests.size() >= MAX_DIGESTS)
+			fDigests.clear();
+		fDigests.put(state.getKey(), new Digest(state, bytes));
+	}
+
+	private static byte[] computeDigest(FileState state) {
+		try (InputStream is= state.fFile.getContents()) {
+			MessageDigest digest= MessageDigest.getInstance(ALGORITHM);
+			byte[] buffer= new byte[BUFFER_SIZE];
+			int read;
+			while ((read= is.read(buffer)) != -1)
+				digest.update(buffer, 0, read);
+			byte[] bytes= digest.digest();
+			cacheDigest(state, bytes);
+			return bytes;
+		} catch (CoreException | IOException | NoSuchAlgorithmException e) {
+			return null;
+		}
+	}
+
+	/*
+	 * Compares the contents of the files until the first difference. The
+	 * digests computed along the way are remembered if the files are equal.
+	 */
+	private static Boolean compareContents(FileState state1, FileState state2) {
+		try (InputStream is1= state1.fFile.getContents(); InputStream is2= state2.fFile.getContents()) {
+			MessageDigest digest1= MessageDigest.getInstance(ALGORITHM);
+			MessageDigest digest2= MessageDigest.getInstance(ALGORITHM);
+			byte[] buffer1= new byte[BUFFER_SIZE];
+			byte[] buffer2= new byte[BUFFER_SIZE];
+			while (true) {
+				int read1= is1.readNBytes(buffer1, 0, BUFFER_SIZE);
+				int read2= is2.readNBytes(buffer2, 0, BUFFER_SIZE);
+				if (read1 != read2 || !Arrays.equals(buffer1, 0, read1, buffer2, 0, read2))
+					return Boolean.FALSE;
+				if (read1 == 0)
+					break;
+				digest1.update(buffer1, 0, read1);
+				digest2.update(buffer2, 0, read2);
+			}
+			cacheDigest(state1, digest1.digest());
+			cacheDigest(state2, digest2.digest());
+			return Boolean.TRUE;
+		} catch (CoreException | IOException | NoSuchAlgorithmException e) {
+			return null;
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2017 IBM Corporation and others.
+ * Copyright (c) 2007, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -17,9 +17,11 @@ package org.eclipse.compare.internal.merge;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.eclipse.compare.CompareConfiguration;
 import org.eclipse.compare.ICompareFilter;
@@ -38,12 +40,15 @@ import org.eclipse.compare.rangedifferencer.RangeDifference;
 import org.eclipse.compare.rangedifferencer.RangeDifferencer;
 import org.eclipse.compare.structuremergeviewer.Differencer;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.BadPositionCategoryException;
+import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.Region;
@@ -345,6 +350,161 @@ public class DocumentMerger {
 		}
 	}
 
+	/*
+	 * The lines of a document compared by a line diff. The comparator may be
+	 * on a copy of a part of the document, which starts at the given offset in
+	 * the document.
+	 */
+	private static class DiffSide {
+		final IDocument fDocument;
+		final Position fRegion;
+		final IDocument fText;
+		final int fOffset;
+		final DocLineComparator fComparator;
+
+		DiffSide(IDocument document, Position region, DocLineComparator comparator) {
+			this(document, region, document, 0, comparator);
+		}
+
+		DiffSide(IDocument document, Position region, IDocument text, int offset, DocLineComparator comparator) {
+			fDocument= document;
+			fRegion= region;
+			fText= text;
+			fOffset= offset;
+			fComparator= comparator;
+		}
+
+		int getStart(int line) {
+			return fOffset + fComparator.getTokenStart(line);
+		}
+
+		int getEnd(int line, int length) {
+			return fOffset + getTokenEnd2(fComparator, line, length);
+		}
+
+		String extract(int line, int length) {
+			return extract2(fText, fComparator, line, length);
+		}
+	}
+
+	/**
+	 * A re-diff of the part of the documents which has been edited since the
+	 * last diff. The part is bounded by the unchanged ranges around the edits,
+	 * and is copied when the re-diff is created, so that the lines can be
+	 * compared off the UI thread with {@link #run(IProgressMonitor)}. The
+	 * result replaces the diffs of the part with {@link #apply()}, unless the
+	 * documents have been changed in the meantime.
+	 */
+	public class IncrementalDiff {
+		private final ArrayList<Diff> fDiffs;
+		private final int fFirst;
+		private final List<Diff> fReplaced;
+		private final boolean fToEnd;
+		private final DiffSide fAncestor;
+		private final DiffSide fLeft;
+		private final DiffSide fRight;
+		private final long[] fStamps;
+		private RangeDifference[] fRanges;
+
+		IncrementalDiff(int first, int last, DiffSide ancestor, DiffSide left, DiffSide right) {
+			fDiffs= fAllDiffs;
+			fFirst= first;
+			fReplaced= new ArrayList<>(fAllDiffs.subList(first, last));
+			fToEnd= last == fAllDiffs.size();
+			fAncestor= ancestor;
+			fLeft= left;
+			fRight= right;
+			fStamps= new long[] { getModificationStamp(ancestor), getModificationStamp(left), getModificationStamp(right) };
+		}
+
+		/**
+		 * Compares the lines of the edited part. May be called from any thread.
+		 *
+		 * @param monitor the progress monitor, which is checked for cancellation
+		 */
+		public void run(IProgressMonitor monitor) {
+			DocLineComparator sa= fAncestor != null ? fAncestor.fComparator : null;
+			monitor.beginTask(CompareMessages.DocumentMerger_0, maxWork(sa, fLeft.fComparator, fRight.fComparator));
+			try {
+				fRanges= RangeDifferencer.findRanges(monitor, sa, fLeft.fComparator, fRight.fComparator);
+			} catch (OutOfMemoryError ex) {
+				fRanges= null;
+			}
+			if (monitor.isCanceled())
+				fRanges= null;
+			monitor.done();
+		}
+
+		/**
+		 * Replaces the diffs of the edited part with the result of
+		 * {@link #run(IProgressMonitor)}. Must be called from the thread which
+		 * changes the documents.
+		 *
+		 * @return <code>true</code> if the diffs have been replaced,
+		 *         <code>false</code> if the re-diff has not been run or is
+		 *         outdated, in which case nothing is changed
+		 */
+		public boolean apply() {
+			if (fRanges == null || fAllDiffs != fDiffs)
+				return false;
+			if (fStamps[0] != getModificationStamp(fAncestor) || fStamps[1] != getModificationStamp(fLeft)
+					|| fStamps[2] != getModificationStamp(fRight))
+				return false;
+			List<Diff> current= fAllDiffs.subList(fFirst, Math.min(fFirst + fReplaced.size(), fAllDiffs.size()));
+			if (!current.equals(fReplaced) || isResolved(fReplaced))
+				return false;
+
+			// the empty last line of a part ending before an unchanged range is
+			// compared like any other, but is the start of that range
+			List<RangeDifference> ranges= new ArrayList<>(fRanges.length);
+			for (RangeDifference es : fRanges) {
+				if (fToEnd || !isEmpty(es))
+					ranges.add(es);
+			}
+			ArrayList<Diff> allDiffs= new ArrayList<>();
+			ArrayList<Diff> changeDiffs= new ArrayList<>();
+			createDiffs(ranges.toArray(new RangeDifference[ranges.size()]), fAncestor, fLeft, fRight, allDiffs, changeDiffs);
+
+			Set<Diff> before= Collections.newSetFromMap(new IdentityHashMap<>());
+			before.addAll(fAllDiffs.subList(0, fFirst));
+			Set<Diff> replaced= Collections.newSetFromMap(new IdentityHashMap<>());
+			replaced.addAll(fReplaced);
+			ArrayList<Diff> newChangeDiffs= new ArrayList<>(fChangeDiffs.size() + changeDiffs.size());
+			for (Diff diff : fChangeDiffs) {
+				if (before.contains(diff))
+					newChangeDiffs.add(diff);
+			}
+			newChangeDiffs.addAll(changeDiffs);
+			for (Diff diff : fChangeDiffs) {
+				if (!before.contains(diff) && !replaced.contains(diff))
+					newChangeDiffs.add(diff);
+			}
+
+			for (Diff diff : fReplaced) {
+				removePositions(diff);
+			}
+			current.clear();
+			fAllDiffs.addAll(fFirst, allDiffs);
+			fChangeDiffs= newChangeDiffs;
+			return true;
+		}
+
+		private boolean isEmpty(RangeDifference es) {
+			if (fAncestor != null && fAncestor.getStart(es.ancestorStart()) < fAncestor.getEnd(es.ancestorStart(), es.ancestorLength()))
+				return false;
+			return fLeft.getStart(es.leftStart()) == fLeft.getEnd(es.leftStart(), es.leftLength())
+					&& fRight.getStart(es.rightStart()) == fRight.getEnd(es.rightStart(), es.rightLength());
+		}
+
+		private long getModificationStamp(DiffSide side) {
+			if (side == null)
+				return 0;
+			if (side.fDocument instanceof IDocumentExtension4)
+				return ((IDocumentExtension4) side.fDocument).getModificationStamp();
+			return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		}
+	}
+
 	public DocumentMerger(IDocumentMergerInput input) {
 		this.fInput = input;
 	}
@@ -452,19 +612,37 @@ public class DocumentMerger {
 					Boolean.FALSE);
 
 		ArrayList<Diff> newAllDiffs = new ArrayList<>();
+		createDiffs(e, sancestor != null ? new DiffSide(aDoc, aRegion, sancestor) : null,
+				new DiffSide(lDoc, lRegion, sleft), new DiffSide(rDoc, rRegion, sright), newAllDiffs, fChangeDiffs);
+		fAllDiffs = newAllDiffs;
+	}
+
+	/*
+	 * Creates the line diffs for the given ranges, with their token diffs, and
+	 * adds them to allDiffs and, if they are of interest, to changeDiffs.
+	 */
+	private void createDiffs(RangeDifference[] e, DiffSide sancestor, DiffSide sleft, DiffSide sright,
+			List<Diff> allDiffs, List<Diff> changeDiffs) {
+
+		boolean ignoreWhiteSpace= isIgnoreWhitespace();
+		IDocument aDoc= sancestor != null ? sancestor.fDocument : null;
+		Position aRegion= sancestor != null ? sancestor.fRegion : null;
+		IDocument lDoc= sleft.fDocument;
+		IDocument rDoc= sright.fDocument;
+
 		for (RangeDifference es : e) {
 			int ancestorStart= 0;
 			int ancestorEnd= 0;
 			if (sancestor != null) {
-				ancestorStart= sancestor.getTokenStart(es.ancestorStart());
-				ancestorEnd= getTokenEnd2(sancestor, es.ancestorStart(), es.ancestorLength());
+				ancestorStart= sancestor.getStart(es.ancestorStart());
+				ancestorEnd= sancestor.getEnd(es.ancestorStart(), es.ancestorLength());
 			}
 
-			int leftStart= sleft.getTokenStart(es.leftStart());
-			int leftEnd= getTokenEnd2(sleft, es.leftStart(), es.leftLength());
+			int leftStart= sleft.getStart(es.leftStart());
+			int leftEnd= sleft.getEnd(es.leftStart(), es.leftLength());
 
-			int rightStart= sright.getTokenStart(es.rightStart());
-			int rightEnd= getTokenEnd2(sright, es.rightStart(), es.rightLength());
+			int rightStart= sright.getStart(es.rightStart());
+			int rightEnd= sright.getEnd(es.rightStart(), es.rightLength());
 
 			/*if (isPatchHunk()) {
 				if (isHunkOnLeft()) {
@@ -476,14 +654,14 @@ public class DocumentMerger {
 
 			Diff diff= new Diff(null, es.kind(),
 				aDoc, aRegion, ancestorStart, ancestorEnd,
-				lDoc, lRegion, leftStart, leftEnd,
-				rDoc, rRegion, rightStart, rightEnd);
+				lDoc, sleft.fRegion, leftStart, leftEnd,
+				rDoc, sright.fRegion, rightStart, rightEnd);
 
-			newAllDiffs.add(diff);	// remember all range diffs for scrolling
+			allDiffs.add(diff);	// remember all range diffs for scrolling
 
 			if (isPatchHunk()) {
 				if (useChange(diff)) {
-					recordChangeDiff(diff);
+					changeDiffs.add(diff);	// here we remember only the real diffs
 				}
 			} else {
 				if (ignoreWhiteSpace || useChange(es.kind())) {
@@ -491,9 +669,9 @@ public class DocumentMerger {
 					// Extract the string for each contributor.
 					String a= null;
 					if (sancestor != null)
-						a= extract2(aDoc, sancestor, es.ancestorStart(), es.ancestorLength());
-					String s= extract2(lDoc, sleft, es.leftStart(), es.leftLength());
-					String d= extract2(rDoc, sright, es.rightStart(), es.rightLength());
+						a= sancestor.extract(es.ancestorStart(), es.ancestorLength());
+					String s= sleft.extract(es.leftStart(), es.leftLength());
+					String d= sright.extract(es.rightStart(), es.rightLength());
 
 					// Indicate whether all contributors are whitespace
 					if (ignoreWhiteSpace
@@ -505,10 +683,10 @@ public class DocumentMerger {
 
 					// If the diff is of interest, record it and generate the token diffs
 					if (useChange(diff)) {
-						recordChangeDiff(diff);
+						changeDiffs.add(diff);	// here we remember only the real diffs
 						if (s.length() > 0 && d.length() > 0) {
 							if (a == null && sancestor != null)
-								a= extract2(aDoc, sancestor, es.ancestorStart(), es.ancestorLength());
+								a= sancestor.extract(es.ancestorStart(), es.ancestorLength());
 							if (USE_MERGING_TOKEN_DIFF)
 								mergingTokenDiff(diff, aDoc, a, rDoc, d, lDoc, s);
 							else
@@ -518,7 +696,131 @@ public class DocumentMerger {
 				}
 			}
 		}
-		fAllDiffs = newAllDiffs;
+	}
+
+	/**
+	 * Creates a re-diff of the part of the documents which contains the given
+	 * edited regions, to be run with {@link IncrementalDiff#run(IProgressMonitor)}
+	 * and applied with {@link IncrementalDiff#apply()}. Must be called from the
+	 * thread which changes the documents.
+	 *
+	 * @param leftEdit the region of the left document edited since the last
+	 *            diff, or <code>null</code>
+	 * @param rightEdit the region of the right document edited since the last
+	 *            diff, or <code>null</code>
+	 * @return the re-diff, or <code>null</code> if the part cannot be re-diffed
+	 *         on its own, for example because it contains resolved diffs, in
+	 *         which case the diffs are left as they are
+	 */
+	public IncrementalDiff createIncrementalDiff(Position leftEdit, Position rightEdit) {
+		if (fAllDiffs == null || fChangeDiffs == null || isPatchHunk() || leftEdit == null && rightEdit == null)
+			return null;
+		IDocument lDoc= getDocument(MergeViewerContentProvider.LEFT_CONTRIBUTOR);
+		IDocument rDoc= getDocument(MergeViewerContentProvider.RIGHT_CONTRIBUTOR);
+		if (lDoc == null || rDoc == null)
+			return null;
+		IDocument aDoc= null;
+		if (isThreeWay() && !isIgnoreAncestor())
+			aDoc= getDocument(MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR);
+
+		// the replaced diffs are those between the last unchanged range before
+		// and the first one after the edits
+		int first= 0;
+		int last= fAllDiffs.size();
+		for (int i= 0; i < fAllDiffs.size(); i++) {
+			Diff diff= fAllDiffs.get(i);
+			if (diff.fDirection != RangeDifference.NOCHANGE)
+				continue;
+			if (isBefore(diff.fLeftPos, leftEdit) && isBefore(diff.fRightPos, rightEdit)) {
+				first= i + 1;
+			} else if (isAfter(diff.fLeftPos, leftEdit) && isAfter(diff.fRightPos, rightEdit)) {
+				last= i;
+				break;
+			}
+		}
+		if (isResolved(fAllDiffs.subList(first, last)))
+			return null;
+
+		DiffSide sancestor= null;
+		if (aDoc != null) {
+			sancestor= createDiffSide(MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR, aDoc, first, last);
+			if (sancestor == null)
+				return null;
+		}
+		DiffSide sleft= createDiffSide(MergeViewerContentProvider.LEFT_CONTRIBUTOR, lDoc, first, last);
+		DiffSide sright= createDiffSide(MergeViewerContentProvider.RIGHT_CONTRIBUTOR, rDoc, first, last);
+		if (sleft == null || sright == null)
+			return null;
+		return new IncrementalDiff(first, last, sancestor, sleft, sright);
+	}
+
+	private static boolean isBefore(Position p, Position edit) {
+		return edit == null || p.offset + p.length < edit.offset;
+	}
+
+	private static boolean isAfter(Position p, Position edit) {
+		return edit == null || p.offset > edit.offset + edit.length;
+	}
+
+	private static boolean isResolved(List<Diff> diffs) {
+		for (Diff diff : diffs) {
+			if (diff.fDirection != RangeDifference.NOCHANGE && diff.isResolved())
+				return true;
+		}
+		return false;
+	}
+
+	/*
+	 * Copies the part of the given document between the diffs before the first
+	 * and at the last index, or returns null if the part cannot be copied.
+	 */
+	private DiffSide createDiffSide(char contributor, IDocument doc, int first, int last) {
+		if (!(doc instanceof IDocumentExtension4)
+				|| ((IDocumentExtension4) doc).getModificationStamp() == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP)
+			return null;
+		Position region= getRegion(contributor);
+		if (region != null && (first == 0 || last == fAllDiffs.size()))
+			return null;	// the lines of a region are not counted like those of a document
+		int start= 0;
+		if (first > 0) {
+			Position p= fAllDiffs.get(first - 1).getPosition(contributor);
+			start= p.offset + p.length;
+		}
+		int end= doc.getLength();
+		if (last < fAllDiffs.size())
+			end= fAllDiffs.get(last).getPosition(contributor).offset;
+		if (start > end)
+			return null;
+		try {
+			IDocument text= new Document(doc.get(start, end - start));
+			DocLineComparator comparator= new DocLineComparator(text, null, isIgnoreWhitespace(), getCompareFilters(),
+					contributor, createIgnoreWhitespaceContributor(text));
+			return new DiffSide(doc, region, text, start, comparator);
+		} catch (BadLocationException e) {
+			return null;
+		}
+	}
+
+	private void removePositions(Diff diff) {
+		removePosition(getDocument(MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR), diff.fAncestorPos);
+		removePosition(getDocument(MergeViewerContentProvider.LEFT_CONTRIBUTOR), diff.fLeftPos);
+		removePosition(getDocument(MergeViewerContentProvider.RIGHT_CONTRIBUTOR), diff.fRightPos);
+		if (diff.fDiffs != null) {
+			for (Diff d : diff.fDiffs) {
+				removePositions(d);
+			}
+		}
+	}
+
+	private void removePosition(IDocument doc, Position p) {
+		if (doc == null || p == null)
+			return;
+		try {
+			doc.removePosition(DIFF_RANGE_CATEGORY, p);
+		} catch (BadPositionCategoryException e) {
+			// silently ignored
+		}
+		p.delete();
 	}
 
 	private boolean isCapped(DocLineComparator ancestor,
@@ -620,10 +922,6 @@ public class DocumentMerger {
 		return null;
 	}
 
-	private void recordChangeDiff(Diff diff) {
-		fChangeDiffs.add(diff);	// here we remember only the real diffs
-	}
-
 	/*private boolean isHunkOnLeft() {
 		return fInput.isHunkOnLeft();
 	}
@@ -712,7 +1010,7 @@ public class DocumentMerger {
 	 * @param length number of lines
 	 * @return the contents of the specified line range as a String
 	 */
-	private String extract2(IDocument doc, ITokenComparator tc, int start, int length) {
+	private static String extract2(IDocument doc, ITokenComparator tc, int start, int length) {
 		int count= tc.getRangeCount();
 		if (length > 0 && count > 0) {
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2017 IBM Corporation and others.
+ * Copyright (c) 2004, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -19,12 +19,13 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 
+import org.eclipse.compare.rangedifferencer.IHashedRangeComparator;
 import org.eclipse.compare.rangedifferencer.IRangeComparator;
 
 /**
  * This implementation of IRangeComparator breaks an input stream into lines.
  */
-class LineComparator implements IRangeComparator {
+class LineComparator implements IHashedRangeComparator {
 
 	private String[] fLines;
 
@@ -57,6 +58,11 @@ class LineComparator implements IRangeComparator {
 		return s1.equals(s2);
 	}
 
+	@Override
+	public int rangeHashCode(int index) {
+		return fLines[index].hashCode();
+	}
+
 	@Override
 	public boolean skipRangeComparison(int length, int maxLength, IRangeComparator other) {
 		return false;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -31,6 +31,7 @@ import java.util.Arrays;
 
 import org.eclipse.compare.internal.ICompareContextIds;
 import org.eclipse.compare.internal.Utilities;
+import org.eclipse.compare.internal.core.patch.PatchReader;
 import org.eclipse.compare.patch.IFilePatch2;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
@@ -907,18 +908,14 @@ public class InputPatchPage extends WizardPage {
 	}
 
 	private boolean isPatchFile(Reader reader) {
-		WorkspacePatcher patcher= ((PatchWizard) getWizard()).getPatcher();
-
+		// the patch is read into the patcher by readInPatch(), here the first file diff is enough
+		PatchReader patchReader= new PatchReader();
 		try {
-			patcher.parse(new BufferedReader(reader));
+			patchReader.start(new BufferedReader(reader));
+			return patchReader.nextDiff() != null;
 		} catch (Exception ex) {
 			return false;
 		}
-
-		IFilePatch2[] diffs= patcher.getDiffs();
-		if (diffs == null || diffs.length == 0)
-			return false;
-		return true;
 	}
 
 	/*
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -25,10 +25,13 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
+import org.eclipse.compare.internal.core.CompareSettings;
 import org.eclipse.compare.internal.core.Messages;
 import org.eclipse.compare.internal.core.patch.DiffProject;
 import org.eclipse.compare.internal.core.patch.FileDiffResult;
@@ -53,6 +56,7 @@ import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.SubMonitor;
@@ -616,18 +620,29 @@ public class Patcher implements IHunkFilter {
 			FilePatch2[] diffs= getDiffs();
 			if (diffs==null||diffs.length<=0)
 				return -1;
-			int fuzz= -1;
+			// the results are looked up here as the cache isn't thread safe
+			Map<FileDiffResult, IFile> targets= new LinkedHashMap<>();
 			for (FilePatch2 d : diffs) {
 				IFile file= getTargetFile(d);
 				if (file != null && file.exists()) {
-					List<String> lines= LineReader.load(file, false);
-					FileDiffResult result = getDiffResult(d);
-					int f = result.calculateFuzz(lines, monitor);
-					if (f > fuzz)
-						fuzz = f;
+					targets.put(getDiffResult(d), file);
 				}
 			}
-			return fuzz;
+			// the files are independent, guess their fuzz in parallel and only
+			// let the workers check for cancellation
+			IProgressMonitor cancelMonitor= new NullProgressMonitor() {
+				@Override
+				public boolean isCanceled() {
+					return monitor.isCanceled();
+				}
+			};
+			Stream<Map.Entry<FileDiffResult, IFile>> entries= targets.entrySet().stream();
+			if (!CompareSettings.getDefault().isParallelismDisabled())
+				entries= entries.parallel();
+			return entries.mapToInt(entry -> {
+				List<String> lines= LineReader.load(entry.getValue(), false);
+				return entry.getKey().calculateFuzz(lines, cancelMonitor);
+			}).max().orElse(-1);
 		} finally {
 			monitor.done();
 		}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,6 +13,8 @@
  *******************************************************************************/
 package org.eclipse.compare.structuremergeviewer;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
@@ -27,6 +29,7 @@ import org.eclipse.compare.IStreamContentAccessor;
 import org.eclipse.compare.ITypedElement;
 import org.eclipse.compare.internal.MergeViewerContentProvider;
 import org.eclipse.compare.internal.Utilities;
+import org.eclipse.compare.internal.core.CompareSettings;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -194,6 +197,8 @@ public class Differencer {
 //		}
 	}
 
+	private boolean fParallel;
+
 	/**
 	 * Creates a new differencing engine.
 	 */
@@ -201,6 +206,23 @@ public class Differencer {
 		// nothing to do
 	}
 
+	/**
+	 * Sets whether the children of a node are compared in parallel, which is
+	 * not the case by default. In parallel mode the methods
+	 * <code>getChildren</code> and <code>contentsEqual</code> are called from
+	 * several threads at once, so subclasses overriding them have to be thread
+	 * safe. The calls to <code>updateProgress</code> are serialized, and
+	 * <code>visit</code> is still called from the calling thread only, in the
+	 * same order as in serial mode.
+	 *
+	 * @param parallel if <code>true</code> sibling subtrees are compared in
+	 *            parallel
+	 * @since 3.9
+	 */
+	public void setParallel(boolean parallel) {
+		fParallel= parallel;
+	}
+
 	/**
 	 * Starts the differencing engine on the three input objects. If threeWay is <code>true</code> a
 	 * three-way comparison is performed, otherwise a two-way compare (in the latter case the ancestor argument is ignored).
@@ -220,7 +242,8 @@ public class Differencer {
 	public Object findDifferences(boolean threeWay, IProgressMonitor pm, Object data, Object ancestor, Object left, Object right) {
 		Node root= new Node();
 
-		int code= traverse(threeWay, root, pm, threeWay ? ancestor : null, left, right);
+		boolean parallel= fParallel && !CompareSettings.getDefault().isParallelismDisabled();
+		int code= traverse(threeWay, parallel, new Node(root, threeWay ? ancestor : null, left, right), pm);
 
 		if (code != NO_CHANGE) {
 			List<Node> l= root.fChildren;
@@ -235,16 +258,17 @@ public class Differencer {
 	/*
 	 * Traverse tree in postorder.
 	 */
-	private int traverse(boolean threeWay, Node parent, IProgressMonitor pm,
-			Object ancestor, Object left, Object right) {
+	private int traverse(boolean threeWay, boolean parallel, Node node, IProgressMonitor pm) {
+		Object ancestor= node.fAncestor;
+		Object left= node.fLeft;
+		Object right= node.fRight;
+
 		Object[] ancestorChildren= getChildren(ancestor);
 		Object[] rightChildren= getChildren(right);
 		Object[] leftChildren= getChildren(left);
 
 		int code= NO_CHANGE;
 
-		Node node= new Node(parent, ancestor, left, right);
-
 		boolean content= true;	// we reset this if we have at least one child
 
 		if (((threeWay && ancestorChildren != null) || !threeWay)
@@ -281,20 +305,26 @@ public class Differencer {
 				}
 			}
 
+			List<Node> children= new ArrayList<>(allSet.size());
 			for (Object keyChild : allSet) {
-				if (pm != null) {
-					if (pm.isCanceled())
-						throw new OperationCanceledException();
-
-					updateProgress(pm, keyChild);
-				}
-
 				Object ancestorChild= ancestorSet != null ? ancestorSet.get(keyChild) : null;
 				Object leftChild= leftSet != null ? leftSet.get(keyChild) : null;
 				Object rightChild= rightSet != null ? rightSet.get(keyChild) : null;
 
-				int c= traverse(threeWay, node, pm, ancestorChild, leftChild, rightChild);
+				children.add(new Node(node, ancestorChild, leftChild, rightChild));
+			}
 
+			int[] codes;
+			if (parallel && children.size() > 1) {
+				codes= children.parallelStream().mapToInt(child -> traverseChild(threeWay, true, child, pm)).toArray();
+			} else {
+				codes= new int[children.size()];
+				for (int i= 0; i < codes.length; i++) {
+					codes[i]= traverseChild(threeWay, parallel, children.get(i), pm);
+				}
+			}
+
+			for (int c : codes) {
 				if ((c & CHANGE_TYPE_MASK) != NO_CHANGE) {
 					code|= CHANGE;	// deletions and additions of child result in a change of the container
 					code|= (c & DIRECTION_MASK);	// incoming & outgoing are just ored
@@ -311,6 +341,24 @@ public class Differencer {
 		return code;
 	}
 
+	private int traverseChild(boolean threeWay, boolean parallel, Node child, IProgressMonitor pm) {
+		if (pm != null) {
+			if (pm.isCanceled())
+				throw new OperationCanceledException();
+
+			// the key under which the children have been matched
+			Object keyChild= child.fAncestor != null ? child.fAncestor : child.fRight != null ? child.fRight : child.fLeft;
+			if (parallel) {
+				synchronized (pm) {
+					updateProgress(pm, keyChild);
+				}
+			} else {
+				updateProgress(pm, keyChild);
+			}
+		}
+		return traverse(threeWay, parallel, child, pm);
+	}
+
 	/**
 	 * Called for every node or leaf comparison.
 	 * The differencing engine passes in the input objects of the compare and the result of the compare.
@@ -457,8 +505,8 @@ public class Differencer {
 		if (input1 == input2)
 			return true;
 
-		InputStream is1= getStream(input1);
-		InputStream is2= getStream(input2);
+		InputStream is1= buffer(getStream(input1));
+		InputStream is2= buffer(getStream(input2));
 
 		if (is1 == null && is2 == null)	// no byte contents
 			return true;
@@ -497,6 +545,12 @@ public class Differencer {
 		return false;
 	}
 
+	private static InputStream buffer(InputStream is) {
+		if (is == null || is instanceof BufferedInputStream || is instanceof ByteArrayInputStream)
+			return is;
+		return new BufferedInputStream(is);
+	}
+
 	/*
 	 * Tries to return an InputStream for the given object.
 	 * Returns <code>null</code> if the object not an IStreamContentAccessor
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2017 IBM Corporation and others.
+ * Copyright (c) 2010, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,6 +15,8 @@ package org.eclipse.team.internal.ui.synchronize.patch;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.eclipse.compare.CompareConfiguration;
 import org.eclipse.compare.internal.ComparePreferencePage;
@@ -99,7 +101,21 @@ public class ApplyPatchOperation implements Runnable {
 	 * @throws CoreException if an error occurs reading the contents from the storage
 	 */
 	public static boolean isPatch(IStorage storage) throws CoreException {
-		return internalParsePatch(storage).length > 0;
+		BufferedReader reader = Utilities.createReader(storage);
+		try {
+			PatchReader patchReader = new PatchReader();
+			patchReader.start(reader);
+			// one file diff is enough, the rest of the patch isn't read
+			return patchReader.nextDiff() != null;
+		} catch (IOException e) {
+			throw new CoreException(new Status(IStatus.ERROR,
+					CompareUIPlugin.PLUGIN_ID, 0, e.getMessage(), e));
+		} finally {
+			try {
+				reader.close();
+			} catch (IOException e) { // ignored
+			}
+		}
 	}
 
 	/**
@@ -239,15 +255,15 @@ public class ApplyPatchOperation implements Runnable {
 							newDate);
 				}
 			};
-			patchReader.parse(reader);
-			FilePatch2[] fileDiffs = patchReader.getAdjustedDiffs();
-
-			IFilePatch[] filePatch = new IFilePatch[fileDiffs.length];
-			for (int i = 0; i < fileDiffs.length; i++) {
-				filePatch[i] = (FilePatch) fileDiffs[i];
+			// read the file diffs one at a time, so that the diffs of a
+			// workspace patch aren't kept twice while they are adjusted
+			patchReader.start(reader);
+			List<IFilePatch> filePatches = new ArrayList<>();
+			FilePatch2 fileDiff;
+			while ((fileDiff = patchReader.nextDiff()) != null) {
+				filePatches.add((FilePatch) fileDiff);
 			}
-
-			return filePatch;
+			return filePatches.toArray(new IFilePatch[filePatches.size()]);
 		} catch (IOException e) {
 			throw new CoreException(new Status(IStatus.ERROR,
 					CompareUIPlugin.PLUGIN_ID, 0, e.getMessage(), e));
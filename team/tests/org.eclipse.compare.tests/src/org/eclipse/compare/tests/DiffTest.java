@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2008 IBM Corporation and others.
+ * Copyright (c) 2006, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,15 +14,26 @@
 package org.eclipse.compare.tests;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import org.eclipse.compare.internal.DocLineComparator;
 import org.eclipse.compare.internal.core.TextLineLCS;
 import org.eclipse.compare.rangedifferencer.*;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class DiffTest {
 
@@ -36,6 +47,9 @@ public class DiffTest {
 
 	static final String SEPARATOR = System.getProperty("line.separator"); //$NON-NLS-1$
 
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
 	@Test
 	public void testLineAddition() {
 		String s1 = ABC + SEPARATOR + DEF + SEPARATOR + XYZ;
@@ -258,4 +272,138 @@ public class DiffTest {
 		assertTrue(result[0].rightLength() == 0);
 	}
 
+	private RangeDifference[] getHistogramDifferences(String s1, String s2) {
+		IRangeComparator comp1 = toRangeComparator(s1);
+		IRangeComparator comp2 = toRangeComparator(s2);
+		return RangeDifferencer.findDifferences(null, comp1, comp2, DiffAlgorithm.HISTOGRAM);
+	}
+
+	@Test
+	public void testHistogramSameAsMyers() {
+		String[][] inputs = {
+				{ ABC + SEPARATOR + DEF + SEPARATOR + XYZ, ABC + SEPARATOR + DEF + SEPARATOR + _123 + SEPARATOR + XYZ },
+				{ ABC + SEPARATOR + DEF + SEPARATOR + _123 + SEPARATOR + XYZ, ABC + SEPARATOR + DEF + SEPARATOR + XYZ },
+				{ ABC + SEPARATOR + DEF, _123 + SEPARATOR + ABC + SEPARATOR + DEF },
+				{ _123 + SEPARATOR + ABC + SEPARATOR + DEF, ABC + SEPARATOR + DEF },
+				{ ABC + SEPARATOR + DEF, ABC + SEPARATOR + DEF + SEPARATOR + _123 },
+				{ ABC + SEPARATOR + DEF + SEPARATOR + _123, ABC + SEPARATOR + DEF },
+				{ ABC + SEPARATOR + DEF, XYZ + SEPARATOR + _123 },
+				{ ABC, ABC } };
+		for (String[] input : inputs) {
+			assertArrayEquals(getDifferences(input[0], input[1]), getHistogramDifferences(input[0], input[1]));
+		}
+	}
+
+	@Test
+	public void testHistogramInsertedBlock() {
+		String a = "void a() {" + SEPARATOR + "  foo();" + SEPARATOR + "}" + SEPARATOR + SEPARATOR;
+		String b = "void b() {" + SEPARATOR + "  bar();" + SEPARATOR + "}";
+		String c = "void c() {" + SEPARATOR + "  bar();" + SEPARATOR + "}" + SEPARATOR + SEPARATOR;
+
+		RangeDifference[] result = getHistogramDifferences(a + b, a + c + b);
+
+		assertEquals(1, result.length);
+		assertEquals(0, result[0].leftLength());
+		assertEquals(4, result[0].rightLength());
+	}
+
+	@Test
+	public void testHistogramWithoutHashCodes() {
+		String s1 = ABC + SEPARATOR + DEF + SEPARATOR + XYZ;
+		String s2 = ABC + SEPARATOR + _123 + SEPARATOR + XYZ;
+		IRangeComparator comp1 = new UnhashedComparator(toRangeComparator(s1));
+		IRangeComparator comp2 = new UnhashedComparator(toRangeComparator(s2));
+
+		// comparators that cannot compute hash codes are compared with Myers' algorithm
+		RangeDifference[] result = RangeDifferencer.findDifferences(null, comp1, comp2, DiffAlgorithm.HISTOGRAM);
+
+		assertArrayEquals(RangeDifferencer.findDifferences(comp1, comp2), result);
+		assertEquals(1, result.length);
+		assertEquals(1, result[0].leftStart());
+		assertEquals(1, result[0].leftLength());
+	}
+
+	private RangeDifference[] getLineDifferences(String s1, String s2) throws IOException {
+		Path file1 = tempFolder.newFile().toPath();
+		Path file2 = tempFolder.newFile().toPath();
+		Files.write(file1, s1.getBytes(StandardCharsets.UTF_8));
+		Files.write(file2, s2.getBytes(StandardCharsets.UTF_8));
+		return RangeDifferencer.findLineDifferences(null, file1, file2);
+	}
+
+	@Test
+	public void testLineDifferencesSameAsHistogram() throws IOException {
+		String[][] inputs = {
+				{ ABC + "\n" + DEF + "\r\n" + XYZ, ABC + "\r" + DEF + "\n" + _123 + "\n" + XYZ }, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+				{ ABC + "\n" + DEF + "\n", ABC + "\n" + DEF }, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				{ ABC + "\n" + DEF, _123 + "\n" + ABC + "\r\n" + DEF + "\r\n" }, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				{ ABC + "\n\n" + DEF + "\n\n", DEF + "\n\n" + DEF + "\n" }, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				{ ABC + "\n" + DEF, XYZ + "\n" + _123 }, //$NON-NLS-1$ //$NON-NLS-2$
+				{ "", ABC }, //$NON-NLS-1$
+				{ ABC, ABC } };
+		for (String[] input : inputs) {
+			assertArrayEquals(getHistogramDifferences(input[0], input[1]), getLineDifferences(input[0], input[1]));
+		}
+	}
+
+	@Test
+	public void testLineDifferencesLargeFile() throws IOException {
+		// more changed lines than are compared at once
+		List<String> lines1 = new ArrayList<>();
+		for (int i = 0; i < 300000; i++) {
+			lines1.add(i % 7 == 0 ? "}" : "line " + i); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		List<String> lines2 = new ArrayList<>(lines1);
+		Random random = new Random(42);
+		for (int i = 0; i < 30000; i++) {
+			int index = random.nextInt(lines2.size());
+			if (random.nextBoolean())
+				lines2.remove(index);
+			else
+				lines2.add(index, "inserted " + i); //$NON-NLS-1$
+		}
+
+		RangeDifference[] result = getLineDifferences(String.join("\n", lines1), String.join("\r\n", lines2)); //$NON-NLS-1$ //$NON-NLS-2$
+
+		// the lines outside of the differences are the same
+		int index1 = 0, index2 = 0, changed = 0;
+		for (RangeDifference diff : result) {
+			assertEquals(diff.leftStart() - index1, diff.rightStart() - index2);
+			while (index1 < diff.leftStart()) {
+				assertEquals(lines1.get(index1++), lines2.get(index2++));
+			}
+			index1 = diff.leftEnd();
+			index2 = diff.rightEnd();
+			changed += diff.leftLength() + diff.rightLength();
+		}
+		assertEquals(lines1.size() - index1, lines2.size() - index2);
+		while (index1 < lines1.size()) {
+			assertEquals(lines1.get(index1++), lines2.get(index2++));
+		}
+		assertTrue(changed < 40000);
+	}
+
+	private static class UnhashedComparator implements IRangeComparator {
+		private final IRangeComparator comparator;
+
+		UnhashedComparator(IRangeComparator comparator) {
+			this.comparator = comparator;
+		}
+
+		@Override
+		public int getRangeCount() {
+			return comparator.getRangeCount();
+		}
+
+		@Override
+		public boolean rangesEqual(int thisIndex, IRangeComparator other, int otherIndex) {
+			return comparator.rangesEqual(thisIndex, ((UnhashedComparator) other).comparator, otherIndex);
+		}
+
+		@Override
+		public boolean skipRangeComparison(int length, int maxLength, IRangeComparator other) {
+			return false;
+		}
+	}
+
 }
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.compare.IStreamContentAccessor;
+import org.eclipse.compare.ITypedElement;
+import org.eclipse.compare.structuremergeviewer.DiffNode;
+import org.eclipse.compare.structuremergeviewer.Differencer;
+import org.eclipse.compare.structuremergeviewer.IDiffElement;
+import org.eclipse.compare.structuremergeviewer.IStructureComparator;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.swt.graphics.Image;
+import org.junit.Test;
+
+public class DifferencerTest {
+
+	private static class Node implements IStructureComparator, ITypedElement, IStreamContentAccessor {
+		private final String fName;
+		private final String fContents;
+		private final List<Node> fChildren;
+
+		Node(String name, String contents) {
+			fName= name;
+			fContents= contents;
+			fChildren= null;
+		}
+
+		Node(String name) {
+			fName= name;
+			fContents= null;
+			fChildren= new ArrayList<>();
+		}
+
+		Node add(Node child) {
+			fChildren.add(child);
+			return this;
+		}
+
+		@Override
+		public Object[] getChildren() {
+			return fChildren != null ? fChildren.toArray() : null;
+		}
+
+		@Override
+		public InputStream getContents() {
+			if (fContents == null)
+				return null;
+			return new ByteArrayInputStream(fContents.getBytes(StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public String getName() {
+			return fName;
+		}
+
+		@Override
+		public Image getImage() {
+			return null;
+		}
+
+		@Override
+		public String getType() {
+			return fChildren != null ? FOLDER_TYPE : UNKNOWN_TYPE;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Node && fName.equals(((Node) other).fName);
+		}
+
+		@Override
+		public int hashCode() {
+			return fName.hashCode();
+		}
+	}
+
+	/*
+	 * Creates folders with files, where every third file has other contents on
+	 * the given side, every fifth is missing on the given side and every
+	 * seventh has other contents on both sides.
+	 */
+	private static Node createTree(String name, int depth, String side) {
+		Node folder= new Node(name);
+		for (int i= 0; i < 10; i++) {
+			if (depth > 0) {
+				folder.add(createTree(name + '/' + i, depth - 1, side));
+			} else if (side == null || i % 5 != 0) {
+				String contents= "file " + name + i; //$NON-NLS-1$
+				if (side != null && (i % 3 == 0 || i % 7 == 0))
+					contents+= side;
+				folder.add(new Node(name + '/' + i, contents));
+			}
+		}
+		return folder;
+	}
+
+	private static void dump(IDiffElement element, StringBuilder sb) {
+		sb.append(element.getName()).append(' ').append(element.getKind()).append('\n');
+		if (element instanceof DiffNode) {
+			for (IDiffElement child : ((DiffNode) element).getChildren()) {
+				dump(child, sb);
+			}
+		}
+	}
+
+	private static String findDifferences(boolean threeWay, boolean parallel, Object ancestor, Object left, Object right) {
+		Differencer differencer= new Differencer();
+		differencer.setParallel(parallel);
+		Object result= differencer.findDifferences(threeWay, new NullProgressMonitor(), null, ancestor, left, right);
+		StringBuilder sb= new StringBuilder();
+		dump((IDiffElement) result, sb);
+		return sb.toString();
+	}
+
+	@Test
+	public void testParallelTwoWay() {
+		Node left= createTree("root", 3, null); //$NON-NLS-1$
+		Node right= createTree("root", 3, "right"); //$NON-NLS-1$ //$NON-NLS-2$
+		String serial= findDifferences(false, false, null, left, right);
+		assertEquals(serial, findDifferences(false, true, null, left, right));
+	}
+
+	@Test
+	public void testParallelThreeWay() {
+		Node ancestor= createTree("root", 3, null); //$NON-NLS-1$
+		Node left= createTree("root", 3, "left"); //$NON-NLS-1$ //$NON-NLS-2$
+		Node right= createTree("root", 3, "right"); //$NON-NLS-1$ //$NON-NLS-2$
+		String serial= findDifferences(true, false, ancestor, left, right);
+		assertEquals(serial, findDifferences(true, true, ancestor, left, right));
+	}
+
+	@Test
+	public void testParallelNoChange() {
+		Node left= createTree("root", 2, null); //$NON-NLS-1$
+		Node right= createTree("root", 2, null); //$NON-NLS-1$
+		Differencer differencer= new Differencer();
+		differencer.setParallel(true);
+		assertNull(differencer.findDifferences(false, new NullProgressMonitor(), null, null, left, right));
+	}
+}
@@ -0,0 +1,477 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.eclipse.compare.CompareConfiguration;
+import org.eclipse.compare.contentmergeviewer.IIgnoreWhitespaceContributor;
+import org.eclipse.compare.contentmergeviewer.ITokenComparator;
+import org.eclipse.compare.contentmergeviewer.TokenComparator;
+import org.eclipse.compare.internal.CompareUIPlugin;
+import org.eclipse.compare.internal.MergeViewerContentProvider;
+import org.eclipse.compare.internal.merge.DocumentMerger;
+import org.eclipse.compare.internal.merge.DocumentMerger.Diff;
+import org.eclipse.compare.internal.merge.DocumentMerger.IDocumentMergerInput;
+import org.eclipse.compare.internal.merge.DocumentMerger.IncrementalDiff;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.BadPositionCategoryException;
+import org.eclipse.jface.text.DefaultPositionUpdater;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.Position;
+import org.junit.Test;
+
+/**
+ * Tests that re-diffing the edited part of the documents with
+ * {@link DocumentMerger#createIncrementalDiff(Position, Position)} gives the
+ * same diffs as a diff of the whole documents.
+ */
+public class DocumentMergerTest {
+
+	private static final char ANCESTOR = MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR;
+	private static final char LEFT = MergeViewerContentProvider.LEFT_CONTRIBUTOR;
+	private static final char RIGHT = MergeViewerContentProvider.RIGHT_CONTRIBUTOR;
+	private static final char[] CONTRIBUTORS = { ANCESTOR, LEFT, RIGHT };
+
+	/** the category of the positions of the diffs in the documents */
+	private static final String DIFF_RANGE_CATEGORY = CompareUIPlugin.PLUGIN_ID + ".DIFF_RANGE_CATEGORY"; //$NON-NLS-1$
+
+	private static final int LINES = 40;
+
+	private static class MergerInput implements IDocumentMergerInput {
+		private final IDocument fAncestor;
+		private final IDocument fLeft;
+		private final IDocument fRight;
+		private final Position[] fRegions;
+		private final CompareConfiguration fConfiguration = new CompareConfiguration();
+
+		MergerInput(IDocument ancestor, IDocument left, IDocument right, Position[] regions) {
+			fAncestor = ancestor;
+			fLeft = left;
+			fRight = right;
+			fRegions = regions;
+		}
+
+		@Override
+		public IDocument getDocument(char contributor) {
+			switch (contributor) {
+			case MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR:
+				return fAncestor;
+			case MergeViewerContentProvider.LEFT_CONTRIBUTOR:
+				return fLeft;
+			case MergeViewerContentProvider.RIGHT_CONTRIBUTOR:
+				return fRight;
+			default:
+				return null;
+			}
+		}
+
+		@Override
+		public Position getRegion(char contributor) {
+			if (fRegions == null)
+				return null;
+			switch (contributor) {
+			case MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR:
+				return fRegions[0];
+			case MergeViewerContentProvider.LEFT_CONTRIBUTOR:
+				return fRegions[1];
+			case MergeViewerContentProvider.RIGHT_CONTRIBUTOR:
+				return fRegions[2];
+			default:
+				return null;
+			}
+		}
+
+		@Override
+		public boolean isIgnoreAncestor() {
+			return false;
+		}
+
+		@Override
+		public boolean isThreeWay() {
+			return fAncestor != null;
+		}
+
+		@Override
+		public CompareConfiguration getCompareConfiguration() {
+			return fConfiguration;
+		}
+
+		@Override
+		public ITokenComparator createTokenComparator(String s) {
+			return new TokenComparator(s);
+		}
+
+		@Override
+		public Optional<IIgnoreWhitespaceContributor> createIgnoreWhitespaceContributor(IDocument document) {
+			return Optional.empty();
+		}
+
+		@Override
+		public boolean isHunkOnLeft() {
+			return false;
+		}
+
+		@Override
+		public int getHunkStart() {
+			return 0;
+		}
+
+		@Override
+		public boolean isPatchHunk() {
+			return false;
+		}
+
+		@Override
+		public boolean isShowPseudoConflicts() {
+			return false;
+		}
+
+		@Override
+		public boolean isPatchHunkOk() {
+			return false;
+		}
+	}
+
+	/**
+	 * Keeps the positions of the diffs up to date like the text merge viewer
+	 * does, which never deletes them.
+	 */
+	private static class DiffPositionUpdater extends DefaultPositionUpdater {
+		DiffPositionUpdater() {
+			super(DIFF_RANGE_CATEGORY);
+		}
+
+		@Override
+		protected boolean notDeleted() {
+			return true;
+		}
+	}
+
+	private MergerInput fInput;
+	private DocumentMerger fMerger;
+
+	/*
+	 * Every so many lines differ, the lines are unique so that there is only one
+	 * way to match them.
+	 */
+	private static String createContents(String prefix, int changed, String suffix) {
+		StringBuilder sb = new StringBuilder(prefix);
+		for (int i = 0; i < LINES; i++) {
+			sb.append("line ").append(i); //$NON-NLS-1$
+			if (changed > 0 && i % changed == 0)
+				sb.append(" changed ").append(changed); //$NON-NLS-1$
+			sb.append('\n');
+		}
+		return sb.append(suffix).toString();
+	}
+
+	private void createMerger(String ancestor, String left, String right, boolean regions) throws CoreException {
+		IDocument ancestorDoc = ancestor != null ? new Document(ancestor) : null;
+		IDocument leftDoc = new Document(left);
+		IDocument rightDoc = new Document(right);
+		Position[] regionPositions = null;
+		if (regions) {
+			regionPositions = new Position[] { createRegion(ancestorDoc), createRegion(leftDoc), createRegion(rightDoc) };
+		}
+		fInput = new MergerInput(ancestorDoc, leftDoc, rightDoc, regionPositions);
+		fMerger = new DocumentMerger(fInput);
+		fMerger.doDiff();
+		for (char contributor : CONTRIBUTORS) {
+			IDocument doc = fInput.getDocument(contributor);
+			if (doc != null)
+				doc.addPositionUpdater(new DiffPositionUpdater());
+		}
+		assertTrue(fMerger.changesCount() > 0);
+	}
+
+	/*
+	 * The region is everything but the first and the last line.
+	 */
+	private static Position createRegion(IDocument doc) {
+		if (doc == null)
+			return null;
+		try {
+			int start = doc.getLineOffset(1);
+			Position region = new Position(start, doc.getLineOffset(doc.getNumberOfLines() - 2) - start);
+			doc.addPosition(region);
+			return region;
+		} catch (BadLocationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/*
+	 * Replaces text in the document and returns the edited region.
+	 */
+	private Position replace(char contributor, int offset, int length, String text) throws BadLocationException {
+		fInput.getDocument(contributor).replace(offset, length, text);
+		return new Position(offset, text.length());
+	}
+
+	private int getLineOffset(char contributor, int line) throws BadLocationException {
+		return fInput.getDocument(contributor).getLineOffset(line);
+	}
+
+	/*
+	 * Re-diffs the edited regions and checks the diffs against a diff of the
+	 * whole documents.
+	 */
+	private void assertIncrementalDiff(Position leftEdit, Position rightEdit) throws CoreException {
+		IncrementalDiff diff = fMerger.createIncrementalDiff(leftEdit, rightEdit);
+		assertNotNull(diff);
+		List<Set<Position>> before = new ArrayList<>();
+		for (char contributor : CONTRIBUTORS) {
+			before.add(getDiffPositions(contributor));
+		}
+		diff.run(new NullProgressMonitor());
+		assertTrue(diff.apply());
+		assertPositions(before);
+
+		MergerInput input = new MergerInput(copy(ANCESTOR), copy(LEFT), copy(RIGHT), fInput.fRegions == null ? null
+				: new Position[] { copyRegion(ANCESTOR), copyRegion(LEFT), copyRegion(RIGHT) });
+		DocumentMerger expected = new DocumentMerger(input);
+		expected.doDiff();
+		assertEquals(describe(expected.rangesIterator()), describe(fMerger.rangesIterator()));
+		assertEquals(describe(expected.changesIterator()), describe(fMerger.changesIterator()));
+	}
+
+	private IDocument copy(char contributor) {
+		IDocument doc = fInput.getDocument(contributor);
+		return doc != null ? new Document(doc.get()) : null;
+	}
+
+	private Position copyRegion(char contributor) {
+		Position region = fInput.getRegion(contributor);
+		return region != null ? new Position(region.offset, region.length) : null;
+	}
+
+	private static String describe(Iterator<Diff> diffs) {
+		StringBuilder sb = new StringBuilder();
+		while (diffs.hasNext()) {
+			describe(diffs.next(), sb, ""); //$NON-NLS-1$
+		}
+		return sb.toString();
+	}
+
+	private static void describe(Diff diff, StringBuilder sb, String indent) {
+		sb.append(indent).append(diff.getKind());
+		for (char contributor : CONTRIBUTORS) {
+			Position p = diff.getPosition(contributor);
+			if (p != null)
+				sb.append(' ').append(contributor).append(p.offset).append('+').append(p.length);
+		}
+		sb.append('\n');
+		if (diff.hasChildren()) {
+			for (Iterator<Diff> children = diff.childIterator(); children.hasNext();) {
+				describe(children.next(), sb, indent + "  "); //$NON-NLS-1$
+			}
+		}
+	}
+
+	private Set<Position> getDiffPositions(char contributor) {
+		Set<Position> positions = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Iterator<Diff> diffs = fMerger.rangesIterator(); diffs.hasNext();) {
+			addPositions(diffs.next(), contributor, positions);
+		}
+		return positions;
+	}
+
+	/*
+	 * The documents keep the positions of the diffs, but not those of the
+	 * replaced diffs.
+	 */
+	private void assertPositions(List<Set<Position>> replaced) {
+		for (int i = 0; i < CONTRIBUTORS.length; i++) {
+			IDocument doc = fInput.getDocument(CONTRIBUTORS[i]);
+			if (doc == null)
+				continue;
+			Set<Position> positions = Collections.newSetFromMap(new IdentityHashMap<>());
+			try {
+				Collections.addAll(positions, doc.getPositions(DIFF_RANGE_CATEGORY));
+			} catch (BadPositionCategoryException e) {
+				throw new IllegalStateException(e);
+			}
+			Set<Position> diffPositions = getDiffPositions(CONTRIBUTORS[i]);
+			for (Position p : diffPositions) {
+				assertTrue(positions.contains(p));
+				assertFalse(p.isDeleted());
+			}
+			for (Position p : replaced.get(i)) {
+				if (!diffPositions.contains(p))
+					assertFalse(positions.contains(p));
+			}
+		}
+	}
+
+	private static void addPositions(Diff diff, char contributor, Set<Position> positions) {
+		positions.add(diff.getPosition(contributor));
+		if (diff.hasChildren()) {
+			for (Iterator<Diff> children = diff.childIterator(); children.hasNext();) {
+				addPositions(children.next(), contributor, positions);
+			}
+		}
+	}
+
+	@Test
+	public void testTypingBetweenChanges() throws Exception {
+		createMerger(null, createContents("", 0, ""), createContents("", 7, ""), false); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		int offset = getLineOffset(LEFT, 10) + 2;
+		for (int i = 0; i < 5; i++) {
+			assertIncrementalDiff(replace(LEFT, offset + i, 0, "x"), null); //$NON-NLS-1$
+		}
+		// a new line, then remove it again
+		Position edit = replace(LEFT, getLineOffset(LEFT, 18), 0, "inserted\n"); //$NON-NLS-1$
+		assertIncrementalDiff(edit, null);
+		assertIncrementalDiff(replace(LEFT, edit.offset, edit.length, ""), null); //$NON-NLS-1$
+		// edit both sides before re-diffing
+		Position leftEdit = replace(LEFT, getLineOffset(LEFT, 30), 0, "left "); //$NON-NLS-1$
+		Position rightEdit = replace(RIGHT, getLineOffset(RIGHT, 23), 0, "right\n"); //$NON-NLS-1$
+		assertIncrementalDiff(leftEdit, rightEdit);
+	}
+
+	@Test
+	public void testChangingChanges() throws Exception {
+		createMerger(null, createContents("", 0, ""), createContents("", 5, ""), false); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		// the changed line on the right, up to its line delimiter
+		int offset = getLineOffset(RIGHT, 15) + "line 15".length(); //$NON-NLS-1$
+		assertIncrementalDiff(replace(RIGHT, offset, " changed 5".length(), " edited"), null); //$NON-NLS-1$ //$NON-NLS-2$
+		assertIncrementalDiff(null, replace(RIGHT, getLineOffset(RIGHT, 25), 0, "more\nlines\n")); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testDeletionReachingUnchangedLines() throws Exception {
+		createMerger(null, createContents("", 0, ""), createContents("", 10, ""), false); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		// from within the changed line into the unchanged lines after it
+		int start = getLineOffset(RIGHT, 10) + 3;
+		assertIncrementalDiff(null, replace(RIGHT, start, getLineOffset(RIGHT, 12) + 3 - start, "")); //$NON-NLS-1$
+		// all unchanged lines between two changes
+		start = getLineOffset(LEFT, 21);
+		assertIncrementalDiff(replace(LEFT, start, getLineOffset(LEFT, 30) - start, ""), null); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testEditingFirstAndLastDiff() throws Exception {
+		createMerger(null, createContents("", 0, ""), createContents("", 9, ""), false); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		assertIncrementalDiff(replace(LEFT, 0, 0, "first\n"), null); //$NON-NLS-1$
+		assertIncrementalDiff(null, replace(RIGHT, 0, 4, "LINE")); //$NON-NLS-1$
+		IDocument left = fInput.getDocument(LEFT);
+		assertIncrementalDiff(replace(LEFT, left.getLength(), 0, "last\n"), null); //$NON-NLS-1$
+		IDocument right = fInput.getDocument(RIGHT);
+		int start = getLineOffset(RIGHT, right.getNumberOfLines() - 3);
+		assertIncrementalDiff(null, replace(RIGHT, start, right.getLength() - start, "")); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testThreeWay() throws Exception {
+		createMerger(createContents("", 0, ""), createContents("", 6, ""), createContents("", 8, ""), false); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+		assertIncrementalDiff(replace(LEFT, getLineOffset(LEFT, 13), 0, "left "), null); //$NON-NLS-1$
+		assertIncrementalDiff(null, replace(RIGHT, getLineOffset(RIGHT, 13), 0, "right ")); //$NON-NLS-1$
+		// a conflict
+		assertIncrementalDiff(replace(LEFT, getLineOffset(LEFT, 20), 0, "both\n"), //$NON-NLS-1$
+				replace(RIGHT, getLineOffset(RIGHT, 20), 0, "both\n")); //$NON-NLS-1$
+		int start = getLineOffset(LEFT, 30);
+		assertIncrementalDiff(replace(LEFT, start, getLineOffset(LEFT, 33) - start, ""), null); //$NON-NLS-1$
+		assertIncrementalDiff(replace(LEFT, 0, 0, "first\n"), null); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testRegion() throws Exception {
+		createMerger(null, createContents("left header\n", 0, "left footer\n"), //$NON-NLS-1$ //$NON-NLS-2$
+				createContents("right header\n", 4, "right footer\n"), true); //$NON-NLS-1$ //$NON-NLS-2$
+		assertIncrementalDiff(replace(LEFT, getLineOffset(LEFT, 10) + 2, 0, "x"), null); //$NON-NLS-1$
+		assertIncrementalDiff(null, replace(RIGHT, getLineOffset(RIGHT, 22), 0, "inserted\n")); //$NON-NLS-1$
+
+		// the lines of a region are not counted like those of a whole document
+		replace(LEFT, getLineOffset(LEFT, 1), 0, "x"); //$NON-NLS-1$
+		assertNull(fMerger.createIncrementalDiff(new Position(getLineOffset(LEFT, 1), 1), null));
+	}
+
+	@Test
+	public void testResolvedDiff() throws Exception {
+		createMerger(null, createContents("", 0, ""), createContents("", 10, ""), false); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		Diff diff = fMerger.findDiff(LEFT, new Position(getLineOffset(LEFT, 20), 1));
+		assertNotNull(diff);
+		assertTrue(fMerger.copy(diff, false));
+		assertTrue(diff.isResolved());
+
+		// the part around a resolved diff is left to the next diff
+		Position edit = replace(LEFT, diff.getPosition(LEFT).offset, 0, "x"); //$NON-NLS-1$
+		assertNull(fMerger.createIncrementalDiff(edit, null));
+		// other parts can still be re-diffed, the resolved diff is kept
+		IncrementalDiff other = fMerger.createIncrementalDiff(replace(LEFT, getLineOffset(LEFT, 35), 0, "x"), null); //$NON-NLS-1$
+		assertNotNull(other);
+		other.run(new NullProgressMonitor());
+		assertTrue(other.apply());
+		assertTrue(diff.isResolved());
+		boolean found = false;
+		for (Iterator<Diff> iterator = fMerger.changesIterator(); iterator.hasNext();) {
+			found |= iterator.next() == diff;
+		}
+		assertTrue(found);
+	}
+
+	@Test
+	public void testOutdatedIncrementalDiff() throws Exception {
+		createMerger(null, createContents("", 0, ""), createContents("", 10, ""), false); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		List<Diff> changes = new ArrayList<>();
+		fMerger.changesIterator().forEachRemaining(changes::add);
+
+		// edited again while the re-diff was running
+		IncrementalDiff diff = fMerger.createIncrementalDiff(replace(LEFT, getLineOffset(LEFT, 15), 0, "x"), null); //$NON-NLS-1$
+		assertNotNull(diff);
+		replace(LEFT, getLineOffset(LEFT, 15), 0, "y"); //$NON-NLS-1$
+		diff.run(new NullProgressMonitor());
+		assertFalse(diff.apply());
+		assertSameChanges(changes);
+
+		// not run
+		diff = fMerger.createIncrementalDiff(new Position(getLineOffset(LEFT, 15), 2), null);
+		assertNotNull(diff);
+		assertFalse(diff.apply());
+		assertSameChanges(changes);
+
+		// diffed again as a whole in the meantime
+		diff.run(new NullProgressMonitor());
+		fMerger.doDiff();
+		changes.clear();
+		fMerger.changesIterator().forEachRemaining(changes::add);
+		assertFalse(diff.apply());
+		assertSameChanges(changes);
+	}
+
+	private void assertSameChanges(List<Diff> changes) {
+		Iterator<Diff> iterator = fMerger.changesIterator();
+		for (Diff change : changes) {
+			assertSame(change, iterator.next());
+		}
+		assertFalse(iterator.hasNext());
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2018 IBM Corporation and others.
+ * Copyright (c) 2005, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,13 +14,16 @@
 package org.eclipse.compare.tests;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.util.ArrayList;
 
 import org.eclipse.compare.internal.Utilities;
+import org.eclipse.compare.internal.core.CompareSettings;
 import org.eclipse.compare.internal.core.patch.FilePatch2;
 import org.eclipse.compare.internal.core.patch.FileDiffResult;
 import org.eclipse.compare.internal.core.patch.Hunk;
@@ -214,6 +217,53 @@ public class FileDiffResultTest extends WorkspaceTest {
 		}
 	}
 
+	public void testGuessFuzzFactorInParallel() throws CoreException,
+			IOException {
+		int count = 60;
+		String[] names = new String[count];
+		for (int i = 0; i < count; i++) {
+			names[i] = "file" + i + ".txt";
+		}
+		IProject project = createProject("FileDiffResultTest", names);
+		StringBuilder patch = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			// the first context lines of some files were changed after the
+			// patch was created, one file needs the highest fuzz
+			StringBuilder contents = new StringBuilder();
+			for (int j = 1; j <= 10; j++) {
+				boolean changed = (i % 5 == 0 && j == 4)
+						|| (i == 37 && (j == 4 || j == 5));
+				contents.append(changed ? "changed " : "line ").append(j)
+						.append('\n');
+			}
+			project.getFile(names[i]).setContents(
+					new ByteArrayInputStream(contents.toString().getBytes()),
+					true, false, null);
+			patch.append("--- " + names[i] + "\n");
+			patch.append("+++ " + names[i] + "\n");
+			patch.append("@@ -4,5 +4,5 @@\n");
+			patch.append(" line 4\n");
+			patch.append(" line 5\n");
+			patch.append("-line 6\n");
+			patch.append("+patched 6\n");
+			patch.append(" line 7\n");
+			patch.append(" line 8\n");
+		}
+
+		CompareSettings settings = CompareSettings.getDefault();
+		int serial;
+		try {
+			settings.setParallelismDisabled(true);
+			serial = guessFuzzFactor(project, patch.toString());
+		} finally {
+			settings.setParallelismDisabled(false);
+		}
+		int parallel = guessFuzzFactor(project, patch.toString());
+
+		assertEquals(2, serial);
+		assertEquals(serial, parallel);
+	}
+
 	// utility methods
 
 	/**
@@ -227,6 +277,16 @@ public class FileDiffResultTest extends WorkspaceTest {
 		}
 	}
 
+	private int guessFuzzFactor(IProject project, String patch)
+			throws IOException {
+		Patcher patcher = new Patcher();
+		patcher.parse(new BufferedReader(new StringReader(patch)));
+		patcher.setTarget(project);
+		// guess the fuzz up to the maximum, like the wizard does
+		patcher.setFuzz(-1);
+		return patcher.guessFuzzFactor(nullProgressMonitor);
+	}
+
 	/**
 	 * @param project
 	 *            The project for which the patch is prepared.
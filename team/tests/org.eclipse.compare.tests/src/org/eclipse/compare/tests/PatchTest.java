@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,9 +13,11 @@
  *******************************************************************************/
 package org.eclipse.compare.tests;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -144,6 +146,63 @@ public class PatchTest {
 		assertFalse(IFilePatch.DATE_UNKNOWN == patches[0].getAfterDate());
 	}
 
+	@Test
+	public void testNextDiff() throws IOException {
+		PatchReader patchReader = new PatchReader();
+		patchReader.parse(PatchUtils.getReader("patch_workspacePatchMod.txt"));
+		FilePatch2[] expected = patchReader.getAdjustedDiffs();
+		assertEquals(3, expected.length);
+
+		PatchReader streamReader = new PatchReader();
+		streamReader.start(PatchUtils.getReader("patch_workspacePatchMod.txt"));
+		for (FilePatch2 diff : expected) {
+			FilePatch2 actual = streamReader.nextDiff();
+			assertNotNull(actual);
+			assertEquals(diff.getPath(false), actual.getPath(false));
+			assertEquals(diff.getPath(true), actual.getPath(true));
+			assertEquals(diff.getHunks().length, actual.getHunks().length);
+			for (int i = 0; i < diff.getHunks().length; i++) {
+				assertArrayEquals(((Hunk) diff.getHunks()[i]).getLines(), ((Hunk) actual.getHunks()[i]).getLines());
+			}
+		}
+		assertNull(streamReader.nextDiff());
+		assertTrue(streamReader.isWorkspacePatch());
+	}
+
+	@Test
+	public void testNextDiffGitPatch() throws IOException, CoreException {
+		PatchReader patchReader = new PatchReader();
+		patchReader.parse(PatchUtils.getReader("patch_gitHeaders.txt"));
+		FilePatch2[] expected = patchReader.getAdjustedDiffs();
+		assertEquals(3, expected.length);
+
+		PatchReader streamReader = new PatchReader();
+		streamReader.start(PatchUtils.getReader("patch_gitHeaders.txt"));
+		for (FilePatch2 diff : expected) {
+			FilePatch2 actual = streamReader.nextDiff();
+			assertNotNull(actual);
+			assertEquals(diff.getPath(false), actual.getPath(false));
+			assertEquals(diff.getPath(true), actual.getPath(true));
+			assertNotNull(actual.getHeader());
+			assertEquals(diff.getHeader(), actual.getHeader());
+			assertEquals(diff.getHunks().length, actual.getHunks().length);
+			for (int i = 0; i < diff.getHunks().length; i++) {
+				assertArrayEquals(((Hunk) diff.getHunks()[i]).getLines(), ((Hunk) actual.getHunks()[i]).getLines());
+			}
+		}
+		assertNull(streamReader.nextDiff());
+		assertFalse(streamReader.isWorkspacePatch());
+		assertTrue(streamReader.isGitPatch());
+
+		// the headless API reads the file diffs one at a time
+		IFilePatch[] patches = ApplyPatchOperation.parsePatch(new StringStorage("patch_gitHeaders.txt"));
+		assertEquals(expected.length, patches.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i].getHeader(), patches[i].getHeader());
+			assertEquals(expected[i].getHunks().length, patches[i].getHunks().length);
+		}
+	}
+
 	// Test creation of new workspace patch
 	@Test
 	public void testWorkspacePatch_Create() {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 IBM Corporation and others.
+ * Copyright (c) 2010, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,9 +14,16 @@
 package org.eclipse.compare.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 import org.eclipse.compare.contentmergeviewer.ITokenComparator;
 import org.eclipse.compare.internal.DocLineComparator;
+import org.eclipse.compare.internal.core.CompareSettings;
+import org.eclipse.compare.rangedifferencer.DiffAlgorithm;
 import org.eclipse.compare.rangedifferencer.RangeDifference;
 import org.eclipse.compare.rangedifferencer.RangeDifferencer;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -127,11 +134,76 @@ public class RangeDifferencerThreeWayDiffTest {
 		assertEquals(RangeDifference.RIGHT, diffs[2].kind());
 	}
 
+	@Test
+	public void testHistogramInsertConflict() {
+		String a = "A" + S + "B" + S + "C" + S + "D"; //$NON-NLS-1$
+		String l = "A" + S + "B" + S + "x" + S + "C" + S + "D"; //$NON-NLS-1$
+		String r = "A" + S + "B" + S + "y" + S + "C" + S + "D"; //$NON-NLS-1$
+
+		RangeDifference[] diffs = findRange(a, l, r, DiffAlgorithm.HISTOGRAM);
+
+		assertEquals(3, diffs.length);
+		assertEquals(RangeDifference.NOCHANGE, diffs[0].kind());
+		assertEquals(RangeDifference.CONFLICT, diffs[1].kind());
+		assertEquals(RangeDifference.NOCHANGE, diffs[2].kind());
+	}
+
+	@Test
+	public void testHistogramParallelSameAsSerial() {
+		// long enough for both sides to be compared with the ancestor in parallel
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < 30000; i++) {
+			lines.add(i % 7 == 0 ? "}" : "line " + i); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		String a = String.join(S, lines);
+		String l = String.join(S, edit(lines, 1));
+		String r = String.join(S, edit(lines, 2));
+
+		CompareSettings settings = CompareSettings.getDefault();
+		RangeDifference[] serial;
+		try {
+			settings.setParallelismDisabled(true);
+			serial = findRange(a, l, r, DiffAlgorithm.HISTOGRAM);
+		} finally {
+			settings.setParallelismDisabled(false);
+		}
+		RangeDifference[] parallel = findRange(a, l, r, DiffAlgorithm.HISTOGRAM);
+
+		assertTrue(serial.length > 1);
+		assertEquals(serial.length, parallel.length);
+		for (int i = 0; i < serial.length; i++) {
+			assertEquals(serial[i].kind(), parallel[i].kind());
+			assertEquals(serial[i].ancestorStart(), parallel[i].ancestorStart());
+			assertEquals(serial[i].ancestorLength(), parallel[i].ancestorLength());
+			assertEquals(serial[i].leftStart(), parallel[i].leftStart());
+			assertEquals(serial[i].leftLength(), parallel[i].leftLength());
+			assertEquals(serial[i].rightStart(), parallel[i].rightStart());
+			assertEquals(serial[i].rightLength(), parallel[i].rightLength());
+		}
+	}
+
+	private List<String> edit(List<String> lines, long seed) {
+		List<String> result = new ArrayList<>(lines);
+		Random random = new Random(seed);
+		for (int i = 0; i < 1000; i++) {
+			int index = random.nextInt(result.size());
+			if (random.nextBoolean())
+				result.remove(index);
+			else
+				result.add(index, "inserted " + seed + " " + i); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return result;
+	}
+
 	private RangeDifference[] findRange(String a, String l, String r) {
+		return findRange(a, l, r, DiffAlgorithm.MYERS);
+	}
+
+	private RangeDifference[] findRange(String a, String l, String r, DiffAlgorithm algorithm) {
 		ITokenComparator ancestor = new DocLineComparator(new Document(a), null, false);
 		ITokenComparator left = new DocLineComparator(new Document(l), null, false);
 		ITokenComparator right = new DocLineComparator(new Document(r), null, false);
-		return RangeDifferencer.findRanges(new NullProgressMonitor(), ancestor, left, right);
+		return RangeDifferencer.findRanges(new NullProgressMonitor(), ancestor, left, right, algorithm);
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.tests;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Tests the comparison of workspace files by size and digest, which
+ * <code>ResourceCompareInput</code> uses for the files of a compare.
+ */
+public class ResourceContentDigestsTest extends WorkspaceTest {
+
+	private static final String CLASS_NAME = "org.eclipse.compare.internal.ResourceContentDigests";
+
+	private static final String CONTENTS = "these are my contents";
+
+	/** the same length as {@link #CONTENTS} */
+	private static final String OTHER_CONTENTS = "these are my CONTENTS";
+
+	private IProject project;
+
+	public ResourceContentDigestsTest() {
+		super();
+	}
+
+	public ResourceContentDigestsTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		project = createProject("ResourceContentDigestsTest", new String[0]);
+		// forget the digests of the files of other tests
+		getDigests().clear();
+	}
+
+	private IFile createFile(String name, String contents) throws CoreException {
+		IFile file = project.getFile(name);
+		file.create(new ByteArrayInputStream(contents.getBytes()), true, null);
+		return file;
+	}
+
+	private static void setContents(IFile file, String contents) throws CoreException {
+		file.setContents(new ByteArrayInputStream(contents.getBytes()), true, false, null);
+	}
+
+	private static Boolean contentsEqual(IFile file1, IFile file2) throws ReflectiveOperationException {
+		Method method = Class.forName(CLASS_NAME).getDeclaredMethod("contentsEqual", IFile.class, IFile.class);
+		method.setAccessible(true);
+		return (Boolean) method.invoke(null, file1, file2);
+	}
+
+	private static Map<?, ?> getDigests() throws ReflectiveOperationException {
+		Field field = Class.forName(CLASS_NAME).getDeclaredField("fDigests");
+		field.setAccessible(true);
+		return (Map<?, ?>) field.get(null);
+	}
+
+	/*
+	 * Returns the remembered digest of the given file, or null if there is none.
+	 */
+	private static Object getDigest(IFile file) throws ReflectiveOperationException {
+		return getDigests().get(file.getFullPath().toString());
+	}
+
+	public void testEqualFiles() throws Exception {
+		IFile file1 = createFile("file1.txt", CONTENTS);
+		IFile file2 = createFile("file2.txt", CONTENTS);
+
+		assertEquals(Boolean.TRUE, contentsEqual(file1, file2));
+		// the digests are remembered when the files are equal
+		assertNotNull(getDigest(file1));
+		assertNotNull(getDigest(file2));
+	}
+
+	public void testUnequalFiles() throws Exception {
+		IFile file1 = createFile("file1.txt", CONTENTS);
+		IFile file2 = createFile("file2.txt", OTHER_CONTENTS);
+
+		assertEquals(Boolean.FALSE, contentsEqual(file1, file2));
+		// the digests are not remembered when the files differ
+		assertNull(getDigest(file1));
+		assertNull(getDigest(file2));
+	}
+
+	public void testDifferentSizes() throws Exception {
+		IFile file1 = createFile("file1.txt", CONTENTS);
+		IFile file2 = createFile("file2.txt", CONTENTS);
+		IFile longer = createFile("longer.txt", CONTENTS + "\n");
+		assertEquals(Boolean.TRUE, contentsEqual(file1, file2));
+
+		// the file isn't digested although the other one has a digest
+		assertEquals(Boolean.FALSE, contentsEqual(file1, longer));
+		assertNull(getDigest(longer));
+		assertEquals(Boolean.FALSE, contentsEqual(longer, file2));
+		assertNull(getDigest(longer));
+	}
+
+	public void testCachedDigests() throws Exception {
+		IFile file1 = createFile("file1.txt", CONTENTS);
+		IFile file2 = createFile("file2.txt", CONTENTS);
+		assertEquals(Boolean.TRUE, contentsEqual(file1, file2));
+		Object digest1 = getDigest(file1);
+		Object digest2 = getDigest(file2);
+
+		// unmodified files aren't digested again
+		assertEquals(Boolean.TRUE, contentsEqual(file1, file2));
+		assertEquals(Boolean.TRUE, contentsEqual(file2, file1));
+		assertSame(digest1, getDigest(file1));
+		assertSame(digest2, getDigest(file2));
+	}
+
+	public void testDigestOneSide() throws Exception {
+		IFile file1 = createFile("file1.txt", CONTENTS);
+		IFile file2 = createFile("file2.txt", CONTENTS);
+		IFile equal = createFile("equal.txt", CONTENTS);
+		IFile other = createFile("other.txt", OTHER_CONTENTS);
+		assertEquals(Boolean.TRUE, contentsEqual(file1, file2));
+		Object digest1 = getDigest(file1);
+
+		// only the file without a digest is digested
+		assertEquals(Boolean.TRUE, contentsEqual(file1, equal));
+		assertSame(digest1, getDigest(file1));
+		assertNotNull(getDigest(equal));
+		assertEquals(Boolean.FALSE, contentsEqual(other, file1));
+		assertSame(digest1, getDigest(file1));
+		assertNotNull(getDigest(other));
+	}
+
+	public void testModifiedFile() throws Exception {
+		IFile file1 = createFile("file1.txt", CONTENTS);
+		IFile file2 = createFile("file2.txt", CONTENTS);
+		assertEquals(Boolean.TRUE, contentsEqual(file1, file2));
+		Object digest1 = getDigest(file1);
+
+		// the remembered digest doesn't apply to the new contents of the same length
+		setContents(file1, OTHER_CONTENTS);
+		assertEquals(Boolean.FALSE, contentsEqual(file1, file2));
+		assertNotSame(digest1, getDigest(file1));
+
+		setContents(file1, CONTENTS);
+		assertEquals(Boolean.TRUE, contentsEqual(file1, file2));
+	}
+
+	public void testRecreatedFile() throws Exception {
+		IFile file1 = createFile("file1.txt", CONTENTS);
+		IFile file2 = createFile("file2.txt", CONTENTS);
+		assertEquals(Boolean.TRUE, contentsEqual(file1, file2));
+		Object digest1 = getDigest(file1);
+
+		// a file created again at the same path is digested again
+		file1.delete(true, null);
+		file1 = createFile("file1.txt", OTHER_CONTENTS);
+		assertEquals(Boolean.FALSE, contentsEqual(file1, file2));
+		assertNotSame(digest1, getDigest(file1));
+
+		file1.delete(true, null);
+		file1 = createFile("file1.txt", CONTENTS);
+		assertEquals(Boolean.TRUE, contentsEqual(file1, file2));
+	}
+}
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.tests.performance;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import org.eclipse.compare.CompareConfiguration;
+import org.eclipse.compare.contentmergeviewer.IIgnoreWhitespaceContributor;
+import org.eclipse.compare.contentmergeviewer.ITokenComparator;
+import org.eclipse.compare.contentmergeviewer.TokenComparator;
+import org.eclipse.compare.internal.CompareUIPlugin;
+import org.eclipse.compare.internal.MergeViewerContentProvider;
+import org.eclipse.compare.internal.merge.DocumentMerger;
+import org.eclipse.compare.internal.merge.DocumentMerger.Diff;
+import org.eclipse.compare.internal.merge.DocumentMerger.IDocumentMergerInput;
+import org.eclipse.compare.internal.merge.DocumentMerger.IncrementalDiff;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DefaultPositionUpdater;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.Position;
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.PerformanceTestCase;
+
+public class IncrementalDiffTest extends PerformanceTestCase {
+
+	private static final int LINES= 50000;
+	/** every so many lines differ between the documents */
+	private static final int CHANGED= 100;
+	private static final int KEYSTROKES= 50;
+
+	/**
+	 * Keeps the diff positions up to date like the text merge viewer does.
+	 */
+	private static class DiffPositionUpdater extends DefaultPositionUpdater {
+		DiffPositionUpdater() {
+			super(CompareUIPlugin.PLUGIN_ID + ".DIFF_RANGE_CATEGORY"); //$NON-NLS-1$
+		}
+
+		@Override
+		protected boolean notDeleted() {
+			return true;
+		}
+	}
+
+	private static class MergerInput implements IDocumentMergerInput {
+		private final IDocument fLeft;
+		private final IDocument fRight;
+		private final CompareConfiguration fConfiguration= new CompareConfiguration();
+
+		MergerInput(IDocument left, IDocument right) {
+			fLeft= left;
+			fRight= right;
+		}
+
+		@Override
+		public IDocument getDocument(char contributor) {
+			switch (contributor) {
+			case MergeViewerContentProvider.LEFT_CONTRIBUTOR:
+				return fLeft;
+			case MergeViewerContentProvider.RIGHT_CONTRIBUTOR:
+				return fRight;
+			default:
+				return null;
+			}
+		}
+
+		@Override
+		public Position getRegion(char contributor) {
+			return null;
+		}
+
+		@Override
+		public boolean isIgnoreAncestor() {
+			return true;
+		}
+
+		@Override
+		public boolean isThreeWay() {
+			return false;
+		}
+
+		@Override
+		public CompareConfiguration getCompareConfiguration() {
+			return fConfiguration;
+		}
+
+		@Override
+		public ITokenComparator createTokenComparator(String s) {
+			return new TokenComparator(s);
+		}
+
+		@Override
+		public Optional<IIgnoreWhitespaceContributor> createIgnoreWhitespaceContributor(IDocument document) {
+			return Optional.empty();
+		}
+
+		@Override
+		public boolean isHunkOnLeft() {
+			return false;
+		}
+
+		@Override
+		public int getHunkStart() {
+			return 0;
+		}
+
+		@Override
+		public boolean isPatchHunk() {
+			return false;
+		}
+
+		@Override
+		public boolean isShowPseudoConflicts() {
+			return false;
+		}
+
+		@Override
+		public boolean isPatchHunkOk() {
+			return false;
+		}
+	}
+
+	public IncrementalDiffTest(String name) {
+		super(name);
+	}
+
+	private static IDocument createDocument(boolean changed) {
+		StringBuilder sb= new StringBuilder();
+		for (int i= 0; i < LINES; i++) {
+			sb.append("\tline ").append(i); //$NON-NLS-1$
+			if (changed && i % CHANGED == 0)
+				sb.append(" changed"); //$NON-NLS-1$
+			sb.append(";\n"); //$NON-NLS-1$
+		}
+		return new Document(sb.toString());
+	}
+
+	private static List<Position> getChanges(DocumentMerger merger) {
+		List<Position> changes= new ArrayList<>();
+		for (Iterator<Diff> iterator= merger.changesIterator(); iterator.hasNext();) {
+			Diff diff= iterator.next();
+			Position left= diff.getPosition(MergeViewerContentProvider.LEFT_CONTRIBUTOR);
+			Position right= diff.getPosition(MergeViewerContentProvider.RIGHT_CONTRIBUTOR);
+			changes.add(new Position(left.offset, left.length));
+			changes.add(new Position(right.offset, right.length));
+		}
+		return changes;
+	}
+
+	public void testTypingInLargeDocument() throws CoreException, BadLocationException {
+		tagAsSummary("Incremental diff per keystroke, 50000 lines", Dimension.ELAPSED_PROCESS); //$NON-NLS-1$
+
+		IDocument left= createDocument(false);
+		IDocument right= createDocument(true);
+		DocumentMerger merger= new DocumentMerger(new MergerInput(left, right));
+		merger.doDiff();
+		assertEquals(LINES / CHANGED, merger.changesCount());
+		left.addPositionUpdater(new DiffPositionUpdater());
+		right.addPositionUpdater(new DiffPositionUpdater());
+
+		// type into a line between two changes
+		int offset= left.getLineOffset(LINES / 2 + CHANGED / 2) + 1;
+		for (int i= 0; i < KEYSTROKES; i++) {
+			left.replace(offset + i, 0, "x"); //$NON-NLS-1$
+			startMeasuring();
+			IncrementalDiff diff= merger.createIncrementalDiff(new Position(offset + i, 1), null);
+			assertNotNull(diff);
+			diff.run(new NullProgressMonitor());
+			assertTrue(diff.apply());
+			stopMeasuring();
+		}
+		assertEquals(LINES / CHANGED + 1, merger.changesCount());
+
+		// the same changes as found by a diff of the whole documents
+		List<Position> changes= getChanges(merger);
+		merger.doDiff();
+		assertEquals(getChanges(merger), changes);
+
+		commitMeasurements();
+		assertPerformance();
+	}
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2023 Eclipse Foundation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Eclipse Foundation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.tests.performance;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.eclipse.compare.internal.core.patch.FilePatch2;
+import org.eclipse.compare.internal.core.patch.PatchReader;
+import org.eclipse.compare.patch.IFilePatchResult;
+import org.eclipse.compare.patch.PatchConfiguration;
+import org.eclipse.compare.patch.ReaderCreator;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.PerformanceTestCase;
+
+public class PatchApplyTest extends PerformanceTestCase {
+
+	private static final int FILES= 5000;
+	private static final int LINES= 1000;
+	private static final int HUNKS= 5;
+	/** the number of lines added before each hunk since the patch was created */
+	private static final int SHIFT= 20;
+
+	public PatchApplyTest(String name) {
+		super(name);
+	}
+
+	private String getLine(int file, int line) {
+		// many lines are the same, like in source code
+		if (line % 5 == 0)
+			return "\t}\n"; //$NON-NLS-1$
+		if (line % 7 == 0)
+			return "\n"; //$NON-NLS-1$
+		return "\tline " + line + " of file " + file + "\n"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	private int getChangedLine(int hunk) {
+		return hunk * LINES / (HUNKS + 1) + 1;
+	}
+
+	/*
+	 * Creates the contents of a file as it is now, with lines added before the
+	 * lines changed by each hunk.
+	 */
+	private String createContents(int file) {
+		StringBuilder sb= new StringBuilder();
+		int hunk= 1;
+		for (int i= 0; i < LINES; i++) {
+			if (hunk <= HUNKS && i == getChangedLine(hunk) - 10) {
+				for (int j= 0; j < SHIFT; j++) {
+					sb.append("\tadded ").append(j).append('\n'); //$NON-NLS-1$
+				}
+				hunk++;
+			}
+			sb.append(getLine(file, i));
+		}
+		return sb.toString();
+	}
+
+	/*
+	 * Creates a patch changing a few lines of each file, against the files as
+	 * they were before the lines were added.
+	 */
+	private String createPatch() {
+		StringBuilder sb= new StringBuilder();
+		for (int file= 0; file < FILES; file++) {
+			sb.append("--- src/File").append(file).append(".java\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			sb.append("+++ src/File").append(file).append(".java\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			for (int hunk= 1; hunk <= HUNKS; hunk++) {
+				int changed= getChangedLine(hunk);
+				sb.append("@@ -").append(changed - 2).append(",7 +").append(changed - 2).append(",7 @@\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				for (int i= changed - 3; i < changed; i++) {
+					sb.append(' ').append(getLine(file, i));
+				}
+				sb.append('-').append(getLine(file, changed));
+				sb.append("+\tchanged line ").append(changed).append('\n'); //$NON-NLS-1$
+				for (int i= changed + 1; i < changed + 4; i++) {
+					sb.append(' ').append(getLine(file, i));
+				}
+			}
+		}
+		return sb.toString();
+	}
+
+	private int applyAll(FilePatch2[] diffs, PatchConfiguration configuration) {
+		int matched= 0;
+		for (int i= 0; i < diffs.length; i++) {
+			String contents= createContents(i);
+			IFilePatchResult result= diffs[i].apply(new ReaderCreator() {
+				@Override
+				public Reader createReader() {
+					return new StringReader(contents);
+				}
+			}, configuration, new NullProgressMonitor());
+			if (result.hasMatches() && !result.hasRejects())
+				matched++;
+		}
+		return matched;
+	}
+
+	public void testApplyLargePatch() throws IOException {
+		tagAsSummary("Apply patch, 5000 files", Dimension.ELAPSED_PROCESS); //$NON-NLS-1$
+
+		PatchReader reader= new PatchReader();
+		reader.parse(new BufferedReader(new StringReader(createPatch())));
+		FilePatch2[] diffs= reader.getDiffs();
+		assertEquals(FILES, diffs.length);
+
+		PatchConfiguration configuration= new PatchConfiguration();
+		configuration.setFuzz(2);
+		configuration.setIgnoreWhitespace(true);
+
+		// a warm up run, all hunks have to be found after the added lines
+		assertEquals(FILES, applyAll(diffs, configuration));
+
+		for (int count= 0; count < 3; count++) {
+			startMeasuring();
+			applyAll(diffs, configuration);
+			stopMeasuring();
+		}
+
+		commitMeasurements();
+		assertPerformance();
+	}
+}
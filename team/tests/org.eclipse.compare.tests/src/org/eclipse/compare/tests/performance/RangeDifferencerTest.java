@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2009 IBM Corporation and others.
+ * Copyright (c) 2005, 2023 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,8 +13,13 @@
  *******************************************************************************/
 package org.eclipse.compare.tests.performance;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import org.eclipse.compare.contentmergeviewer.ITokenComparator;
 import org.eclipse.compare.internal.DocLineComparator;
+import org.eclipse.compare.rangedifferencer.DiffAlgorithm;
 import org.eclipse.compare.rangedifferencer.RangeDifference;
 import org.eclipse.compare.rangedifferencer.RangeDifferencer;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -96,4 +101,98 @@ public class RangeDifferencerTest extends PerformanceTestCase {
 		commitMeasurements();
 		assertPerformance();
 	}
+
+	/*
+	 * Creates the lines of a document with 100000 lines, many of which are not
+	 * unique, like in source code.
+	 */
+	private List<String> createLargeLines() {
+		List<String> lines= new ArrayList<>();
+		for (int i= 0; i < 100000; i++) {
+			if (i % 7 == 0)
+				lines.add("}"); //$NON-NLS-1$
+			else if (i % 11 == 0)
+				lines.add(""); //$NON-NLS-1$
+			else
+				lines.add("line " + i); //$NON-NLS-1$
+		}
+		return lines;
+	}
+
+	/*
+	 * Applies the given number of random deletions, insertions and changes to the
+	 * given lines.
+	 */
+	private List<String> edit(List<String> lines, int edits) {
+		List<String> result= new ArrayList<>(lines);
+		Random random= new Random(42);
+		for (int i= 0; i < edits; i++) {
+			int index= random.nextInt(result.size());
+			switch (random.nextInt(3)) {
+			case 0:
+				result.remove(index);
+				break;
+			case 1:
+				result.add(index, "inserted " + i); //$NON-NLS-1$
+				break;
+			default:
+				result.set(index, "changed " + i); //$NON-NLS-1$
+			}
+		}
+		return result;
+	}
+
+	private IDocument toDocument(List<String> lines) {
+		return new Document(String.join("\n", lines)); //$NON-NLS-1$
+	}
+
+	/*
+	 * Asserts that the lines outside of the differences are the same on both sides.
+	 */
+	private void assertUnchangedLinesEqual(List<String> leftLines, List<String> rightLines, RangeDifference[] diffs) {
+		int leftIndex= 0, rightIndex= 0;
+		for (RangeDifference diff : diffs) {
+			assertEquals(diff.leftStart() - leftIndex, diff.rightStart() - rightIndex);
+			while (leftIndex < diff.leftStart()) {
+				assertEquals(leftLines.get(leftIndex++), rightLines.get(rightIndex++));
+			}
+			leftIndex= diff.leftEnd();
+			rightIndex= diff.rightEnd();
+		}
+		assertEquals(leftLines.size() - leftIndex, rightLines.size() - rightIndex);
+		while (leftIndex < leftLines.size()) {
+			assertEquals(leftLines.get(leftIndex++), rightLines.get(rightIndex++));
+		}
+	}
+
+	private void runLargeDocument(DiffAlgorithm algorithm, String summary) {
+		tagAsSummary(summary, Dimension.ELAPSED_PROCESS);
+
+		List<String> lines= createLargeLines();
+		List<String> editedLines= edit(lines, 20000);
+		ITokenComparator left= new DocLineComparator(toDocument(lines), null, false);
+		ITokenComparator right= new DocLineComparator(toDocument(editedLines), null, false);
+
+		// a warm up run
+		RangeDifference[] diffs= RangeDifferencer.findDifferences(new NullProgressMonitor(), left, right, algorithm);
+		assertTrue(diffs.length > 0);
+		assertUnchangedLinesEqual(lines, editedLines, diffs);
+
+		for (int count= 0; count < 3; count++) {
+			startMeasuring();
+			RangeDifferencer.findDifferences(new NullProgressMonitor(), left, right, algorithm);
+			stopMeasuring();
+		}
+
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	public void testLargeDocumentMyers() {
+		runLargeDocument(DiffAlgorithm.MYERS, "2-way compare, 100000 lines, Myers"); //$NON-NLS-1$
+	}
+
+	public void testLargeDocumentHistogram() {
+		runLargeDocument(DiffAlgorithm.HISTOGRAM, "2-way compare, 100000 lines, histogram"); //$NON-NLS-1$
+	}
 }